@@ -0,0 +1,72 @@
+package com.kien.Jbook.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * ベンチマーク用のデータを生成して投入する
+ * シードが同じであれば毎回同じデータになるため、リリース間で結果を比較できる
+ */
+public class BookDataGenerator {
+    static final int PUBLISHER_COUNT = 100;
+    static final int USER_COUNT = 100;
+    private static final int BATCH_SIZE = 1000;
+    private static final String[] AUTHORS = {"山田太郎", "田中花子", "佐藤次郎", "鈴木一郎", "高橋美咲"};
+    private static final String[] TOPICS = {"Java", "Spring Boot", "MyBatis", "Kotlin", "SQL", "Docker"};
+
+    private final Random random;
+
+    public BookDataGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * 出版社・ユーザーを各100件、書籍をbookCount件投入する
+     * 書籍のIDは1からbookCountまでの連番となる
+     * @param jdbcTemplate
+     * @param bookCount
+     */
+    public void generate(JdbcTemplate jdbcTemplate, int bookCount) {
+        List<Object[]> publishers = new ArrayList<>();
+        for (int i = 1; i <= PUBLISHER_COUNT; i++) {
+            publishers.add(new Object[]{i, "出版社" + i, "シュッパンシャ" + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO publisher (id, name, name_kana) VALUES (?, ?, ?)", publishers);
+
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 1; i <= USER_COUNT; i++) {
+            users.add(new Object[]{i, "ユーザー" + i, "user" + i, "password"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO `user` (id, name, login_id, password) VALUES (?, ?, ?, ?)", users);
+
+        LocalDateTime base = LocalDateTime.of(2020, 1, 1, 0, 0);
+        List<Object[]> books = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= bookCount; i++) {
+            String topic = TOPICS[random.nextInt(TOPICS.length)];
+            Timestamp createdAt = Timestamp.valueOf(base.plusMinutes(random.nextInt(60 * 24 * 365 * 5)));
+            books.add(new Object[]{
+                    i,
+                    topic + "入門 第" + i + "版",
+                    "ニュウモン " + i,
+                    AUTHORS[random.nextInt(AUTHORS.length)],
+                    1 + random.nextInt(PUBLISHER_COUNT),
+                    1 + random.nextInt(USER_COUNT),
+                    500 + random.nextInt(50) * 100,
+                    createdAt,
+                    createdAt
+            });
+            if (books.size() == BATCH_SIZE || i == bookCount) {
+                jdbcTemplate.batchUpdate(
+                        "INSERT INTO books (id, title, title_kana, author, publisher_id, user_id, price, created_at, updated_at) "
+                                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                        books);
+                books.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.kien.Jbook.benchmark;
+
+import com.kien.Jbook.JbookApplication;
+import com.kien.Jbook.mapper.BookMapper;
+import com.kien.Jbook.service.BookService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * H2（MySQLモード）上でアプリケーションを起動し、BookDataGeneratorでデータを投入する
+ * Webサーバーは起動せず、Service・Mapperを直接呼び出す
+ */
+@State(Scope.Benchmark)
+public class BookDatabaseState {
+
+    @Param("10000")
+    public int bookCount;
+
+    @Param("false")
+    public boolean cacheEnabled;
+
+    ConfigurableApplicationContext context;
+    BookService bookService;
+    BookMapper bookMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // application.ymlのMySQL設定より優先させるため、コマンドライン引数として渡す
+        context = new SpringApplicationBuilder(JbookApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.sql.init.mode=always",
+                        "--spring.main.banner-mode=off",
+                        "--jbook.cache.book-view.enabled=" + cacheEnabled,
+                        "--logging.level.root=WARN"
+                );
+        new BookDataGenerator(42L).generate(context.getBean(JdbcTemplate.class), bookCount);
+        bookService = context.getBean(BookService.class);
+        bookMapper = context.getBean(BookMapper.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * 投入済みの書籍IDをランダムに返す
+     * @return
+     */
+    long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, bookCount + 1);
+    }
+}
@@ -0,0 +1,50 @@
+package com.kien.Jbook.benchmark;
+
+import com.kien.Jbook.model.dto.book.BookPageQuery;
+import com.kien.Jbook.model.dto.book.BookSort;
+import com.kien.Jbook.model.dto.book.BookView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BookMapperのステートメント単体（キャッシュ・バリデーションを通さない）
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookMapperBenchmark {
+    private static final int MULTI_GET_SIZE = 100;
+    private static final int PAGE_SIZE = 20;
+
+    @Benchmark
+    public BookView getById(BookDatabaseState state) {
+        return state.bookMapper.getById(state.randomId());
+    }
+
+    @Benchmark
+    public List<BookView> getByIds(BookDatabaseState state) {
+        List<Long> ids = new ArrayList<>(MULTI_GET_SIZE);
+        for (int i = 0; i < MULTI_GET_SIZE; i++) {
+            ids.add(state.randomId());
+        }
+        return state.bookMapper.getByIds(ids);
+    }
+
+    @Benchmark
+    public List<BookView> getPage(BookDatabaseState state) {
+        BookPageQuery query = new BookPageQuery(
+                BookSort.ID, state.randomId(), null, null, null, null, null, PAGE_SIZE + 1);
+        return state.bookMapper.getPage(query);
+    }
+}
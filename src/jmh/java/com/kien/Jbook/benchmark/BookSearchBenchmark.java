@@ -0,0 +1,86 @@
+package com.kien.Jbook.benchmark;
+
+import com.kien.Jbook.common.search.CompactTrie;
+import com.kien.Jbook.common.search.NGramIndex;
+import com.kien.Jbook.common.search.TextNormalizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 全文検索インデックス・入力補完のトライの検索（DBを使わずにインデックス単体を計測する）
+ * common: ほぼ全件が一致するクエリ、selective: 一部だけが一致するクエリ、kana: ひらがなでカナ列を検索
+ * suggest*: 入力途中の前方一致（1文字目・数文字目）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BookSearchBenchmark {
+    private static final String[] AUTHORS = {"山田太郎", "田中花子", "佐藤次郎", "鈴木一郎", "高橋美咲"};
+    private static final String[] TOPICS = {"Java", "Spring Boot", "MyBatis", "Kotlin", "SQL", "Docker"};
+    private static final String[] TOPICS_KANA = {"ジャバ", "スプリング ブート", "マイバティス", "コトリン", "エスキューエル", "ドッカー"};
+
+    @Param({"100000", "1000000"})
+    private int bookCount;
+
+    private NGramIndex index;
+    private CompactTrie trie;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        index = new NGramIndex(3, 2, 1);
+        List<CompactTrie.Entry> entries = new ArrayList<>(bookCount * 2);
+        for (int i = 1; i <= bookCount; i++) {
+            int topic = random.nextInt(TOPICS.length);
+            String title = TOPICS[topic] + "入門 第" + i + "版";
+            String titleKana = TOPICS_KANA[topic] + " ニュウモン ダイ" + i + "ハン";
+            index.add(i, title, titleKana, AUTHORS[random.nextInt(AUTHORS.length)]);
+            int weight = random.nextInt(1000);
+            entries.add(new CompactTrie.Entry(TextNormalizer.normalize(title), title, weight));
+            entries.add(new CompactTrie.Entry(TextNormalizer.normalize(titleKana), title, weight));
+        }
+        trie = CompactTrie.build(entries);
+    }
+
+    @Benchmark
+    public NGramIndex.Result common() {
+        return index.search("入門", 20);
+    }
+
+    @Benchmark
+    public NGramIndex.Result selective() {
+        return index.search("第12345版", 20);
+    }
+
+    @Benchmark
+    public NGramIndex.Result kana() {
+        return index.search("すぷりんぐ", 20);
+    }
+
+    @Benchmark
+    public List<String> suggestFirstCharacter() {
+        return trie.suggest(TextNormalizer.normalize("す"), 10);
+    }
+
+    @Benchmark
+    public List<String> suggestLongPrefix() {
+        return trie.suggest(TextNormalizer.normalize("すぷりんぐにゅうもんだい1"), 10);
+    }
+}
@@ -0,0 +1,46 @@
+package com.kien.Jbook.benchmark;
+
+import com.kien.Jbook.model.dto.book.BookBasicInfo;
+import com.kien.Jbook.model.dto.book.BookCreate;
+import com.kien.Jbook.model.dto.book.BookView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BookServiceImplの読み込み・登録
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookServiceBenchmark {
+
+    @Benchmark
+    public BookView getById(BookDatabaseState state) {
+        return state.bookService.getById(state.randomId());
+    }
+
+    @Benchmark
+    public BookBasicInfo register(BookDatabaseState state) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        BookCreate bookCreate = new BookCreate(
+                null,
+                "ベンチマーク入門",
+                "ベンチマーク ニュウモン",
+                "山田太郎",
+                1L + random.nextInt(BookDataGenerator.PUBLISHER_COUNT),
+                1L + random.nextInt(BookDataGenerator.USER_COUNT),
+                2500
+        );
+        return state.bookService.register(bookCreate);
+    }
+}
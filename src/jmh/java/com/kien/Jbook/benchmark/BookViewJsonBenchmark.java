@@ -0,0 +1,82 @@
+package com.kien.Jbook.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.kien.Jbook.common.cache.BoundedCache;
+import com.kien.Jbook.common.cache.EvictionPolicy;
+import com.kien.Jbook.common.web.CachedJsonHttpMessageConverter;
+import com.kien.Jbook.model.dto.book.BookView;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BookViewのJSONシリアライズ（Spring MVCと同じ設定のObjectMapper）
+ * cachedOne は jbook.cache.book-view-json を有効にした場合（内容が同じBookViewのバイト列を再利用する）
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookViewJsonBenchmark {
+    private static final int LIST_SIZE = 100;
+
+    private ObjectWriter writer;
+    private CachedJsonHttpMessageConverter<Long, BookView> cachedConverter;
+    private BookView bookView;
+    private List<BookView> bookViews;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writer();
+        cachedConverter = new CachedJsonHttpMessageConverter<>(
+                BookView.class,
+                objectMapper,
+                BoundedCache.weighted(1024 * 1024, serialized -> serialized.bytes().length, Duration.ZERO, EvictionPolicy.LRU),
+                BookView::getId);
+        LocalDateTime createdAt = LocalDateTime.of(2025, 4, 28, 10, 0);
+        bookView = new BookView(
+                1L, "Java入門", "ジャバ ニュウモン", "山田太郎", 1L, "技術出版社", 100L, "テストユーザー",
+                2500, false, createdAt, createdAt);
+        bookViews = new ArrayList<>(LIST_SIZE);
+        for (long i = 1; i <= LIST_SIZE; i++) {
+            bookViews.add(new BookView(
+                    i, "Java入門 第" + i + "版", "ジャバ ニュウモン", "山田太郎", 1L, "技術出版社", 100L, "テストユーザー",
+                    2500, false, createdAt, createdAt));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeOne() throws JsonProcessingException {
+        return writer.writeValueAsBytes(bookView);
+    }
+
+    @Benchmark
+    public byte[] cachedOne() throws IOException {
+        return cachedConverter.toBytes(bookView);
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws JsonProcessingException {
+        return writer.writeValueAsBytes(bookViews);
+    }
+}
@@ -0,0 +1,63 @@
+package com.kien.Jbook.benchmark;
+
+import com.kien.Jbook.common.id.SnowflakeIdAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 書籍IDの採番の競合
+ * synchronizedはBlockIdAllocatorの予約済み範囲からの払い出し（DBへの予約を除く）と同じ方式
+ * 1スレッドと多数のスレッドでのスループットを比べる
+ * Snowflakeは1ミリ秒あたり4096件が上限のため、前借りの上限（max-clock-drift）に達した後は約4 ops/usで頭打ちになる
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdAllocatorBenchmark {
+    private final SnowflakeIdAllocator snowflake = new SnowflakeIdAllocator(
+            1, Instant.parse("2025-01-01T00:00:00Z"), Duration.ofSeconds(1));
+    private long next;
+
+    private synchronized long synchronizedNextId() {
+        return next++;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long snowflakeSingleThread() {
+        return snowflake.nextId();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public long snowflakeContended() {
+        return snowflake.nextId();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long synchronizedSingleThread() {
+        return synchronizedNextId();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public long synchronizedContended() {
+        return synchronizedNextId();
+    }
+}
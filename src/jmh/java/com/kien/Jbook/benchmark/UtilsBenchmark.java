@@ -0,0 +1,68 @@
+package com.kien.Jbook.benchmark;
+
+import com.kien.Jbook.common.reflect.PropertyAccessor;
+import com.kien.Jbook.common.reflect.PropertyAccessorRegistry;
+import com.kien.Jbook.model.Book;
+import com.kien.Jbook.utils.DBExceptionUtils;
+import com.kien.Jbook.utils.ReflectionUtils;
+import com.kien.Jbook.utils.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * エラー処理で使用するユーティリティ
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilsBenchmark {
+    // MySQLの外部キー違反時のエラーメッセージ
+    private String foreignKeyErrorMessage = "Cannot add or update a child row: a foreign key constraint fails "
+            + "(`book`.`books`, CONSTRAINT `books_ibfk_1` FOREIGN KEY (`publisher_id`) REFERENCES `publisher` (`id`))";
+    private String snakeCase = "publisher_id";
+    private String propertyName = Book.FIELD_PUBLISHER_ID;
+    private String columnName = "publisher_id";
+    private PropertyAccessorRegistry registry = PropertyAccessorRegistry.of(Book.class);
+    private PropertyAccessor accessor = registry.forColumn(columnName);
+    private Book book = new Book(
+            1L, "Java入門", "ジャバ ニュウモン", "山田太郎", 1L, 100L, 2500, false,
+            LocalDateTime.of(2025, 4, 28, 10, 0), LocalDateTime.of(2025, 4, 28, 10, 0));
+
+    @Benchmark
+    public String toCamelCase() {
+        return StringUtils.toCamelCase(snakeCase);
+    }
+
+    @Benchmark
+    public String extractForeignKeyColumn() {
+        return DBExceptionUtils.extractForeignKeyColumn(foreignKeyErrorMessage);
+    }
+
+    @Benchmark
+    public Object getPropertyValue() {
+        return ReflectionUtils.getPropertyValue(book, propertyName);
+    }
+
+    @Benchmark
+    public Object getPropertyValueByColumn() {
+        return registry.forColumn(columnName).get(book);
+    }
+
+    @Benchmark
+    public Object getPropertyValueByResolvedAccessor() {
+        return accessor.get(book);
+    }
+}
@@ -3,6 +3,13 @@ package com.kien.Jbook.common;
 import lombok.Getter;
 import org.springframework.http.HttpStatus;
 
+/**
+ * クライアントに返すエラー
+ *
+ * クライアントエラー（4xx）はリクエストの内容によるもので、スタックトレースを調べることはないため記録しない。
+ * 不正なリクエストが大量に来た場合に、例外の生成（スタックトレースの取得）でCPUを消費しないようにする。
+ * サーバーエラー（5xx）は原因の調査のためにスタックトレースを記録する。
+ */
 @Getter
 public class CustomException extends RuntimeException {
     private HttpStatus httpStatus;
@@ -10,9 +17,13 @@ public class CustomException extends RuntimeException {
     private Object value;
 
     public CustomException(String message, HttpStatus httpStatus, String field, Object value) {
-        super(message);
+        super(message, null, true, !isClientError(httpStatus));
         this.httpStatus = httpStatus;
         this.field = field;
         this.value = value;
     }
+
+    private static boolean isClientError(HttpStatus httpStatus) {
+        return httpStatus != null && httpStatus.is4xxClientError();
+    }
 }
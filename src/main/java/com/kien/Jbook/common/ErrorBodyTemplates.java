@@ -0,0 +1,121 @@
+package com.kien.Jbook.common;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * エラーレスポンスの本文 {"項目名": 値, "message": メッセージ} をJSONのバイト列で作る
+ *
+ * 項目名とメッセージの組み合わせごとに、値の前後の部分を1回だけシリアライズしてテンプレートとして保持する。
+ * リクエストごとには値だけをシリアライズして連結するため、Mapの生成や全体のシリアライズを行わない。
+ * 項目名とメッセージの順序はHashMapをシリアライズした場合と同じにする（これまでのレスポンスと同じJSON）。
+ */
+class ErrorBodyTemplates {
+    // テンプレートの値の位置の目印（項目名・メッセージに含まれない文字列）
+    private static final String PLACEHOLDER = "\u0000value\u0000";
+    // 項目名・メッセージはアプリ内の定数のため上限に達することはないが、念のため上限を設ける
+    private static final int MAXIMUM_TEMPLATES = 1000;
+
+    private final ObjectMapper objectMapper;
+    private final String messageKey;
+    private final String serializedPlaceholder;
+    private final ConcurrentHashMap<TemplateKey, Template> templates = new ConcurrentHashMap<>();
+
+    /**
+     * @param objectMapper
+     * @param messageKey メッセージの項目名
+     */
+    ErrorBodyTemplates(ObjectMapper objectMapper, String messageKey) {
+        this.objectMapper = objectMapper;
+        this.messageKey = messageKey;
+        this.serializedPlaceholder = serialize(PLACEHOLDER);
+    }
+
+    /**
+     * @param field 項目名（nullの場合はメッセージのみ）
+     * @param value
+     * @param message
+     * @return
+     */
+    byte[] render(String field, Object value, String message) {
+        if (field != null && value == null) {
+            // nullの値はObjectMapperの設定によって出力が変わるため、Mapのシリアライズに任せる
+            return toBytes(body(field, null, message));
+        }
+        TemplateKey key = new TemplateKey(field, message);
+        Template template = templates.get(key);
+        if (template == null) {
+            template = createTemplate(field, message);
+            if (templates.size() < MAXIMUM_TEMPLATES) {
+                templates.putIfAbsent(key, template);
+            }
+        }
+        if (template.suffix == null) {
+            return template.prefix;
+        }
+        byte[] valueBytes = toBytes(value);
+        byte[] bytes = new byte[template.prefix.length + valueBytes.length + template.suffix.length];
+        System.arraycopy(template.prefix, 0, bytes, 0, template.prefix.length);
+        System.arraycopy(valueBytes, 0, bytes, template.prefix.length, valueBytes.length);
+        System.arraycopy(template.suffix, 0, bytes, template.prefix.length + valueBytes.length, template.suffix.length);
+        return bytes;
+    }
+
+    int templateCount() {
+        return templates.size();
+    }
+
+    private Template createTemplate(String field, String message) {
+        String json = serialize(body(field, PLACEHOLDER, message));
+        int index = json.indexOf(serializedPlaceholder);
+        if (field == null || index < 0) {
+            // 値を含まない本文（項目名がメッセージの項目名と同じ場合を含む）
+            return new Template(json.getBytes(StandardCharsets.UTF_8), null);
+        }
+        return new Template(
+                json.substring(0, index).getBytes(StandardCharsets.UTF_8),
+                json.substring(index + serializedPlaceholder.length()).getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    private Map<String, Object> body(String field, Object value, String message) {
+        Map<String, Object> body = new HashMap<>();
+        if (field != null) {
+            body.put(field, value);
+        }
+        body.put(messageKey, message);
+        return body;
+    }
+
+    private String serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] toBytes(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record TemplateKey(String field, String message) {
+    }
+
+    /**
+     * @param prefix 値の前の部分（値を含まない場合は本文全体）
+     * @param suffix 値の後の部分（値を含まない場合はnull）
+     */
+    private record Template(byte[] prefix, byte[] suffix) {
+    }
+}
@@ -1,7 +1,16 @@
 package com.kien.Jbook.common;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.validation.method.ParameterValidationResult;
@@ -11,16 +20,31 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.method.annotation.HandlerMethodValidationException;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.servlet.resource.NoResourceFoundException;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 例外をエラーレスポンスに変換する
+ *
+ * {"項目名": 値, "message": メッセージ} 形式の本文はErrorBodyTemplatesでバイト列として作り、Mapを生成しない。
+ * エラーの種類（例外・ステータス・項目名）ごとの件数を jbook.errors に記録する。
+ */
 @ControllerAdvice
 @ResponseBody
 public class GlobalExceptionHandler {
+    private static final String NO_FIELD = "none";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
 
     @Value("${messages.errors.typeMissmatch}")
     String MSG_TYPE_MISSMATCH = "";
@@ -34,14 +58,27 @@ public class GlobalExceptionHandler {
     @Value("${messages.errors.unexpectedError}")
     String MSG_UNEXPECTED_ERROR = "";
 
+    @Value("${messages.errors.dbBusy}")
+    String MSG_DB_BUSY = "";
+
+    @Value("${messages.errors.importFileTooLarge}")
+    String MSG_IMPORT_FILE_TOO_LARGE = "";
+
     String MSG_STR = "message";
 
+    private ErrorBodyTemplates errorBodyTemplates;
+    private final ConcurrentHashMap<ErrorType, Counter> errorCounters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        errorBodyTemplates = new ErrorBodyTemplates(objectMapper, MSG_STR);
+    }
+
     @ExceptionHandler(CustomException.class)
-    public ResponseEntity<Map<String, Object>> handleCustomException(CustomException e) {
-        Map<String, Object> responseBody = new HashMap<>();
-        responseBody.put(e.getField(), e.getValue());
-        responseBody.put(MSG_STR, e.getMessage());
-        return ResponseEntity.status(e.getHttpStatus()).body(responseBody);
+    public ResponseEntity<byte[]> handleCustomException(CustomException e) {
+        count(e, e.getHttpStatus(), e.getField());
+        // 項目に紐づかないエラー（fieldがnull）はメッセージのみ（nullのキーはJSONにできない）
+        return errorResponse(e.getHttpStatus(), e.getField(), e.getValue(), e.getMessage());
     }
 
     /**
@@ -51,6 +88,7 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<List<Map<String, Object>>> handleValidationExceptions(MethodArgumentNotValidException e) {
+        count(e, HttpStatus.BAD_REQUEST, null);
         List<Map<String, Object>> errors = new ArrayList<>();
         for (FieldError error : e.getBindingResult().getFieldErrors()) {
             Map<String, Object> errorMap = new HashMap<>();
@@ -67,11 +105,9 @@ public class GlobalExceptionHandler {
      * @return
      */
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
-    public ResponseEntity<Map<String, Object>> handleMethodArgumentTypeMismatch(MethodArgumentTypeMismatchException e) {
-        Map<String, Object> responseBody = new HashMap<>();
-        responseBody.put(e.getName(), e.getValue());
-        responseBody.put(MSG_STR, MSG_TYPE_MISSMATCH);
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseBody);
+    public ResponseEntity<byte[]> handleMethodArgumentTypeMismatch(MethodArgumentTypeMismatchException e) {
+        count(e, HttpStatus.BAD_REQUEST, e.getName());
+        return errorResponse(HttpStatus.BAD_REQUEST, e.getName(), e.getValue(), MSG_TYPE_MISSMATCH);
     }
 
     /**
@@ -81,6 +117,7 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(HandlerMethodValidationException.class)
     public ResponseEntity<List<Map<String, String>>> handleHandlerMethodValidationException(HandlerMethodValidationException e) {
+        count(e, HttpStatus.BAD_REQUEST, null);
         List<Map<String, String>> errors = new ArrayList<>();
         List<ParameterValidationResult> validationResults = e.getParameterValidationResults();
 
@@ -109,17 +146,72 @@ public class GlobalExceptionHandler {
      * @return
      */
     @ExceptionHandler(NoResourceFoundException.class)
-    public ResponseEntity<Map<String, Object>> handleNoResourceFound(NoResourceFoundException e) {
-        Map<String, Object> responseBody = new HashMap<>();
-        responseBody.put(String.valueOf(e.getHttpMethod()), "/" + e.getResourcePath());
-        responseBody.put(MSG_STR, MSG_INVALID_REQUEST);
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(responseBody);
+    public ResponseEntity<byte[]> handleNoResourceFound(NoResourceFoundException e) {
+        count(e, HttpStatus.BAD_REQUEST, null);
+        return errorResponse(
+                HttpStatus.BAD_REQUEST, String.valueOf(e.getHttpMethod()), "/" + e.getResourcePath(), MSG_INVALID_REQUEST);
+    }
+
+    /**
+     * DBコネクションを取得できないエラー（同時実行数の上限、プールの枯渇など）
+     * @param e
+     * @return
+     */
+    @ExceptionHandler({CannotGetJdbcConnectionException.class, CannotCreateTransactionException.class})
+    public ResponseEntity<byte[]> handleConnectionUnavailable(RuntimeException e) {
+        count(e, HttpStatus.SERVICE_UNAVAILABLE, null);
+        return errorResponse(HttpStatus.SERVICE_UNAVAILABLE, null, null, MSG_DB_BUSY);
+    }
+
+    /**
+     * アップロードされたファイルがspring.servlet.multipart.max-file-sizeを超えたエラー
+     * @param e
+     * @return
+     */
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<byte[]> handleMaxUploadSizeExceeded(MaxUploadSizeExceededException e) {
+        count(e, HttpStatus.PAYLOAD_TOO_LARGE, "file");
+        return errorResponse(HttpStatus.PAYLOAD_TOO_LARGE, "file", null, MSG_IMPORT_FILE_TOO_LARGE);
     }
 
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<Object> exceptionHandler(RuntimeException e) {
+        count(e, HttpStatus.INTERNAL_SERVER_ERROR, null);
         Map<String, String> responseBody = new HashMap<>();
         responseBody.put("error", MSG_UNEXPECTED_ERROR + e.getMessage());
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(responseBody);
     }
+
+    private ResponseEntity<byte[]> errorResponse(HttpStatus status, String field, Object value, String message) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(errorBodyTemplates.render(field, value, message));
+    }
+
+    /**
+     * エラーの種類ごとの件数（jbook.errors{type, status, field}）
+     * @param e
+     * @param status
+     * @param field 項目名（値はタグにしない）
+     */
+    private void count(Exception e, HttpStatus status, String field) {
+        ErrorType type = new ErrorType(e.getClass(), status, field == null ? NO_FIELD : field);
+        Counter counter = errorCounters.get(type);
+        if (counter == null) {
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            if (registry == null) {
+                return;
+            }
+            counter = errorCounters.computeIfAbsent(type, t -> Counter.builder("jbook.errors")
+                    .tag("type", t.exceptionClass().getSimpleName())
+                    .tag("status", String.valueOf(t.status() == null ? 0 : t.status().value()))
+                    .tag("field", t.field())
+                    .description("エラーレスポンスの件数")
+                    .register(registry));
+        }
+        counter.increment();
+    }
+
+    private record ErrorType(Class<?> exceptionClass, HttpStatus status, String field) {
+    }
 }
@@ -0,0 +1,306 @@
+package com.kien.Jbook.common.cache;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * 件数上限・TTL付きのプロセス内キャッシュ
+ *
+ * weighted で作成した場合は、件数の代わりに値ごとの重み（バイト数など）の合計を上限にする。
+ * 追い出しはLRUまたはLFUを選択できる。読み込み処理(loader)はロックの外で実行するため、
+ * DBアクセス中に他のキーの参照がブロックされることはない。
+ * null値はキャッシュしない（存在しないデータは毎回ロードする）。
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class BoundedCache<K, V> {
+
+    private final long maximumWeight;
+    private final ToLongFunction<? super V> weigher;
+    private final long ttlNanos;
+    private final EvictionPolicy policy;
+    private final LongSupplier nanoClock;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, Entry<V>> entries;
+    // LFUの場合のみ使用する：参照回数 -> その回数のキー（古い順）
+    private final Map<Long, LinkedHashSet<K>> frequencyBuckets = new HashMap<>();
+    private long minFrequency;
+    private long totalWeight;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+
+    public BoundedCache(int maximumSize, Duration ttl, EvictionPolicy policy) {
+        this(maximumSize, ttl, policy, System::nanoTime);
+    }
+
+    BoundedCache(int maximumSize, Duration ttl, EvictionPolicy policy, LongSupplier nanoClock) {
+        this(maximumSize, value -> 1, ttl, policy, nanoClock);
+    }
+
+    private BoundedCache(long maximumWeight, ToLongFunction<? super V> weigher, Duration ttl,
+                         EvictionPolicy policy, LongSupplier nanoClock) {
+        this.maximumWeight = Math.max(maximumWeight, 0);
+        this.weigher = weigher;
+        this.ttlNanos = ttl == null ? 0 : ttl.toNanos();
+        this.policy = policy == null ? EvictionPolicy.LRU : policy;
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, this.policy == EvictionPolicy.LRU);
+    }
+
+    /**
+     * 何も保持しないキャッシュ（キャッシュ無効時に使用する）
+     * @return
+     */
+    public static <K, V> BoundedCache<K, V> disabled() {
+        return new BoundedCache<>(0, Duration.ZERO, EvictionPolicy.LRU);
+    }
+
+    /**
+     * 重みの合計を上限にするキャッシュ
+     * 1件で上限を超える値はキャッシュしない
+     * @param maximumWeight 重みの合計の上限
+     * @param weigher 値の重み（1以上）
+     * @param ttl
+     * @param policy
+     * @return
+     */
+    public static <K, V> BoundedCache<K, V> weighted(long maximumWeight, ToLongFunction<? super V> weigher,
+                                                    Duration ttl, EvictionPolicy policy) {
+        return new BoundedCache<>(maximumWeight, weigher, ttl, policy, System::nanoTime);
+    }
+
+    public boolean isEnabled() {
+        return maximumWeight > 0;
+    }
+
+    /**
+     * キャッシュにあればそれを返し、なければloaderで読み込んでキャッシュする
+     * @param key
+     * @param loader
+     * @return
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        if (!isEnabled()) {
+            return loader.apply(key);
+        }
+        V cached = getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        V loaded = loader.apply(key);
+        if (loaded != null) {
+            put(key, loaded);
+        }
+        return loaded;
+    }
+
+    public V getIfPresent(K key) {
+        if (!isEnabled()) {
+            return null;
+        }
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                missCount.increment();
+                return null;
+            }
+            if (isExpired(entry)) {
+                removeEntry(key);
+                expirationCount.increment();
+                missCount.increment();
+                return null;
+            }
+            if (policy == EvictionPolicy.LFU) {
+                incrementFrequency(key, entry);
+            }
+            hitCount.increment();
+            return entry.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(K key, V value) {
+        if (!isEnabled() || value == null) {
+            return;
+        }
+        long weight = Math.max(weigher.applyAsLong(value), 1);
+        if (weight > maximumWeight) {
+            invalidate(key);
+            return;
+        }
+        lock.lock();
+        try {
+            Entry<V> existing = entries.get(key);
+            if (existing != null) {
+                totalWeight += weight - existing.weight;
+                existing.value = value;
+                existing.weight = weight;
+                existing.expiresAt = expiresAt();
+                while (totalWeight > maximumWeight) {
+                    evictOne();
+                }
+                return;
+            }
+            while (totalWeight + weight > maximumWeight) {
+                evictOne();
+            }
+            totalWeight += weight;
+            entries.put(key, new Entry<>(value, weight, expiresAt()));
+            if (policy == EvictionPolicy.LFU) {
+                frequencyBuckets.computeIfAbsent(1L, f -> new LinkedHashSet<>()).add(key);
+                minFrequency = 1;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(K key) {
+        if (!isEnabled()) {
+            return;
+        }
+        lock.lock();
+        try {
+            removeEntry(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            entries.clear();
+            frequencyBuckets.clear();
+            minFrequency = 0;
+            totalWeight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 保持している値の重みの合計（weightedでない場合は件数）
+     * @return
+     */
+    public long weight() {
+        lock.lock();
+        try {
+            return totalWeight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(
+                hitCount.sum(),
+                missCount.sum(),
+                evictionCount.sum(),
+                expirationCount.sum(),
+                size()
+        );
+    }
+
+    private long expiresAt() {
+        return ttlNanos > 0 ? nanoClock.getAsLong() + ttlNanos : Long.MAX_VALUE;
+    }
+
+    private boolean isExpired(Entry<V> entry) {
+        return entry.expiresAt != Long.MAX_VALUE && nanoClock.getAsLong() - entry.expiresAt >= 0;
+    }
+
+    private void evictOne() {
+        K victim;
+        if (policy == EvictionPolicy.LFU) {
+            victim = frequencyBuckets.get(lowestFrequency()).iterator().next();
+        } else {
+            victim = entries.keySet().iterator().next();
+        }
+        Entry<V> entry = entries.get(victim);
+        removeEntry(victim);
+        if (entry != null && isExpired(entry)) {
+            expirationCount.increment();
+        } else {
+            evictionCount.increment();
+        }
+    }
+
+    private void removeEntry(K key) {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            totalWeight -= removed.weight;
+        }
+        if (removed != null && policy == EvictionPolicy.LFU) {
+            LinkedHashSet<K> bucket = frequencyBuckets.get(removed.frequency);
+            bucket.remove(key);
+            if (bucket.isEmpty()) {
+                frequencyBuckets.remove(removed.frequency);
+            }
+        }
+    }
+
+    private void incrementFrequency(K key, Entry<V> entry) {
+        LinkedHashSet<K> bucket = frequencyBuckets.get(entry.frequency);
+        bucket.remove(key);
+        if (bucket.isEmpty()) {
+            frequencyBuckets.remove(entry.frequency);
+            if (minFrequency == entry.frequency) {
+                minFrequency = entry.frequency + 1;
+            }
+        }
+        entry.frequency++;
+        frequencyBuckets.computeIfAbsent(entry.frequency, f -> new LinkedHashSet<>()).add(key);
+    }
+
+    private long lowestFrequency() {
+        // 削除でminFrequencyのバケットが空になっている場合は再計算する
+        if (!frequencyBuckets.containsKey(minFrequency)) {
+            Iterator<Long> it = frequencyBuckets.keySet().iterator();
+            long min = it.next();
+            while (it.hasNext()) {
+                min = Math.min(min, it.next());
+            }
+            minFrequency = min;
+        }
+        return minFrequency;
+    }
+
+    private static final class Entry<V> {
+        private V value;
+        private long weight;
+        private long expiresAt;
+        private long frequency = 1;
+
+        private Entry(V value, long weight, long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.kien.Jbook.common.cache;
+
+/**
+ * キャッシュの統計情報のスナップショット
+ * @param hitCount
+ * @param missCount
+ * @param evictionCount 上限超過による追い出し件数
+ * @param expirationCount TTL切れで破棄された件数
+ * @param size
+ */
+public record CacheStats(long hitCount, long missCount, long evictionCount, long expirationCount, long size) {
+
+    public double hitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+}
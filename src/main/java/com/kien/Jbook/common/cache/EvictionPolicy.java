@@ -0,0 +1,11 @@
+package com.kien.Jbook.common.cache;
+
+/**
+ * キャッシュが上限に達した時に追い出すエントリの選び方
+ */
+public enum EvictionPolicy {
+    /** 最後に参照されたのが最も古いエントリを追い出す */
+    LRU,
+    /** 参照回数が最も少ないエントリを追い出す（同数の場合は古い方） */
+    LFU
+}
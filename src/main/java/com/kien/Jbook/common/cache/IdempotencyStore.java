@@ -0,0 +1,189 @@
+package com.kien.Jbook.common.cache;
+
+import com.kien.Jbook.common.CustomException;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 冪等キー（Idempotency-Key）ごとに処理の結果を保持し、同じキーの再送には処理を実行せずに同じ結果を返す
+ *
+ * 結果は成功時の戻り値と、クライアントエラー（4xx）のCustomExceptionを保持する。
+ * 5xxや想定外の例外は一時的な失敗として保持せず、再送時にもう一度実行する。
+ * 同じキーの処理が実行中の場合は、その完了を待って結果を共有する（同時に2回実行しない）。
+ * 同じキーで異なるリクエストが送られた場合はKeyReusedExceptionを投げる。
+ * 結果は件数上限・TTL付きのBoundedCacheに保持するため、期限切れ・追い出し後の再送はもう一度実行される。
+ *
+ * @param <V> 戻り値
+ */
+public class IdempotencyStore<V> {
+
+    private final BoundedCache<String, Outcome<V>> completed;
+    private final ConcurrentHashMap<String, InFlight<V>> inFlight = new ConcurrentHashMap<>();
+    private final long inFlightTimeoutNanos;
+
+    private final LongAdder executedCount = new LongAdder();
+    private final LongAdder replayedCount = new LongAdder();
+
+    /**
+     * @param maximumSize 保持するキーの件数の上限
+     * @param ttl 結果を保持する期間
+     * @param inFlightTimeout 実行中の同じキーの処理を待つ時間の上限
+     */
+    public IdempotencyStore(int maximumSize, Duration ttl, Duration inFlightTimeout) {
+        this.completed = new BoundedCache<>(maximumSize, ttl, EvictionPolicy.LRU);
+        this.inFlightTimeoutNanos = inFlightTimeout.toNanos();
+    }
+
+    /**
+     * 何も保持しない（常に実行する）ストア
+     * @return
+     */
+    public static <V> IdempotencyStore<V> disabled() {
+        return new IdempotencyStore<>(0, Duration.ZERO, Duration.ZERO);
+    }
+
+    public boolean isEnabled() {
+        return completed.isEnabled();
+    }
+
+    /**
+     * キーの結果があればそれを返し（またはエラーを投げ）、なければactionを実行して結果を保持する
+     * @param key 冪等キー
+     * @param request キーと組み合わせて送られたリクエスト（equalsで同一性を判定する）
+     * @param action
+     * @return
+     * @throws KeyReusedException 同じキーで異なるリクエストが送られた場合
+     * @throws InFlightTimeoutException 実行中の同じキーの処理が時間内に終わらなかった場合
+     */
+    public Result<V> execute(String key, Object request, Supplier<V> action) {
+        if (!isEnabled()) {
+            return new Result<>(action.get(), false);
+        }
+        Outcome<V> outcome = completed.getIfPresent(key);
+        if (outcome != null) {
+            return replay(outcome, request);
+        }
+
+        InFlight<V> mine = new InFlight<>();
+        InFlight<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return replay(await(running), request);
+        }
+        try {
+            // 確認からputIfAbsentまでの間に完了した処理の結果
+            outcome = completed.getIfPresent(key);
+            if (outcome != null) {
+                mine.future.complete(outcome);
+                return replay(outcome, request);
+            }
+            outcome = run(request, action, mine);
+            completed.put(key, outcome);
+            mine.future.complete(outcome);
+        } finally {
+            inFlight.remove(key, mine);
+        }
+        return outcome.result(false);
+    }
+
+    /**
+     * 実行した回数（結果を保持しなかった場合を含む）
+     * @return
+     */
+    public long getExecutedCount() {
+        return executedCount.sum();
+    }
+
+    /**
+     * 保持していた結果・実行中の処理の結果を返した回数
+     * @return
+     */
+    public long getReplayedCount() {
+        return replayedCount.sum();
+    }
+
+    /**
+     * actionを実行する。保持しない失敗の場合は、待っているスレッドにも同じ例外を渡して投げる
+     */
+    private Outcome<V> run(Object request, Supplier<V> action, InFlight<V> mine) {
+        executedCount.increment();
+        try {
+            return new Outcome<>(request, action.get(), null);
+        } catch (CustomException e) {
+            if (e.getHttpStatus() != null && e.getHttpStatus().is4xxClientError()) {
+                return new Outcome<>(request, null, e);
+            }
+            mine.future.completeExceptionally(e);
+            throw e;
+        } catch (RuntimeException | Error e) {
+            mine.future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Outcome<V> await(InFlight<V> running) {
+        try {
+            return running.future.get(inFlightTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new InFlightTimeoutException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InFlightTimeoutException();
+        }
+    }
+
+    private Result<V> replay(Outcome<V> outcome, Object request) {
+        if (!Objects.equals(outcome.request, request)) {
+            throw new KeyReusedException();
+        }
+        replayedCount.increment();
+        return outcome.result(true);
+    }
+
+    /**
+     * @param value 戻り値
+     * @param replayed 保持していた結果・他のスレッドの実行結果の場合はtrue
+     */
+    public record Result<V>(V value, boolean replayed) {
+    }
+
+    /**
+     * 処理の結果（戻り値またはクライアントエラー）
+     */
+    private record Outcome<V>(Object request, V value, CustomException error) {
+        private Result<V> result(boolean replayed) {
+            if (error != null) {
+                throw error;
+            }
+            return new Result<>(value, replayed);
+        }
+    }
+
+    private static final class InFlight<V> {
+        private final CompletableFuture<Outcome<V>> future = new CompletableFuture<>();
+    }
+
+    /**
+     * 同じキーで異なるリクエストが送られた
+     */
+    public static class KeyReusedException extends RuntimeException {
+    }
+
+    /**
+     * 実行中の同じキーの処理が時間内に終わらなかった
+     */
+    public static class InFlightTimeoutException extends RuntimeException {
+    }
+}
@@ -0,0 +1,148 @@
+package com.kien.Jbook.common.cache;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 同じキーの読み込みを同時に1回だけ実行し、実行中に来た呼び出しには同じ結果を返す
+ *
+ * キャッシュに無いキーへのアクセスが集中した場合に、同じクエリが並行して何度も実行されることを防ぐ。
+ * 最初の呼び出し（リーダー）が読み込みを実行し、その間に来た呼び出しは完了を待って結果（nullを含む）を共有する。
+ * 読み込みが例外で終わった場合は、待っている呼び出しにも同じ例外を投げる。結果は保持しないため、
+ * 完了後の呼び出しはもう一度読み込む（結果の保持はBoundedCacheで行う）。
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class SingleFlight<K, V> {
+
+    private final boolean enabled;
+    private final long waitTimeoutNanos;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder executedCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+
+    /**
+     * @param waitTimeout 実行中の読み込みの完了を待つ時間の上限
+     */
+    public SingleFlight(Duration waitTimeout) {
+        this(true, waitTimeout);
+    }
+
+    private SingleFlight(boolean enabled, Duration waitTimeout) {
+        this.enabled = enabled;
+        this.waitTimeoutNanos = waitTimeout.toNanos();
+    }
+
+    /**
+     * まとめずに毎回読み込む（無効時に使用する）
+     * @return
+     */
+    public static <K, V> SingleFlight<K, V> disabled() {
+        return new SingleFlight<>(false, Duration.ZERO);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 同じキーの読み込みが実行中であればその結果を待ち、なければloaderを実行する
+     * @param key
+     * @param loader
+     * @return
+     * @throws WaitTimeoutException 実行中の読み込みが時間内に終わらなかった場合
+     */
+    public V execute(K key, Supplier<V> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalescedCount.increment();
+            return await(running);
+        }
+        executedCount.increment();
+        try {
+            V value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * 実行中の読み込みを以降の呼び出しと共有しない（キーのデータを書き込んだ場合に使用する）
+     * 書き込み前に始まった読み込みの古い結果を、書き込み後の呼び出しに返さないようにする
+     * @param key
+     */
+    public void forget(K key) {
+        if (enabled) {
+            inFlight.remove(key);
+        }
+    }
+
+    /**
+     * 読み込みを実行した回数
+     * @return
+     */
+    public long getExecutedCount() {
+        return executedCount.sum();
+    }
+
+    /**
+     * 実行中の読み込みの結果を待った回数（読み込みを省略できた回数）
+     * @return
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    /**
+     * 待ち時間の上限を超えた回数
+     * @return
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+    private V await(CompletableFuture<V> running) {
+        try {
+            return running.get(waitTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        } catch (TimeoutException e) {
+            timeoutCount.increment();
+            throw new WaitTimeoutException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WaitTimeoutException();
+        }
+    }
+
+    /**
+     * 実行中の読み込みが時間内に終わらなかった
+     */
+    public static class WaitTimeoutException extends RuntimeException {
+    }
+}
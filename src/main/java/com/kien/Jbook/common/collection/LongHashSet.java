@@ -0,0 +1,139 @@
+package com.kien.Jbook.common.collection;
+
+import java.util.Arrays;
+
+/**
+ * プリミティブのlongを保持するハッシュセット（オープンアドレス法・線形探索）
+ *
+ * Set&lt;Long&gt;と違ってボクシングが発生しないため、100万件で約16MB程度に収まり、containsでオブジェクトを生成しない。
+ * スレッドセーフではない。複数スレッドから参照する場合は、構築後に変更せず参照だけを共有すること。
+ */
+public class LongHashSet {
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] table;
+    private int size;
+    // 0は空きスロットの印に使うため、別で管理する
+    private boolean containsZero;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        table = new long[tableSizeFor(expectedSize)];
+    }
+
+    /**
+     * 値を追加する
+     * @param value
+     * @return 追加された場合はtrue、既に存在した場合はfalse
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        if ((size + 1) > table.length * LOAD_FACTOR) {
+            resize(table.length * 2);
+        }
+        if (insert(table, value)) {
+            size++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 別のセットの値をすべて追加する
+     * @param other
+     */
+    public void addAll(LongHashSet other) {
+        if (other.containsZero) {
+            add(EMPTY);
+        }
+        for (long value : other.table) {
+            if (value != EMPTY) {
+                add(value);
+            }
+        }
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsZero;
+        }
+        long[] t = table;
+        int mask = t.length - 1;
+        for (int i = mix(value) & mask; ; i = (i + 1) & mask) {
+            long current = t[i];
+            if (current == value) {
+                return true;
+            }
+            if (current == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 同じ内容の新しいセットを返す
+     * @return
+     */
+    public LongHashSet copy() {
+        LongHashSet copy = new LongHashSet(1);
+        copy.table = Arrays.copyOf(table, table.length);
+        copy.size = size;
+        copy.containsZero = containsZero;
+        return copy;
+    }
+
+    private void resize(int newLength) {
+        long[] newTable = new long[newLength];
+        for (long value : table) {
+            if (value != EMPTY) {
+                insert(newTable, value);
+            }
+        }
+        table = newTable;
+    }
+
+    private static boolean insert(long[] t, long value) {
+        int mask = t.length - 1;
+        for (int i = mix(value) & mask; ; i = (i + 1) & mask) {
+            long current = t[i];
+            if (current == value) {
+                return false;
+            }
+            if (current == EMPTY) {
+                t[i] = value;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 連番のIDが同じスロット付近に固まらないように、ビットを拡散させる
+     */
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long required = (long) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR);
+        if (required > (1 << 30)) {
+            throw new IllegalArgumentException("expectedSize is too large: " + expectedSize);
+        }
+        return Math.max(16, Integer.highestOneBit((int) required - 1) << 1);
+    }
+}
@@ -0,0 +1,170 @@
+package com.kien.Jbook.common.collection;
+
+/**
+ * キーがlong、値が0以上のintのハッシュマップ（オープンアドレス法・線形探索）
+ *
+ * Map&lt;Long, Integer&gt;と違ってボクシングが発生しない。
+ * 削除は後ろの要素を詰め直すため、削除済みの印が溜まらず、削除が多くても探索が長くならない。
+ * スレッドセーフではない。
+ */
+public class LongIntHashMap {
+    /** キーがない場合にget()・put()・remove()が返す値 */
+    public static final int NO_VALUE = -1;
+
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    // 0は空きスロットの印に使うため、別で管理する
+    private int zeroValue = NO_VALUE;
+
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        int length = tableSizeFor(expectedSize);
+        keys = new long[length];
+        values = new int[length];
+    }
+
+    /**
+     * @param key
+     * @return キーがない場合はNO_VALUE
+     */
+    public int get(long key) {
+        if (key == EMPTY) {
+            return zeroValue;
+        }
+        int slot = find(key);
+        return slot < 0 ? NO_VALUE : values[slot];
+    }
+
+    /**
+     * 値を設定する
+     * @param key
+     * @param value 0以上
+     * @return 以前の値。キーがなかった場合はNO_VALUE
+     */
+    public int put(long key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value must not be negative: " + value);
+        }
+        if (key == EMPTY) {
+            int previous = zeroValue;
+            if (previous == NO_VALUE) {
+                size++;
+            }
+            zeroValue = value;
+            return previous;
+        }
+        int slot = find(key);
+        if (slot >= 0) {
+            int previous = values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        if ((size + 1) > keys.length * LOAD_FACTOR) {
+            resize(keys.length * 2);
+        }
+        insert(keys, values, key, value);
+        size++;
+        return NO_VALUE;
+    }
+
+    /**
+     * キーを削除する
+     * @param key
+     * @return 削除した値。キーがなかった場合はNO_VALUE
+     */
+    public int remove(long key) {
+        if (key == EMPTY) {
+            int previous = zeroValue;
+            if (previous != NO_VALUE) {
+                zeroValue = NO_VALUE;
+                size--;
+            }
+            return previous;
+        }
+        int slot = find(key);
+        if (slot < 0) {
+            return NO_VALUE;
+        }
+        int previous = values[slot];
+        // 空けたスロットより前に本来の位置がある後続の要素を詰め、探索が途切れないようにする
+        int mask = keys.length - 1;
+        int gap = slot;
+        for (int i = (slot + 1) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            int home = mix(keys[i]) & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+        keys[gap] = EMPTY;
+        size--;
+        return previous;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return キーのスロット。ない場合は-1
+     */
+    private int find(long key) {
+        long[] k = keys;
+        int mask = k.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            long current = k[i];
+            if (current == key) {
+                return i;
+            }
+            if (current == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    private void resize(int newLength) {
+        long[] newKeys = new long[newLength];
+        int[] newValues = new int[newLength];
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                insert(newKeys, newValues, keys[i], values[i]);
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+    }
+
+    private static void insert(long[] k, int[] v, long key, int value) {
+        int mask = k.length - 1;
+        int i = mix(key) & mask;
+        while (k[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        k[i] = key;
+        v[i] = value;
+    }
+
+    /**
+     * 連番のIDが同じスロット付近に固まらないように、ビットを拡散させる
+     */
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long required = (long) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR);
+        if (required > (1 << 30)) {
+            throw new IllegalArgumentException("expectedSize is too large: " + expectedSize);
+        }
+        return Math.max(16, Integer.highestOneBit((int) required - 1) << 1);
+    }
+}
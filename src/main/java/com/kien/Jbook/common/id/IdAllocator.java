@@ -0,0 +1,26 @@
+package com.kien.Jbook.common.id;
+
+/**
+ * DBのAUTO_INCREMENTを使わずに、アプリケーション側でIDを採番する
+ *
+ * INSERTの前（非同期登録ではDBに書き込む前）にIDを決めてクライアントに返すために使う。
+ * 実装はスレッドセーフであること。
+ */
+public interface IdAllocator {
+
+    /**
+     * 未使用のIDを返す（同じ値を二度返さない）
+     * @return
+     */
+    long nextId();
+
+    /**
+     * DBに問い合わせずに採番できるか
+     * できる場合は、非同期登録・シャーディングが無効でも、IDが指定されていない書籍はすべて登録前に採番する
+     * （AUTO_INCREMENTの採番と混在させないため）
+     * @return
+     */
+    default boolean isLocal() {
+        return false;
+    }
+}
@@ -0,0 +1,139 @@
+package com.kien.Jbook.common.id;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * 時刻順の64bitのIDをDBに問い合わせずに採番する（Snowflake方式）
+ *
+ * ID = 基準日時からの経過ミリ秒（41bit） | ノードID（10bit） | 同じミリ秒内の連番（12bit）
+ * ノードIDをインスタンスごとに変えれば、インスタンスが複数あっても重複しない。
+ * 最後に払い出した時刻と連番を1つのAtomicLongに詰め、CASで更新する（ロックを取らない）。
+ *
+ * 時計の巻き戻り：最後に払い出した時刻より前の時刻が返った場合は、最後の時刻のまま連番を進める。
+ * 連番を使い切った場合は次のミリ秒を前借りする。前借り・巻き戻りで実際の時刻との差が maxClockDrift を
+ * 超える場合は、時計が追いつくまで待つ（待っても追いつかない場合はIllegalStateException）。
+ * 最後に払い出した時刻はメモリ上にしかないため、停止中に時計が巻き戻った場合の重複は防げない。
+ */
+public class SnowflakeIdAllocator implements IdAllocator {
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    public static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final long MAX_TIMESTAMP = (1L << (63 - NODE_BITS - SEQUENCE_BITS)) - 1;
+
+    private final long nodeId;
+    private final long epochMillis;
+    private final long maxClockDriftMillis;
+    private final LongSupplier clock;
+    // 最後に払い出した (経過ミリ秒 << SEQUENCE_BITS) | 連番
+    private final AtomicLong state = new AtomicLong();
+    private final LongAdder logicalClockCount = new LongAdder();
+    private final LongAdder driftWaitCount = new LongAdder();
+
+    /**
+     * @param nodeId 0～1023（インスタンスごとに変える）
+     * @param epoch 基準日時（運用開始後に変えないこと）
+     * @param maxClockDrift 払い出すIDの時刻が実際の時刻より先に進んでよい幅
+     */
+    public SnowflakeIdAllocator(long nodeId, Instant epoch, Duration maxClockDrift) {
+        this(nodeId, epoch, maxClockDrift, System::currentTimeMillis);
+    }
+
+    SnowflakeIdAllocator(long nodeId, Instant epoch, Duration maxClockDrift, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        if (epoch.toEpochMilli() > clock.getAsLong()) {
+            throw new IllegalArgumentException("epoch is in the future: " + epoch);
+        }
+        this.nodeId = nodeId;
+        this.epochMillis = epoch.toEpochMilli();
+        this.maxClockDriftMillis = maxClockDrift.toMillis();
+        this.clock = clock;
+    }
+
+    @Override
+    public long nextId() {
+        boolean waited = false;
+        long waitDeadline = 0;
+        while (true) {
+            long now = elapsedMillis();
+            long previous = state.get();
+            long previousTimestamp = previous >>> SEQUENCE_BITS;
+            long next;
+            if (now > previousTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else if ((previous & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = previous + 1;
+            } else {
+                next = (previousTimestamp + 1) << SEQUENCE_BITS;
+            }
+            long timestamp = next >>> SEQUENCE_BITS;
+            if (timestamp - now > maxClockDriftMillis) {
+                // 時計が大きく巻き戻った、または連番を前借りし過ぎた
+                // 待つ時間は時計ではなく経過時間で測る（時計自体がずれているため）
+                if (!waited) {
+                    waited = true;
+                    waitDeadline = System.nanoTime() + Duration.ofMillis(2 * maxClockDriftMillis + 1).toNanos();
+                    driftWaitCount.increment();
+                } else if (System.nanoTime() - waitDeadline > 0) {
+                    throw new IllegalStateException(
+                            "clock is behind the last allocated id by " + (timestamp - now) + "ms");
+                }
+                LockSupport.parkNanos(Duration.ofMillis(1).toNanos());
+                continue;
+            }
+            if (timestamp > MAX_TIMESTAMP) {
+                throw new IllegalStateException("id timestamp overflow; epoch is too old");
+            }
+            if (state.compareAndSet(previous, next)) {
+                if (now < previousTimestamp) {
+                    logicalClockCount.increment();
+                }
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * DBに問い合わせずに採番する
+     */
+    @Override
+    public boolean isLocal() {
+        return true;
+    }
+
+    /**
+     * IDを払い出した時刻（エポックミリ秒）
+     * @param id
+     * @return
+     */
+    public long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + epochMillis;
+    }
+
+    /**
+     * 実際の時刻が最後に払い出した時刻より前だったため（時計の巻き戻り・連番の前借り）、最後の時刻で採番した回数
+     * @return
+     */
+    public long getLogicalClockCount() {
+        return logicalClockCount.sum();
+    }
+
+    /**
+     * 実際の時刻との差が上限を超えたため、時計が追いつくのを待った回数
+     * @return
+     */
+    public long getDriftWaitCount() {
+        return driftWaitCount.sum();
+    }
+
+    private long elapsedMillis() {
+        return clock.getAsLong() - epochMillis;
+    }
+}
@@ -0,0 +1,233 @@
+package com.kien.Jbook.common.io;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * 1行1レコードの追記専用ログ（クラッシュ時の復旧用）
+ *
+ * レコードはセグメントファイル（00000000000000000001.log, ...）に追記し、サイズが上限を超えたら次のセグメントに切り替える。
+ * 処理が終わったレコードはrelease()で通知し、切り替え済みで未処理のレコードがなくなったセグメントは削除する。
+ * 起動時に残っているセグメントは前回のプロセスで処理されなかったレコードとしてrecover()で読み出す。
+ *
+ * fsyncを有効にした場合、append()はディスクへの書き込みが終わってから戻る。
+ * 同時に追記したスレッドのうち1つがまとめてforce()するため、並行に追記するほど1件あたりのfsyncは減る（グループコミット）。
+ * スレッドセーフ。
+ */
+public class SegmentedAppendLog implements AutoCloseable {
+    private static final String SUFFIX = ".log";
+    private static final byte NEWLINE = '\n';
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final boolean fsync;
+    private final List<Path> recoveredSegments;
+
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+    private Segment active;
+    // 書き込み済み・fsync済みのバイト数（全セグメントの通算）
+    private long writtenBytes;
+    private volatile long syncedBytes;
+
+    /**
+     * @param directory セグメントを置くディレクトリ（なければ作る）
+     * @param segmentBytes セグメントを切り替えるサイズ
+     * @param fsync trueの場合、append()はディスクに書き込まれるまで待つ
+     */
+    public SegmentedAppendLog(Path directory, long segmentBytes, boolean fsync) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            this.recoveredSegments = files
+                    .filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+        long lastNumber = recoveredSegments.isEmpty() ? 0 : segmentNumber(recoveredSegments.getLast());
+        this.active = openSegment(lastNumber + 1);
+    }
+
+    /**
+     * 前回のプロセスで処理されなかったレコードを古い順に返す
+     * 書き込み途中で終わった最後の行（改行がない行）は含めない
+     * @return
+     */
+    public List<String> recover() throws IOException {
+        List<String> records = new ArrayList<>();
+        for (Path segment : recoveredSegments) {
+            String content = Files.readString(segment, StandardCharsets.UTF_8);
+            int end = content.lastIndexOf(NEWLINE);
+            if (end < 0) {
+                continue;
+            }
+            try (BufferedReader reader = new BufferedReader(new StringReader(content.substring(0, end)))) {
+                reader.lines().filter(line -> !line.isEmpty()).forEach(records::add);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * recover()で読み出したレコードを処理し終えたら呼び出し、前回のセグメントを削除する
+     */
+    public void deleteRecovered() throws IOException {
+        for (Path segment : recoveredSegments) {
+            Files.deleteIfExists(segment);
+        }
+    }
+
+    /**
+     * レコードを追記する（改行を含まないこと）
+     * @param record
+     * @return 処理が終わったらrelease()に渡す
+     */
+    public Ticket append(String record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((record + "\n").getBytes(StandardCharsets.UTF_8));
+        Segment segment;
+        long end;
+        synchronized (appendLock) {
+            if (active.size >= segmentBytes) {
+                rotate();
+            }
+            segment = active;
+            while (buffer.hasRemaining()) {
+                segment.channel.write(buffer);
+            }
+            segment.size += buffer.capacity();
+            segment.pending.incrementAndGet();
+            writtenBytes += buffer.capacity();
+            end = writtenBytes;
+        }
+        if (fsync) {
+            sync(end);
+        }
+        return new Ticket(segment);
+    }
+
+    /**
+     * レコードの処理が終わったことを通知する
+     * @param ticket
+     */
+    public void release(Ticket ticket) throws IOException {
+        Segment segment = ticket.segment;
+        if (segment.pending.decrementAndGet() == 0) {
+            synchronized (appendLock) {
+                if (segment != active && segment.pending.get() == 0) {
+                    deleteSegment(segment);
+                }
+            }
+        }
+    }
+
+    /**
+     * ディレクトリにあるセグメントの数（前回のプロセスのものを含む）
+     * @return
+     */
+    public int segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return (int) files.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).count();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (appendLock) {
+            active.channel.force(false);
+            active.channel.close();
+            if (active.pending.get() == 0) {
+                Files.deleteIfExists(active.path);
+            }
+        }
+    }
+
+    /**
+     * end バイト目までをディスクに書き込む。他のスレッドが先に書き込んでいれば何もしない
+     */
+    private void sync(long end) throws IOException {
+        if (syncedBytes >= end) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (syncedBytes >= end) {
+                return;
+            }
+            FileChannel channel;
+            long target;
+            synchronized (appendLock) {
+                channel = active.channel;
+                target = writtenBytes;
+            }
+            try {
+                channel.force(false);
+            } catch (ClosedChannelException e) {
+                // 取得後に切り替えられたセグメントは、rotate()で閉じる前にforce済み
+            }
+            syncedBytes = target;
+        }
+    }
+
+    private void rotate() throws IOException {
+        Segment previous = active;
+        previous.channel.force(false);
+        previous.channel.close();
+        active = openSegment(previous.number + 1);
+        if (previous.pending.get() == 0) {
+            deleteSegment(previous);
+        }
+    }
+
+    private Segment openSegment(long number) throws IOException {
+        Path path = directory.resolve(String.format("%020d%s", number, SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        return new Segment(number, path, channel);
+    }
+
+    private static void deleteSegment(Segment segment) throws IOException {
+        Files.deleteIfExists(segment.path);
+    }
+
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    private static final class Segment {
+        private final long number;
+        private final Path path;
+        private final FileChannel channel;
+        private final AtomicInteger pending = new AtomicInteger();
+        private long size;
+
+        private Segment(long number, Path path, FileChannel channel) {
+            this.number = number;
+            this.path = path;
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * 追記したレコードが属するセグメント
+     */
+    public static final class Ticket {
+        private final Segment segment;
+
+        private Ticket(Segment segment) {
+            this.segment = segment;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.kien.Jbook.common.jdbc;
+
+import com.kien.Jbook.common.cache.BoundedCache;
+import com.kien.Jbook.common.cache.EvictionPolicy;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * サービスの読み取りをリードレプリカに振り分ける
+ *
+ * 書き込んだキーは一定時間（read-your-writes-window）記録し、その間のそのキーの読み取りはプライマリで行う。
+ * これにより、登録直後の取得がレプリケーションの遅延で見つからない（404になる）ことを防ぐ。
+ * 記録はプロセス内のため、別インスタンスで書き込んだキーはレプリカから読まれる。
+ * レプリカが設定されていない場合（DataSourceがReplicaRoutingDataSourceでない場合）は常にプライマリで読み取る。
+ */
+public class ReadRouting {
+    private final BoundedCache<Object, Boolean> recentWrites;
+    private final LongAdder readYourWritesCount = new LongAdder();
+
+    /**
+     * @param readYourWritesWindow 書き込み後にプライマリで読み取る期間（0の場合は記録しない）
+     * @param maximumSize 記録するキーの件数の上限（超えた場合は古いものから忘れる）
+     */
+    public ReadRouting(Duration readYourWritesWindow, int maximumSize) {
+        this.recentWrites = readYourWritesWindow.isZero()
+                ? BoundedCache.disabled()
+                : new BoundedCache<>(maximumSize, readYourWritesWindow, EvictionPolicy.LRU);
+    }
+
+    /**
+     * キーに関係しない読み取り（一覧など）をレプリカで行う
+     * @param query
+     * @return
+     */
+    public <T> T read(Supplier<T> query) {
+        return ReplicaRoutingDataSource.readFromReplica(query);
+    }
+
+    /**
+     * キーの読み取りを、最近書き込んでいればプライマリ、それ以外はレプリカで行う
+     * @param key
+     * @param query
+     * @return
+     */
+    public <T> T read(Object key, Supplier<T> query) {
+        if (isRecentlyWritten(key)) {
+            readYourWritesCount.increment();
+            return query.get();
+        }
+        return ReplicaRoutingDataSource.readFromReplica(query);
+    }
+
+    /**
+     * 複数のキーの読み取りを、1つでも最近書き込んでいればプライマリ、それ以外はレプリカで行う
+     * @param keys
+     * @param query
+     * @return
+     */
+    public <T> T readAll(Collection<?> keys, Supplier<T> query) {
+        for (Object key : keys) {
+            if (isRecentlyWritten(key)) {
+                readYourWritesCount.increment();
+                return query.get();
+            }
+        }
+        return ReplicaRoutingDataSource.readFromReplica(query);
+    }
+
+    /**
+     * 書き込んだキーを記録する
+     * @param key
+     */
+    public void markWritten(Object key) {
+        recentWrites.put(key, Boolean.TRUE);
+    }
+
+    /**
+     * 書き込み直後のためプライマリで読み取った回数
+     * @return
+     */
+    public long getReadYourWritesCount() {
+        return readYourWritesCount.sum();
+    }
+
+    private boolean isRecentlyWritten(Object key) {
+        return recentWrites.getIfPresent(key) != null;
+    }
+}
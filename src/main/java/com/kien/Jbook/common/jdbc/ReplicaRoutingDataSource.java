@@ -0,0 +1,291 @@
+package com.kien.Jbook.common.jdbc;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 読み取りをリードレプリカに振り分けるDataSource
+ *
+ * 既定ではプライマリに接続し、readFromReplica()の中でコネクションを取得した場合だけレプリカに接続する。
+ * コネクションの取得時に振り分けるため、トランザクション内（取得済みのコネクション）では切り替わらない。
+ * レプリカは正常なもののラウンドロビンで選び、正常なレプリカがない場合はプライマリに接続する。
+ *
+ * 一定間隔（health-check-interval）でレプリカに接続し、接続できない・遅延（lag-query の結果の秒数）が
+ * max-lag を超える・遅延が取得できない（レプリケーション停止）場合は振り分け対象から外す。
+ * lag-query を省略した場合は接続できるかどうかだけを確認する。
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements MeterBinder, AutoCloseable {
+    public static final String PRIMARY = "primary";
+    private static final String[] LAG_COLUMNS = {"Seconds_Behind_Source", "Seconds_Behind_Master"};
+    private static final int CHECK_TIMEOUT_SECONDS = 5;
+
+    private static final ThreadLocal<Boolean> REPLICA_READ = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicaList;
+    private final long maxLagSeconds;
+    private final String lagQuery;
+    private final Duration healthCheckInterval;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    // 接続先→コネクションの取得回数
+    private final Map<String, LongAdder> routeCounts = new HashMap<>();
+    private final LongAdder fallbackCount = new LongAdder();
+    private volatile List<Replica> healthyReplicas = List.of();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param primary 書き込み・既定の接続先
+     * @param replicas レプリカ名→DataSource
+     * @param maxLag これを超えて遅延しているレプリカは振り分け対象から外す
+     * @param lagQuery 遅延の秒数を返すクエリ（nullまたは空の場合は遅延を確認しない）
+     * @param healthCheckInterval レプリカの状態を確認する間隔
+     */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Duration maxLag,
+                                    String lagQuery, Duration healthCheckInterval) {
+        if (replicas.containsKey(PRIMARY)) {
+            throw new IllegalArgumentException("replica name must not be " + PRIMARY);
+        }
+        this.primary = primary;
+        this.maxLagSeconds = maxLag.toSeconds();
+        this.lagQuery = lagQuery == null || lagQuery.isBlank() ? null : lagQuery;
+        this.healthCheckInterval = healthCheckInterval;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        routeCounts.put(PRIMARY, new LongAdder());
+        List<Replica> replicaList = new ArrayList<>(replicas.size());
+        replicas.forEach((name, dataSource) -> {
+            replicaList.add(new Replica(name, dataSource));
+            targets.put(name, dataSource);
+            routeCounts.put(name, new LongAdder());
+        });
+        this.replicaList = List.copyOf(replicaList);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /**
+     * 処理の中で取得したコネクションをレプリカに振り分ける（入れ子にできる）
+     * @param query
+     * @return
+     */
+    public static <T> T readFromReplica(Supplier<T> query) {
+        Boolean previous = REPLICA_READ.get();
+        REPLICA_READ.set(Boolean.TRUE);
+        try {
+            return query.get();
+        } finally {
+            if (previous == null) {
+                REPLICA_READ.remove();
+            } else {
+                REPLICA_READ.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 状態の定期確認を始める。最初の確認が終わるまではすべてプライマリに接続する
+     */
+    public void start() {
+        if (replicaList.isEmpty()) {
+            return;
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("replica-health-");
+        threadFactory.setDaemon(true);
+        scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        scheduler.scheduleWithFixedDelay(this::checkReplicas, 0, healthCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 状態の確認を止め、プライマリ・レプリカのコネクションプールを閉じる
+     */
+    @Override
+    public void close() throws Exception {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        for (Replica replica : replicaList) {
+            closeQuietly(replica.dataSource);
+        }
+        closeQuietly(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String key = PRIMARY;
+        if (REPLICA_READ.get() != null) {
+            List<Replica> healthy = healthyReplicas;
+            if (healthy.isEmpty()) {
+                fallbackCount.increment();
+            } else {
+                key = healthy.get(Math.floorMod(nextReplica.getAndIncrement(), healthy.size())).name;
+            }
+        }
+        routeCounts.get(key).increment();
+        return key;
+    }
+
+    /**
+     * すべてのレプリカの接続・遅延を確認し、振り分け対象を更新する
+     */
+    public void checkReplicas() {
+        List<Replica> healthy = new ArrayList<>(replicaList.size());
+        for (Replica replica : replicaList) {
+            check(replica);
+            if (replica.healthy) {
+                healthy.add(replica);
+            }
+        }
+        healthyReplicas = List.copyOf(healthy);
+    }
+
+    private void check(Replica replica) {
+        boolean wasHealthy = replica.healthy;
+        try (Connection connection = replica.dataSource.getConnection()) {
+            if (lagQuery == null) {
+                replica.lagSeconds = 0;
+                replica.healthy = connection.isValid(CHECK_TIMEOUT_SECONDS);
+            } else {
+                Long lag = queryLag(connection);
+                replica.lagSeconds = lag == null ? -1 : lag;
+                replica.healthy = lag != null && lag <= maxLagSeconds;
+            }
+        } catch (SQLException | RuntimeException e) {
+            replica.lagSeconds = -1;
+            replica.healthy = false;
+            if (wasHealthy) {
+                log.warn("レプリカ {} に接続できません：{}", replica.name, e.toString());
+            }
+            return;
+        }
+        if (wasHealthy && !replica.healthy) {
+            log.warn("レプリカ {} を振り分け対象から外しました。遅延：{}秒", replica.name, replica.lagSeconds);
+        } else if (!wasHealthy && replica.healthy) {
+            log.info("レプリカ {} を振り分け対象に戻しました。遅延：{}秒", replica.name, replica.lagSeconds);
+        }
+    }
+
+    /**
+     * 遅延の秒数を取得する。SHOW REPLICA STATUS の場合は Seconds_Behind_Source の列、それ以外は1列目
+     * @return 行がない・値がNULLの場合はnull
+     */
+    private Long queryLag(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(CHECK_TIMEOUT_SECONDS);
+            try (ResultSet rs = statement.executeQuery(lagQuery)) {
+                if (!rs.next()) {
+                    return null;
+                }
+                long lag = rs.getLong(lagColumn(rs.getMetaData()));
+                return rs.wasNull() ? null : lag;
+            }
+        }
+    }
+
+    private static int lagColumn(ResultSetMetaData metaData) throws SQLException {
+        for (String name : LAG_COLUMNS) {
+            for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                if (name.equalsIgnoreCase(metaData.getColumnLabel(column))) {
+                    return column;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("DataSourceを閉じられませんでした：{}", e.toString());
+            }
+        }
+    }
+
+    /**
+     * 振り分け対象のレプリカ名
+     * @return
+     */
+    public List<String> getHealthyReplicaNames() {
+        return healthyReplicas.stream().map(replica -> replica.name).toList();
+    }
+
+    /**
+     * 接続先ごとのコネクションの取得回数
+     * @param name レプリカ名またはPRIMARY
+     * @return
+     */
+    public long getRouteCount(String name) {
+        LongAdder count = routeCounts.get(name);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * レプリカへの読み取りで、正常なレプリカがなくプライマリに接続した回数
+     * @return
+     */
+    public long getFallbackCount() {
+        return fallbackCount.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        routeCounts.forEach((name, count) -> FunctionCounter.builder("jbook.datasource.route", count, LongAdder::sum)
+                .description("接続先ごとのコネクションの取得回数")
+                .tag("target", name)
+                .register(registry));
+        FunctionCounter.builder("jbook.datasource.replica.fallback", fallbackCount, LongAdder::sum)
+                .description("正常なレプリカがなくプライマリで読み取った回数")
+                .register(registry);
+        for (Replica replica : replicaList) {
+            Gauge.builder("jbook.datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .description("振り分け対象なら1")
+                    .tag("replica", replica.name)
+                    .register(registry);
+            Gauge.builder("jbook.datasource.replica.lag", replica, r -> r.lagSeconds)
+                    .description("最後に確認した遅延の秒数（取得できない場合は-1）")
+                    .baseUnit("seconds")
+                    .tag("replica", replica.name)
+                    .register(registry);
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy;
+        private volatile long lagSeconds = -1;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.kien.Jbook.common.jdbc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * IDからシャードを決める対応表
+ *
+ * IDをバケットに分け、バケットごとに担当するシャードを割り当てる。
+ * バケットは、IDの下位22bitより上のビットを下位ビットにXORで畳み込んだ値 mod バケット数とする。
+ * SnowflakeのID（時刻 | ノードID | 連番）は、1ミリ秒に1件以下の登録では連番が0のままで下位ビットが変わらないため、
+ * そのままのmodでは全件が同じバケットに入る。畳み込むことで時刻の下位ビットでも分散する。
+ * 2^22（約419万）未満のID（AUTO_INCREMENT・ブロック採番）は畳み込んでも変わらず、id mod バケット数のままになる。
+ * シャードの追加・偏りの解消はバケットの割り当てを変えて行う（IDとバケットの対応は変わらない）。
+ * 1番目のシャードをホームシャードとし、シャーディングしないテーブル（出版社・ユーザー・ID採番）を置く。
+ */
+public class ShardMap {
+    // Snowflakeの連番とノードIDのビット数の合計（これより上が時刻）
+    private static final int BUCKET_FOLD_SHIFT = 22;
+
+    private final int bucketCount;
+    // バケット -> シャード名
+    private final String[] owners;
+    private final List<String> shardNames;
+
+    private ShardMap(int bucketCount, String[] owners, List<String> shardNames) {
+        this.bucketCount = bucketCount;
+        this.owners = owners;
+        this.shardNames = shardNames;
+    }
+
+    /**
+     * @param bucketCount バケット数
+     * @param bucketRanges シャード名 -> 担当するバケットの範囲（例: "0-31,40,48-63"）。順序は設定の順序
+     * @return
+     * @throws IllegalArgumentException 割り当てのないバケット・複数のシャードに割り当てたバケットがある場合
+     */
+    public static ShardMap of(int bucketCount, Map<String, String> bucketRanges) {
+        if (bucketCount < 1) {
+            throw new IllegalArgumentException("bucket count must be positive: " + bucketCount);
+        }
+        if (bucketRanges.isEmpty()) {
+            throw new IllegalArgumentException("no shards");
+        }
+        String[] owners = new String[bucketCount];
+        bucketRanges.forEach((shard, ranges) -> {
+            for (int bucket : parseRanges(ranges, bucketCount)) {
+                if (owners[bucket] != null) {
+                    throw new IllegalArgumentException(
+                            "bucket " + bucket + " is assigned to both " + owners[bucket] + " and " + shard);
+                }
+                owners[bucket] = shard;
+            }
+        });
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            if (owners[bucket] == null) {
+                throw new IllegalArgumentException("bucket " + bucket + " is not assigned to any shard");
+            }
+        }
+        return new ShardMap(bucketCount, owners, List.copyOf(bucketRanges.keySet()));
+    }
+
+    public int bucketOf(long id) {
+        return (int) Math.floorMod(id ^ (id >>> BUCKET_FOLD_SHIFT), (long) bucketCount);
+    }
+
+    public String shardOf(long id) {
+        return owners[bucketOf(id)];
+    }
+
+    public boolean owns(String shard, long id) {
+        return shardOf(id).equals(shard);
+    }
+
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    /**
+     * 設定の順序のシャード名
+     * @return
+     */
+    public List<String> getShardNames() {
+        return shardNames;
+    }
+
+    public String getHomeShard() {
+        return shardNames.get(0);
+    }
+
+    /**
+     * シャード名 -> 担当するバケット（昇順）
+     * @return
+     */
+    public Map<String, List<Integer>> getAssignments() {
+        Map<String, List<Integer>> assignments = new LinkedHashMap<>();
+        shardNames.forEach(shard -> assignments.put(shard, new ArrayList<>()));
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            assignments.get(owners[bucket]).add(bucket);
+        }
+        return assignments;
+    }
+
+    private static List<Integer> parseRanges(String ranges, int bucketCount) {
+        List<Integer> buckets = new ArrayList<>();
+        if (ranges == null || ranges.isBlank()) {
+            return buckets;
+        }
+        for (String range : ranges.split(",")) {
+            String[] bounds = range.trim().split("-");
+            try {
+                int from = Integer.parseInt(bounds[0].trim());
+                int to = bounds.length > 1 ? Integer.parseInt(bounds[1].trim()) : from;
+                if (bounds.length > 2 || from < 0 || to >= bucketCount || from > to) {
+                    throw new IllegalArgumentException("invalid bucket range: " + range);
+                }
+                for (int bucket = from; bucket <= to; bucket++) {
+                    buckets.add(bucket);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("invalid bucket range: " + range, e);
+            }
+        }
+        return buckets;
+    }
+
+    @Override
+    public String toString() {
+        return "ShardMap" + Arrays.asList(owners);
+    }
+}
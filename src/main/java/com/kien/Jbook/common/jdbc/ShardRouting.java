@@ -0,0 +1,260 @@
+package com.kien.Jbook.common.jdbc;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * 書籍の処理をIDのシャードに振り分ける
+ *
+ * シャーディングしない場合（jbook.sharding.shards を設定しない場合）は無効で、呼び出し側はそのまま処理する。
+ * 複数のシャードへの問い合わせ（scatter）は専用のスレッドプールで並行に実行し、結果をまとめる。
+ */
+public class ShardRouting implements AutoCloseable {
+    private final ShardMap shardMap;
+    private final ExecutorService executor;
+
+    /**
+     * @param shardMap
+     * @param scatterThreads 複数のシャードへ並行に問い合わせるスレッド数
+     */
+    public ShardRouting(ShardMap shardMap, int scatterThreads) {
+        this.shardMap = shardMap;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("shard-scatter-");
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newFixedThreadPool(Math.max(scatterThreads, 1), threadFactory);
+    }
+
+    private ShardRouting() {
+        this.shardMap = null;
+        this.executor = null;
+    }
+
+    /**
+     * シャーディングしない
+     * @return
+     */
+    public static ShardRouting disabled() {
+        return new ShardRouting();
+    }
+
+    public boolean isEnabled() {
+        return shardMap != null;
+    }
+
+    public ShardMap getShardMap() {
+        return shardMap;
+    }
+
+    /**
+     * IDのシャードで処理する
+     * @param id
+     * @param action
+     * @return
+     */
+    public <T> T onShardOf(long id, Supplier<T> action) {
+        return onShard(shardMap.shardOf(id), action);
+    }
+
+    public <T> T onShard(String shard, Supplier<T> action) {
+        return ShardRoutingDataSource.onShard(shard, action);
+    }
+
+    /**
+     * IDをシャードごとに分ける（IDの順序は保つ）
+     * @param ids
+     * @return シャード名 -> ID
+     */
+    public Map<String, List<Long>> groupByShard(Collection<Long> ids) {
+        Map<String, List<Long>> groups = new LinkedHashMap<>();
+        for (Long id : ids) {
+            groups.computeIfAbsent(shardMap.shardOf(id), shard -> new ArrayList<>()).add(id);
+        }
+        return groups;
+    }
+
+    /**
+     * シャードごとの処理を並行に実行し、すべての結果を返す
+     * 1つでも失敗した場合は、その例外を投げる（他のシャードの処理は最後まで実行される）
+     * @param shards
+     * @param query シャード名を受け取り、そのシャードに振り分けた状態で実行される
+     * @return シャード名 -> 結果（shardsの順序）
+     */
+    public <T> Map<String, T> scatter(Collection<String> shards, Function<String, T> query) {
+        Map<String, T> results = new LinkedHashMap<>();
+        if (shards.size() == 1) {
+            String shard = shards.iterator().next();
+            results.put(shard, onShard(shard, () -> query.apply(shard)));
+            return results;
+        }
+        Map<String, Future<T>> futures = new LinkedHashMap<>();
+        for (String shard : shards) {
+            futures.put(shard, executor.submit(() -> onShard(shard, () -> query.apply(shard))));
+        }
+        RuntimeException failure = null;
+        for (Map.Entry<String, Future<T>> entry : futures.entrySet()) {
+            try {
+                results.put(entry.getKey(), entry.getValue().get());
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException cause
+                            ? cause
+                            : new IllegalStateException(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.values().forEach(future -> future.cancel(true));
+                throw new IllegalStateException("interrupted while waiting for shard " + entry.getKey(), e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    /**
+     * 全シャードで順番に処理する
+     * @param action シャード名を受け取り、そのシャードに振り分けた状態で実行される
+     */
+    public void forEachShard(Consumer<String> action) {
+        for (String shard : shardMap.getShardNames()) {
+            onShard(shard, () -> {
+                action.accept(shard);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * シャードごとのトランザクションを入れ子にして処理する
+     *
+     * 1番目のシャードのトランザクションの中で2番目のシャードのトランザクションを始め…、最も内側でlastを実行する。
+     * 途中で失敗した場合はすべてのシャードのトランザクションがロールバックされる。
+     * コミットは内側から順に行うため、コミット自体が途中で失敗した場合は内側のシャードだけがコミットされる。
+     * @param shards
+     * @param requiresNew REQUIRES_NEW のトランザクション
+     * @param action シャード名を受け取り、そのシャードのトランザクション内で実行される
+     * @param last 全シャードのトランザクション内で実行される（不要な場合はnull）
+     */
+    public void inChainedTransactions(List<String> shards, TransactionTemplate requiresNew,
+                                      Consumer<String> action, Runnable last) {
+        chain(shards, 0, requiresNew, action, last);
+    }
+
+    private void chain(List<String> shards, int index, TransactionTemplate requiresNew,
+                       Consumer<String> action, Runnable last) {
+        if (index == shards.size()) {
+            if (last != null) {
+                last.run();
+            }
+            return;
+        }
+        String shard = shards.get(index);
+        onShard(shard, () -> {
+            requiresNew.executeWithoutResult(status -> {
+                action.accept(shard);
+                chain(shards, index + 1, requiresNew, action, last);
+            });
+            return null;
+        });
+    }
+
+    /**
+     * それぞれ並び順に並んだ複数の結果を、1つの並び順にまとめる
+     * @param sources
+     * @param comparator
+     * @return
+     */
+    public static <T> Iterator<T> mergeSorted(List<? extends Iterator<T>> sources, Comparator<? super T> comparator) {
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>(Math.max(sources.size(), 1),
+                (a, b) -> comparator.compare(a.value, b.value));
+        for (Iterator<T> source : sources) {
+            if (source.hasNext()) {
+                heads.add(new Head<>(source.next(), source));
+            }
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                Head<T> head = heads.poll();
+                if (head == null) {
+                    throw new NoSuchElementException();
+                }
+                if (head.source.hasNext()) {
+                    heads.add(new Head<>(head.source.next(), head.source));
+                }
+                return head.value;
+            }
+        };
+    }
+
+    /**
+     * シャードが担当するIDの要素だけを返す（バケットの移動中に移動元・移動先の両方にある行を除く）
+     * @param shard
+     * @param source
+     * @param idOf
+     * @return
+     */
+    public <T> Iterator<T> ownedBy(String shard, Iterator<T> source, ToLongFunction<? super T> idOf) {
+        return new Iterator<>() {
+            private T next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && source.hasNext()) {
+                    T candidate = source.next();
+                    if (shardMap.owns(shard, idOf.applyAsLong(candidate))) {
+                        next = candidate;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                T value = next;
+                next = null;
+                return value;
+            }
+        };
+    }
+
+    /**
+     * スレッドプールを止める
+     */
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private record Head<T>(T value, Iterator<T> source) {
+    }
+}
@@ -0,0 +1,94 @@
+package com.kien.Jbook.common.jdbc;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * コネクションをシャードに振り分けるDataSource
+ *
+ * 既定ではホームシャードに接続し、onShard()の中でコネクションを取得した場合だけ指定したシャードに接続する。
+ * コネクションの取得時に振り分けるため、トランザクション内（取得済みのコネクション）では切り替わらない。
+ * 別のシャードで処理する場合は、onShard()の中で新しいトランザクション（REQUIRES_NEW）を始めること。
+ */
+@Slf4j
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+    private static final ThreadLocal<String> CURRENT_SHARD = new ThreadLocal<>();
+
+    private final Map<String, DataSource> shards;
+    private final String homeShard;
+
+    /**
+     * @param shards シャード名 -> DataSource（1番目をホームシャードとする）
+     */
+    public ShardRoutingDataSource(Map<String, DataSource> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("no shards");
+        }
+        this.shards = new LinkedHashMap<>(shards);
+        this.homeShard = shards.keySet().iterator().next();
+        setTargetDataSources(new HashMap<>(shards));
+        setDefaultTargetDataSource(shards.get(homeShard));
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /**
+     * 処理の中で取得したコネクションを指定したシャードに振り分ける（入れ子にできる）
+     * @param shard
+     * @param action
+     * @return
+     */
+    public static <T> T onShard(String shard, Supplier<T> action) {
+        String previous = CURRENT_SHARD.get();
+        CURRENT_SHARD.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT_SHARD.remove();
+            } else {
+                CURRENT_SHARD.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 現在のスレッドで振り分けているシャード（onShard()の外ではnull）
+     * @return
+     */
+    public static String currentShard() {
+        return CURRENT_SHARD.get();
+    }
+
+    public String getHomeShard() {
+        return homeShard;
+    }
+
+    /**
+     * シャードのコネクションプールを閉じる
+     */
+    @Override
+    public void close() {
+        shards.forEach((name, dataSource) -> {
+            if (dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("シャードのコネクションプールを閉じられませんでした：{} {}", name, e.toString());
+                }
+            }
+        });
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String shard = CURRENT_SHARD.get();
+        return shard == null ? homeShard : shard;
+    }
+}
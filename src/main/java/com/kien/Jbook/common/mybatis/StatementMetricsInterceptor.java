@@ -0,0 +1,141 @@
+package com.kien.Jbook.common.mybatis;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapperのステートメントごとに実行時間・件数・エラー数を記録するMyBatisプラグイン
+ *
+ * メーターはステートメントID（例：BookMapper.getById）ごとに初回だけ作成して保持するため、
+ * 2回目以降の呼び出しではタグやメーターの生成が発生しない。
+ * 実行時間はヒストグラム（バケット）として公開し、パーセンタイルはPrometheus側で計算する。
+ *
+ * 記録するメトリクス
+ *   jbook.mybatis.statement          実行時間（Timer）
+ *   jbook.mybatis.statement.rows     取得・更新件数（DistributionSummary）
+ *   jbook.mybatis.statement.errors   例外の発生数（Counter）
+ *
+ * カーソル（queryCursor）はオープンまでの時間のみ記録し、件数は記録しない。
+ * BATCHエクゼキュータのupdateは送信を遅延するため件数は記録されず、実行時間もキューへの追加のみとなる。
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "queryCursor",
+                args = {MappedStatement.class, Object.class, RowBounds.class}),
+        @Signature(type = Executor.class, method = "update",
+                args = {MappedStatement.class, Object.class})
+})
+public class StatementMetricsInterceptor implements Interceptor {
+    static final String TIMER_NAME = "jbook.mybatis.statement";
+    static final String ROWS_NAME = "jbook.mybatis.statement.rows";
+    static final String ERRORS_NAME = "jbook.mybatis.statement.errors";
+    static final String TAG_STATEMENT = "statement";
+    static final String TAG_TYPE = "type";
+
+    private final MeterRegistry registry;
+    private final Duration maximumExpectedLatency;
+    private final Map<String, StatementMeters> meters = new ConcurrentHashMap<>();
+
+    public StatementMetricsInterceptor(MeterRegistry registry, Duration maximumExpectedLatency) {
+        this.registry = registry;
+        this.maximumExpectedLatency = maximumExpectedLatency;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+        StatementMeters statementMeters = meters.get(ms.getId());
+        if (statementMeters == null) {
+            statementMeters = meters.computeIfAbsent(ms.getId(), id -> createMeters(ms));
+        }
+        long start = System.nanoTime();
+        try {
+            Object result = invocation.proceed();
+            statementMeters.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            long rows = rowCount(result);
+            if (rows >= 0) {
+                statementMeters.rows.record(rows);
+            }
+            return result;
+        } catch (Throwable e) {
+            statementMeters.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            statementMeters.errors.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * 完全修飾のステートメントID（com.kien.Jbook.mapper.BookMapper.getById）を
+     * Mapper名.メソッド名（BookMapper.getById）に短縮する
+     * @param id
+     * @return
+     */
+    static String shortStatementId(String id) {
+        int method = id.lastIndexOf('.');
+        if (method <= 0) {
+            return id;
+        }
+        int mapper = id.lastIndexOf('.', method - 1);
+        return id.substring(mapper + 1);
+    }
+
+    private StatementMeters createMeters(MappedStatement ms) {
+        String statement = shortStatementId(ms.getId());
+        String type = ms.getSqlCommandType().name();
+        Timer timer = Timer.builder(TIMER_NAME)
+                .description("Mapperステートメントの実行時間")
+                .tags(TAG_STATEMENT, statement, TAG_TYPE, type)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(maximumExpectedLatency)
+                .register(registry);
+        DistributionSummary rows = DistributionSummary.builder(ROWS_NAME)
+                .description("Mapperステートメントの取得・更新件数")
+                .baseUnit("rows")
+                .tags(TAG_STATEMENT, statement, TAG_TYPE, type)
+                .register(registry);
+        Counter errors = Counter.builder(ERRORS_NAME)
+                .description("Mapperステートメントで発生した例外の数")
+                .tags(TAG_STATEMENT, statement, TAG_TYPE, type)
+                .register(registry);
+        return new StatementMeters(timer, rows, errors);
+    }
+
+    private static long rowCount(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Integer count) {
+            // BATCHエクゼキュータは負の値（BATCH_UPDATE_RETURN_VALUE）を返す
+            return count;
+        }
+        if (result instanceof Cursor<?>) {
+            return -1;
+        }
+        return result == null ? -1 : 1;
+    }
+
+    private record StatementMeters(Timer timer, DistributionSummary rows, Counter errors) {
+    }
+}
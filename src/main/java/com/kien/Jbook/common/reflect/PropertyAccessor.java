@@ -0,0 +1,45 @@
+package com.kien.Jbook.common.reflect;
+
+import java.util.function.Function;
+
+/**
+ * 1つのプロパティのgetter
+ * getterはLambdaMetafactoryで生成した関数なので、呼び出しはメソッドの直接呼び出しと同等にインライン化される
+ */
+public final class PropertyAccessor {
+    private final String name;
+    private final String columnName;
+    private final Class<?> type;
+    private final Function<Object, Object> getter;
+
+    PropertyAccessor(String name, String columnName, Class<?> type, Function<Object, Object> getter) {
+        this.name = name;
+        this.columnName = columnName;
+        this.type = type;
+        this.getter = getter;
+    }
+
+    /**
+     * プロパティ名（例：publisherId）
+     * @return
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 対応するカラム名（例：publisher_id）
+     * @return
+     */
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public Object get(Object target) {
+        return getter.apply(target);
+    }
+}
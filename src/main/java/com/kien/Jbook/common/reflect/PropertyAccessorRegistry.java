@@ -0,0 +1,160 @@
+package com.kien.Jbook.common.reflect;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * クラスごとのプロパティgetterの一覧
+ *
+ * クラスごとに初回だけpublicなgetter（getXxx / isXxx）を走査してアクセサを生成し、ClassValueに保持する。
+ * 2回目以降はMapの参照のみで、リフレクションもsetAccessibleも文字列の変換も発生しない。
+ * プロパティ名（publisherId）とカラム名（publisher_id）のどちらでも引ける。
+ */
+public final class PropertyAccessorRegistry {
+    private static final ClassValue<PropertyAccessorRegistry> REGISTRIES = new ClassValue<>() {
+        @Override
+        protected PropertyAccessorRegistry computeValue(Class<?> type) {
+            return new PropertyAccessorRegistry(type);
+        }
+    };
+
+    private final Map<String, PropertyAccessor> byName;
+    private final Map<String, PropertyAccessor> byColumn;
+
+    private PropertyAccessorRegistry(Class<?> type) {
+        Map<String, PropertyAccessor> names = new LinkedHashMap<>();
+        Map<String, PropertyAccessor> columns = new HashMap<>();
+        for (Method method : type.getMethods()) {
+            String name = propertyName(method);
+            if (name == null || names.containsKey(name)) {
+                continue;
+            }
+            PropertyAccessor accessor = new PropertyAccessor(name, toSnakeCase(name), method.getReturnType(), getter(type, method));
+            names.put(name, accessor);
+            columns.put(accessor.getColumnName(), accessor);
+        }
+        this.byName = Collections.unmodifiableMap(names);
+        this.byColumn = Collections.unmodifiableMap(columns);
+    }
+
+    public static PropertyAccessorRegistry of(Class<?> type) {
+        return REGISTRIES.get(type);
+    }
+
+    /**
+     * プロパティ名（例：publisherId）でアクセサを取得する
+     * @param name
+     * @return 存在しない場合はnull
+     */
+    public PropertyAccessor forProperty(String name) {
+        return name == null ? null : byName.get(name);
+    }
+
+    /**
+     * カラム名（例：publisher_id）でアクセサを取得する
+     * @param columnName
+     * @return 存在しない場合はnull
+     */
+    public PropertyAccessor forColumn(String columnName) {
+        return columnName == null ? null : byColumn.get(columnName);
+    }
+
+    public Collection<PropertyAccessor> accessors() {
+        return byName.values();
+    }
+
+    /**
+     * キャメルケース（例：titleKana）をスネークケース（例：title_kana）に変換する
+     * @param name
+     * @return
+     */
+    static String toSnakeCase(String name) {
+        StringBuilder sb = new StringBuilder(name.length() + 4);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c)) {
+                if (i > 0) {
+                    sb.append('_');
+                }
+                sb.append(Character.toLowerCase(c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String propertyName(Method method) {
+        if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 0
+                || method.getReturnType() == void.class || method.getDeclaringClass() == Object.class) {
+            return null;
+        }
+        String name = method.getName();
+        if (name.startsWith("get") && name.length() > 3) {
+            return decapitalize(name.substring(3));
+        }
+        if (name.startsWith("is") && name.length() > 2 && method.getReturnType() == boolean.class) {
+            return decapitalize(name.substring(2));
+        }
+        return null;
+    }
+
+    /**
+     * 先頭の1文字を小文字にする。ただし先頭2文字が大文字の場合（URLなど）はそのまま（JavaBeansの規約）
+     */
+    private static String decapitalize(String name) {
+        if (name.length() > 1 && Character.isUpperCase(name.charAt(0)) && Character.isUpperCase(name.charAt(1))) {
+            return name;
+        }
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * getterを呼び出すFunctionをLambdaMetafactoryで生成する
+     * 生成できない場合（非publicなクラスなど）はMethodHandle経由の呼び出しにする
+     */
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> getter(Class<?> type, Method method) {
+        MethodHandle handle;
+        MethodHandles.Lookup lookup;
+        try {
+            lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            handle = lookup.unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("getterにアクセスできません：" + method, e);
+        }
+        try {
+            CallSite site = LambdaMetafactory.metafactory(
+                    lookup,
+                    "apply",
+                    MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class),
+                    handle,
+                    MethodType.methodType(MethodType.methodType(method.getReturnType()).wrap().returnType(), type)
+            );
+            return (Function<Object, Object>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            MethodHandle generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+            return target -> {
+                try {
+                    return generic.invokeExact(target);
+                } catch (RuntimeException | Error ex) {
+                    throw ex;
+                } catch (Throwable ex) {
+                    throw new IllegalStateException(ex);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.kien.Jbook.common.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * 前方一致の候補を重みの高い順に返す、構築後に変更しないトライ
+ *
+ * 1文字ずつではなく、分岐のない区間を1つの辺にまとめたパトリシア木（基数木）で、
+ * ノードをオブジェクトではなく幅優先順の配列（ラベルの位置・長さ、子の開始位置、部分木の最大重み、値の範囲）で持つ。
+ * 幅優先順なので、あるノードの子は配列上で連続し、先頭文字の昇順に並ぶ。
+ * 辺のラベルは1つのchar配列にまとめて保持する。
+ *
+ * 検索では前方一致するノードまでたどり、部分木の最大重みを上限として優先度付きキューで探索するため、
+ * 一致する件数が多くても上位N件に必要なノードしか訪問しない。
+ * スレッドセーフ（構築後は読み取りのみ）。作り直す場合は新しいインスタンスを構築して差し替える。
+ */
+public final class CompactTrie {
+    private static final int ROOT = 0;
+
+    // 辺のラベル（ノードiのラベルは labels[labelStart[i], labelStart[i] + labelLength[i])）
+    private final char[] labels;
+    private final int[] labelStart;
+    private final int[] labelLength;
+    // ノードiの子は [childStart[i], childStart[i + 1])
+    private final int[] childStart;
+    // 部分木に含まれる値の重みの最大値
+    private final int[] maxWeight;
+    // ノードiで終わるキーの値は [valueStart[i], valueEnd[i])
+    private final int[] valueStart;
+    private final int[] valueEnd;
+    // 値（キーの昇順、同じキーの中では重みの降順）
+    private final String[] values;
+    private final int[] weights;
+
+    private CompactTrie(char[] labels, int[] labelStart, int[] labelLength, int[] childStart, int[] maxWeight,
+                        int[] valueStart, int[] valueEnd, String[] values, int[] weights) {
+        this.labels = labels;
+        this.labelStart = labelStart;
+        this.labelLength = labelLength;
+        this.childStart = childStart;
+        this.maxWeight = maxWeight;
+        this.valueStart = valueStart;
+        this.valueEnd = valueEnd;
+        this.values = values;
+        this.weights = weights;
+    }
+
+    /**
+     * キー・値・重みの組からトライを構築する（同じキーに複数の値を持てる）
+     * @param entries
+     * @return
+     */
+    public static CompactTrie build(List<Entry> entries) {
+        Entry[] sorted = entries.stream()
+                .filter(entry -> entry.key() != null && !entry.key().isEmpty())
+                .sorted(Comparator.comparing(Entry::key)
+                        .thenComparing(Comparator.comparingInt(Entry::weight).reversed())
+                        .thenComparing(Entry::value))
+                .toArray(Entry[]::new);
+        return new Builder(sorted).build();
+    }
+
+    /**
+     * ノード数（ルートを含む）
+     * @return
+     */
+    public int nodeCount() {
+        return labelStart.length;
+    }
+
+    /**
+     * 値の件数
+     * @return
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * prefixで始まるキーの値を重みの高い順に返す。同じ値（別のキーから同じ値に届く場合）は1件にまとめる
+     * @param prefix 空文字の場合は全体の上位
+     * @param limit
+     * @return
+     */
+    public List<String> suggest(String prefix, int limit) {
+        if (limit < 1 || values.length == 0) {
+            return List.of();
+        }
+        int node = find(prefix);
+        if (node < 0) {
+            return List.of();
+        }
+
+        // 部分木の最大重みの高い順に探索する（値は同じ重みのノードより先に取り出す）
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(Candidate.ORDER);
+        queue.add(new Candidate(maxWeight[node], false, node));
+        Set<String> results = new LinkedHashSet<>();
+        while (!queue.isEmpty() && results.size() < limit) {
+            Candidate candidate = queue.poll();
+            if (candidate.value()) {
+                results.add(values[candidate.index()]);
+                continue;
+            }
+            int current = candidate.index();
+            for (int v = valueStart[current]; v < valueEnd[current]; v++) {
+                queue.add(new Candidate(weights[v], true, v));
+            }
+            for (int child = childStart[current]; child < childStart[current + 1]; child++) {
+                queue.add(new Candidate(maxWeight[child], false, child));
+            }
+        }
+        return new ArrayList<>(results);
+    }
+
+    /**
+     * prefixを含む部分木の根のノードを返す（prefixが辺の途中で終わる場合はその辺の先のノード）
+     * @return 見つからない場合は-1
+     */
+    private int find(String prefix) {
+        int node = ROOT;
+        int position = 0;
+        while (position < prefix.length()) {
+            int child = findChild(node, prefix.charAt(position));
+            if (child < 0) {
+                return -1;
+            }
+            int start = labelStart[child];
+            int length = labelLength[child];
+            for (int i = 0; i < length && position < prefix.length(); i++, position++) {
+                if (labels[start + i] != prefix.charAt(position)) {
+                    return -1;
+                }
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    /**
+     * ラベルの先頭文字がcの子を二分探索で探す
+     */
+    private int findChild(int node, char c) {
+        int low = childStart[node];
+        int high = childStart[node + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char first = labels[labelStart[mid]];
+            if (first < c) {
+                low = mid + 1;
+            } else if (first > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param key 正規化済みのキー
+     * @param value 候補として返す値
+     * @param weight 大きいほど上位
+     */
+    public record Entry(String key, String value, int weight) {
+    }
+
+    /**
+     * @param weight 値の重み、またはノードの部分木の最大重み
+     * @param value trueの場合indexは値の位置、falseの場合はノード
+     */
+    private record Candidate(int weight, boolean value, int index) {
+        // 重みの降順、値が先、位置の昇順（キーの辞書順）
+        private static final Comparator<Candidate> ORDER = Comparator.comparingInt(Candidate::weight).reversed()
+                .thenComparing(Candidate::value, Comparator.reverseOrder())
+                .thenComparingInt(Candidate::index);
+    }
+
+    /**
+     * ソート済みのキーから幅優先で配列を組み立てる
+     * ノード＝ソート済みキーの範囲[from, to)で、範囲内のキーはdepth文字目までが共通
+     */
+    private static final class Builder {
+        private final Entry[] entries;
+        private final StringBuilder labels = new StringBuilder();
+        private int[] labelStart = new int[16];
+        private int[] labelLength = new int[16];
+        private int[] childStart = new int[17];
+        private int[] valueStart = new int[16];
+        private int[] valueEnd = new int[16];
+        private int nodeCount;
+
+        private Builder(Entry[] entries) {
+            this.entries = entries;
+        }
+
+        private CompactTrie build() {
+            // ノードに対応するキーの範囲と、親までに消費した文字数
+            ArrayDeque<int[]> queue = new ArrayDeque<>();
+            queue.add(new int[]{0, entries.length, 0});
+            nodeCount = 1;
+            for (int node = 0; !queue.isEmpty(); node++) {
+                int[] range = queue.poll();
+                int from = range[0];
+                int to = range[1];
+                int depth = range[2];
+
+                // 1. 辺のラベル＝範囲内の共通接頭辞のうち、親までの分を除いた部分（ルートは空）
+                int end = node == ROOT || from == to ? depth : commonPrefixLength(entries[from].key(), entries[to - 1].key());
+                ensureCapacity(node + 1);
+                labelStart[node] = labels.length();
+                labelLength[node] = end - depth;
+                if (from < to) {
+                    labels.append(entries[from].key(), depth, end);
+                }
+
+                // 2. ちょうどこのノードで終わるキー（ソート済みなので範囲の先頭にまとまっている）
+                int i = from;
+                while (i < to && entries[i].key().length() == end) {
+                    i++;
+                }
+                valueStart[node] = from;
+                valueEnd[node] = i;
+
+                // 3. 残りをend文字目で分けて子にする（子の番号は連続する）
+                childStart[node] = nodeCount;
+                while (i < to) {
+                    char c = entries[i].key().charAt(end);
+                    int j = i + 1;
+                    while (j < to && entries[j].key().charAt(end) == c) {
+                        j++;
+                    }
+                    queue.add(new int[]{i, j, end});
+                    nodeCount++;
+                    i = j;
+                }
+            }
+            ensureCapacity(nodeCount + 1);
+            childStart[nodeCount] = nodeCount;
+
+            // 4. 子は親より後ろにあるので、後ろから部分木の最大重みを求める
+            String[] values = new String[entries.length];
+            int[] weights = new int[entries.length];
+            for (int i = 0; i < entries.length; i++) {
+                values[i] = entries[i].value();
+                weights[i] = entries[i].weight();
+            }
+            int[] maxWeight = new int[nodeCount];
+            for (int node = nodeCount - 1; node >= 0; node--) {
+                int max = Integer.MIN_VALUE;
+                for (int v = valueStart[node]; v < valueEnd[node]; v++) {
+                    max = Math.max(max, weights[v]);
+                }
+                for (int child = childStart[node]; child < childStart[node + 1]; child++) {
+                    max = Math.max(max, maxWeight[child]);
+                }
+                maxWeight[node] = max;
+            }
+
+            char[] labelChars = new char[labels.length()];
+            labels.getChars(0, labels.length(), labelChars, 0);
+            return new CompactTrie(
+                    labelChars,
+                    Arrays.copyOf(labelStart, nodeCount),
+                    Arrays.copyOf(labelLength, nodeCount),
+                    Arrays.copyOf(childStart, nodeCount + 1),
+                    maxWeight,
+                    Arrays.copyOf(valueStart, nodeCount),
+                    Arrays.copyOf(valueEnd, nodeCount),
+                    values,
+                    weights
+            );
+        }
+
+        private void ensureCapacity(int required) {
+            if (required < labelStart.length) {
+                return;
+            }
+            int newLength = Math.max(required + 1, labelStart.length * 2);
+            labelStart = Arrays.copyOf(labelStart, newLength);
+            labelLength = Arrays.copyOf(labelLength, newLength);
+            childStart = Arrays.copyOf(childStart, newLength + 1);
+            valueStart = Arrays.copyOf(valueStart, newLength);
+            valueEnd = Arrays.copyOf(valueEnd, newLength);
+        }
+
+        private static int commonPrefixLength(String a, String b) {
+            int length = Math.min(a.length(), b.length());
+            int i = 0;
+            while (i < length && a.charAt(i) == b.charAt(i)) {
+                i++;
+            }
+            return i;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.kien.Jbook.common.search;
+
+import com.kien.Jbook.common.collection.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * 文字バイグラム（2文字ずつ）の転置インデックス
+ *
+ * 文書（キー＝書籍IDなど）ごとに複数のフィールドを持ち、フィールドごとにスコアの重みを指定する。
+ * 文字列はTextNormalizerで正規化してからバイグラムに分割する。
+ * 検索ではクエリのバイグラムをすべて含む文書をAND検索し、一致したバイグラムごとに
+ * 含まれていたフィールドの重みを加算したスコアの上位K件を返す。
+ * バイグラムの位置は保持しないため、「すべてのバイグラムを含むが連続していない」文書も一致する。
+ *
+ * ポスティングリストは文書番号（追加順の連番）のint配列とフィールドのビットマスクのbyte配列で持つ。
+ * 文書番号は追加順なので、リストは常に昇順になり、積集合をギャロップ探索で求められる。
+ * 削除は文書番号の削除フラグで行い、ポスティングからは取り除かない（再構築で消える）。
+ * 削除されていない文書の文書番号はキーごとに持ち、置き換え・削除で文書を探さない。
+ *
+ * 1文字のクエリには対応しない（ユニグラムも持つとメモリが約2倍になるため）。
+ * スレッドセーフ。検索は並行に実行でき、追加・削除は検索と排他になる。
+ */
+public class NGramIndex {
+    private static final int MAX_FIELDS = 8;
+    private static final int INITIAL_POSTINGS_CAPACITY = 4;
+
+    // ビットマスク→重みの合計
+    private final int[] maskWeights = new int[1 << MAX_FIELDS];
+    private final int fieldCount;
+    private final Map<Integer, Postings> postings = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 文書番号→キー
+    private long[] docKeys = new long[1024];
+    private int docCount;
+    private final BitSet removedDocs = new BitSet();
+    // キー→削除されていない文書番号
+    private final LongIntHashMap liveDocs = new LongIntHashMap();
+    private int removedCount;
+
+    /**
+     * @param fieldWeights フィールドごとのスコアの重み（add()に渡すフィールドの順）
+     */
+    public NGramIndex(int... fieldWeights) {
+        if (fieldWeights.length == 0 || fieldWeights.length > MAX_FIELDS) {
+            throw new IllegalArgumentException("fieldWeights must have 1 to " + MAX_FIELDS + " elements");
+        }
+        this.fieldCount = fieldWeights.length;
+        for (int mask = 1; mask < maskWeights.length; mask++) {
+            int weight = 0;
+            for (int field = 0; field < fieldCount; field++) {
+                if ((mask & (1 << field)) != 0) {
+                    weight += fieldWeights[field];
+                }
+            }
+            maskWeights[mask] = weight;
+        }
+    }
+
+    /**
+     * 文書を追加する。同じキーの文書が既にある場合は置き換える
+     * @param key
+     * @param fields フィールドの値（nullは空文字扱い）
+     */
+    public void add(long key, String... fields) {
+        if (fields.length != fieldCount) {
+            throw new IllegalArgumentException("expected " + fieldCount + " fields but got " + fields.length);
+        }
+        // ロックの外でバイグラムとフィールドのマスクを求める
+        Map<Integer, Integer> gramMasks = new HashMap<>();
+        for (int field = 0; field < fields.length; field++) {
+            String text = TextNormalizer.normalize(fields[field]);
+            int bit = 1 << field;
+            for (int i = 0; i + 1 < text.length(); i++) {
+                gramMasks.merge(gram(text.charAt(i), text.charAt(i + 1)), bit, (a, b) -> a | b);
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            int doc = docCount++;
+            if (doc == docKeys.length) {
+                docKeys = Arrays.copyOf(docKeys, docKeys.length * 2);
+            }
+            docKeys[doc] = key;
+            markRemoved(liveDocs.put(key, doc));
+            for (Map.Entry<Integer, Integer> entry : gramMasks.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), k -> new Postings())
+                        .append(doc, entry.getValue().byteValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 文書を削除する
+     * @param key
+     * @return 削除した場合はtrue
+     */
+    public boolean remove(long key) {
+        lock.writeLock().lock();
+        try {
+            return markRemoved(liveDocs.remove(key));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 削除されていない文書の件数
+     * @return
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docCount - removedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * クエリのバイグラムをすべて含む文書をスコアの高い順に返す（同点はキーの昇順）
+     * @param query 正規化前の文字列
+     * @param limit 返す件数の上限
+     * @return クエリが正規化後に2文字未満の場合は0件
+     */
+    public Result search(String query, int limit) {
+        int[] grams = queryGrams(TextNormalizer.normalize(query));
+        if (grams.length == 0 || limit < 1) {
+            return Result.EMPTY;
+        }
+
+        lock.readLock().lock();
+        try {
+            // 1. ポスティングリストを短い順に並べる（1つでもなければ0件）
+            Postings[] lists = new Postings[grams.length];
+            for (int i = 0; i < grams.length; i++) {
+                lists[i] = postings.get(grams[i]);
+                if (lists[i] == null) {
+                    return Result.EMPTY;
+                }
+            }
+            Arrays.sort(lists, Comparator.comparingInt(p -> p.size));
+
+            // 2. 最短のリストを候補にして、残りのリストとの積集合を取りながらスコアを加算する
+            Postings shortest = lists[0];
+            int[] candidates = Arrays.copyOf(shortest.docs, shortest.size);
+            int[] scores = new int[shortest.size];
+            for (int i = 0; i < shortest.size; i++) {
+                scores[i] = maskWeights[shortest.masks[i] & 0xFF];
+            }
+            int count = shortest.size;
+            for (int l = 1; l < lists.length && count > 0; l++) {
+                count = intersect(candidates, scores, count, lists[l]);
+            }
+
+            // 3. 削除済みを除いて、ヒープで上位K件を選ぶ
+            PriorityQueue<Hit> heap = new PriorityQueue<>(Math.min(limit, count) + 1, WORST_FIRST);
+            int total = 0;
+            for (int i = 0; i < count; i++) {
+                int doc = candidates[i];
+                if (removedDocs.get(doc)) {
+                    continue;
+                }
+                total++;
+                long key = docKeys[doc];
+                int score = scores[i];
+                if (heap.size() < limit) {
+                    heap.add(new Hit(key, score));
+                    continue;
+                }
+                // ヒープの最下位に勝てない候補はHitを作らずに捨てる（一致件数が多いクエリの大半）
+                Hit worst = heap.peek();
+                if (score > worst.score() || (score == worst.score() && key < worst.key())) {
+                    heap.poll();
+                    heap.add(new Hit(key, score));
+                }
+            }
+            List<Hit> hits = new ArrayList<>(heap);
+            hits.sort(WORST_FIRST.reversed());
+            return new Result(total, hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 候補（昇順）のうちリストに含まれるものだけを前に詰め、スコアを加算する
+     * @return 残った候補の件数
+     */
+    private int intersect(int[] candidates, int[] scores, int count, Postings list) {
+        int kept = 0;
+        int position = 0;
+        for (int i = 0; i < count && position < list.size; i++) {
+            int doc = candidates[i];
+            position = gallop(list.docs, position, list.size, doc);
+            if (position < list.size && list.docs[position] == doc) {
+                candidates[kept] = doc;
+                scores[kept] = scores[i] + maskWeights[list.masks[position] & 0xFF];
+                kept++;
+                position++;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * docs[from, to)のうちtarget以上の最初の位置を指数探索＋二分探索で求める
+     */
+    private static int gallop(int[] docs, int from, int to, int target) {
+        int step = 1;
+        int low = from;
+        int high = from;
+        while (high < to && docs[high] < target) {
+            low = high + 1;
+            high += step;
+            step <<= 1;
+        }
+        high = Math.min(high + 1, to);
+        int index = Arrays.binarySearch(docs, low, high, target);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * @param doc 削除する文書番号。NO_VALUEの場合は何もしない
+     * @return 削除した場合はtrue
+     */
+    private boolean markRemoved(int doc) {
+        if (doc == LongIntHashMap.NO_VALUE) {
+            return false;
+        }
+        removedDocs.set(doc);
+        removedCount++;
+        return true;
+    }
+
+    private static int[] queryGrams(String text) {
+        if (text.length() < 2) {
+            return new int[0];
+        }
+        return IntStream.range(0, text.length() - 1)
+                .map(i -> gram(text.charAt(i), text.charAt(i + 1)))
+                .distinct()
+                .toArray();
+    }
+
+    private static int gram(char first, char second) {
+        return (first << 16) | second;
+    }
+
+    // スコアが低い、同点ならキーが大きいほうが先頭（上位K件のヒープから最初に落とす）
+    private static final Comparator<Hit> WORST_FIRST = Comparator.comparingInt(Hit::score)
+            .thenComparing(Hit::key, Comparator.reverseOrder());
+
+    /**
+     * 1つのバイグラムを含む文書番号（昇順）と、含んでいたフィールドのビットマスク
+     */
+    private static final class Postings {
+        private int[] docs = new int[INITIAL_POSTINGS_CAPACITY];
+        private byte[] masks = new byte[INITIAL_POSTINGS_CAPACITY];
+        private int size;
+
+        private void append(int doc, byte mask) {
+            if (size == docs.length) {
+                int newLength = docs.length + (docs.length >> 1);
+                docs = Arrays.copyOf(docs, newLength);
+                masks = Arrays.copyOf(masks, newLength);
+            }
+            docs[size] = doc;
+            masks[size] = mask;
+            size++;
+        }
+    }
+
+    /**
+     * @param key
+     * @param score 一致したバイグラムごとのフィールドの重みの合計
+     */
+    public record Hit(long key, int score) {
+    }
+
+    /**
+     * @param total 一致した文書の件数（上位K件に絞る前）
+     * @param hits スコアの高い順
+     */
+    public record Result(int total, List<Hit> hits) {
+        public static final Result EMPTY = new Result(0, List.of());
+    }
+}
@@ -0,0 +1,38 @@
+package com.kien.Jbook.common.search;
+
+import java.text.Normalizer;
+
+/**
+ * 検索用の文字列正規化
+ *
+ * 1. NFKC正規化（全角英数→半角、半角カナ→全角カナ、濁点の結合など）
+ * 2. 英字を小文字に統一
+ * 3. ひらがなをカタカナに統一
+ * 4. 空白を除去（「Spring Boot」と「SpringBoot」を同じに扱う）
+ */
+public class TextNormalizer {
+    private static final char HIRAGANA_FIRST = 'ぁ';
+    private static final char HIRAGANA_LAST = 'ゖ';
+    private static final int KATAKANA_OFFSET = 0x60;
+
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String nfkc = Normalizer.normalize(text, Normalizer.Form.NFKC);
+        StringBuilder sb = new StringBuilder(nfkc.length());
+        for (int i = 0; i < nfkc.length(); i++) {
+            char c = nfkc.charAt(i);
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            if (c >= HIRAGANA_FIRST && c <= HIRAGANA_LAST) {
+                c = (char) (c + KATAKANA_OFFSET);
+            } else {
+                c = Character.toLowerCase(c);
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,191 @@
+package com.kien.Jbook.common.thread;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 仮想スレッドのピン留め（synchronized内やネイティブ呼び出し中のブロッキングでキャリアスレッドを占有すること）を検出する
+ *
+ * JFRのjdk.VirtualThreadPinnedイベントを購読し、発生箇所（スタックの先頭フレーム）ごとに件数と合計時間を集計する。
+ * 同じ箇所のスタックトレースは初回のみWARNで出力し、以降は件数だけ数える。
+ *
+ * 記録するメトリクス（タグsiteは発生箇所。コード上の位置のため種類は限られる）
+ *   jbook.virtual-threads.pinned           ピン留めの件数（Counter）
+ *   jbook.virtual-threads.pinned.duration  ピン留めされていた時間（Timer）
+ */
+@Slf4j
+public class VirtualThreadPinningMonitor implements AutoCloseable {
+    static final String EVENT_NAME = "jdk.VirtualThreadPinned";
+    static final String COUNTER_NAME = "jbook.virtual-threads.pinned";
+    static final String TIMER_NAME = "jbook.virtual-threads.pinned.duration";
+    static final String TAG_SITE = "site";
+    private static final int LOGGED_FRAMES = 16;
+
+    private final Duration threshold;
+    private final MeterRegistry registry;
+    private final Map<String, PinnedSite> sites = new ConcurrentHashMap<>();
+    private final LongAdder totalEvents = new LongAdder();
+    private final LongAdder totalPinnedNanos = new LongAdder();
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(Duration threshold, MeterRegistry registry) {
+        this.threshold = threshold;
+        this.registry = registry;
+    }
+
+    /**
+     * JFRの購読を開始する
+     * JFRが利用できない環境では警告を出して何もしない
+     */
+    public synchronized void start() {
+        if (stream != null) {
+            return;
+        }
+        try {
+            RecordingStream rs = new RecordingStream();
+            rs.enable(EVENT_NAME).withThreshold(threshold).withStackTrace();
+            rs.onEvent(EVENT_NAME, this::record);
+            rs.startAsync();
+            stream = rs;
+            log.info("仮想スレッドのピン留め検出を開始しました。閾値：{}", threshold);
+        } catch (RuntimeException e) {
+            log.warn("仮想スレッドのピン留め検出を開始できませんでした：{}", e.toString());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+    /**
+     * 検出したピン留めの総数
+     * @return
+     */
+    public long getTotalEvents() {
+        return totalEvents.sum();
+    }
+
+    /**
+     * ピン留めされていた時間の合計
+     * @return
+     */
+    public Duration getTotalPinnedTime() {
+        return Duration.ofNanos(totalPinnedNanos.sum());
+    }
+
+    /**
+     * 発生箇所ごとの集計（件数の多い順）
+     * @return
+     */
+    public List<PinnedSiteStats> getSites() {
+        return sites.entrySet().stream()
+                .map(e -> new PinnedSiteStats(e.getKey(), e.getValue().count.sum(), Duration.ofNanos(e.getValue().nanos.sum())))
+                .sorted((a, b) -> Long.compare(b.count(), a.count()))
+                .collect(Collectors.toList());
+    }
+
+    void record(RecordedEvent event) {
+        Duration duration = event.getDuration();
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<RecordedFrame> frames = stackTrace != null ? stackTrace.getFrames() : List.of();
+        record(topFrame(frames), duration, frames);
+    }
+
+    void record(String site, Duration duration, List<RecordedFrame> frames) {
+        totalEvents.increment();
+        totalPinnedNanos.add(duration.toNanos());
+        boolean[] first = new boolean[1];
+        PinnedSite pinnedSite = sites.computeIfAbsent(site, key -> {
+            first[0] = true;
+            return new PinnedSite(registry, key);
+        });
+        pinnedSite.count.increment();
+        pinnedSite.nanos.add(duration.toNanos());
+        pinnedSite.counter.increment();
+        pinnedSite.timer.record(duration.toNanos(), TimeUnit.NANOSECONDS);
+        if (first[0]) {
+            log.warn("仮想スレッドがピン留めされました（{}ms）。発生箇所：{}{}",
+                    duration.toMillis(), site, formatFrames(frames));
+        }
+    }
+
+    /**
+     * JDK内部のフレームを読み飛ばし、最初のアプリケーション／ライブラリのフレームを発生箇所とする
+     */
+    private static String topFrame(List<RecordedFrame> frames) {
+        String fallback = "unknown";
+        for (RecordedFrame frame : frames) {
+            if (!frame.isJavaFrame()) {
+                continue;
+            }
+            String name = frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+            if (fallback.equals("unknown")) {
+                fallback = name + ":" + frame.getLineNumber();
+            }
+            if (!name.startsWith("java.") && !name.startsWith("jdk.") && !name.startsWith("sun.")) {
+                return name + ":" + frame.getLineNumber();
+            }
+        }
+        return fallback;
+    }
+
+    private static String formatFrames(List<RecordedFrame> frames) {
+        StringBuilder sb = new StringBuilder();
+        int limit = Math.min(frames.size(), LOGGED_FRAMES);
+        for (int i = 0; i < limit; i++) {
+            RecordedFrame frame = frames.get(i);
+            sb.append(System.lineSeparator()).append("\tat ")
+                    .append(frame.getMethod().getType().getName()).append('.')
+                    .append(frame.getMethod().getName()).append(':').append(frame.getLineNumber());
+        }
+        if (frames.size() > limit) {
+            sb.append(System.lineSeparator()).append("\t...");
+        }
+        return sb.toString();
+    }
+
+    private static class PinnedSite {
+        final LongAdder count = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final Counter counter;
+        final Timer timer;
+
+        PinnedSite(MeterRegistry registry, String site) {
+            counter = Counter.builder(COUNTER_NAME)
+                    .tag(TAG_SITE, site)
+                    .description("仮想スレッドのピン留めの件数")
+                    .register(registry);
+            timer = Timer.builder(TIMER_NAME)
+                    .tag(TAG_SITE, site)
+                    .description("仮想スレッドがピン留めされていた時間")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * 発生箇所ごとの集計結果
+     * @param site 最初のアプリケーション／ライブラリのフレーム
+     * @param count 件数
+     * @param totalTime ピン留めされていた時間の合計
+     */
+    public record PinnedSiteStats(String site, long count, Duration totalTime) {
+    }
+}
@@ -0,0 +1,97 @@
+package com.kien.Jbook.common.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kien.Jbook.common.cache.BoundedCache;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.util.function.Function;
+
+/**
+ * JSONにシリアライズしたバイト列をキャッシュし、同じ値のレスポンスはシリアライズせずにそのまま書き込む
+ *
+ * キャッシュはキー（IDなど）ごとに元の値とバイト列を保持し、書き込む値が元の値とequalsの場合だけ使用する。
+ * 値が変わった場合（更新日時、結合した名前など）はシリアライズし直してキャッシュを置き換える。
+ * シリアライズは Spring MVC と同じ ObjectMapper で行うため、出力は MappingJackson2HttpMessageConverter と同じ。
+ * 書き込み専用で、リクエストボディの読み込みには使用しない。
+ *
+ * @param <K> キャッシュのキー
+ * @param <T> レスポンスの型（この型のみを扱い、サブクラスやコレクションは扱わない）
+ */
+public class CachedJsonHttpMessageConverter<K, T> extends AbstractHttpMessageConverter<T> {
+
+    private final Class<T> type;
+    private final ObjectMapper objectMapper;
+    private final BoundedCache<K, Serialized<T>> cache;
+    private final Function<? super T, ? extends K> keyFunction;
+
+    /**
+     * @param type
+     * @param objectMapper
+     * @param cache シリアライズ結果のキャッシュ（バイト数を重みにする）
+     * @param keyFunction 値からキャッシュのキーを取得する（nullの場合はキャッシュしない）
+     */
+    public CachedJsonHttpMessageConverter(Class<T> type, ObjectMapper objectMapper,
+                                          BoundedCache<K, Serialized<T>> cache,
+                                          Function<? super T, ? extends K> keyFunction) {
+        super(MediaType.APPLICATION_JSON);
+        this.type = type;
+        this.objectMapper = objectMapper;
+        this.cache = cache;
+        this.keyFunction = keyFunction;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return type == clazz;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected T readInternal(Class<? extends T> clazz, HttpInputMessage inputMessage)
+            throws HttpMessageNotReadableException {
+        throw new HttpMessageNotReadableException("読み込みには対応していません", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(T value, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        outputMessage.getBody().write(toBytes(value));
+    }
+
+    /**
+     * キャッシュにあればそのバイト列を、なければシリアライズしてキャッシュしたバイト列を返す
+     * @param value
+     * @return
+     * @throws IOException
+     */
+    public byte[] toBytes(T value) throws IOException {
+        K key = keyFunction.apply(value);
+        if (key == null) {
+            return objectMapper.writeValueAsBytes(value);
+        }
+        Serialized<T> cached = cache.getIfPresent(key);
+        if (cached != null && cached.source().equals(value)) {
+            return cached.bytes();
+        }
+        byte[] bytes = objectMapper.writeValueAsBytes(value);
+        cache.put(key, new Serialized<>(value, bytes));
+        return bytes;
+    }
+
+    /**
+     * @param source シリアライズした値
+     * @param bytes UTF-8のJSON
+     */
+    public record Serialized<T>(T source, byte[] bytes) {
+    }
+}
@@ -0,0 +1,147 @@
+package com.kien.Jbook.config;
+
+import com.kien.Jbook.common.cache.BoundedCache;
+import com.kien.Jbook.common.cache.EvictionPolicy;
+import com.kien.Jbook.common.cache.IdempotencyStore;
+import com.kien.Jbook.common.cache.SingleFlight;
+import com.kien.Jbook.common.web.CachedJsonHttpMessageConverter;
+import com.kien.Jbook.model.dto.book.BookBasicInfo;
+import com.kien.Jbook.model.dto.book.BookView;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+
+    @Value("${jbook.cache.book-view.enabled:false}")
+    private boolean bookViewCacheEnabled;
+
+    @Value("${jbook.cache.book-view.maximum-size:10000}")
+    private int bookViewCacheMaximumSize;
+
+    @Value("${jbook.cache.book-view.ttl:10m}")
+    private Duration bookViewCacheTtl;
+
+    @Value("${jbook.cache.book-view.policy:LRU}")
+    private EvictionPolicy bookViewCachePolicy;
+
+    @Value("${jbook.cache.book-view.single-flight.enabled:true}")
+    private boolean bookViewSingleFlightEnabled;
+
+    @Value("${jbook.cache.book-view.single-flight.wait-timeout:5s}")
+    private Duration bookViewSingleFlightWaitTimeout;
+
+    @Value("${jbook.cache.book-view-json.enabled:false}")
+    private boolean bookViewJsonCacheEnabled;
+
+    @Value("${jbook.cache.book-view-json.maximum-bytes:64MB}")
+    private DataSize bookViewJsonCacheMaximumBytes;
+
+    @Value("${jbook.cache.book-view-json.ttl:10m}")
+    private Duration bookViewJsonCacheTtl;
+
+    @Value("${jbook.idempotency.enabled:true}")
+    private boolean idempotencyEnabled;
+
+    @Value("${jbook.idempotency.maximum-size:100000}")
+    private int idempotencyMaximumSize;
+
+    @Value("${jbook.idempotency.ttl:24h}")
+    private Duration idempotencyTtl;
+
+    @Value("${jbook.idempotency.in-flight-timeout:30s}")
+    private Duration idempotencyInFlightTimeout;
+
+    /**
+     * BookServiceImpl.getById の結果をキャッシュする
+     * 無効の場合は何も保持しないキャッシュを返す
+     * @return
+     */
+    @Bean
+    public BoundedCache<Long, BookView> bookViewCache() {
+        if (!bookViewCacheEnabled) {
+            return BoundedCache.disabled();
+        }
+        return new BoundedCache<>(bookViewCacheMaximumSize, bookViewCacheTtl, bookViewCachePolicy);
+    }
+
+    /**
+     * BookServiceImpl.getById の同じIDの読み込みを1回にまとめる
+     * 無効の場合は毎回読み込む
+     * @param registry
+     * @return
+     */
+    @Bean
+    public SingleFlight<Long, BookView> bookViewSingleFlight(ObjectProvider<MeterRegistry> registry) {
+        if (!bookViewSingleFlightEnabled) {
+            return SingleFlight.disabled();
+        }
+        SingleFlight<Long, BookView> singleFlight = new SingleFlight<>(bookViewSingleFlightWaitTimeout);
+        registry.ifAvailable(r -> {
+            FunctionCounter.builder("jbook.single-flight.coalesced", singleFlight, SingleFlight::getCoalescedCount)
+                    .tag("name", "book-view")
+                    .description("実行中の読み込みの結果を待って共有した回数")
+                    .register(r);
+            FunctionCounter.builder("jbook.single-flight.executed", singleFlight, SingleFlight::getExecutedCount)
+                    .tag("name", "book-view")
+                    .description("読み込みを実行した回数")
+                    .register(r);
+            FunctionCounter.builder("jbook.single-flight.timeout", singleFlight, SingleFlight::getTimeoutCount)
+                    .tag("name", "book-view")
+                    .description("実行中の読み込みを待つ時間の上限を超えた回数")
+                    .register(r);
+        });
+        return singleFlight;
+    }
+
+    /**
+     * GET /books/{id} のレスポンス（BookView）をシリアライズしたJSONのバイト列
+     * 件数ではなくバイト数の合計を上限にする。無効の場合は何も保持しない
+     * @param registry
+     * @return
+     */
+    @Bean
+    public BoundedCache<Long, CachedJsonHttpMessageConverter.Serialized<BookView>> bookViewJsonCache(
+            ObjectProvider<MeterRegistry> registry) {
+        if (!bookViewJsonCacheEnabled) {
+            return BoundedCache.disabled();
+        }
+        BoundedCache<Long, CachedJsonHttpMessageConverter.Serialized<BookView>> cache = BoundedCache.weighted(
+                bookViewJsonCacheMaximumBytes.toBytes(),
+                serialized -> serialized.bytes().length,
+                bookViewJsonCacheTtl,
+                EvictionPolicy.LRU);
+        registry.ifAvailable(r -> {
+            FunctionCounter.builder("jbook.cache.book-view-json.hit", cache, c -> c.stats().hitCount())
+                    .description("シリアライズせずにキャッシュのバイト列を書き込んだ回数")
+                    .register(r);
+            FunctionCounter.builder("jbook.cache.book-view-json.miss", cache, c -> c.stats().missCount())
+                    .register(r);
+            Gauge.builder("jbook.cache.book-view-json.bytes", cache, BoundedCache::weight)
+                    .baseUnit("bytes")
+                    .register(r);
+        });
+        return cache;
+    }
+
+    /**
+     * POST /books の Idempotency-Key ごとの結果
+     * 無効の場合は何も保持しない（ヘッダーを無視して毎回登録する）
+     * @return
+     */
+    @Bean
+    public IdempotencyStore<BookBasicInfo> registerIdempotencyStore() {
+        if (!idempotencyEnabled) {
+            return IdempotencyStore.disabled();
+        }
+        return new IdempotencyStore<>(idempotencyMaximumSize, idempotencyTtl, idempotencyInFlightTimeout);
+    }
+}
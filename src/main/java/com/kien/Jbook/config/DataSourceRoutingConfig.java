@@ -0,0 +1,105 @@
+package com.kien.Jbook.config;
+
+import com.kien.Jbook.common.jdbc.ReadRouting;
+import com.kien.Jbook.common.jdbc.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 読み取りのリードレプリカへの振り分け
+ *
+ * jbook.datasource.replicas を設定した場合だけ、DataSourceをプライマリ（spring.datasource）と
+ * レプリカを束ねたReplicaRoutingDataSourceに置き換える。設定しない場合はすべてプライマリで読み取る。
+ * コネクションプールの設定（spring.datasource.hikari.*）はプライマリ・レプリカで共通。
+ */
+@Configuration
+public class DataSourceRoutingConfig {
+
+    @Bean
+    public ReadRouting readRouting(Environment environment, ObjectProvider<MeterRegistry> registry) {
+        Duration window = environment.getProperty(
+                "jbook.datasource.read-your-writes.window", Duration.class, Duration.ofSeconds(5));
+        int maximumSize = environment.getProperty(
+                "jbook.datasource.read-your-writes.maximum-size", Integer.class, 100000);
+        ReadRouting readRouting = new ReadRouting(window, maximumSize);
+        registry.ifAvailable(r -> FunctionCounter.builder(
+                        "jbook.datasource.read-your-writes", readRouting, ReadRouting::getReadYourWritesCount)
+                .description("書き込み直後のためプライマリで読み取った回数")
+                .register(r));
+        return readRouting;
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "jbook.datasource.replicas[0].url")
+    static class ReplicaConfig {
+
+        /**
+         * @param name メトリクス・ログに表示する名前（省略時は replica-0, replica-1, ...）
+         * @param url
+         * @param username 省略時はプライマリと同じ
+         * @param password 省略時はプライマリと同じ
+         */
+        record ReplicaProperties(String name, String url, String username, String password) {
+        }
+
+        @Bean(initMethod = "start", destroyMethod = "close")
+        public ReplicaRoutingDataSource dataSource(DataSourceProperties properties, Environment environment,
+                                                   ObjectProvider<MeterRegistry> registry) {
+            Binder binder = Binder.get(environment);
+            DataSource primary = VirtualThreadConfig.bulkhead(
+                    environment, createPool(binder, properties.initializeDataSourceBuilder(), "primary"));
+
+            List<ReplicaProperties> replicaProperties = binder.bind(
+                    "jbook.datasource.replicas", Bindable.listOf(ReplicaProperties.class)).orElse(List.of());
+            Map<String, DataSource> replicas = new LinkedHashMap<>();
+            for (int i = 0; i < replicaProperties.size(); i++) {
+                ReplicaProperties replica = replicaProperties.get(i);
+                String name = replica.name() == null ? "replica-" + i : replica.name();
+                DataSourceBuilder<?> builder = DataSourceBuilder.create()
+                        .driverClassName(properties.determineDriverClassName())
+                        .url(replica.url())
+                        .username(replica.username() == null ? properties.determineUsername() : replica.username())
+                        .password(replica.password() == null ? properties.determinePassword() : replica.password());
+                replicas.put(name, VirtualThreadConfig.bulkhead(environment, createPool(binder, builder, name)));
+            }
+
+            ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(
+                    primary,
+                    replicas,
+                    environment.getProperty("jbook.datasource.max-lag", Duration.class, Duration.ofSeconds(10)),
+                    environment.getProperty("jbook.datasource.lag-query", ""),
+                    environment.getProperty("jbook.datasource.health-check-interval", Duration.class, Duration.ofSeconds(5))
+            );
+            registry.ifAvailable(dataSource::bindTo);
+            return dataSource;
+        }
+
+        /**
+         * spring.datasource.hikari.* を適用したコネクションプールを作る
+         */
+        private static DataSource createPool(Binder binder, DataSourceBuilder<?> builder, String name) {
+            DataSource dataSource = builder.build();
+            if (dataSource instanceof HikariDataSource hikari) {
+                binder.bind("spring.datasource.hikari", Bindable.ofInstance(hikari));
+                hikari.setPoolName("jbook-" + name);
+            }
+            return dataSource;
+        }
+    }
+}
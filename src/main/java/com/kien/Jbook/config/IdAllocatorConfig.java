@@ -0,0 +1,45 @@
+package com.kien.Jbook.config;
+
+import com.kien.Jbook.common.id.SnowflakeIdAllocator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * 書籍IDの採番方式
+ *
+ * jbook.id-allocator.type が BLOCK（既定）の場合はBlockIdAllocator（DBのid_blockからまとめて予約）、
+ * SNOWFLAKE の場合はSnowflakeIdAllocator（DBに問い合わせずに時刻順のIDを採番）を使う。
+ */
+@Configuration
+public class IdAllocatorConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "jbook.id-allocator.type", havingValue = "SNOWFLAKE")
+    public SnowflakeIdAllocator snowflakeIdAllocator(Environment environment, ObjectProvider<MeterRegistry> registry) {
+        SnowflakeIdAllocator allocator = new SnowflakeIdAllocator(
+                environment.getProperty("jbook.id-allocator.snowflake.node-id", Long.class, 0L),
+                Instant.parse(environment.getProperty("jbook.id-allocator.snowflake.epoch", "2025-01-01T00:00:00Z")),
+                environment.getProperty("jbook.id-allocator.snowflake.max-clock-drift", Duration.class,
+                        Duration.ofSeconds(1))
+        );
+        registry.ifAvailable(r -> {
+            FunctionCounter.builder(
+                            "jbook.id-allocator.logical-clock", allocator, SnowflakeIdAllocator::getLogicalClockCount)
+                    .description("時計の巻き戻り・連番の前借りのため、実際の時刻より先の時刻で採番した回数")
+                    .register(r);
+            FunctionCounter.builder(
+                            "jbook.id-allocator.drift-wait", allocator, SnowflakeIdAllocator::getDriftWaitCount)
+                    .description("実際の時刻との差が上限を超えたため、時計が追いつくのを待った回数")
+                    .register(r);
+        });
+        return allocator;
+    }
+}
@@ -0,0 +1,29 @@
+package com.kien.Jbook.config;
+
+import com.kien.Jbook.common.mybatis.StatementMetricsInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class MetricsConfig {
+
+    @Value("${jbook.metrics.mybatis.maximum-expected-latency:10s}")
+    private Duration mybatisMaximumExpectedLatency;
+
+    /**
+     * Mapperのステートメントごとのメトリクス
+     * Interceptor型のBeanはMyBatisの自動設定によってSqlSessionFactoryに登録される
+     * @param registry
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(name = "jbook.metrics.mybatis.enabled", havingValue = "true", matchIfMissing = true)
+    public StatementMetricsInterceptor statementMetricsInterceptor(MeterRegistry registry) {
+        return new StatementMetricsInterceptor(registry, mybatisMaximumExpectedLatency);
+    }
+}
@@ -0,0 +1,26 @@
+package com.kien.Jbook.config;
+
+import org.apache.ibatis.mapping.DatabaseIdProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MyBatisConfig {
+    private static final String MYSQL_URL_PREFIX = "jdbc:mysql:";
+
+    /**
+     * Mapper XMLのdatabaseIdで、DBごとに異なるステートメントを使えるようにする
+     * databaseIdを指定しないステートメントは、一致するdatabaseIdのものがなければすべてのDBで使われる
+     * VendorDatabaseIdProviderは起動時にDBへ接続するため使わず、接続URLから判定する
+     * （起動時にDBが停止していてもアプリケーションを起動できるようにする）
+     * DatabaseIdProvider型のBeanはMyBatisの自動設定によってSqlSessionFactoryに登録される
+     * @param url
+     * @return
+     */
+    @Bean
+    public DatabaseIdProvider databaseIdProvider(@Value("${spring.datasource.url:}") String url) {
+        String databaseId = url.startsWith(MYSQL_URL_PREFIX) ? "mysql" : null;
+        return dataSource -> databaseId;
+    }
+}
@@ -0,0 +1,39 @@
+package com.kien.Jbook.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kien.Jbook.service.impl.FileBookEventSink;
+import com.kien.Jbook.service.impl.InMemoryBookEventSink;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.nio.file.Path;
+
+/**
+ * 書籍の変更イベントの送信先（BookEventSink）
+ *
+ * jbook.outbox.sink.type が FILE（既定）の場合はFileBookEventSink（JSON Linesのファイルに追記）、
+ * MEMORY の場合はInMemoryBookEventSink（メモリ上に保持）を使う。
+ * それ以外の値にした場合はどちらも定義しないため、BookEventSinkのBeanを別途定義すること。
+ */
+@Configuration
+public class OutboxConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "jbook.outbox.sink.type", havingValue = "FILE", matchIfMissing = true)
+    public FileBookEventSink fileBookEventSink(Environment environment, ObjectMapper objectMapper) {
+        return new FileBookEventSink(
+                Path.of(environment.getProperty("jbook.outbox.sink.file.path", "./data/outbox/events.jsonl")),
+                environment.getProperty("jbook.outbox.sink.file.fsync", Boolean.class, true),
+                objectMapper
+        );
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "jbook.outbox.sink.type", havingValue = "MEMORY")
+    public InMemoryBookEventSink inMemoryBookEventSink(Environment environment) {
+        return new InMemoryBookEventSink(
+                environment.getProperty("jbook.outbox.sink.memory.capacity", Integer.class, 10000));
+    }
+}
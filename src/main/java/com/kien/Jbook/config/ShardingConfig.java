@@ -0,0 +1,114 @@
+package com.kien.Jbook.config;
+
+import com.kien.Jbook.common.jdbc.ShardMap;
+import com.kien.Jbook.common.jdbc.ShardRouting;
+import com.kien.Jbook.common.jdbc.ShardRoutingDataSource;
+import com.kien.Jbook.mapper.BookMapper;
+import com.kien.Jbook.mapper.ShardedBookMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * booksテーブルのIDによるシャーディング
+ *
+ * jbook.sharding.shards を設定した場合だけ、DataSourceをシャードを束ねたShardRoutingDataSourceに、
+ * BookMapperをIDのシャードで実行するShardedBookMapperに置き換える。設定しない場合は spring.datasource のみを使う。
+ * 1番目のシャード（ホームシャード）には、シャーディングしないテーブル（出版社・ユーザー・ID採番）の正本を置く。
+ * リードレプリカ（jbook.datasource.replicas）とは併用できない（DataSourceが重複して起動に失敗する）。
+ */
+@Configuration
+public class ShardingConfig {
+
+    /**
+     * @param name 省略時は shard-0, shard-1, ...
+     * @param url
+     * @param username 省略時は spring.datasource と同じ
+     * @param password 省略時は spring.datasource と同じ
+     * @param buckets 担当するバケットの範囲（例: "0-31"）
+     */
+    record ShardProperties(String name, String url, String username, String password, String buckets) {
+    }
+
+    @Bean(destroyMethod = "close")
+    public ShardRouting shardRouting(Environment environment) {
+        List<ShardProperties> shards = bindShards(Binder.get(environment));
+        if (shards.isEmpty()) {
+            return ShardRouting.disabled();
+        }
+        Map<String, String> bucketRanges = new LinkedHashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            bucketRanges.put(shardName(shards.get(i), i), shards.get(i).buckets());
+        }
+        ShardMap shardMap = ShardMap.of(
+                environment.getProperty("jbook.sharding.buckets", Integer.class, 64), bucketRanges);
+        return new ShardRouting(
+                shardMap, environment.getProperty("jbook.sharding.scatter-threads", Integer.class, 8));
+    }
+
+    private static List<ShardProperties> bindShards(Binder binder) {
+        return binder.bind("jbook.sharding.shards", Bindable.listOf(ShardProperties.class)).orElse(List.of());
+    }
+
+    private static String shardName(ShardProperties shard, int index) {
+        return shard.name() == null ? "shard-" + index : shard.name();
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "jbook.sharding.shards[0].url")
+    static class ShardDataSourceConfig {
+
+        @Bean(destroyMethod = "close")
+        public ShardRoutingDataSource dataSource(DataSourceProperties properties, Environment environment) {
+            Binder binder = Binder.get(environment);
+            List<ShardProperties> shardProperties = bindShards(binder);
+            Map<String, DataSource> shards = new LinkedHashMap<>();
+            for (int i = 0; i < shardProperties.size(); i++) {
+                ShardProperties shard = shardProperties.get(i);
+                String name = shardName(shard, i);
+                DataSourceBuilder<?> builder = DataSourceBuilder.create()
+                        .driverClassName(properties.determineDriverClassName())
+                        .url(shard.url())
+                        .username(shard.username() == null ? properties.determineUsername() : shard.username())
+                        .password(shard.password() == null ? properties.determinePassword() : shard.password());
+                shards.put(name, VirtualThreadConfig.bulkhead(environment, createPool(binder, builder, name)));
+            }
+            return new ShardRoutingDataSource(shards);
+        }
+
+        /**
+         * MyBatisが作るBookMapper（接続中のシャードで実行する）を包み、注入先ではこちらを優先する
+         */
+        @Bean
+        @Primary
+        public ShardedBookMapper shardedBookMapper(@Qualifier("bookMapper") BookMapper bookMapper,
+                                                   ShardRouting shardRouting) {
+            return new ShardedBookMapper(bookMapper, shardRouting);
+        }
+
+        /**
+         * spring.datasource.hikari.* を適用したコネクションプールを作る
+         */
+        private static DataSource createPool(Binder binder, DataSourceBuilder<?> builder, String name) {
+            DataSource dataSource = builder.build();
+            if (dataSource instanceof HikariDataSource hikari) {
+                binder.bind("spring.datasource.hikari", Bindable.ofInstance(hikari));
+                hikari.setPoolName("jbook-" + name);
+            }
+            return dataSource;
+        }
+    }
+}
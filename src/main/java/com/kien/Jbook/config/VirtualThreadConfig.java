@@ -0,0 +1,84 @@
+package com.kien.Jbook.config;
+
+import com.kien.Jbook.common.jdbc.BulkheadDataSource;
+import com.kien.Jbook.common.thread.VirtualThreadPinningMonitor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * 仮想スレッドモード（spring.threads.virtual.enabled=true）の時だけ有効になる設定
+ *
+ * Tomcatのリクエスト処理と非同期処理（StreamingResponseBodyなど）は Spring Boot によって仮想スレッドで実行される。
+ * ここではDBへの同時アクセス数の制限と、ピン留めの検出を追加する。
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    /**
+     * DataSourceをBulkheadDataSourceで包む
+     * リードレプリカ・シャーディングの振り分け用のDataSource（AbstractRoutingDataSource）は包まない。
+     * 振り分け先のコネクションプールごとに bulkhead() で包んでいるため（1つの上限で全プールを制限すると、
+     * 合計の同時実行数が1プール分に抑えられ、遅いプールが許可を使い切って他のプールまで止まる）。
+     * @param environment
+     * @return
+     */
+    @Bean
+    @ConditionalOnProperty(name = "jbook.virtual-threads.db-bulkhead.enabled", havingValue = "true", matchIfMissing = true)
+    public static BeanPostProcessor bulkheadDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource
+                        && !(bean instanceof BulkheadDataSource)
+                        && !(bean instanceof AbstractRoutingDataSource)) {
+                    return newBulkhead(environment, dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * 仮想スレッドモードでバルクヘッドが有効な場合は、コネクションプールをBulkheadDataSourceで包む
+     * リードレプリカ・シャードのプールを作る設定から、プールごとに呼び出す
+     * 上限はプールごとで、省略した場合はコネクションプールのサイズに合わせる
+     * @param environment
+     * @param pool
+     * @return 無効な場合はpoolをそのまま返す
+     */
+    public static DataSource bulkhead(Environment environment, DataSource pool) {
+        boolean virtual = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        boolean enabled = environment.getProperty("jbook.virtual-threads.db-bulkhead.enabled", Boolean.class, true);
+        return virtual && enabled ? newBulkhead(environment, pool) : pool;
+    }
+
+    private static BulkheadDataSource newBulkhead(Environment environment, DataSource dataSource) {
+        int poolSize = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+        int maxConcurrent = environment.getProperty("jbook.virtual-threads.db-bulkhead.max-concurrent", Integer.class, poolSize);
+        Duration acquireTimeout = environment.getProperty(
+                "jbook.virtual-threads.db-bulkhead.acquire-timeout", Duration.class, Duration.ofSeconds(30));
+        return new BulkheadDataSource(dataSource, maxConcurrent, acquireTimeout);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(name = "jbook.virtual-threads.pinning-detection.enabled", havingValue = "true", matchIfMissing = true)
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(
+            Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+        Duration threshold = environment.getProperty(
+                "jbook.virtual-threads.pinning-detection.threshold", Duration.class, Duration.ofMillis(20));
+        return new VirtualThreadPinningMonitor(threshold, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+}
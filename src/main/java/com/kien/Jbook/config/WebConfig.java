@@ -0,0 +1,35 @@
+package com.kien.Jbook.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kien.Jbook.common.cache.BoundedCache;
+import com.kien.Jbook.common.web.CachedJsonHttpMessageConverter;
+import com.kien.Jbook.model.dto.book.BookView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BoundedCache<Long, CachedJsonHttpMessageConverter.Serialized<BookView>> bookViewJsonCache;
+
+    /**
+     * BookViewのレスポンスは、キャッシュが有効な場合にJSONのバイト列のキャッシュから書き込む
+     * Jacksonのコンバーターより先に選ばれるように先頭に追加する
+     * @param converters
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        if (bookViewJsonCache.isEnabled()) {
+            converters.add(0, new CachedJsonHttpMessageConverter<>(
+                    BookView.class, objectMapper, bookViewJsonCache, BookView::getId));
+        }
+    }
+}
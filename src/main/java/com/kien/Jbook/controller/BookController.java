@@ -1,24 +1,82 @@
 package com.kien.Jbook.controller;
 
+import com.kien.Jbook.common.CustomException;
+import com.kien.Jbook.common.cache.IdempotencyStore;
+import com.kien.Jbook.model.dto.book.BatchMode;
 import com.kien.Jbook.model.dto.book.BookBasicInfo;
+import com.kien.Jbook.model.dto.book.BookBatchItemResult;
+import com.kien.Jbook.model.dto.book.BookBatchResult;
 import com.kien.Jbook.model.dto.book.BookCreate;
+import com.kien.Jbook.model.dto.book.BookMultiView;
+import com.kien.Jbook.model.dto.book.BookPage;
+import com.kien.Jbook.model.dto.book.BookPageRequest;
+import com.kien.Jbook.model.dto.book.BookSearchResult;
+import com.kien.Jbook.model.dto.book.BookSuggestions;
+import com.kien.Jbook.model.dto.book.BookVersion;
 import com.kien.Jbook.model.dto.book.BookView;
+import com.kien.Jbook.model.dto.book.ExportFormat;
+import com.kien.Jbook.service.BookExportService;
+import com.kien.Jbook.service.BookSearchService;
 import com.kien.Jbook.service.BookService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
 
 @RestController
 @RequestMapping("/books")
 public class BookController {
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    // 保持していた結果を返した場合はtrue
+    public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
 
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private BookExportService bookExportService;
+
+    @Autowired
+    private BookSearchService bookSearchService;
+
+    @Autowired
+    private IdempotencyStore<BookBasicInfo> registerIdempotencyStore;
+
+    @Value("${messages.errors.invalidValue}")
+    private String MSG_INVALID_VALUE = "";
+
+    @Value("${messages.errors.idempotencyKeyReused}")
+    private String MSG_IDEMPOTENCY_KEY_REUSED = "";
+
+    @Value("${messages.errors.idempotencyKeyInProgress}")
+    private String MSG_IDEMPOTENCY_KEY_IN_PROGRESS = "";
+
+    @Value("${jbook.idempotency.max-key-length:255}")
+    private int idempotencyMaxKeyLength;
+
+    /**
+     * 1件取得
+     * ETag・Last-Modifiedを返し、If-None-Match・If-Modified-Sinceが一致する場合は本文を取得せずに304を返す
+     * @param id
+     * @param webRequest
+     * @return
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<BookView> getById(@PathVariable @Positive Long id) {
+    public ResponseEntity<BookView> getById(@PathVariable @Positive Long id, WebRequest webRequest) {
+        BookVersion version = bookService.getVersion(id);
+        if (version != null && webRequest.checkNotModified(version.getEtag(), version.getLastModified())) {
+            // 304とETag・Last-ModifiedはcheckNotModifiedで設定済み
+            return null;
+        }
         BookView bookView = bookService.getById(id);
         if (bookView == null) {
             return ResponseEntity.noContent().build();
@@ -27,9 +85,154 @@ public class BookController {
         }
     }
 
+    /**
+     * 一覧取得（キーセットページング）
+     * 例: GET /books?limit=20&sort=CREATED_AT&publisherId=1&after={前ページのnextCursor}
+     * @param request
+     * @return
+     */
+    @GetMapping
+    public ResponseEntity<BookPage> getPage(BookPageRequest request) {
+        return ResponseEntity.ok(bookService.getPage(request));
+    }
+
+    /**
+     * 複数IDの一括取得 例: GET /books?ids=1,2,3
+     * @param ids
+     * @return
+     */
+    @GetMapping(params = "ids")
+    public ResponseEntity<BookMultiView> getByIds(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(bookService.getByIds(ids));
+    }
+
+    /**
+     * 複数IDの一括取得（URLに収まらない件数の場合） body: [1, 2, 3]
+     * @param ids
+     * @return
+     */
+    @PostMapping("/multi-get")
+    public ResponseEntity<BookMultiView> getByIdsWithBody(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(bookService.getByIds(ids));
+    }
+
+    /**
+     * タイトル・タイトルカナ・著者の全文検索 例: GET /books/search?q=すぷりんぐ&limit=20
+     * @param q 2文字以上
+     * @param limit
+     * @return スコアの高い順
+     */
+    @GetMapping("/search")
+    public ResponseEntity<BookSearchResult> search(@RequestParam String q, @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(bookSearchService.search(q, limit));
+    }
+
+    /**
+     * タイトル・タイトルカナの入力補完 例: GET /books/suggest?prefix=すぷ&limit=10
+     * @param prefix
+     * @param limit
+     * @return
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<BookSuggestions> suggest(@RequestParam String prefix, @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(bookSearchService.suggest(prefix, limit));
+    }
+
+    /**
+     * 論理削除されていない全書籍のエクスポート
+     * @param format NDJSON(デフォルト) / CSV
+     * @return
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        StreamingResponseBody body = out -> bookExportService.export(format, out);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("books." + format.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    /**
+     * 1件登録
+     * Idempotency-Keyヘッダーがある場合、同じキーの再送には登録せずに最初の結果（エラーを含む）を返す
+     * 同じキーの登録が実行中の場合は、その完了を待って同じ結果を返す
+     * @param bookCreate
+     * @param idempotencyKey
+     * @return
+     */
     @PostMapping
-    public ResponseEntity<BookBasicInfo> register(@Valid @RequestBody BookCreate bookCreate) {
-        BookBasicInfo createdResponse = bookService.register(bookCreate);
-        return ResponseEntity.ok(createdResponse);
+    public ResponseEntity<BookBasicInfo> register(
+            @Valid @RequestBody BookCreate bookCreate,
+            @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            BookBasicInfo createdResponse = bookService.register(bookCreate);
+            return ResponseEntity.ok(createdResponse);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > idempotencyMaxKeyLength) {
+            throw new CustomException(
+                    MSG_INVALID_VALUE,
+                    HttpStatus.BAD_REQUEST,
+                    IDEMPOTENCY_KEY,
+                    idempotencyKey
+            );
+        }
+        IdempotencyStore.Result<BookBasicInfo> result;
+        try {
+            result = registerIdempotencyStore.execute(idempotencyKey, bookCreate, () -> bookService.register(bookCreate));
+        } catch (IdempotencyStore.KeyReusedException e) {
+            throw new CustomException(
+                    MSG_IDEMPOTENCY_KEY_REUSED,
+                    HttpStatus.UNPROCESSABLE_ENTITY,
+                    IDEMPOTENCY_KEY,
+                    idempotencyKey
+            );
+        } catch (IdempotencyStore.InFlightTimeoutException e) {
+            throw new CustomException(
+                    MSG_IDEMPOTENCY_KEY_IN_PROGRESS,
+                    HttpStatus.CONFLICT,
+                    IDEMPOTENCY_KEY,
+                    idempotencyKey
+            );
+        }
+        return ResponseEntity.ok()
+                .header(IDEMPOTENT_REPLAYED, String.valueOf(result.replayed()))
+                .body(result.value());
+    }
+
+    /**
+     * 一括登録 body: BookCreateの配列
+     * ALL_OR_NOTHINGで失敗した場合は、最初に失敗した行のステータスを返す
+     * @param bookCreates
+     * @param mode
+     * @return
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BookBatchResult> registerBatch(
+            @RequestBody List<BookCreate> bookCreates,
+            @RequestParam(defaultValue = "ALL_OR_NOTHING") BatchMode mode) {
+        BookBatchResult batchResult = bookService.registerBatch(bookCreates, mode);
+        if (mode == BatchMode.ALL_OR_NOTHING && batchResult.getFailed() > 0) {
+            int status = batchResult.getResults().stream()
+                    .filter(r -> BookBatchItemResult.FAILED.equals(r.getResult()))
+                    .findFirst()
+                    .map(BookBatchItemResult::getStatus)
+                    .orElse(HttpStatus.BAD_REQUEST.value());
+            return ResponseEntity.status(status).body(batchResult);
+        }
+        return ResponseEntity.ok(batchResult);
+    }
+
+    /**
+     * 論理削除
+     * @param id
+     * @return 204。存在しない・削除済みの場合は404
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@PathVariable @Positive Long id) {
+        bookService.delete(id);
+        return ResponseEntity.noContent().build();
     }
 }
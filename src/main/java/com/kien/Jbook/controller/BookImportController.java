@@ -0,0 +1,42 @@
+package com.kien.Jbook.controller;
+
+import com.kien.Jbook.model.dto.book.BookImportJobView;
+import com.kien.Jbook.model.dto.book.ImportFormat;
+import com.kien.Jbook.service.BookImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("/books/import")
+public class BookImportController {
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    /**
+     * 取込ジョブの登録。処理は非同期で行い、ジョブIDを返す
+     * formatを省略した場合はファイルの拡張子(.csv / .ndjson / .jsonl)から判定する
+     * @param file
+     * @param format
+     * @return
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<BookImportJobView> submit(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) ImportFormat format) {
+        BookImportJobView job = bookImportService.submit(file, format);
+        return ResponseEntity.accepted()
+                .location(URI.create("/books/import/" + job.getJobId()))
+                .body(job);
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<BookImportJobView> getJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(bookImportService.getJob(jobId));
+    }
+}
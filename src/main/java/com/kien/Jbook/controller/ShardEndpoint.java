@@ -0,0 +1,70 @@
+package com.kien.Jbook.controller;
+
+import com.kien.Jbook.common.jdbc.ShardRouting;
+import com.kien.Jbook.service.impl.ShardRebalancer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * シャードの割り当ての確認と書籍の移動（/actuator/shards）
+ *
+ * GET  /actuator/shards           シャードごとの担当バケット
+ * POST /actuator/shards/copy      {"bucket": 3, "target": "shard-1"} バケットを移動先に複製する
+ * POST /actuator/shards/rebalance 担当でないシャードの書籍を担当のシャードに移す
+ * 使う場合は management.endpoints.web.exposure.include に shards を追加する。
+ */
+@Component
+@Endpoint(id = "shards")
+@ConditionalOnProperty(name = "jbook.sharding.shards[0].url")
+public class ShardEndpoint {
+    private static final String ACTION_COPY = "copy";
+    private static final String ACTION_REBALANCE = "rebalance";
+
+    @Autowired
+    private ShardRouting shardRouting;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @ReadOperation
+    public Map<String, Object> assignments() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("buckets", shardRouting.getShardMap().getBucketCount());
+        body.put("shards", shardRouting.getShardMap().getAssignments());
+        return body;
+    }
+
+    @WriteOperation
+    public Map<String, Object> run(@Selector String action, @Nullable Integer bucket, @Nullable String target) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("action", action);
+        switch (action) {
+            case ACTION_COPY -> {
+                if (bucket == null || target == null) {
+                    throw new InvalidEndpointRequestException(
+                            "bucket and target are required", "bucket and target are required");
+                }
+                try {
+                    body.put("copied", shardRebalancer.copyBucket(bucket, target));
+                } catch (IllegalArgumentException e) {
+                    throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+                }
+            }
+            case ACTION_REBALANCE -> body.put("moved", shardRebalancer.rebalance());
+            default -> throw new InvalidEndpointRequestException(
+                    "unknown action: " + action, "action must be one of " + List.of(ACTION_COPY, ACTION_REBALANCE));
+        }
+        return body;
+    }
+}
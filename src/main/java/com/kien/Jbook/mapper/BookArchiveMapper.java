@@ -0,0 +1,37 @@
+package com.kien.Jbook.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 論理削除から一定期間が過ぎた書籍の books_archive への移動
+ */
+@Mapper
+public interface BookArchiveMapper {
+
+    /**
+     * 削除日時がdeletedBeforeより前の論理削除済みの書籍のIDを、削除日時の古い順にlimit件取得する
+     * @param deletedBefore
+     * @param limit
+     * @return
+     */
+    List<Long> findArchivableIds(@Param("deletedBefore") LocalDateTime deletedBefore, @Param("limit") int limit);
+
+    /**
+     * 論理削除済みの書籍を books_archive に複製する
+     * @param ids 空でないこと
+     * @param archivedAt
+     * @return 複製した件数
+     */
+    int copyToArchive(@Param("ids") List<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+    /**
+     * 論理削除済みの書籍を物理削除する
+     * @param ids 空でないこと
+     * @return 削除した件数
+     */
+    int deleteArchived(@Param("ids") List<Long> ids);
+}
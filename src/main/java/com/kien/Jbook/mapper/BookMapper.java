@@ -1,12 +1,78 @@
 package com.kien.Jbook.mapper;
 
 import com.kien.Jbook.model.Book;
+import com.kien.Jbook.model.dto.BookSearchRow;
+import com.kien.Jbook.model.dto.BookSuggestRow;
+import com.kien.Jbook.model.dto.BookVersionRow;
+import com.kien.Jbook.model.dto.book.BookPageQuery;
 import com.kien.Jbook.model.dto.book.BookView;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Mapper
 public interface BookMapper {
     BookView getById(Long id);
 
+    /**
+     * 出版社・ユーザーを結合せずに、論理削除されていない書籍を取得する
+     * @param id
+     * @return
+     */
+    Book getBookById(Long id);
+
+    /**
+     * 論理削除されていない書籍と、結合する出版社・ユーザーの更新日時を取得する
+     * @param id
+     * @return
+     */
+    BookVersionRow getVersion(Long id);
+
+    /**
+     * 指定したIDの書籍をIN句1回でまとめて取得する
+     * 結果の順序は保証しない。存在しない・論理削除済みのIDは結果に含まれない
+     * @param ids 空でないこと
+     * @return
+     */
+    List<BookView> getByIds(@Param("ids") List<Long> ids);
+
+    /**
+     * キーセットページングで論理削除されていない書籍を取得する
+     * @param query
+     * @return
+     */
+    List<BookView> getPage(BookPageQuery query);
+
+    /**
+     * 論理削除されていない全書籍をID順に1行ずつ返す
+     * 読み終わるまでSqlSession（トランザクション）を開いたままにすること
+     * @return
+     */
+    Cursor<BookView> exportAll();
+
+    /**
+     * 論理削除されていない全書籍のID・タイトル・タイトルカナ・著者をID順に1行ずつhandlerに渡す
+     * @param handler
+     */
+    void scanSearchFields(ResultHandler<BookSearchRow> handler);
+
+    /**
+     * 論理削除されていない書籍をタイトル・タイトルカナの組ごとに集計して1行ずつhandlerに渡す
+     * @param handler
+     */
+    void scanSuggestFields(ResultHandler<BookSuggestRow> handler);
+
     int save(Book book);
+
+    /**
+     * 書籍を論理削除し、削除日時を記録する（更新日時も削除日時にする）
+     * @param id
+     * @param deletedAt
+     * @return 更新件数（存在しない・論理削除済みの場合は0）
+     */
+    int softDelete(@Param("id") Long id, @Param("deletedAt") LocalDateTime deletedAt);
 }
@@ -0,0 +1,36 @@
+package com.kien.Jbook.mapper;
+
+import com.kien.Jbook.model.dto.BookOutboxEvent;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 書籍の変更イベントの送信待ち（book_outbox）
+ */
+@Mapper
+public interface BookOutboxMapper {
+
+    /**
+     * イベントを記録する
+     * @param events 空でないこと
+     * @return 記録した件数
+     */
+    int insertAll(@Param("events") List<BookOutboxEvent> events);
+
+    /**
+     * 古い順にlimit件のイベントを取得し、トランザクションの終了まで行ロックを取る
+     * 他のインスタンスの送信中のイベントは、その送信が終わるまで待つ
+     * @param limit
+     * @return
+     */
+    List<BookOutboxEvent> lockOldest(@Param("limit") int limit);
+
+    /**
+     * 送信したイベントを削除する
+     * @param ids 空でないこと
+     * @return 削除した件数
+     */
+    int deleteByIds(@Param("ids") List<Long> ids);
+}
@@ -0,0 +1,44 @@
+package com.kien.Jbook.mapper;
+
+import com.kien.Jbook.model.Book;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * シャード間での書籍の移動用（接続中のシャードのbooksテーブルを読み書きする）
+ */
+@Mapper
+public interface BookShardMapper {
+
+    /**
+     * afterIdより後ろの書籍を、論理削除済みを含めてID順にlimit件取得する
+     * @param afterId
+     * @param limit
+     * @return
+     */
+    List<Book> scanChunk(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * IDと登録日時・更新日時をそのままにINSERTする。
+     * 同じIDの行が既にある場合は、渡した行の更新日時の方が新しい時だけ上書きする（論理削除も反映する）
+     * @param books 空でないこと
+     * @return 影響を受けた行数（MySQLでは上書きした行を2件と数える）
+     */
+    int insertCopies(@Param("books") List<Book> books);
+
+    /**
+     * 指定したIDのうち存在するもの（論理削除済みを含む）
+     * @param ids 空でないこと
+     * @return
+     */
+    List<Long> existingIds(@Param("ids") List<Long> ids);
+
+    /**
+     * 指定したIDの書籍を物理削除する
+     * @param ids 空でないこと
+     * @return
+     */
+    int deleteByIds(@Param("ids") List<Long> ids);
+}
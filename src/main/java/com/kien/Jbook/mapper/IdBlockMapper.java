@@ -0,0 +1,32 @@
+package com.kien.Jbook.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+@Mapper
+public interface IdBlockMapper {
+
+    /**
+     * 採番用の行がなければ作る
+     * @param name
+     * @return 作成した場合は1
+     */
+    int insertIfAbsent(@Param("name") String name);
+
+    /**
+     * 書籍IDをsize件分予約する
+     * 次のIDは、前回の予約の続きとbooksの最大ID＋1（AUTO_INCREMENTや手動で登録された行）の大きい方から始める
+     * @param name
+     * @param size
+     * @return 更新件数（行がない場合は0）
+     */
+    int reserveBookIds(@Param("name") String name, @Param("size") int size);
+
+    /**
+     * 予約済みの範囲の次のID（予約した範囲は [nextId - size, nextId)）
+     * reserveBookIds() と同じトランザクションで呼ぶこと
+     * @param name
+     * @return
+     */
+    Long getNextId(@Param("name") String name);
+}
@@ -0,0 +1,144 @@
+package com.kien.Jbook.mapper;
+
+import com.kien.Jbook.common.jdbc.ShardRouting;
+import com.kien.Jbook.model.Book;
+import com.kien.Jbook.model.dto.BookSearchRow;
+import com.kien.Jbook.model.dto.BookSuggestRow;
+import com.kien.Jbook.model.dto.BookVersionRow;
+import com.kien.Jbook.model.dto.book.BookPageQuery;
+import com.kien.Jbook.model.dto.book.BookView;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * booksテーブルをIDでシャードに分けたBookMapper
+ *
+ * IDを指定する処理はIDのシャードだけで実行し、複数のIDは担当するシャードごとにまとめて並行に取得する。
+ * 一覧は全シャードに同じ条件で問い合わせ、それぞれの並び順の結果をまとめ直す。
+ * 出版社・ユーザーのテーブルは全シャードに同じ内容を複製しておくこと（結合・外部キー制約のため）。
+ * トランザクション内ではコネクションが切り替わらないため、トランザクションの外から呼び出すこと。
+ */
+public class ShardedBookMapper implements BookMapper {
+    private static final Comparator<BookView> BY_ID = Comparator.comparing(BookView::getId);
+    // MySQLの昇順と同じくNULLを先にする
+    private static final Comparator<BookView> BY_CREATED_AT = Comparator
+            .comparing(BookView::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(BookView::getId);
+
+    private final BookMapper delegate;
+    private final ShardRouting shardRouting;
+
+    /**
+     * @param delegate 接続中のシャードのbooksテーブルを読み書きするMapper
+     * @param shardRouting
+     */
+    public ShardedBookMapper(BookMapper delegate, ShardRouting shardRouting) {
+        this.delegate = delegate;
+        this.shardRouting = shardRouting;
+    }
+
+    @Override
+    public BookView getById(Long id) {
+        return shardRouting.onShardOf(id, () -> delegate.getById(id));
+    }
+
+    @Override
+    public Book getBookById(Long id) {
+        return shardRouting.onShardOf(id, () -> delegate.getBookById(id));
+    }
+
+    @Override
+    public BookVersionRow getVersion(Long id) {
+        return shardRouting.onShardOf(id, () -> delegate.getVersion(id));
+    }
+
+    @Override
+    public List<BookView> getByIds(List<Long> ids) {
+        Map<String, List<Long>> groups = shardRouting.groupByShard(ids);
+        List<BookView> books = new ArrayList<>(ids.size());
+        shardRouting.scatter(groups.keySet(), shard -> delegate.getByIds(groups.get(shard)))
+                .values()
+                .forEach(books::addAll);
+        return books;
+    }
+
+    /**
+     * 全シャードから並び順の先頭fetchSize件ずつ取得し、まとめた中の先頭fetchSize件を返す
+     * バケットの移動中に複数のシャードにある同じIDの行は1件にする
+     */
+    @Override
+    public List<BookView> getPage(BookPageQuery query) {
+        Map<String, List<BookView>> results = shardRouting.scatter(
+                shardRouting.getShardMap().getShardNames(), shard -> delegate.getPage(query));
+        List<Iterator<BookView>> sources = new ArrayList<>(results.size());
+        results.values().forEach(result -> sources.add(result.iterator()));
+        Iterator<BookView> merged = ShardRouting.mergeSorted(
+                sources, query.isSortByCreatedAt() ? BY_CREATED_AT : BY_ID);
+
+        List<BookView> books = new ArrayList<>(query.getFetchSize());
+        Set<Long> seenIds = new HashSet<>();
+        while (merged.hasNext() && books.size() < query.getFetchSize()) {
+            BookView bookView = merged.next();
+            if (seenIds.add(bookView.getId())) {
+                books.add(bookView);
+            }
+        }
+        return books;
+    }
+
+    /**
+     * 接続中のシャードの書籍を返す（全シャードの書籍はシャードごとに呼び出してまとめること）
+     * BookExportServiceImpl はシャードごとのトランザクションの中でこれを呼ぶ
+     */
+    @Override
+    public Cursor<BookView> exportAll() {
+        return delegate.exportAll();
+    }
+
+    /**
+     * シャードを順番に読み込み、そのシャードが担当するIDの行だけをhandlerに渡す（全体ではID順にならない）
+     */
+    @Override
+    public void scanSearchFields(ResultHandler<BookSearchRow> handler) {
+        shardRouting.forEachShard(shard -> delegate.scanSearchFields(context -> {
+            if (shardRouting.getShardMap().owns(shard, context.getResultObject().getId())) {
+                handler.handleResult(context);
+            }
+        }));
+    }
+
+    /**
+     * シャードごとの集計をそのままhandlerに渡す（同じタイトルの行がシャードの数だけ渡される）
+     * 集計行にはIDがないため、バケットの移動中は移動元・移動先の両方の書籍が数えられる
+     */
+    @Override
+    public void scanSuggestFields(ResultHandler<BookSuggestRow> handler) {
+        shardRouting.forEachShard(shard -> delegate.scanSuggestFields(handler));
+    }
+
+    /**
+     * IDのシャードにINSERTする
+     * @throws IllegalStateException IDが採番されていない場合（AUTO_INCREMENTはシャードをまたいで重複するため使えない）
+     */
+    @Override
+    public int save(Book book) {
+        if (book.getId() == null) {
+            throw new IllegalStateException("book id must be allocated before saving to a shard");
+        }
+        return shardRouting.onShardOf(book.getId(), () -> delegate.save(book));
+    }
+
+    @Override
+    public int softDelete(Long id, LocalDateTime deletedAt) {
+        return shardRouting.onShardOf(id, () -> delegate.softDelete(id, deletedAt));
+    }
+}
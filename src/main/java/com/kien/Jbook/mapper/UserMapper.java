@@ -0,0 +1,31 @@
+package com.kien.Jbook.mapper;
+
+import com.kien.Jbook.model.dto.DimensionRow;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
+
+@Mapper
+public interface UserMapper {
+
+    /**
+     * 指定したIDより大きいユーザーIDを昇順で1件ずつhandlerに渡す
+     * 外部キー制約と同じく、論理削除済みのユーザーも含む
+     * @param afterId
+     * @param handler
+     */
+    void scanIdsAfter(@Param("afterId") long afterId, ResultHandler<Long> handler);
+
+    /**
+     * ユーザーIDが存在するか（外部キー制約と同じく、論理削除済みのユーザーも含む）
+     * @param id
+     * @return
+     */
+    boolean existsById(@Param("id") long id);
+
+    /**
+     * 全ユーザーのID・名前・論理削除フラグを1件ずつhandlerに渡す
+     * @param handler
+     */
+    void scanNames(ResultHandler<DimensionRow> handler);
+}
@@ -0,0 +1,26 @@
+package com.kien.Jbook.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 書籍の変更イベント（book_outbox の行）
+ * idは同じDB（シャード）の中でのみ一意。受信側で重複を除く場合はシャーディングの有無に注意すること
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookOutboxEvent {
+    public static final String REGISTERED = "REGISTERED";
+    public static final String DELETED = "DELETED";
+
+    private Long id;
+    private Long bookId;
+    private String eventType;
+    // イベントの内容（JSON）
+    private String payload;
+    private LocalDateTime createdAt;
+}
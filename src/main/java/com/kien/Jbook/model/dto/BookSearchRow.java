@@ -0,0 +1,18 @@
+package com.kien.Jbook.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 検索インデックスに登録する書籍の項目
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookSearchRow {
+    private Long id;
+    private String title;
+    private String titleKana;
+    private String author;
+}
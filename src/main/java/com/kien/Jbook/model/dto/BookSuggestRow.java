@@ -0,0 +1,21 @@
+package com.kien.Jbook.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 入力補完の候補（タイトル・タイトルカナの組ごとの集計）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookSuggestRow {
+    private String title;
+    private String titleKana;
+    // 論理削除されていない同じタイトル・タイトルカナの書籍の件数
+    private Integer bookCount;
+    private LocalDateTime latestCreatedAt;
+}
@@ -0,0 +1,21 @@
+package com.kien.Jbook.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 書籍と、BookViewに含まれる出版社・ユーザーの更新日時（条件付きGETの判定用）
+ * 出版社・ユーザーが論理削除済み・未設定の場合はnull
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookVersionRow {
+    private Long id;
+    private LocalDateTime updatedAt;
+    private LocalDateTime publisherUpdatedAt;
+    private LocalDateTime userUpdatedAt;
+}
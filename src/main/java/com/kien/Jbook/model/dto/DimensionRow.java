@@ -0,0 +1,17 @@
+package com.kien.Jbook.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 出版社・ユーザーのIDと名前（書籍の表示用）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DimensionRow {
+    private Long id;
+    private String name;
+    private Boolean isDeleted;
+}
@@ -0,0 +1,11 @@
+package com.kien.Jbook.model.dto.book;
+
+/**
+ * 一括登録時の失敗の扱い
+ */
+public enum BatchMode {
+    /** 1件でも失敗したら全件登録しない */
+    ALL_OR_NOTHING,
+    /** 失敗した行だけを除いて登録する */
+    BEST_EFFORT
+}
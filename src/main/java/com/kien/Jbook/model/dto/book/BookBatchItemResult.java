@@ -0,0 +1,45 @@
+package com.kien.Jbook.model.dto.book;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.kien.Jbook.common.CustomException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BookBatchItemResult {
+    public static final String CREATED = "CREATED";
+    public static final String FAILED = "FAILED";
+    // ALL_OR_NOTHINGで他の行の失敗により登録されなかった
+    public static final String SKIPPED = "SKIPPED";
+
+    // リクエスト内の位置（0始まり）
+    private int index;
+    private String result;
+    private Long id;
+    private String title;
+    private Integer status;
+    // 単件登録のエラーレスポンスと同じ形 {フィールド名: 値, message: メッセージ}
+    private Map<String, Object> error;
+
+    public static BookBatchItemResult created(int index, Long id, String title) {
+        return new BookBatchItemResult(index, CREATED, id, title, null, null);
+    }
+
+    public static BookBatchItemResult skipped(int index, Long id, String title) {
+        return new BookBatchItemResult(index, SKIPPED, id, title, null, null);
+    }
+
+    public static BookBatchItemResult failed(int index, Long id, String title, CustomException e) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        if (e.getField() != null) {
+            error.put(e.getField(), e.getValue());
+        }
+        error.put("message", e.getMessage());
+        return new BookBatchItemResult(index, FAILED, id, title, e.getHttpStatus().value(), error);
+    }
+}
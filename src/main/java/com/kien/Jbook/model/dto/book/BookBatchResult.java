@@ -0,0 +1,16 @@
+package com.kien.Jbook.model.dto.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class BookBatchResult {
+    private BatchMode mode;
+    private int succeeded;
+    private int failed;
+    // リクエストの順
+    private List<BookBatchItemResult> results;
+}
@@ -0,0 +1,30 @@
+package com.kien.Jbook.model.dto.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class BookImportJobView {
+    private String jobId;
+    // QUEUED / RUNNING / COMPLETED / FAILED
+    private String status;
+    private ImportFormat format;
+    private String fileName;
+    private long totalBytes;
+    private long bytesRead;
+    // 読み込んだバイト数から見た進捗（0〜100）
+    private double progress;
+    private long rowsRead;
+    private long rowsInserted;
+    private long rowsRejected;
+    private double rowsPerSecond;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    // 先頭から一定件数のみ保持する
+    private List<BookImportRejectedRow> rejectedRows;
+    private String errorMessage;
+}
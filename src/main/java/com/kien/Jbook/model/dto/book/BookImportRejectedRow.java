@@ -0,0 +1,16 @@
+package com.kien.Jbook.model.dto.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+public class BookImportRejectedRow {
+    // ファイル内の行番号（CSVはヘッダを除いたデータ行の番号）
+    private long row;
+    private Integer status;
+    // 単件登録のエラーレスポンスと同じ形 {フィールド名: 値, message: メッセージ}
+    private Map<String, Object> error;
+}
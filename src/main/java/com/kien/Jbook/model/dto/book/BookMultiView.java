@@ -0,0 +1,15 @@
+package com.kien.Jbook.model.dto.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class BookMultiView {
+    // リクエストされたIDの順
+    private List<BookView> books;
+    // 存在しない、または論理削除済みのID
+    private List<Long> missingIds;
+}
@@ -0,0 +1,14 @@
+package com.kien.Jbook.model.dto.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class BookPage {
+    private List<BookView> books;
+    // 次のページを取得する時にafterに指定する値。最後のページの場合はnull
+    private String nextCursor;
+}
@@ -0,0 +1,28 @@
+package com.kien.Jbook.model.dto.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * BookMapper.getPage のパラメータ
+ * afterId(とafterCreatedAt)より後ろの行を、並び順にfetchSize件取得する
+ * 登録日時順でafterIdがあり、afterCreatedAtがnullの場合は、登録日時がNULLの行（先頭に並ぶ）の続きから取得する
+ */
+@Data
+@AllArgsConstructor
+public class BookPageQuery {
+    private BookSort sort;
+    private Long afterId;
+    private LocalDateTime afterCreatedAt;
+    private Long publisherId;
+    private Long userId;
+    private Integer minPrice;
+    private Integer maxPrice;
+    private int fetchSize;
+
+    public boolean isSortByCreatedAt() {
+        return sort == BookSort.CREATED_AT;
+    }
+}
@@ -0,0 +1,24 @@
+package com.kien.Jbook.model.dto.book;
+
+import lombok.Data;
+
+/**
+ * GET /books のクエリパラメータ
+ */
+@Data
+public class BookPageRequest {
+    // 前ページのレスポンスのnextCursor。省略時は先頭から
+    private String after;
+
+    private Integer limit;
+
+    private BookSort sort = BookSort.ID;
+
+    private Long publisherId;
+
+    private Long userId;
+
+    private Integer minPrice;
+
+    private Integer maxPrice;
+}
@@ -0,0 +1,15 @@
+package com.kien.Jbook.model.dto.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class BookSearchResult {
+    // スコアの高い順
+    private List<BookView> books;
+    // 一致した件数（limitで絞る前）
+    private int total;
+}
@@ -0,0 +1,11 @@
+package com.kien.Jbook.model.dto.book;
+
+/**
+ * 一覧取得の並び順（いずれも昇順）
+ */
+public enum BookSort {
+    /** id */
+    ID,
+    /** created_at, id */
+    CREATED_AT
+}
@@ -0,0 +1,15 @@
+package com.kien.Jbook.model.dto.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class BookSuggestions {
+    // リクエストされた入力（入力途中の古いレスポンスを捨てる判定用）
+    private String prefix;
+    // 候補のタイトル（重みの高い順）
+    private List<String> suggestions;
+}
@@ -0,0 +1,16 @@
+package com.kien.Jbook.model.dto.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * GET /books/{id} のレスポンスの検証子
+ */
+@Data
+@AllArgsConstructor
+public class BookVersion {
+    // 強いETag（ダブルクォートを含む）
+    private String etag;
+    // 書籍・出版社・ユーザーのうち最も新しい更新日時（エポックミリ秒）
+    private long lastModified;
+}
@@ -0,0 +1,11 @@
+package com.kien.Jbook.model.dto.book;
+
+/**
+ * 一括取込ファイルの形式
+ */
+public enum ImportFormat {
+    /** 1行目がヘッダ（id,title,title_kana,author,publisher_id,user_id,price） */
+    CSV,
+    /** 1行に1つのBookCreateのJSON */
+    NDJSON
+}
@@ -0,0 +1,11 @@
+package com.kien.Jbook.model.dto.book;
+
+/**
+ * 入力補完の候補の並び順（いずれも降順）
+ */
+public enum SuggestWeight {
+    /** 同じタイトルの書籍の件数 */
+    BOOK_COUNT,
+    /** 同じタイトルの書籍のうち最新の登録日時 */
+    LATEST
+}
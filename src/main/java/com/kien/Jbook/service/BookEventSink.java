@@ -0,0 +1,19 @@
+package com.kien.Jbook.service;
+
+import com.kien.Jbook.model.dto.BookOutboxEvent;
+
+import java.util.List;
+
+/**
+ * 書籍の変更イベントの送信先（jbook.outbox.sink.type で切り替える。独自の送信先はこのBeanを定義する）
+ *
+ * 例外を投げた場合、イベントは book_outbox に残り、次回にまとめて送り直される。
+ * 送信後に削除が失敗した場合も送り直すため、同じイベントが複数回届くことがある（at-least-once）。
+ * 同じ書籍のイベントは記録した順に渡される。
+ */
+public interface BookEventSink {
+    /**
+     * @param events 記録した順
+     */
+    void publish(List<BookOutboxEvent> events);
+}
@@ -0,0 +1,17 @@
+package com.kien.Jbook.service;
+
+import com.kien.Jbook.model.dto.book.ExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface BookExportService {
+    /**
+     * 論理削除されていない全書籍を指定の形式で書き出す
+     * @param format
+     * @param out
+     * @return 書き出した件数
+     * @throws IOException
+     */
+    long export(ExportFormat format, OutputStream out) throws IOException;
+}
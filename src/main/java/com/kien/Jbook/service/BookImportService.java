@@ -0,0 +1,11 @@
+package com.kien.Jbook.service;
+
+import com.kien.Jbook.model.dto.book.BookImportJobView;
+import com.kien.Jbook.model.dto.book.ImportFormat;
+import org.springframework.web.multipart.MultipartFile;
+
+public interface BookImportService {
+    BookImportJobView submit(MultipartFile file, ImportFormat format);
+
+    BookImportJobView getJob(String jobId);
+}
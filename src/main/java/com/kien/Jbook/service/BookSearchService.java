@@ -0,0 +1,24 @@
+package com.kien.Jbook.service;
+
+import com.kien.Jbook.model.dto.book.BookSearchResult;
+import com.kien.Jbook.model.dto.book.BookSuggestions;
+
+public interface BookSearchService {
+    /**
+     * タイトル・タイトルカナ・著者の部分一致で検索する
+     * ひらがな・カタカナ、全角・半角、英字の大文字・小文字、空白の有無は区別しない
+     * @param query 2文字以上
+     * @param limit nullの場合はデフォルト件数
+     * @return
+     */
+    BookSearchResult search(String query, Integer limit);
+
+    /**
+     * 入力で始まるタイトル・タイトルカナを持つ書籍のタイトルを返す（入力補完）
+     * 正規化はsearch()と同じ
+     * @param prefix 1文字以上
+     * @param limit nullの場合はデフォルト件数
+     * @return
+     */
+    BookSuggestions suggest(String prefix, Integer limit);
+}
@@ -1,12 +1,39 @@
 package com.kien.Jbook.service;
 
+import com.kien.Jbook.model.dto.book.BatchMode;
 import com.kien.Jbook.model.dto.book.BookBasicInfo;
+import com.kien.Jbook.model.dto.book.BookBatchResult;
 import com.kien.Jbook.model.dto.book.BookCreate;
+import com.kien.Jbook.model.dto.book.BookMultiView;
+import com.kien.Jbook.model.dto.book.BookPage;
+import com.kien.Jbook.model.dto.book.BookPageRequest;
+import com.kien.Jbook.model.dto.book.BookVersion;
 import com.kien.Jbook.model.dto.book.BookView;
 import jakarta.validation.Valid;
 
+import java.util.List;
+
 public interface BookService {
     BookView getById(Long id);
 
+    /**
+     * 書籍の検証子（ETag・Last-Modified）を取得する。書籍の内容は取得しない
+     * @param id
+     * @return 存在しない、または論理削除済みの場合はnull
+     */
+    BookVersion getVersion(Long id);
+
+    BookMultiView getByIds(List<Long> ids);
+
+    BookPage getPage(BookPageRequest request);
+
     BookBasicInfo register(@Valid BookCreate bookCreate);
+
+    BookBatchResult registerBatch(List<BookCreate> bookCreates, BatchMode mode);
+
+    /**
+     * 書籍を論理削除する。削除から一定期間が過ぎた書籍は BookArchiver が books_archive に移す
+     * @param id
+     */
+    void delete(Long id);
 }
@@ -0,0 +1,72 @@
+package com.kien.Jbook.service.impl;
+
+import com.kien.Jbook.common.id.IdAllocator;
+import com.kien.Jbook.mapper.IdBlockMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 書籍IDをDBのid_blockテーブルからまとめて予約し、メモリ上で1つずつ払い出す（hi/lo方式）
+ *
+ * 予約は1回のUPDATEで block-size 件分を確保するため、インスタンスが複数あっても重複しない。
+ * 予約した範囲の使い残しは再起動で捨てられる（IDは連番にならない）。
+ * 予約の開始位置はbooksの最大IDより後ろにするので、既存の行とは重複しない。
+ * ただし予約後にAUTO_INCREMENTで登録された行とは重複しうるため、有効な間は書籍の登録はすべてこのIDを使う。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jbook.id-allocator.type", havingValue = "BLOCK", matchIfMissing = true)
+public class BlockIdAllocator implements IdAllocator {
+    private static final String BOOKS = "books";
+
+    @Autowired
+    private IdBlockMapper idBlockMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${jbook.id-allocator.block-size:1000}")
+    private int blockSize;
+
+    private TransactionTemplate requiresNew;
+    // 払い出し可能な範囲 [next, end)
+    private long next;
+    private long end;
+
+    @PostConstruct
+    void init() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public synchronized long nextId() {
+        if (next >= end) {
+            reserve();
+        }
+        return next++;
+    }
+
+    /**
+     * 呼び出し元のトランザクションとは別に予約してコミットする（ロールバックされても予約は戻さない）
+     */
+    private void reserve() {
+        Long reservedEnd = requiresNew.execute(status -> {
+            if (idBlockMapper.reserveBookIds(BOOKS, blockSize) == 0) {
+                idBlockMapper.insertIfAbsent(BOOKS);
+                idBlockMapper.reserveBookIds(BOOKS, blockSize);
+            }
+            return idBlockMapper.getNextId(BOOKS);
+        });
+        end = reservedEnd;
+        next = reservedEnd - blockSize;
+        log.debug("書籍IDを予約しました：{}～{}", next, end - 1);
+    }
+}
@@ -0,0 +1,213 @@
+package com.kien.Jbook.service.impl;
+
+import com.kien.Jbook.common.jdbc.ShardRouting;
+import com.kien.Jbook.mapper.BookArchiveMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 論理削除から一定期間（retention）が過ぎた書籍を books_archive に移す
+ *
+ * 一度に大量の行を移すと長時間の行ロック・大きなトランザクション（undoログ・レプリケーションの遅延）になるため、
+ * chunk-size 件ずつ別のトランザクションで複製→物理削除し、チャンクの間は pause だけ空ける。
+ * 対象IDの検索はトランザクションの外で行い、トランザクション内ではIDを指定した行だけをロックする。
+ * 1回の実行で移す件数は max-rows-per-run までとし、残りは次回に回す。
+ * シャーディングが有効な場合はシャードごとに順番に移す（移動先も同じシャードの books_archive）。
+ * deleted_at のない行（削除日時を記録する前に論理削除された行）は対象にしない。
+ */
+@Slf4j
+@Component
+public class BookArchiver {
+
+    @Autowired
+    private BookArchiveMapper bookArchiveMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ShardRouting shardRouting;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${jbook.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${jbook.archive.retention:30d}")
+    private Duration retention;
+
+    @Value("${jbook.archive.interval:1h}")
+    private Duration interval;
+
+    @Value("${jbook.archive.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${jbook.archive.pause:100ms}")
+    private Duration pause;
+
+    @Value("${jbook.archive.max-rows-per-run:100000}")
+    private long maxRowsPerRun;
+
+    private final AtomicLong lastRunRows = new AtomicLong();
+    private ScheduledExecutorService scheduler;
+
+    private Counter rowsCounter;
+    private Counter chunksCounter;
+    private Counter failuresCounter;
+    private Timer chunkTimer;
+
+    @PostConstruct
+    void init() {
+        registerMetrics();
+        if (!enabled) {
+            return;
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("book-archiver-");
+        threadFactory.setDaemon(true);
+        scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        scheduler.scheduleWithFixedDelay(this::archiveQuietly, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 削除日時が retention より前の書籍を books_archive に移す
+     * @return 移した件数
+     */
+    public long archive() {
+        LocalDateTime deletedBefore = LocalDateTime.now().minus(retention);
+        long[] archived = {0};
+        if (shardRouting.isEnabled()) {
+            shardRouting.forEachShard(shard -> {
+                long count = archiveChunks(deletedBefore, maxRowsPerRun - archived[0]);
+                archived[0] += count;
+                if (count > 0) {
+                    log.info("削除済みの書籍を移しました。シャード：{}、件数：{}", shard, count);
+                }
+            });
+        } else {
+            archived[0] = archiveChunks(deletedBefore, maxRowsPerRun);
+            if (archived[0] > 0) {
+                log.info("削除済みの書籍を移しました。件数：{}", archived[0]);
+            }
+        }
+        lastRunRows.set(archived[0]);
+        return archived[0];
+    }
+
+    /**
+     * 接続中のDBで、chunk-size 件ずつlimit件まで移す。割り込まれた場合はそこで止める
+     */
+    private long archiveChunks(LocalDateTime deletedBefore, long limit) {
+        long archived = 0;
+        while (archived < limit) {
+            int size = (int) Math.min(chunkSize, limit - archived);
+            List<Long> ids = bookArchiveMapper.findArchivableIds(deletedBefore, size);
+            if (ids.isEmpty()) {
+                break;
+            }
+            archived += archiveChunk(ids);
+            if (ids.size() < size || !sleepQuietly(pause)) {
+                break;
+            }
+        }
+        return archived;
+    }
+
+    /**
+     * 1チャンクを1トランザクションで複製→物理削除する
+     * 検索から複製までの間に他で更新・削除された行は複製・削除の両方から外れる。件数が合わない場合はロールバックする
+     */
+    private int archiveChunk(List<Long> ids) {
+        long start = System.nanoTime();
+        try {
+            Integer moved = transactionTemplate.execute(status -> {
+                int copied = bookArchiveMapper.copyToArchive(ids, LocalDateTime.now());
+                int deleted = bookArchiveMapper.deleteArchived(ids);
+                if (copied != deleted) {
+                    throw new IllegalStateException(
+                            "archived rows mismatch: copied=" + copied + ", deleted=" + deleted);
+                }
+                return deleted;
+            });
+            chunksCounter.increment();
+            rowsCounter.increment(moved);
+            return moved;
+        } catch (RuntimeException e) {
+            failuresCounter.increment();
+            throw e;
+        } finally {
+            chunkTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * @return 割り込まれた場合はfalse
+     */
+    private static boolean sleepQuietly(Duration duration) {
+        if (duration.isZero()) {
+            return !Thread.currentThread().isInterrupted();
+        }
+        try {
+            Thread.sleep(duration);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void archiveQuietly() {
+        try {
+            archive();
+        } catch (RuntimeException e) {
+            log.warn("削除済みの書籍の移動に失敗しました。次回の実行で再開します：{}", e.toString());
+        }
+    }
+
+    private void registerMetrics() {
+        MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        rowsCounter = Counter.builder("jbook.archive.rows")
+                .description("books_archive に移した書籍の件数")
+                .register(registry);
+        chunksCounter = Counter.builder("jbook.archive.chunks")
+                .description("コミットしたチャンクの数")
+                .register(registry);
+        failuresCounter = Counter.builder("jbook.archive.failures")
+                .description("ロールバックしたチャンクの数")
+                .register(registry);
+        chunkTimer = Timer.builder("jbook.archive.chunk")
+                .description("1チャンクのトランザクションにかかった時間（行ロックを保持する時間）")
+                .publishPercentileHistogram()
+                .register(registry);
+        Gauge.builder("jbook.archive.last-run.rows", lastRunRows, AtomicLong::get)
+                .description("前回の実行で移した件数（max-rows-per-run と同じ場合は積み残しがある）")
+                .register(registry);
+    }
+}
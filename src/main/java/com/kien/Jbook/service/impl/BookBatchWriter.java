@@ -0,0 +1,154 @@
+package com.kien.Jbook.service.impl;
+
+import com.kien.Jbook.common.jdbc.ShardRouting;
+import com.kien.Jbook.mapper.BookMapper;
+import com.kien.Jbook.mapper.BookOutboxMapper;
+import com.kien.Jbook.model.Book;
+import jakarta.annotation.PostConstruct;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MyBatisのBATCHエクゼキュータで書籍をまとめてINSERTする
+ *
+ * BATCH用のSqlSessionTemplateはBeanとして公開しない
+ * （公開すると全Mapperのデフォルトがバッチモードに置き換わってしまうため）
+ * シャーディングが有効な場合は、シャードごとのトランザクションを入れ子にして全シャードをまとめてコミットする
+ * jbook.outbox が有効な場合は、登録イベントも同じトランザクションで記録する
+ */
+@Component
+public class BookBatchWriter {
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ShardRouting shardRouting;
+
+    @Autowired
+    private BookOutbox bookOutbox;
+
+    private SqlSessionTemplate batchSqlSessionTemplate;
+
+    private TransactionTemplate requiresNew;
+
+    @PostConstruct
+    void init() {
+        batchSqlSessionTemplate = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH);
+        requiresNew = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 全件を1トランザクションでINSERTする
+     * chunkSize件ごとにJDBCバッチとして送信し、途中で失敗した場合は全件ロールバックして例外を投げる
+     * 成功した場合、各BookのidにはDBで採番されたIDが設定される
+     * シャーディングが有効な場合はシャードごとに分けてINSERTし、全シャードのINSERTが終わってからコミットする
+     * （コミット自体が途中のシャードで失敗した場合は、先にコミットしたシャードの行が残る）
+     * @param books シャーディングが有効な場合は全件のIDが採番済みであること
+     * @param chunkSize
+     */
+    public void insertAll(List<Book> books, int chunkSize) {
+        if (shardRouting.isEnabled()) {
+            Map<String, List<Book>> groups = groupByShard(books);
+            shardRouting.inChainedTransactions(new ArrayList<>(groups.keySet()), requiresNew,
+                    shard -> insertChunks(groups.get(shard), chunkSize), null);
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> insertChunks(books, chunkSize));
+    }
+
+    private void insertChunks(List<Book> books, int chunkSize) {
+        BookMapper batchMapper = batchSqlSessionTemplate.getMapper(BookMapper.class);
+        BookOutboxMapper batchOutboxMapper = batchSqlSessionTemplate.getMapper(BookOutboxMapper.class);
+        for (int from = 0; from < books.size(); from += chunkSize) {
+            List<Book> chunk = books.subList(from, Math.min(from + chunkSize, books.size()));
+            for (Book book : chunk) {
+                batchMapper.save(book);
+            }
+            batchSqlSessionTemplate.flushStatements();
+            // AUTO_INCREMENTのIDはflushの後に設定される
+            if (bookOutbox.isEnabled()) {
+                batchOutboxMapper.insertAll(bookOutbox.registeredEvents(chunk));
+                batchSqlSessionTemplate.flushStatements();
+            }
+        }
+    }
+
+    /**
+     * バッチINSERTが失敗した時に、どの行が原因かを特定する
+     * 1件ずつINSERTを試し、結果は必ずロールバックする
+     * @param books
+     * @return 失敗した行のindex -> 発生した例外
+     */
+    public Map<Integer, DataAccessException> findFailures(List<Book> books) {
+        Map<Integer, DataAccessException> failures = new HashMap<>();
+        if (!shardRouting.isEnabled()) {
+            trySaves(books, indexesOf(books), failures);
+            return failures;
+        }
+        // シャードごとに、そのシャードのトランザクションで試す
+        Map<String, List<Integer>> indexesByShard = new LinkedHashMap<>();
+        for (int i = 0; i < books.size(); i++) {
+            indexesByShard.computeIfAbsent(shardOf(books.get(i)), shard -> new ArrayList<>()).add(i);
+        }
+        indexesByShard.forEach((shard, indexes) ->
+                shardRouting.onShard(shard, () -> trySaves(books, indexes, failures)));
+        return failures;
+    }
+
+    private Void trySaves(List<Book> books, List<Integer> indexes, Map<Integer, DataAccessException> failures) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i : indexes) {
+                try {
+                    bookMapper.save(books.get(i));
+                } catch (DataAccessException e) {
+                    failures.put(i, e);
+                }
+            }
+            status.setRollbackOnly();
+        });
+        return null;
+    }
+
+    private static List<Integer> indexesOf(List<Book> books) {
+        List<Integer> indexes = new ArrayList<>(books.size());
+        for (int i = 0; i < books.size(); i++) {
+            indexes.add(i);
+        }
+        return indexes;
+    }
+
+    private Map<String, List<Book>> groupByShard(List<Book> books) {
+        Map<String, List<Book>> groups = new LinkedHashMap<>();
+        for (Book book : books) {
+            groups.computeIfAbsent(shardOf(book), shard -> new ArrayList<>()).add(book);
+        }
+        return groups;
+    }
+
+    private String shardOf(Book book) {
+        if (book.getId() == null) {
+            throw new IllegalStateException("book id must be allocated before saving to a shard");
+        }
+        return shardRouting.getShardMap().shardOf(book.getId());
+    }
+}
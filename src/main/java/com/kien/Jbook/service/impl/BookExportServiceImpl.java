@@ -0,0 +1,161 @@
+package com.kien.Jbook.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.kien.Jbook.common.jdbc.ShardRouting;
+import com.kien.Jbook.mapper.BookMapper;
+import com.kien.Jbook.model.dto.book.BookView;
+import com.kien.Jbook.model.dto.book.ExportFormat;
+import com.kien.Jbook.service.BookExportService;
+import com.kien.Jbook.utils.CsvRecordWriter;
+import jakarta.annotation.PostConstruct;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * MyBatisのCursorで1行ずつ読み込み、そのままレスポンスへ書き出す
+ * 一覧をListに溜めないため、件数が増えてもメモリ使用量は一定
+ * シャーディングが有効な場合は全シャードのCursorを同時に開き、ID順にまとめながら書き出す
+ */
+@Service
+public class BookExportServiceImpl implements BookExportService {
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ShardRouting shardRouting;
+
+    // この件数ごとにクライアントへ送信する
+    @Value("${jbook.export.flush-interval:1000}")
+    private int flushInterval;
+
+    private TransactionTemplate readOnlyTransactionTemplate;
+
+    private TransactionTemplate readOnlyRequiresNew;
+
+    @PostConstruct
+    void init() {
+        readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+        readOnlyRequiresNew = new TransactionTemplate(transactionManager);
+        readOnlyRequiresNew.setReadOnly(true);
+        readOnlyRequiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public long export(ExportFormat format, OutputStream out) throws IOException {
+        if (shardRouting.isEnabled()) {
+            return exportShards(format, out);
+        }
+        try {
+            // Cursorを読み終わるまでSqlSessionを開いておくためにトランザクションで囲む
+            Long count = readOnlyTransactionTemplate.execute(status -> {
+                try (Cursor<BookView> cursor = bookMapper.exportAll()) {
+                    return format == ExportFormat.CSV ? writeCsv(cursor, out) : writeNdjson(cursor, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return count == null ? 0 : count;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * シャードごとの読み取り専用トランザクションを入れ子にして全シャードのCursorを開き、最も内側で書き出す
+     * 各シャードの行はそのシャードが担当するIDだけにする（バケットの移動中の重複を除く）
+     */
+    private long exportShards(ExportFormat format, OutputStream out) throws IOException {
+        List<Iterator<BookView>> sources = new ArrayList<>();
+        long[] count = new long[1];
+        try {
+            shardRouting.inChainedTransactions(shardRouting.getShardMap().getShardNames(), readOnlyRequiresNew,
+                    shard -> sources.add(shardRouting.ownedBy(shard, bookMapper.exportAll().iterator(), BookView::getId)),
+                    () -> {
+                        Iterable<BookView> merged = () -> ShardRouting.mergeSorted(
+                                sources, Comparator.comparing(BookView::getId));
+                        try {
+                            count[0] = format == ExportFormat.CSV ? writeCsv(merged, out) : writeNdjson(merged, out);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+            return count[0];
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long writeNdjson(Iterable<BookView> cursor, OutputStream out) throws IOException {
+        long count = 0;
+        try (SequenceWriter writer = objectMapper.writerFor(BookView.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(out)) {
+            for (BookView bookView : cursor) {
+                writer.write(bookView);
+                if (++count % flushInterval == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        if (count > 0) {
+            out.write('\n');
+        }
+        out.flush();
+        return count;
+    }
+
+    private long writeCsv(Iterable<BookView> cursor, OutputStream out) throws IOException {
+        long count = 0;
+        CsvRecordWriter writer = new CsvRecordWriter(
+                new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+        writer.writeRecord("id", "title", "title_kana", "author", "publisher_id", "publisher_name",
+                "user_id", "user_name", "price", "created_at", "updated_at");
+        for (BookView bookView : cursor) {
+            writer.writeRecord(
+                    bookView.getId(),
+                    bookView.getTitle(),
+                    bookView.getTitleKana(),
+                    bookView.getAuthor(),
+                    bookView.getPublisherId(),
+                    bookView.getPublisherName(),
+                    bookView.getUserId(),
+                    bookView.getUserName(),
+                    bookView.getPrice(),
+                    bookView.getCreatedAt(),
+                    bookView.getUpdatedAt()
+            );
+            if (++count % flushInterval == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+}
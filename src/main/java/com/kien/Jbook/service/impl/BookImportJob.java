@@ -0,0 +1,130 @@
+package com.kien.Jbook.service.impl;
+
+import com.kien.Jbook.model.dto.book.BookImportJobView;
+import com.kien.Jbook.model.dto.book.BookImportRejectedRow;
+import com.kien.Jbook.model.dto.book.ImportFormat;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 取込ジョブ1件の進捗
+ * 読み込みスレッドとワーカースレッドから同時に更新されるため、カウンタはAtomicで保持する
+ */
+class BookImportJob {
+    static final String QUEUED = "QUEUED";
+    static final String RUNNING = "RUNNING";
+    static final String COMPLETED = "COMPLETED";
+    static final String FAILED = "FAILED";
+
+    final String jobId;
+    final ImportFormat format;
+    final String fileName;
+    final Path file;
+    final long totalBytes;
+    // 読み込みスレッド(1) + 処理中のチャンク数
+    final Phaser inFlightChunks = new Phaser(1);
+
+    final AtomicLong bytesRead = new AtomicLong();
+    final AtomicLong rowsRead = new AtomicLong();
+    final AtomicLong rowsInserted = new AtomicLong();
+    final AtomicLong rowsRejected = new AtomicLong();
+
+    private final int maxRejectedRows;
+    private final List<BookImportRejectedRow> rejectedRows = new ArrayList<>();
+
+    private volatile String status = QUEUED;
+    private volatile long startedNanos;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile long finishedNanos;
+    private volatile String errorMessage;
+    private volatile String workerFailure;
+
+    BookImportJob(String jobId, ImportFormat format, String fileName, Path file, long totalBytes, int maxRejectedRows) {
+        this.jobId = jobId;
+        this.format = format;
+        this.fileName = fileName;
+        this.file = file;
+        this.totalBytes = totalBytes;
+        this.maxRejectedRows = maxRejectedRows;
+    }
+
+    void start() {
+        startedNanos = System.nanoTime();
+        startedAt = LocalDateTime.now();
+        status = RUNNING;
+    }
+
+    void finish(String errorMessage) {
+        this.errorMessage = errorMessage;
+        finishedNanos = System.nanoTime();
+        finishedAt = LocalDateTime.now();
+        status = errorMessage == null ? COMPLETED : FAILED;
+    }
+
+    void workerFailed(String message) {
+        workerFailure = message == null ? "unknown error" : message;
+    }
+
+    String getWorkerFailure() {
+        return workerFailure;
+    }
+
+    boolean isFinished() {
+        return finishedAt != null;
+    }
+
+    LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    /**
+     * 拒否した行を記録する。詳細は先頭のmaxRejectedRows件のみ保持し、件数は全件数える
+     */
+    void reject(long row, Integer status, Map<String, Object> error) {
+        rowsRejected.incrementAndGet();
+        synchronized (rejectedRows) {
+            if (rejectedRows.size() < maxRejectedRows) {
+                rejectedRows.add(new BookImportRejectedRow(row, status, error));
+            }
+        }
+    }
+
+    BookImportJobView toView() {
+        long processed = rowsInserted.get() + rowsRejected.get();
+        long endNanos = finishedAt != null ? finishedNanos : System.nanoTime();
+        double elapsedSeconds = startedAt != null ? (endNanos - startedNanos) / 1_000_000_000.0 : 0;
+        double rowsPerSecond = elapsedSeconds > 0 ? processed / elapsedSeconds : 0;
+        double progress = totalBytes > 0 ? Math.min(100.0, bytesRead.get() * 100.0 / totalBytes) : 0;
+        if (COMPLETED.equals(status)) {
+            progress = 100.0;
+        }
+        List<BookImportRejectedRow> rejectedRowsSnapshot;
+        synchronized (rejectedRows) {
+            rejectedRowsSnapshot = new ArrayList<>(rejectedRows);
+        }
+        return new BookImportJobView(
+                jobId,
+                status,
+                format,
+                fileName,
+                totalBytes,
+                bytesRead.get(),
+                progress,
+                rowsRead.get(),
+                rowsInserted.get(),
+                rowsRejected.get(),
+                rowsPerSecond,
+                startedAt,
+                finishedAt,
+                rejectedRowsSnapshot,
+                errorMessage
+        );
+    }
+}
@@ -0,0 +1,514 @@
+package com.kien.Jbook.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.kien.Jbook.common.CustomException;
+import com.kien.Jbook.model.dto.book.BatchMode;
+import com.kien.Jbook.model.dto.book.BookBatchItemResult;
+import com.kien.Jbook.model.dto.book.BookBatchResult;
+import com.kien.Jbook.model.dto.book.BookCreate;
+import com.kien.Jbook.model.dto.book.BookImportJobView;
+import com.kien.Jbook.model.dto.book.ImportFormat;
+import com.kien.Jbook.service.BookImportService;
+import com.kien.Jbook.service.BookService;
+import com.kien.Jbook.utils.BoundedLineReader;
+import com.kien.Jbook.utils.CsvRecordReader;
+import com.kien.Jbook.utils.RecordTooLongException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static com.kien.Jbook.utils.StringUtils.toCamelCase;
+
+/**
+ * CSV/NDJSONファイルの非同期取込
+ *
+ * ファイルは一時ファイルに保存した後、1行ずつ読み込んでchunkSize件ごとにワーカーへ渡す。
+ * 1行（CSVは1レコード）がmaxLineLength文字を超える場合は、その行を読み飛ばして拒否行とする。
+ * ワーカーへの投入は (ワーカー数 + キュー容量) 個の許可で制限しているため、
+ * 登録が読み込みに追いつかない場合は読み込み側が待つ。メモリに載る行数はファイルサイズによらず一定となる。
+ * 各チャンクは BookService.registerBatch(BEST_EFFORT) で登録するので、バリデーションは単件登録と同じ。
+ */
+@Slf4j
+@Service
+public class BookImportServiceImpl implements BookImportService {
+    private static final String FIELD_FILE = "file";
+    private static final String FIELD_FORMAT = "format";
+    private static final String FIELD_JOB_ID = "jobId";
+    private static final String MSG_STR = "message";
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${messages.errors.invalidValue}")
+    private String MSG_INVALID_VALUE = "";
+
+    @Value("${messages.errors.typeMissmatch}")
+    private String MSG_TYPE_MISSMATCH = "";
+
+    @Value("${messages.errors.importBusy}")
+    private String MSG_IMPORT_BUSY = "";
+
+    @Value("${messages.errors.importJobNotFound}")
+    private String MSG_IMPORT_JOB_NOT_FOUND = "";
+
+    @Value("${messages.errors.importFileError}")
+    private String MSG_IMPORT_FILE_ERROR = "";
+
+    @Value("${messages.errors.importLineTooLong}")
+    private String MSG_IMPORT_LINE_TOO_LONG = "";
+
+    @Value("${jbook.import.workers:4}")
+    private int workers;
+
+    @Value("${jbook.import.queue-capacity:8}")
+    private int queueCapacity;
+
+    @Value("${jbook.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${jbook.import.max-concurrent-jobs:2}")
+    private int maxConcurrentJobs;
+
+    @Value("${jbook.import.job-queue-capacity:10}")
+    private int jobQueueCapacity;
+
+    @Value("${jbook.import.max-rejected-rows:100}")
+    private int maxRejectedRows;
+
+    @Value("${jbook.import.max-line-length:65536}")
+    private int maxLineLength;
+
+    @Value("${jbook.import.retention:24h}")
+    private Duration retention;
+
+    private final Map<String, BookImportJob> jobs = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor jobExecutor;
+    private ThreadPoolExecutor chunkExecutor;
+    private Semaphore chunkPermits;
+
+    @PostConstruct
+    void init() {
+        jobExecutor = new ThreadPoolExecutor(
+                maxConcurrentJobs, maxConcurrentJobs, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(jobQueueCapacity),
+                new CustomizableThreadFactory("book-import-job-")
+        );
+        chunkExecutor = new ThreadPoolExecutor(
+                workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("book-import-worker-")
+        );
+        chunkPermits = new Semaphore(workers + queueCapacity);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        jobExecutor.shutdownNow();
+        chunkExecutor.shutdownNow();
+    }
+
+    @Override
+    public BookImportJobView submit(MultipartFile file, ImportFormat format) {
+        // 1. パラメータのバリデーション
+        if (file == null || file.isEmpty()) {
+            throw new CustomException(
+                    MSG_INVALID_VALUE,
+                    HttpStatus.BAD_REQUEST,
+                    FIELD_FILE,
+                    file == null ? null : file.getOriginalFilename()
+            );
+        }
+        ImportFormat resolvedFormat = format != null ? format : detectFormat(file.getOriginalFilename());
+        if (resolvedFormat == null) {
+            throw new CustomException(
+                    MSG_INVALID_VALUE,
+                    HttpStatus.BAD_REQUEST,
+                    FIELD_FORMAT,
+                    null
+            );
+        }
+        removeExpiredJobs();
+
+        // 2. リクエスト終了後も読めるように一時ファイルへ保存
+        // transferTo(File)はコンテナが受信時に保存したファイルを移動するため、同じファイルシステム上ならコピーしない
+        // （transferTo(Path)は常にストリームでコピーする）
+        Path tempFile;
+        try {
+            tempFile = Files.createTempFile("book-import-", ".tmp");
+            file.transferTo(tempFile.toFile());
+        } catch (IOException e) {
+            throw new CustomException(
+                    MSG_IMPORT_FILE_ERROR,
+                    HttpStatus.INTERNAL_SERVER_ERROR,
+                    FIELD_FILE,
+                    file.getOriginalFilename()
+            );
+        }
+
+        // 3. ジョブ登録
+        BookImportJob job = new BookImportJob(
+                UUID.randomUUID().toString(),
+                resolvedFormat,
+                file.getOriginalFilename(),
+                tempFile,
+                file.getSize(),
+                maxRejectedRows
+        );
+        jobs.put(job.jobId, job);
+        try {
+            jobExecutor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.jobId);
+            deleteQuietly(tempFile);
+            throw new CustomException(
+                    MSG_IMPORT_BUSY,
+                    HttpStatus.SERVICE_UNAVAILABLE,
+                    FIELD_FILE,
+                    file.getOriginalFilename()
+            );
+        }
+        return job.toView();
+    }
+
+    @Override
+    public BookImportJobView getJob(String jobId) {
+        BookImportJob job = jobId == null ? null : jobs.get(jobId);
+        if (job == null) {
+            throw new CustomException(
+                    MSG_IMPORT_JOB_NOT_FOUND,
+                    HttpStatus.NOT_FOUND,
+                    FIELD_JOB_ID,
+                    jobId
+            );
+        }
+        return job.toView();
+    }
+
+    private void run(BookImportJob job) {
+        job.start();
+        String errorMessage = null;
+        try (InputStream in = new CountingInputStream(Files.newInputStream(job.file), job.bytesRead);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            ChunkBuffer buffer = new ChunkBuffer(job);
+            if (job.format == ImportFormat.CSV) {
+                readCsv(job, reader, buffer);
+            } else {
+                readNdjson(job, reader, buffer);
+            }
+            buffer.flush();
+        } catch (Exception e) {
+            log.warn("Book import job {} failed", job.jobId, e);
+            errorMessage = e.getMessage();
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        } finally {
+            // 投入済みのチャンクがすべて終わるまで待つ
+            job.inFlightChunks.arriveAndAwaitAdvance();
+            deleteQuietly(job.file);
+        }
+        job.finish(errorMessage != null ? errorMessage : job.getWorkerFailure());
+    }
+
+    private void readCsv(BookImportJob job, BufferedReader reader, ChunkBuffer buffer)
+            throws IOException, InterruptedException {
+        CsvRecordReader csv = new CsvRecordReader(reader, maxLineLength);
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            return;
+        }
+        List<String> properties = new ArrayList<>(header.size());
+        for (String column : header) {
+            properties.add(toCamelCase(column.trim().toLowerCase(Locale.ROOT)));
+        }
+
+        while (true) {
+            List<String> record;
+            try {
+                record = csv.readRecord();
+            } catch (RecordTooLongException e) {
+                rejectTooLong(job, e.getRecordNumber() - 1);
+                continue;
+            }
+            if (record == null) {
+                break;
+            }
+            buffer.checkFailure();
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            long row = csv.getRecordNumber() - 1;
+            job.rowsRead.incrementAndGet();
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < properties.size() && i < record.size(); i++) {
+                values.put(properties.get(i), record.get(i).trim());
+            }
+            try {
+                buffer.add(row, toBookCreate(values));
+            } catch (FieldParseException e) {
+                job.reject(row, HttpStatus.BAD_REQUEST.value(), error(e.field, e.value, MSG_TYPE_MISSMATCH));
+            }
+        }
+    }
+
+    private void readNdjson(BookImportJob job, BufferedReader reader, ChunkBuffer buffer)
+            throws IOException, InterruptedException {
+        ObjectReader bookReader = objectMapper.readerFor(BookCreate.class);
+        BoundedLineReader lines = new BoundedLineReader(reader, maxLineLength);
+        while (true) {
+            String line;
+            try {
+                line = lines.readLine();
+            } catch (RecordTooLongException e) {
+                rejectTooLong(job, e.getRecordNumber());
+                continue;
+            }
+            if (line == null) {
+                break;
+            }
+            buffer.checkFailure();
+            long row = lines.getLineNumber();
+            if (line.isBlank()) {
+                continue;
+            }
+            job.rowsRead.incrementAndGet();
+            try {
+                buffer.add(row, bookReader.readValue(line));
+            } catch (InvalidFormatException e) {
+                job.reject(row, HttpStatus.BAD_REQUEST.value(), error(lastFieldName(e), e.getValue(), MSG_TYPE_MISSMATCH));
+            } catch (JsonProcessingException e) {
+                job.reject(row, HttpStatus.BAD_REQUEST.value(), error(null, null, MSG_INVALID_VALUE));
+            }
+        }
+    }
+
+    private void rejectTooLong(BookImportJob job, long row) {
+        job.rowsRead.incrementAndGet();
+        job.reject(row, HttpStatus.BAD_REQUEST.value(), error(null, null, MSG_IMPORT_LINE_TOO_LONG));
+    }
+
+    private BookCreate toBookCreate(Map<String, String> values) throws FieldParseException {
+        return new BookCreate(
+                parse(values, "id", Long::valueOf),
+                emptyToNull(values.get("title")),
+                emptyToNull(values.get("titleKana")),
+                emptyToNull(values.get("author")),
+                parse(values, "publisherId", Long::valueOf),
+                parse(values, "userId", Long::valueOf),
+                parse(values, "price", Integer::valueOf)
+        );
+    }
+
+    private <T> T parse(Map<String, String> values, String field, Function<String, T> parser)
+            throws FieldParseException {
+        String value = values.get(field);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException e) {
+            throw new FieldParseException(field, value);
+        }
+    }
+
+    /**
+     * 1チャンク分を登録し、行ごとの結果をジョブに反映する
+     */
+    private void insertChunk(BookImportJob job, List<BookCreate> chunk, List<Long> rows) {
+        BookBatchResult result = bookService.registerBatch(chunk, BatchMode.BEST_EFFORT);
+        for (BookBatchItemResult item : result.getResults()) {
+            if (BookBatchItemResult.CREATED.equals(item.getResult())) {
+                job.rowsInserted.incrementAndGet();
+            } else {
+                job.reject(rows.get(item.getIndex()), item.getStatus(), item.getError());
+            }
+        }
+    }
+
+    private ImportFormat detectFormat(String fileName) {
+        if (fileName == null) {
+            return null;
+        }
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".csv")) {
+            return ImportFormat.CSV;
+        }
+        if (lower.endsWith(".ndjson") || lower.endsWith(".jsonl")) {
+            return ImportFormat.NDJSON;
+        }
+        return null;
+    }
+
+    private void removeExpiredJobs() {
+        LocalDateTime threshold = LocalDateTime.now().minus(retention);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(threshold));
+    }
+
+    private Map<String, Object> error(String field, Object value, String message) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        if (field != null) {
+            error.put(field, value);
+        }
+        error.put(MSG_STR, message);
+        return error;
+    }
+
+    private static String lastFieldName(JsonMappingException e) {
+        List<JsonMappingException.Reference> path = e.getPath();
+        return path.isEmpty() ? null : path.get(path.size() - 1).getFieldName();
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete import file {}", file, e);
+        }
+    }
+
+    /**
+     * 読み込んだ行をチャンクにまとめてワーカーへ渡す
+     */
+    private class ChunkBuffer {
+        private final BookImportJob job;
+        private List<BookCreate> books = new ArrayList<>(chunkSize);
+        private List<Long> rows = new ArrayList<>(chunkSize);
+
+        private ChunkBuffer(BookImportJob job) {
+            this.job = job;
+        }
+
+        private void add(long row, BookCreate bookCreate) throws InterruptedException {
+            books.add(bookCreate);
+            rows.add(row);
+            if (books.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        private void flush() throws InterruptedException {
+            if (books.isEmpty()) {
+                return;
+            }
+            List<BookCreate> chunk = books;
+            List<Long> chunkRows = rows;
+            books = new ArrayList<>(chunkSize);
+            rows = new ArrayList<>(chunkSize);
+
+            // ワーカーとキューが埋まっている間はここで待つ（バックプレッシャ）
+            chunkPermits.acquire();
+            job.inFlightChunks.register();
+            try {
+                chunkExecutor.execute(() -> {
+                    try {
+                        insertChunk(job, chunk, chunkRows);
+                    } catch (RuntimeException e) {
+                        log.warn("Book import job {} chunk failed", job.jobId, e);
+                        job.workerFailed(e.getMessage());
+                    } finally {
+                        job.inFlightChunks.arriveAndDeregister();
+                        chunkPermits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                job.inFlightChunks.arriveAndDeregister();
+                chunkPermits.release();
+                throw e;
+            }
+        }
+
+        /**
+         * ワーカーで予期しないエラーが起きた場合、以降の読み込みを中止する
+         */
+        private void checkFailure() throws IOException {
+            if (job.getWorkerFailure() != null) {
+                throw new IOException(job.getWorkerFailure());
+            }
+        }
+    }
+
+    private static class FieldParseException extends Exception {
+        private final String field;
+        private final String value;
+
+        private FieldParseException(String field, String value) {
+            super(null, null, false, false);
+            this.field = field;
+            this.value = value;
+        }
+    }
+
+    /**
+     * 読み込んだバイト数を進捗として数える
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private final AtomicLong counter;
+
+        private CountingInputStream(InputStream in, AtomicLong counter) {
+            super(in);
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                counter.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                counter.addAndGet(n);
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.kien.Jbook.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kien.Jbook.common.jdbc.ShardRouting;
+import com.kien.Jbook.mapper.BookMapper;
+import com.kien.Jbook.mapper.BookOutboxMapper;
+import com.kien.Jbook.model.Book;
+import com.kien.Jbook.model.dto.BookOutboxEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 書籍の変更イベントを、書籍の更新と同じトランザクションで book_outbox に記録する
+ *
+ * 更新がコミットされた場合だけイベントが残り、BookOutboxRelay が後から送信する（登録の応答を送信で待たせない）。
+ * 無効な場合は書籍の更新のみを行う。
+ * シャーディングが有効な場合は、書籍のシャードでトランザクションを始める（book_outbox も書籍と同じシャードに記録される）。
+ */
+@Component
+public class BookOutbox {
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    @Autowired
+    private BookOutboxMapper bookOutboxMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ShardRouting shardRouting;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${jbook.outbox.enabled:false}")
+    private boolean enabled;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 書籍をINSERTし、登録イベントを記録する
+     * @param book
+     * @return INSERTした件数
+     */
+    public int save(Book book) {
+        if (!enabled) {
+            return bookMapper.save(book);
+        }
+        return inTransaction(book.getId(), () -> {
+            int insertedCount = bookMapper.save(book);
+            // AUTO_INCREMENTのIDはINSERTの後に設定される
+            bookOutboxMapper.insertAll(registeredEvents(List.of(book)));
+            return insertedCount;
+        });
+    }
+
+    /**
+     * 書籍を論理削除し、削除した場合は削除イベントを記録する
+     * @param id
+     * @param deletedAt
+     * @return 論理削除した件数
+     */
+    public int softDelete(Long id, LocalDateTime deletedAt) {
+        if (!enabled) {
+            return bookMapper.softDelete(id, deletedAt);
+        }
+        return inTransaction(id, () -> {
+            int deletedCount = bookMapper.softDelete(id, deletedAt);
+            if (deletedCount > 0) {
+                Map<String, Object> payload = new LinkedHashMap<>();
+                payload.put("id", id);
+                payload.put("deletedAt", deletedAt);
+                bookOutboxMapper.insertAll(List.of(
+                        new BookOutboxEvent(null, id, BookOutboxEvent.DELETED, toJson(payload), LocalDateTime.now())));
+            }
+            return deletedCount;
+        });
+    }
+
+    /**
+     * INSERT済みの書籍の登録イベントを作る（呼び出し元のトランザクションで記録すること）
+     * @param books 全件のIDが設定済みであること
+     * @return
+     */
+    public List<BookOutboxEvent> registeredEvents(List<Book> books) {
+        LocalDateTime now = LocalDateTime.now();
+        List<BookOutboxEvent> events = new ArrayList<>(books.size());
+        for (Book book : books) {
+            events.add(new BookOutboxEvent(null, book.getId(), BookOutboxEvent.REGISTERED, toJson(book), now));
+        }
+        return events;
+    }
+
+    private <T> T inTransaction(Long bookId, Supplier<T> action) {
+        Supplier<T> transaction = () -> transactionTemplate.execute(status -> action.get());
+        // 接続するシャードはトランザクションの開始時に決まるため、先に書籍のシャードに振り分ける
+        if (shardRouting.isEnabled() && bookId != null) {
+            return shardRouting.onShardOf(bookId, transaction);
+        }
+        return transaction.get();
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
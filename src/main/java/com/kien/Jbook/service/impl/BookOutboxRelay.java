@@ -0,0 +1,213 @@
+package com.kien.Jbook.service.impl;
+
+import com.kien.Jbook.common.jdbc.ShardRouting;
+import com.kien.Jbook.mapper.BookOutboxMapper;
+import com.kien.Jbook.model.dto.BookOutboxEvent;
+import com.kien.Jbook.service.BookEventSink;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * book_outbox のイベントを古い順に batch-size 件ずつ BookEventSink に送信し、送信できたものを削除する
+ *
+ * 取得した行はロックしたまま送信し、削除と同じトランザクションでコミットする。
+ * 複数のインスタンスで動かしても、他のインスタンスの送信が終わるまで待つため、同じ書籍のイベントは記録した順に届く。
+ * 送信に失敗した場合はロールバックして poll-interval 後に同じイベントから送り直す（at-least-once）。
+ * シャーディングが有効な場合はシャードごとに順番に送信する（同じ書籍のイベントは同じシャードにある）。
+ */
+@Slf4j
+@Component
+public class BookOutboxRelay {
+
+    @Autowired
+    private BookOutboxMapper bookOutboxMapper;
+
+    @Autowired
+    private BookEventSink bookEventSink;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ShardRouting shardRouting;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${jbook.outbox.enabled:false}")
+    private boolean enabled;
+
+    @Value("${jbook.outbox.relay.enabled:true}")
+    private boolean relayEnabled;
+
+    @Value("${jbook.outbox.relay.poll-interval:500ms}")
+    private Duration pollInterval;
+
+    @Value("${jbook.outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    // 前回の確認時点で最も古い未送信イベントの記録日時（エポックミリ秒。未送信がなければ-1）
+    private final AtomicLong oldestPendingMillis = new AtomicLong(-1);
+    private TransactionTemplate relayTransaction;
+    private ScheduledExecutorService scheduler;
+
+    private Counter publishedCounter;
+    private Counter failuresCounter;
+    private Timer delayTimer;
+    private Timer publishTimer;
+
+    @PostConstruct
+    void init() {
+        relayTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        // REPEATABLE READでは末尾のギャップロックで、送信中に新しいイベントを記録できなくなる
+        relayTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        registerMetrics();
+        if (!enabled || !relayEnabled) {
+            return;
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("book-outbox-relay-");
+        threadFactory.setDaemon(true);
+        scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        scheduler.scheduleWithFixedDelay(this::relayQuietly, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 未送信のイベントがなくなるまで送信する
+     * @return 送信した件数
+     */
+    public long relay() {
+        long[] published = {0};
+        long[] oldest = {-1};
+        try {
+            if (shardRouting.isEnabled()) {
+                shardRouting.forEachShard(shard -> published[0] += relayBatches(oldest));
+            } else {
+                published[0] = relayBatches(oldest);
+            }
+        } finally {
+            // 送信に失敗した場合も、残っているイベントの遅れを反映する
+            oldestPendingMillis.set(oldest[0]);
+        }
+        return published[0];
+    }
+
+    /**
+     * 接続中のDBのイベントを batch-size 件ずつ送信する
+     * @param oldest 最初に取得した未送信イベントの記録日時のうち最も古いもの
+     */
+    private long relayBatches(long[] oldest) {
+        long published = 0;
+        boolean first = true;
+        while (true) {
+            boolean recordOldest = first;
+            Integer count = relayTransaction.execute(status -> {
+                List<BookOutboxEvent> events = bookOutboxMapper.lockOldest(batchSize);
+                if (events.isEmpty()) {
+                    return 0;
+                }
+                if (recordOldest) {
+                    long createdAt = toEpochMilli(events.get(0).getCreatedAt());
+                    oldest[0] = oldest[0] < 0 ? createdAt : Math.min(oldest[0], createdAt);
+                }
+                publish(events);
+                bookOutboxMapper.deleteByIds(events.stream().map(BookOutboxEvent::getId).toList());
+                return events.size();
+            });
+            first = false;
+            published += count;
+            if (count < batchSize) {
+                return published;
+            }
+        }
+    }
+
+    private void publish(List<BookOutboxEvent> events) {
+        long start = System.nanoTime();
+        try {
+            bookEventSink.publish(events);
+        } catch (RuntimeException e) {
+            failuresCounter.increment();
+            throw e;
+        }
+        publishTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        publishedCounter.increment(events.size());
+        long now = System.currentTimeMillis();
+        for (BookOutboxEvent event : events) {
+            delayTimer.record(Math.max(0, now - toEpochMilli(event.getCreatedAt())), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * DBの日時（JVMのタイムゾーン）をエポックミリ秒にする
+     */
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private void relayQuietly() {
+        try {
+            relay();
+        } catch (RuntimeException e) {
+            log.warn("書籍のイベントを送信できません。次回に送り直します：{}", e.toString());
+        }
+    }
+
+    /**
+     * 最も古い未送信イベントの経過時間（秒）。前回の確認時点で未送信がなければ0
+     */
+    private double lagSeconds() {
+        long oldest = oldestPendingMillis.get();
+        return oldest < 0 ? 0 : Math.max(0, System.currentTimeMillis() - oldest) / 1000.0;
+    }
+
+    private void registerMetrics() {
+        MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        publishedCounter = Counter.builder("jbook.outbox.published")
+                .description("送信したイベントの件数（送り直した分を含む）")
+                .register(registry);
+        failuresCounter = Counter.builder("jbook.outbox.failures")
+                .description("送信に失敗したバッチの数")
+                .register(registry);
+        delayTimer = Timer.builder("jbook.outbox.delivery.delay")
+                .description("イベントを記録してから送信するまでの時間")
+                .publishPercentileHistogram()
+                .register(registry);
+        publishTimer = Timer.builder("jbook.outbox.publish")
+                .description("1バッチの送信にかかった時間")
+                .publishPercentileHistogram()
+                .register(registry);
+        Gauge.builder("jbook.outbox.lag", this, BookOutboxRelay::lagSeconds)
+                .description("前回の確認時点で最も古い未送信イベントの経過時間（秒）")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+}
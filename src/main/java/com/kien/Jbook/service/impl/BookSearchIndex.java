@@ -0,0 +1,174 @@
+package com.kien.Jbook.service.impl;
+
+import com.kien.Jbook.common.search.NGramIndex;
+import com.kien.Jbook.mapper.BookMapper;
+import com.kien.Jbook.model.Book;
+import com.kien.Jbook.model.dto.BookSearchRow;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * タイトル・タイトルカナ・著者の全文検索インデックス
+ *
+ * 起動時に論理削除されていない全書籍を読み込んでインデックスを構築し、以降は登録時にadd()で追加する。
+ * 別インスタンスでの登録やDBの直接更新を反映するため、一定間隔（rebuild-interval）で全件から作り直す。
+ * 再構築は新しいインデックスを裏で作って差し替えるので、その間も検索できる。
+ * 再構築中に追加・削除された書籍は、差し替え後の新しいインデックスにも追加・削除し直す。
+ */
+@Slf4j
+@Component
+public class BookSearchIndex {
+    // スコアの重み（タイトル・タイトルカナ・著者の順）
+    private static final int TITLE_WEIGHT = 3;
+    private static final int TITLE_KANA_WEIGHT = 2;
+    private static final int AUTHOR_WEIGHT = 1;
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    @Value("${jbook.search.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jbook.search.rebuild-interval:1h}")
+    private Duration rebuildInterval;
+
+    private volatile NGramIndex index;
+    // 再構築中に追加された書籍（再構築中でなければnull）
+    private List<BookSearchRow> addedDuringRebuild;
+    // 再構築中に削除された書籍のID（再構築中でなければnull）
+    private List<Long> removedDuringRebuild;
+    private final Object rebuildLock = new Object();
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("book-search-index-");
+        threadFactory.setDaemon(true);
+        scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        scheduler.scheduleWithFixedDelay(this::rebuildQuietly, 0, rebuildInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 構築済みか。構築前・失敗時はfalse
+     * @return
+     */
+    public boolean isLoaded() {
+        return index != null;
+    }
+
+    /**
+     * 全件からの再構築を予約する
+     */
+    public void rebuildAsync() {
+        if (scheduler != null) {
+            scheduler.execute(this::rebuildQuietly);
+        }
+    }
+
+    /**
+     * 登録した書籍をインデックスに追加する（同じIDがあれば置き換える）
+     * @param book IDが採番済みであること
+     */
+    public void add(Book book) {
+        BookSearchRow row = new BookSearchRow(book.getId(), book.getTitle(), book.getTitleKana(), book.getAuthor());
+        synchronized (rebuildLock) {
+            if (addedDuringRebuild != null) {
+                addedDuringRebuild.add(row);
+            }
+            NGramIndex current = index;
+            if (current != null) {
+                addTo(current, row);
+            }
+        }
+    }
+
+    /**
+     * 論理削除した書籍をインデックスから削除する
+     * @param id
+     */
+    public void remove(long id) {
+        synchronized (rebuildLock) {
+            if (removedDuringRebuild != null) {
+                removedDuringRebuild.add(id);
+            }
+            NGramIndex current = index;
+            if (current != null) {
+                current.remove(id);
+            }
+        }
+    }
+
+    /**
+     * タイトル・タイトルカナ・著者の部分一致で検索する
+     * @param query
+     * @param limit
+     * @return 構築前の場合はnull
+     */
+    public NGramIndex.Result search(String query, int limit) {
+        NGramIndex current = index;
+        return current == null ? null : current.search(query, limit);
+    }
+
+    /**
+     * 全書籍を読み込んでインデックスを作り直す
+     */
+    void rebuild() {
+        synchronized (rebuildLock) {
+            addedDuringRebuild = new ArrayList<>();
+            removedDuringRebuild = new ArrayList<>();
+        }
+        NGramIndex rebuilt = new NGramIndex(TITLE_WEIGHT, TITLE_KANA_WEIGHT, AUTHOR_WEIGHT);
+        try {
+            bookMapper.scanSearchFields(context -> addTo(rebuilt, context.getResultObject()));
+        } catch (RuntimeException e) {
+            synchronized (rebuildLock) {
+                addedDuringRebuild = null;
+                removedDuringRebuild = null;
+            }
+            throw e;
+        }
+        synchronized (rebuildLock) {
+            // 読み込み中に追加・削除された書籍を反映してから差し替える（読み込み済みのものは置き換えになる）
+            addedDuringRebuild.forEach(row -> addTo(rebuilt, row));
+            removedDuringRebuild.forEach(rebuilt::remove);
+            addedDuringRebuild = null;
+            removedDuringRebuild = null;
+            index = rebuilt;
+        }
+        log.debug("書籍の検索インデックスを構築しました。件数：{}件", rebuilt.size());
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("書籍の検索インデックスの構築に失敗しました：{}", e.toString());
+        }
+    }
+
+    private static void addTo(NGramIndex target, BookSearchRow row) {
+        target.add(row.getId(), row.getTitle(), row.getTitleKana(), row.getAuthor());
+    }
+}
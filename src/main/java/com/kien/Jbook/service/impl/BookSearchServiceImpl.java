@@ -0,0 +1,145 @@
+package com.kien.Jbook.service.impl;
+
+import com.kien.Jbook.common.CustomException;
+import com.kien.Jbook.common.search.NGramIndex;
+import com.kien.Jbook.common.search.TextNormalizer;
+import com.kien.Jbook.model.dto.book.BookSearchResult;
+import com.kien.Jbook.model.dto.book.BookSuggestions;
+import com.kien.Jbook.model.dto.book.BookView;
+import com.kien.Jbook.service.BookSearchService;
+import com.kien.Jbook.service.BookService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * メモリ上の検索インデックスで書籍IDを絞り込み、書籍の内容はBookService.getByIds()で取得する
+ * 入力補完はメモリ上のトライのみで返す
+ */
+@Service
+public class BookSearchServiceImpl implements BookSearchService {
+    private static final String FIELD_QUERY = "q";
+    private static final String FIELD_PREFIX = "prefix";
+    private static final String FIELD_LIMIT = "limit";
+    private static final int MIN_QUERY_LENGTH = 2;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private BookSuggestIndex bookSuggestIndex;
+
+    @Autowired
+    private BookService bookService;
+
+    @Value("${messages.errors.invalidValue}")
+    private String MSG_INVALID_VALUE = "";
+
+    @Value("${messages.errors.searchQueryTooShort}")
+    private String MSG_SEARCH_QUERY_TOO_SHORT = "";
+
+    @Value("${messages.errors.searchNotReady}")
+    private String MSG_SEARCH_NOT_READY = "";
+
+    @Value("${jbook.search.default-limit:20}")
+    private int defaultLimit;
+
+    @Value("${jbook.search.max-limit:100}")
+    private int maxLimit;
+
+    @Value("${jbook.suggest.default-limit:10}")
+    private int suggestDefaultLimit;
+
+    @Value("${jbook.suggest.max-limit:20}")
+    private int suggestMaxLimit;
+
+    @Override
+    public BookSearchResult search(String query, Integer limit) {
+        // 1. パラメータのバリデーション
+        if (query == null || query.isBlank()) {
+            throw new CustomException(
+                    MSG_INVALID_VALUE,
+                    HttpStatus.BAD_REQUEST,
+                    FIELD_QUERY,
+                    query
+            );
+        }
+        if (TextNormalizer.normalize(query).length() < MIN_QUERY_LENGTH) {
+            throw new CustomException(
+                    MSG_SEARCH_QUERY_TOO_SHORT,
+                    HttpStatus.BAD_REQUEST,
+                    FIELD_QUERY,
+                    query
+            );
+        }
+        int actualLimit = limit == null ? defaultLimit : limit;
+        if (actualLimit < 1 || actualLimit > maxLimit) {
+            throw new CustomException(
+                    MSG_INVALID_VALUE,
+                    HttpStatus.BAD_REQUEST,
+                    FIELD_LIMIT,
+                    limit
+            );
+        }
+
+        // 2. インデックスで上位の書籍IDを求める
+        NGramIndex.Result result = bookSearchIndex.search(query, actualLimit);
+        if (result == null) {
+            throw new CustomException(
+                    MSG_SEARCH_NOT_READY,
+                    HttpStatus.SERVICE_UNAVAILABLE,
+                    null,
+                    null
+            );
+        }
+        if (result.hits().isEmpty()) {
+            return new BookSearchResult(new ArrayList<>(), result.total());
+        }
+
+        // 3. 書籍の内容を取得（スコア順のまま。インデックスの反映前に削除された書籍は除かれる）
+        List<Long> ids = new ArrayList<>(result.hits().size());
+        for (NGramIndex.Hit hit : result.hits()) {
+            ids.add(hit.key());
+        }
+        List<BookView> books = bookService.getByIds(ids).getBooks();
+        return new BookSearchResult(books, result.total());
+    }
+
+    @Override
+    public BookSuggestions suggest(String prefix, Integer limit) {
+        // 1. パラメータのバリデーション
+        if (prefix == null || TextNormalizer.normalize(prefix).isEmpty()) {
+            throw new CustomException(
+                    MSG_INVALID_VALUE,
+                    HttpStatus.BAD_REQUEST,
+                    FIELD_PREFIX,
+                    prefix
+            );
+        }
+        int actualLimit = limit == null ? suggestDefaultLimit : limit;
+        if (actualLimit < 1 || actualLimit > suggestMaxLimit) {
+            throw new CustomException(
+                    MSG_INVALID_VALUE,
+                    HttpStatus.BAD_REQUEST,
+                    FIELD_LIMIT,
+                    limit
+            );
+        }
+
+        // 2. トライから候補を取得
+        List<String> suggestions = bookSuggestIndex.suggest(prefix, actualLimit);
+        if (suggestions == null) {
+            throw new CustomException(
+                    MSG_SEARCH_NOT_READY,
+                    HttpStatus.SERVICE_UNAVAILABLE,
+                    null,
+                    null
+            );
+        }
+        return new BookSuggestions(prefix, suggestions);
+    }
+}
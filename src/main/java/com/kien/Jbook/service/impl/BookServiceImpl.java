@@ -1,31 +1,104 @@
 package com.kien.Jbook.service.impl;
 
 import com.kien.Jbook.common.CustomException;
+import com.kien.Jbook.common.cache.BoundedCache;
+import com.kien.Jbook.common.cache.SingleFlight;
+import com.kien.Jbook.common.id.IdAllocator;
+import com.kien.Jbook.common.jdbc.ReadRouting;
+import com.kien.Jbook.common.jdbc.ShardRouting;
+import com.kien.Jbook.common.reflect.PropertyAccessor;
+import com.kien.Jbook.common.reflect.PropertyAccessorRegistry;
+import com.kien.Jbook.common.web.CachedJsonHttpMessageConverter;
 import com.kien.Jbook.utils.DBExceptionUtils;
-import com.kien.Jbook.utils.ReflectionUtils;
+import com.kien.Jbook.utils.PageCursorUtils;
 import com.kien.Jbook.utils.ValidationUtils;
 import com.kien.Jbook.mapper.BookMapper;
 import com.kien.Jbook.model.Book;
+import com.kien.Jbook.model.dto.BookVersionRow;
+import com.kien.Jbook.model.dto.book.BatchMode;
 import com.kien.Jbook.model.dto.book.BookBasicInfo;
+import com.kien.Jbook.model.dto.book.BookBatchItemResult;
+import com.kien.Jbook.model.dto.book.BookBatchResult;
 import com.kien.Jbook.model.dto.book.BookCreate;
+import com.kien.Jbook.model.dto.book.BookMultiView;
+import com.kien.Jbook.model.dto.book.BookPage;
+import com.kien.Jbook.model.dto.book.BookPageQuery;
+import com.kien.Jbook.model.dto.book.BookPageRequest;
+import com.kien.Jbook.model.dto.book.BookSort;
+import com.kien.Jbook.model.dto.book.BookVersion;
 import com.kien.Jbook.model.dto.book.BookView;
 import com.kien.Jbook.service.BookService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-
-import static com.kien.Jbook.utils.StringUtils.toCamelCase;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class BookServiceImpl implements BookService {
+    private static final String FIELD_IDS = "ids";
+    private static final String FIELD_BOOKS = "books";
+    private static final String FIELD_LIMIT = "limit";
+    private static final String FIELD_AFTER = "after";
+    private static final String FIELD_MIN_PRICE = "minPrice";
+    private static final String FIELD_MAX_PRICE = "maxPrice";
+    // 外部キー違反のカラム名（publisher_id）からプロパティ名と値を引く
+    private static final PropertyAccessorRegistry BOOK_CREATE_PROPERTIES = PropertyAccessorRegistry.of(BookCreate.class);
+
     @Autowired
     private BookMapper bookMapper;
 
+    @Autowired
+    private BoundedCache<Long, BookView> bookViewCache;
+
+    @Autowired
+    private SingleFlight<Long, BookView> bookViewSingleFlight;
+
+    @Autowired
+    private BoundedCache<Long, CachedJsonHttpMessageConverter.Serialized<BookView>> bookViewJsonCache;
+
+    @Autowired
+    private BookBatchWriter bookBatchWriter;
+
+    @Autowired
+    private ForeignKeyIndex foreignKeyIndex;
+
+    @Autowired
+    private DimensionCache dimensionCache;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private ReadRouting readRouting;
+
+    @Autowired
+    private BookWriteBehindQueue bookWriteBehindQueue;
+
+    @Autowired
+    private IdAllocator idAllocator;
+
+    @Autowired
+    private ShardRouting shardRouting;
+
+    @Autowired
+    private BookOutbox bookOutbox;
+
     @Value("${messages.errors.invalidValue}")
     private String MSG_INVALID_VALUE = "";
 
@@ -41,6 +114,36 @@ public class BookServiceImpl implements BookService {
     @Value("${messages.errors.duplicateKey}")
     private String MSG_DUPLICATE_KEY = "";
 
+    @Value("${messages.errors.dbBusy}")
+    private String MSG_DB_BUSY = "";
+
+    @Value("${messages.errors.tooManyIds}")
+    private String MSG_TOO_MANY_IDS = "";
+
+    @Value("${messages.errors.tooManyItems}")
+    private String MSG_TOO_MANY_ITEMS = "";
+
+    @Value("${messages.errors.bookNotFound}")
+    private String MSG_BOOK_NOT_FOUND = "";
+
+    @Value("${jbook.multi-get.max-ids:1000}")
+    private int multiGetMaxIds;
+
+    @Value("${jbook.multi-get.chunk-size:500}")
+    private int multiGetChunkSize;
+
+    @Value("${jbook.page.default-limit:20}")
+    private int pageDefaultLimit;
+
+    @Value("${jbook.page.max-limit:100}")
+    private int pageMaxLimit;
+
+    @Value("${jbook.batch.max-items:10000}")
+    private int batchMaxItems;
+
+    @Value("${jbook.batch.chunk-size:500}")
+    private int batchChunkSize;
+
     @Override
     public BookView getById(Long id) {
         if (id == null || id < 1) {
@@ -51,8 +154,234 @@ public class BookServiceImpl implements BookService {
                     id
             );
         }
-        BookView bookView = bookMapper.getById(id);
-        return bookView;
+        bookWriteBehindQueue.awaitFlushed(id);
+        // キャッシュに無い同じIDへの同時アクセスは、1回の読み込みの結果を共有する
+        try {
+            return bookViewCache.get(id, key -> bookViewSingleFlight.execute(
+                    key, () -> readRouting.read(key, () -> loadBookView(key))));
+        } catch (SingleFlight.WaitTimeoutException e) {
+            throw new CustomException(
+                    MSG_DB_BUSY,
+                    HttpStatus.SERVICE_UNAVAILABLE,
+                    Book.FIELD_ID,
+                    id
+            );
+        }
+    }
+
+    @Override
+    public BookVersion getVersion(Long id) {
+        if (id == null || id < 1) {
+            throw new CustomException(
+                    MSG_INVALID_VALUE,
+                    HttpStatus.BAD_REQUEST,
+                    Book.FIELD_ID,
+                    id
+            );
+        }
+        bookWriteBehindQueue.awaitFlushed(id);
+        BookVersionRow row = readRouting.read(id, () -> bookMapper.getVersion(id));
+        if (row == null) {
+            return null;
+        }
+        // 出版社・ユーザーの名前の変更や論理削除もレスポンスに影響するため、それぞれの更新日時を含める
+        String version = row.getId()
+                + ":" + toEpochMilli(row.getUpdatedAt())
+                + ":" + toEpochMilli(row.getPublisherUpdatedAt())
+                + ":" + toEpochMilli(row.getUserUpdatedAt());
+        String etag = "\"" + DigestUtils.md5DigestAsHex(version.getBytes(StandardCharsets.UTF_8)) + "\"";
+        long lastModified = Math.max(
+                toEpochMilli(row.getUpdatedAt()),
+                Math.max(toEpochMilli(row.getPublisherUpdatedAt()), toEpochMilli(row.getUserUpdatedAt()))
+        );
+        return new BookVersion(etag, lastModified);
+    }
+
+    /**
+     * DBの日時（JVMのタイムゾーン）をエポックミリ秒にする。nullは-1
+     */
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime == null ? -1 : dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 出版社名・ユーザー名がキャッシュにあれば書籍のみを取得して組み立て、なければ結合クエリで取得する
+     * @param id
+     * @return
+     */
+    private BookView loadBookView(Long id) {
+        if (dimensionCache.isLoaded()) {
+            Book book = bookMapper.getBookById(id);
+            if (book == null) {
+                return null;
+            }
+            BookView bookView = dimensionCache.toBookView(book);
+            if (bookView != null) {
+                return bookView;
+            }
+        }
+        return bookMapper.getById(id);
+    }
+
+    @Override
+    public BookMultiView getByIds(List<Long> ids) {
+        // 1. パラメータのバリデーション
+        if (ids == null || ids.isEmpty()) {
+            throw new CustomException(
+                    MSG_INVALID_VALUE,
+                    HttpStatus.BAD_REQUEST,
+                    FIELD_IDS,
+                    ids
+            );
+        }
+        if (ids.size() > multiGetMaxIds) {
+            throw new CustomException(
+                    MSG_TOO_MANY_IDS,
+                    HttpStatus.BAD_REQUEST,
+                    FIELD_IDS,
+                    ids.size()
+            );
+        }
+        for (Long id : ids) {
+            if (id == null || id < 1) {
+                throw new CustomException(
+                        MSG_INVALID_VALUE,
+                        HttpStatus.BAD_REQUEST,
+                        FIELD_IDS,
+                        id
+                );
+            }
+        }
+
+        // 2. キャッシュにあるものはそのまま使い、残りを取得対象にする
+        LinkedHashSet<Long> uniqueIds = new LinkedHashSet<>(ids);
+        Map<Long, BookView> found = new HashMap<>();
+        List<Long> idsToLoad = new ArrayList<>();
+        for (Long id : uniqueIds) {
+            BookView cached = bookViewCache.getIfPresent(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                idsToLoad.add(id);
+            }
+        }
+
+        // 3. IN句のサイズを抑えるため、チャンクごとに取得（書き込み待ちの書籍は書き込みを待つ）
+        bookWriteBehindQueue.awaitFlushed(idsToLoad);
+        for (int from = 0; from < idsToLoad.size(); from += multiGetChunkSize) {
+            List<Long> chunk = idsToLoad.subList(from, Math.min(from + multiGetChunkSize, idsToLoad.size()));
+            for (BookView bookView : readRouting.readAll(chunk, () -> bookMapper.getByIds(chunk))) {
+                found.put(bookView.getId(), bookView);
+                bookViewCache.put(bookView.getId(), bookView);
+            }
+        }
+
+        // 4. リクエストの順に並べ、見つからなかったIDを分ける
+        List<BookView> books = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : uniqueIds) {
+            BookView bookView = found.get(id);
+            if (bookView != null) {
+                books.add(bookView);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new BookMultiView(books, missingIds);
+    }
+
+    @Override
+    public BookPage getPage(BookPageRequest request) {
+        // 1. パラメータのバリデーション
+        int limit = request.getLimit() == null ? pageDefaultLimit : request.getLimit();
+        if (limit < 1 || limit > pageMaxLimit) {
+            throw new CustomException(
+                    MSG_INVALID_VALUE,
+                    HttpStatus.BAD_REQUEST,
+                    FIELD_LIMIT,
+                    request.getLimit()
+            );
+        }
+        ValidationUtils.validatePositiveId(
+                request.getPublisherId(),
+                Book.FIELD_PUBLISHER_ID,
+                MSG_INVALID_VALUE
+        );
+        ValidationUtils.validatePositiveId(
+                request.getUserId(),
+                Book.FIELD_USER_ID,
+                MSG_INVALID_VALUE
+        );
+        validatePriceRange(request.getMinPrice(), request.getMaxPrice());
+        BookSort sort = request.getSort() == null ? BookSort.ID : request.getSort();
+
+        // 2. カーソルのデコード（並び順が違うカーソルは受け付けない）
+        Long afterId = null;
+        LocalDateTime afterCreatedAt = null;
+        if (request.getAfter() != null) {
+            String[] parts = PageCursorUtils.decode(request.getAfter());
+            try {
+                if (parts == null || !sort.name().equals(parts[0])) {
+                    throw new IllegalArgumentException();
+                }
+                if (sort == BookSort.CREATED_AT) {
+                    // 登録日時がNULLの行は空文字で表す
+                    afterCreatedAt = parts[1].isEmpty() ? null : LocalDateTime.parse(parts[1]);
+                    afterId = Long.valueOf(parts[2]);
+                } else {
+                    afterId = Long.valueOf(parts[1]);
+                }
+            } catch (RuntimeException e) {
+                throw new CustomException(
+                        MSG_INVALID_VALUE,
+                        HttpStatus.BAD_REQUEST,
+                        FIELD_AFTER,
+                        request.getAfter()
+                );
+            }
+        }
+
+        // 3. 次ページの有無を判定するため1件多く取得
+        BookPageQuery query = new BookPageQuery(
+                sort,
+                afterId,
+                afterCreatedAt,
+                request.getPublisherId(),
+                request.getUserId(),
+                request.getMinPrice(),
+                request.getMaxPrice(),
+                limit + 1
+        );
+        List<BookView> books = readRouting.read(() -> bookMapper.getPage(query));
+
+        // 4. 戻り値DTO構成
+        String nextCursor = null;
+        if (books.size() > limit) {
+            books = books.subList(0, limit);
+            BookView last = books.get(limit - 1);
+            if (sort == BookSort.CREATED_AT) {
+                String createdAt = last.getCreatedAt() == null ? "" : last.getCreatedAt().toString();
+                nextCursor = PageCursorUtils.encode(sort.name(), createdAt, last.getId().toString());
+            } else {
+                nextCursor = PageCursorUtils.encode(sort.name(), last.getId().toString());
+            }
+        }
+        return new BookPage(new ArrayList<>(books), nextCursor);
+    }
+
+    /**
+     * 価格の範囲は0以上で、下限が上限以下であること
+     */
+    private void validatePriceRange(Integer minPrice, Integer maxPrice) {
+        if (minPrice != null && minPrice < 0) {
+            throw new CustomException(MSG_INVALID_VALUE, HttpStatus.BAD_REQUEST, FIELD_MIN_PRICE, minPrice);
+        }
+        if (maxPrice != null && maxPrice < 0) {
+            throw new CustomException(MSG_INVALID_VALUE, HttpStatus.BAD_REQUEST, FIELD_MAX_PRICE, maxPrice);
+        }
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new CustomException(MSG_INVALID_VALUE, HttpStatus.BAD_REQUEST, FIELD_MIN_PRICE, minPrice);
+        }
     }
 
     @Override
@@ -63,36 +392,36 @@ public class BookServiceImpl implements BookService {
 
         // 2. パラメータのバリデーション
         validateBookParam(book);
+        validateForeignKeys(book);
 
-        // 3. INSERT実行
+        // 3. 非同期登録：IDを採番してキューに入れ、DBへの書き込みを待たずに返す
+        // IDが指定された場合は主キー重複をその場で返すため、キューが満杯の場合と同じく同期的に登録する
+        // 非同期登録が無効でも、INSERTの前に採番する設定であればAUTO_INCREMENTを使わない
+        if (book.getId() == null && allocatesIdBeforeInsert()) {
+            book.setId(idAllocator.nextId());
+            if (bookWriteBehindQueue.isEnabled() && bookWriteBehindQueue.offer(book)) {
+                return new BookBasicInfo(
+                        book.getId(),
+                        book.getTitle()
+                );
+            }
+        }
+
+        // 4. INSERT実行（登録イベントも同じトランザクションで記録する）
         int insertedCount = -1;
         try {
-            insertedCount = bookMapper.save(book);
-        } catch (DuplicateKeyException e) {
-            // 3.1 主キー重複エラー
-            throw new CustomException(
-                    MSG_DUPLICATE_KEY,
-                    HttpStatus.CONFLICT,
-                    Book.FIELD_ID,
-                    bookCreate.getId()
-            );
+            insertedCount = bookOutbox.save(book);
         } catch (DataIntegrityViolationException e) {
-            // 3.2 外部キー存在しないエラー
-            if (DBExceptionUtils.isForeignKeyViolation(e)) {
-                String propertyName = toCamelCase(DBExceptionUtils.extractForeignKeyColumn(e.getMessage()));
-                Object propertyValue = ReflectionUtils.getPropertyValue(bookCreate, propertyName);
-                throw new CustomException(
-                        MSG_NONEXISTENT_FK,
-                        HttpStatus.NOT_FOUND,
-                        propertyName,
-                        propertyValue
-                );
+            // 4.1 主キー重複エラー、4.2 外部キー存在しないエラー
+            CustomException translated = translateSaveException(e, bookCreate);
+            if (translated != null) {
+                throw translated;
             }
             throw e;
         }
 
-        // 4. INSERT結果の検証
-        // 4.1 挿入件数のチェック
+        // 5. INSERT結果の検証
+        // 5.1 挿入件数のチェック
         if (insertedCount <= 0) {
             throw new CustomException(
                     MSG_INSERT_ERROR,
@@ -101,7 +430,7 @@ public class BookServiceImpl implements BookService {
                     null
             );
         }
-        // 4.2 インクリメントのIDが付与されたかをチェック(Mybatis UseGeneratedKeys)
+        // 5.2 インクリメントのIDが付与されたかをチェック(Mybatis UseGeneratedKeys)
         Long bookId = book.getId();
         if (bookId == null) {
             throw new CustomException(
@@ -112,13 +441,288 @@ public class BookServiceImpl implements BookService {
             );
         }
 
-        // 5. 戻り値DTO構成
+        // 6. 同じIDの古いキャッシュが残らないように破棄し、検索インデックスに追加
+        // 直後の取得はレプリカに反映されていない可能性があるため、しばらくプライマリで読み取る
+        readRouting.markWritten(bookId);
+        bookViewCache.invalidate(bookId);
+        bookViewSingleFlight.forget(bookId);
+        bookViewJsonCache.invalidate(bookId);
+        bookSearchIndex.add(book);
+
+        // 7. 戻り値DTO構成
         return new BookBasicInfo(
                 bookId,
                 book.getTitle()
         );
     }
 
+    @Override
+    public void delete(Long id) {
+        if (id == null || id < 1) {
+            throw new CustomException(
+                    MSG_INVALID_VALUE,
+                    HttpStatus.BAD_REQUEST,
+                    Book.FIELD_ID,
+                    id
+            );
+        }
+        // 書き込み待ちの書籍はINSERTされてから削除する
+        bookWriteBehindQueue.awaitFlushed(id);
+        int deletedCount = bookOutbox.softDelete(id, LocalDateTime.now());
+        if (deletedCount == 0) {
+            throw new CustomException(
+                    MSG_BOOK_NOT_FOUND,
+                    HttpStatus.NOT_FOUND,
+                    Book.FIELD_ID,
+                    id
+            );
+        }
+
+        // 削除前の内容が返らないようにキャッシュを破棄し、検索インデックスから外す（サジェストは次回の再構築で反映）
+        readRouting.markWritten(id);
+        bookViewCache.invalidate(id);
+        bookViewSingleFlight.forget(id);
+        bookViewJsonCache.invalidate(id);
+        bookSearchIndex.remove(id);
+    }
+
+    @Override
+    public BookBatchResult registerBatch(List<BookCreate> bookCreates, BatchMode mode) {
+        // 1. 件数のチェック
+        if (bookCreates == null || bookCreates.isEmpty()) {
+            throw new CustomException(
+                    MSG_INVALID_VALUE,
+                    HttpStatus.BAD_REQUEST,
+                    FIELD_BOOKS,
+                    bookCreates
+            );
+        }
+        if (bookCreates.size() > batchMaxItems) {
+            throw new CustomException(
+                    MSG_TOO_MANY_ITEMS,
+                    HttpStatus.BAD_REQUEST,
+                    FIELD_BOOKS,
+                    bookCreates.size()
+            );
+        }
+
+        // 2. DTO to Entity、全件のバリデーション
+        LocalDateTime currentTime = LocalDateTime.now();
+        BookBatchItemResult[] results = new BookBatchItemResult[bookCreates.size()];
+        List<Integer> validIndexes = new ArrayList<>();
+        List<Book> validBooks = new ArrayList<>();
+        Set<Long> requestedIds = new HashSet<>();
+        for (int i = 0; i < bookCreates.size(); i++) {
+            BookCreate bookCreate = bookCreates.get(i);
+            if (bookCreate == null) {
+                results[i] = BookBatchItemResult.failed(i, null, null,
+                        new CustomException(MSG_INVALID_VALUE, HttpStatus.BAD_REQUEST, null, null));
+                continue;
+            }
+            Book book = bookCreate.toEntity(currentTime);
+            try {
+                validateBookParam(book);
+                validateForeignKeys(book);
+            } catch (CustomException e) {
+                results[i] = BookBatchItemResult.failed(i, book.getId(), book.getTitle(), e);
+                continue;
+            }
+            // リクエスト内での主キー重複はDBに送る前に弾く
+            if (book.getId() != null && !requestedIds.add(book.getId())) {
+                results[i] = BookBatchItemResult.failed(i, book.getId(), book.getTitle(),
+                        new CustomException(MSG_DUPLICATE_KEY, HttpStatus.CONFLICT, Book.FIELD_ID, book.getId()));
+                continue;
+            }
+            // 非同期登録が有効な間はAUTO_INCREMENTを使わない（採番済みの範囲と重複させない）
+            if (book.getId() == null && allocatesIdBeforeInsert()) {
+                book.setId(idAllocator.nextId());
+            }
+            validIndexes.add(i);
+            validBooks.add(book);
+        }
+
+        // 3. INSERT実行
+        if (mode == BatchMode.BEST_EFFORT) {
+            registerBestEffort(bookCreates, validIndexes, validBooks, results);
+        } else if (validBooks.size() == bookCreates.size()) {
+            registerAllOrNothing(bookCreates, validIndexes, validBooks, results);
+        }
+        for (int j = 0; j < validBooks.size(); j++) {
+            BookBatchItemResult result = results[validIndexes.get(j)];
+            if (result != null && BookBatchItemResult.CREATED.equals(result.getResult())) {
+                bookSearchIndex.add(validBooks.get(j));
+            }
+        }
+
+        // 4. 戻り値DTO構成（ALL_OR_NOTHINGで実行されなかった行はSKIPPED）
+        int succeeded = 0;
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                BookCreate bookCreate = bookCreates.get(i);
+                results[i] = BookBatchItemResult.skipped(i, bookCreate.getId(), bookCreate.getTitle());
+            } else if (BookBatchItemResult.CREATED.equals(results[i].getResult())) {
+                succeeded++;
+                readRouting.markWritten(results[i].getId());
+                bookViewCache.invalidate(results[i].getId());
+                bookViewSingleFlight.forget(results[i].getId());
+                bookViewJsonCache.invalidate(results[i].getId());
+            }
+        }
+        int failed = (int) Arrays.stream(results)
+                .filter(r -> BookBatchItemResult.FAILED.equals(r.getResult()))
+                .count();
+        return new BookBatchResult(mode, succeeded, failed, Arrays.asList(results));
+    }
+
+    private void registerAllOrNothing(List<BookCreate> bookCreates, List<Integer> indexes, List<Book> books,
+                                      BookBatchItemResult[] results) {
+        List<Long> initialIds = books.stream().map(Book::getId).toList();
+        try {
+            bookBatchWriter.insertAll(books, batchChunkSize);
+        } catch (DataIntegrityViolationException e) {
+            // ロールバック済みなので、原因の行を特定して返す
+            resetIds(initialIds, books);
+            Map<Integer, DataAccessException> failures = bookBatchWriter.findFailures(books);
+            resetIds(initialIds, books);
+            if (failures.isEmpty()) {
+                throw e;
+            }
+            failures.forEach((j, failure) -> {
+                int index = indexes.get(j);
+                results[index] = failedResult(index, bookCreates.get(index), failure);
+            });
+            return;
+        }
+        for (int j = 0; j < books.size(); j++) {
+            int index = indexes.get(j);
+            results[index] = createdResult(index, books.get(j));
+        }
+    }
+
+    private void registerBestEffort(List<BookCreate> bookCreates, List<Integer> indexes, List<Book> books,
+                                    BookBatchItemResult[] results) {
+        List<Long> initialIds = books.stream().map(Book::getId).toList();
+        for (int from = 0; from < books.size(); from += batchChunkSize) {
+            int to = Math.min(from + batchChunkSize, books.size());
+            List<Book> chunk = books.subList(from, to);
+            try {
+                bookBatchWriter.insertAll(chunk, chunk.size());
+                for (int j = from; j < to; j++) {
+                    results[indexes.get(j)] = createdResult(indexes.get(j), books.get(j));
+                }
+            } catch (DataIntegrityViolationException e) {
+                // このチャンクだけ1件ずつ登録し直し、失敗した行を除外する
+                resetIds(initialIds.subList(from, to), chunk);
+                for (int j = from; j < to; j++) {
+                    int index = indexes.get(j);
+                    try {
+                        bookOutbox.save(books.get(j));
+                        results[index] = createdResult(index, books.get(j));
+                    } catch (DataAccessException failure) {
+                        results[index] = failedResult(index, bookCreates.get(index), failure);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * IDが指定されていない書籍を、INSERTの前にアプリで採番するか
+     * 非同期登録（DBへの書き込み前にIDを返す）・シャーディング（IDで登録先を決める）が有効な場合と、
+     * DBに問い合わせずに採番できる場合（AUTO_INCREMENTの往復を省く）は採番する
+     */
+    private boolean allocatesIdBeforeInsert() {
+        return bookWriteBehindQueue.isEnabled() || shardRouting.isEnabled() || idAllocator.isLocal();
+    }
+
+    private BookBatchItemResult createdResult(int index, Book book) {
+        if (book.getId() == null) {
+            return BookBatchItemResult.failed(index, null, book.getTitle(),
+                    new CustomException(MSG_NO_ID_GENERATED, HttpStatus.INTERNAL_SERVER_ERROR, Book.FIELD_ID, null));
+        }
+        return BookBatchItemResult.created(index, book.getId(), book.getTitle());
+    }
+
+    private BookBatchItemResult failedResult(int index, BookCreate bookCreate, DataAccessException e) {
+        CustomException translated = e instanceof DataIntegrityViolationException
+                ? translateSaveException((DataIntegrityViolationException) e, bookCreate)
+                : null;
+        if (translated == null) {
+            translated = new CustomException(MSG_INSERT_ERROR, HttpStatus.INTERNAL_SERVER_ERROR, null, null);
+        }
+        return BookBatchItemResult.failed(index, bookCreate.getId(), bookCreate.getTitle(), translated);
+    }
+
+    /**
+     * ロールバックされたINSERTで採番されたIDを、INSERT前の値（リクエストで指定された値・アプリで採番した値）に戻す
+     */
+    private void resetIds(List<Long> initialIds, List<Book> books) {
+        for (int j = 0; j < books.size(); j++) {
+            books.get(j).setId(initialIds.get(j));
+        }
+    }
+
+    /**
+     * INSERT時のDB制約違反を、クライアントに返すCustomExceptionに変換する
+     * 主キー重複・外部キー不存在以外の場合はnullを返す
+     * @param e
+     * @param bookCreate
+     * @return
+     */
+    private CustomException translateSaveException(DataIntegrityViolationException e, BookCreate bookCreate) {
+        // 主キー重複エラー
+        if (e instanceof DuplicateKeyException) {
+            return new CustomException(
+                    MSG_DUPLICATE_KEY,
+                    HttpStatus.CONFLICT,
+                    Book.FIELD_ID,
+                    bookCreate.getId()
+            );
+        }
+        // 外部キー存在しないエラー
+        if (DBExceptionUtils.isForeignKeyViolation(e)) {
+            PropertyAccessor accessor = BOOK_CREATE_PROPERTIES.forColumn(
+                    DBExceptionUtils.extractForeignKeyColumn(e.getMessage()));
+            if (accessor == null) {
+                return null;
+            }
+            String propertyName = accessor.getName();
+            Object propertyValue = accessor.get(bookCreate);
+            return new CustomException(
+                    MSG_NONEXISTENT_FK,
+                    HttpStatus.NOT_FOUND,
+                    propertyName,
+                    propertyValue
+            );
+        }
+        return null;
+    }
+
+    /**
+     * 存在しない出版社ID・ユーザーIDをINSERTの前に弾く
+     * DBの外部キー制約違反と同じ例外を投げる（出版社ID→ユーザーIDの順にチェック）
+     * インデックスが読み込まれていない場合はチェックしない
+     * @param book
+     */
+    private void validateForeignKeys(Book book) {
+        if (foreignKeyIndex.isMissingPublisher(book.getPublisherId())) {
+            throw new CustomException(
+                    MSG_NONEXISTENT_FK,
+                    HttpStatus.NOT_FOUND,
+                    Book.FIELD_PUBLISHER_ID,
+                    book.getPublisherId()
+            );
+        }
+        if (foreignKeyIndex.isMissingUser(book.getUserId())) {
+            throw new CustomException(
+                    MSG_NONEXISTENT_FK,
+                    HttpStatus.NOT_FOUND,
+                    Book.FIELD_USER_ID,
+                    book.getUserId()
+            );
+        }
+    }
+
     private void validateBookParam(Book book) {
         // Validate book ID
         ValidationUtils.validatePositiveId(
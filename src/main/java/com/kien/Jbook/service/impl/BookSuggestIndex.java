@@ -0,0 +1,156 @@
+package com.kien.Jbook.service.impl;
+
+import com.kien.Jbook.common.search.CompactTrie;
+import com.kien.Jbook.common.search.TextNormalizer;
+import com.kien.Jbook.mapper.BookMapper;
+import com.kien.Jbook.model.dto.BookSuggestRow;
+import com.kien.Jbook.model.dto.book.SuggestWeight;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * タイトル・タイトルカナの前方一致による入力補完
+ *
+ * 正規化したタイトルカナとタイトルの両方をキーにして、タイトルを候補として返す。
+ * 入力のたびに呼ばれるため、DBは使わずにメモリ上のCompactTrieで検索する。
+ * 一定間隔（rebuild-interval）で全件から新しいトライを作り、参照を差し替える（構築中も古いトライで検索できる）。
+ */
+@Slf4j
+@Component
+public class BookSuggestIndex {
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    @Value("${jbook.suggest.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jbook.suggest.rebuild-interval:10m}")
+    private Duration rebuildInterval;
+
+    @Value("${jbook.suggest.weight:BOOK_COUNT}")
+    private SuggestWeight weight;
+
+    private volatile CompactTrie trie;
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("book-suggest-index-");
+        threadFactory.setDaemon(true);
+        scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        scheduler.scheduleWithFixedDelay(this::rebuildQuietly, 0, rebuildInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 構築済みか。構築前・失敗時はfalse
+     * @return
+     */
+    public boolean isLoaded() {
+        return trie != null;
+    }
+
+    /**
+     * 全件からの再構築を予約する
+     */
+    public void rebuildAsync() {
+        if (scheduler != null) {
+            scheduler.execute(this::rebuildQuietly);
+        }
+    }
+
+    /**
+     * 入力で始まるタイトル・タイトルカナを持つタイトルを重みの高い順に返す
+     * @param prefix 正規化前の入力
+     * @param limit
+     * @return 構築前の場合はnull
+     */
+    public List<String> suggest(String prefix, int limit) {
+        CompactTrie current = trie;
+        return current == null ? null : current.suggest(TextNormalizer.normalize(prefix), limit);
+    }
+
+    /**
+     * 全書籍を集計してトライを作り直す
+     */
+    void rebuild() {
+        // 1. タイトルごとに重みを合算し、タイトルカナ（読みが複数ある場合はすべて）をまとめる
+        Map<String, TitleWeight> titles = new HashMap<>();
+        bookMapper.scanSuggestFields(context -> {
+            BookSuggestRow row = context.getResultObject();
+            TitleWeight titleWeight = titles.computeIfAbsent(row.getTitle(), t -> new TitleWeight());
+            titleWeight.weight = weight == SuggestWeight.LATEST
+                    ? Math.max(titleWeight.weight, weightOf(row))
+                    : titleWeight.weight + weightOf(row);
+            String titleKanaKey = TextNormalizer.normalize(row.getTitleKana());
+            if (!titleKanaKey.isEmpty()) {
+                titleWeight.titleKanaKeys.add(titleKanaKey);
+            }
+        });
+
+        // 2. 正規化したタイトルとタイトルカナをキーにする
+        List<CompactTrie.Entry> entries = new ArrayList<>(titles.size() * 2);
+        titles.forEach((title, titleWeight) -> {
+            String titleKey = TextNormalizer.normalize(title);
+            entries.add(new CompactTrie.Entry(titleKey, title, titleWeight.weight));
+            for (String titleKanaKey : titleWeight.titleKanaKeys) {
+                if (!titleKanaKey.equals(titleKey)) {
+                    entries.add(new CompactTrie.Entry(titleKanaKey, title, titleWeight.weight));
+                }
+            }
+        });
+        CompactTrie rebuilt = CompactTrie.build(entries);
+        trie = rebuilt;
+        log.debug("入力補完のトライを構築しました。候補：{}件、ノード：{}件", rebuilt.size(), rebuilt.nodeCount());
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("入力補完のトライの構築に失敗しました：{}", e.toString());
+        }
+    }
+
+    private int weightOf(BookSuggestRow row) {
+        if (weight == SuggestWeight.LATEST) {
+            LocalDateTime latest = row.getLatestCreatedAt();
+            // 分単位ならintに収まる
+            return latest == null ? 0 : (int) (latest.toEpochSecond(ZoneOffset.UTC) / 60);
+        }
+        return row.getBookCount() == null ? 0 : row.getBookCount();
+    }
+
+    private static final class TitleWeight {
+        private int weight;
+        private final Set<String> titleKanaKeys = new HashSet<>(2);
+    }
+}
@@ -0,0 +1,478 @@
+package com.kien.Jbook.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kien.Jbook.common.cache.BoundedCache;
+import com.kien.Jbook.common.cache.SingleFlight;
+import com.kien.Jbook.common.io.SegmentedAppendLog;
+import com.kien.Jbook.common.jdbc.ReadRouting;
+import com.kien.Jbook.common.web.CachedJsonHttpMessageConverter;
+import com.kien.Jbook.model.Book;
+import com.kien.Jbook.model.dto.book.BookView;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 書籍の非同期登録（ライトビハインド）
+ *
+ * register()でバリデーション済みの書籍（IDは採番済み）をキューに入れ、DBへの書き込みを待たずに返す。
+ * 書き込みスレッドはキューにたまった書籍を最大 max-batch-size 件ずつ1トランザクションでまとめてINSERTする（グループコミット）。
+ * キューに入れる前にローカルの追記ログ（log-dir）に書き込むので、書き込み前にプロセスが落ちても次の起動時に登録し直す。
+ * 登録し直しで主キーが重複した行は書き込み済みとみなす。
+ *
+ * まとめたINSERTが制約違反で失敗した場合は1件ずつ登録し直し、失敗した書籍は failed.log に書き出す（クライアントには通知しない）。
+ * DBに接続できない場合は同じバッチを retry-interval ごとに再試行する。
+ * キューが満杯の場合・追記ログに書き込めない場合は offer() がfalseを返すので、呼び出し元で同期的に登録する。
+ * 書き込み待ちの書籍をIDで取得する場合は awaitFlushed() で書き込みを待ってから読み取る。
+ */
+@Slf4j
+@Component
+public class BookWriteBehindQueue {
+    private static final String FAILED_LOG = "failed.log";
+
+    @Autowired
+    private BookBatchWriter bookBatchWriter;
+
+    @Autowired
+    private BookOutbox bookOutbox;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private BoundedCache<Long, BookView> bookViewCache;
+
+    @Autowired
+    private SingleFlight<Long, BookView> bookViewSingleFlight;
+
+    @Autowired
+    private BoundedCache<Long, CachedJsonHttpMessageConverter.Serialized<BookView>> bookViewJsonCache;
+
+    @Autowired
+    private ReadRouting readRouting;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${jbook.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${jbook.write-behind.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${jbook.write-behind.max-batch-size:500}")
+    private int maxBatchSize;
+
+    @Value("${jbook.write-behind.max-delay:5ms}")
+    private Duration maxDelay;
+
+    @Value("${jbook.write-behind.retry-interval:1s}")
+    private Duration retryInterval;
+
+    @Value("${jbook.write-behind.await-timeout:5s}")
+    private Duration awaitTimeout;
+
+    @Value("${jbook.write-behind.shutdown-timeout:30s}")
+    private Duration shutdownTimeout;
+
+    @Value("${jbook.write-behind.log-dir:./data/write-behind}")
+    private Path logDir;
+
+    @Value("${jbook.write-behind.segment-size:64MB}")
+    private DataSize segmentSize;
+
+    @Value("${jbook.write-behind.fsync:true}")
+    private boolean fsync;
+
+    private final LinkedBlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Map<Long, Entry> pending = new ConcurrentHashMap<>();
+    private Semaphore capacity;
+    private SegmentedAppendLog appendLog;
+    private Thread writer;
+    private volatile boolean running;
+
+    private Timer flushTimer;
+    private Timer commitDelayTimer;
+    private DistributionSummary batchSizeSummary;
+    private Counter rejectedCounter;
+    private Counter failedCounter;
+    private Counter recoveredCounter;
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        capacity = new Semaphore(queueCapacity);
+        appendLog = new SegmentedAppendLog(logDir, segmentSize.toBytes(), fsync);
+        registerMetrics();
+        running = true;
+        writer = Thread.ofPlatform().name("book-write-behind").daemon(true).start(this::runWriter);
+    }
+
+    @PreDestroy
+    void shutdown() throws IOException, InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        // 受け付け済みの書籍を書き込んでから止める（間に合わなかった分は次の起動時に追記ログから登録する）
+        running = false;
+        writer.join(shutdownTimeout.toMillis());
+        if (writer.isAlive()) {
+            log.warn("書き込み待ちの書籍が残ったまま停止します：{}件", queue.size());
+            writer.interrupt();
+        }
+        appendLog.close();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 書籍を書き込み待ちにする
+     * @param book IDが採番済みであること
+     * @return キューが満杯・追記ログに書き込めない場合はfalse（何もしない）
+     */
+    public boolean offer(Book book) {
+        if (!enabled) {
+            return false;
+        }
+        if (!running || !capacity.tryAcquire()) {
+            rejectedCounter.increment();
+            return false;
+        }
+        SegmentedAppendLog.Ticket ticket;
+        try {
+            ticket = appendLog.append(objectMapper.writeValueAsString(LogRecord.of(book)));
+        } catch (IOException e) {
+            capacity.release();
+            rejectedCounter.increment();
+            log.warn("追記ログに書き込めません：{}", e.toString());
+            return false;
+        }
+        Entry entry = new Entry(book, ticket, System.nanoTime());
+        pending.put(book.getId(), entry);
+        queue.add(entry);
+        return true;
+    }
+
+    /**
+     * 書き込み待ちの書籍なら、DBに書き込まれるまで待つ（最大 await-timeout）
+     * @param id
+     */
+    public void awaitFlushed(Long id) {
+        if (!enabled || pending.isEmpty()) {
+            return;
+        }
+        Entry entry = pending.get(id);
+        if (entry != null) {
+            await(entry);
+        }
+    }
+
+    /**
+     * 書き込み待ちの書籍が含まれていれば、すべてDBに書き込まれるまで待つ
+     * @param ids
+     */
+    public void awaitFlushed(Collection<Long> ids) {
+        if (!enabled || pending.isEmpty()) {
+            return;
+        }
+        for (Long id : ids) {
+            awaitFlushed(id);
+        }
+    }
+
+    /**
+     * キューにたまっている件数
+     * @return
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void await(Entry entry) {
+        try {
+            entry.flushed.get(awaitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // 待ちきれない場合はそのまま読み取る（見つからなければ404）
+        }
+    }
+
+    private void runWriter() {
+        recover();
+        List<Entry> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                if (!collect(batch)) {
+                    continue;
+                }
+                while (!flush(batch)) {
+                    Thread.sleep(retryInterval.toMillis());
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * キューから最大 max-batch-size 件を取り出す
+     * 件数に満たない場合は max-delay まで続きを待ち、1回のコミットにまとめる件数を増やす
+     * @return 1件以上取り出した場合はtrue
+     */
+    private boolean collect(List<Entry> batch) throws InterruptedException {
+        Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return false;
+        }
+        batch.add(first);
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        long deadline = System.nanoTime() + maxDelay.toNanos();
+        while (batch.size() < maxBatchSize && running) {
+            long remaining = deadline - System.nanoTime();
+            Entry next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+        capacity.release(batch.size());
+        return true;
+    }
+
+    /**
+     * バッチを1トランザクションで書き込む。制約違反の場合は1件ずつ書き込み直す
+     * 書き込み終わった書籍（失敗した書籍を含む）はバッチから取り除く
+     * @return DBに接続できないなどで書き込めなかった場合はfalse（残りのバッチを再試行する）
+     */
+    private boolean flush(List<Entry> batch) {
+        long start = System.nanoTime();
+        int size = batch.size();
+        try {
+            try {
+                bookBatchWriter.insertAll(batch.stream().map(entry -> entry.book).toList(), size);
+                batch.forEach(this::completed);
+                batch.clear();
+            } catch (DataIntegrityViolationException e) {
+                Iterator<Entry> iterator = batch.iterator();
+                while (iterator.hasNext()) {
+                    Entry entry = iterator.next();
+                    try {
+                        bookOutbox.save(entry.book);
+                        completed(entry);
+                    } catch (DataIntegrityViolationException failure) {
+                        failed(entry, failure);
+                    }
+                    iterator.remove();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("書籍をDBに書き込めません。{}件を再試行します：{}", batch.size(), e.toString());
+            return false;
+        }
+        flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        batchSizeSummary.record(size);
+        return true;
+    }
+
+    private void completed(Entry entry) {
+        Book book = entry.book;
+        afterWrite(book);
+        finish(entry);
+        commitDelayTimer.record(System.nanoTime() - entry.enqueuedAt, TimeUnit.NANOSECONDS);
+    }
+
+    private void failed(Entry entry, DataIntegrityViolationException e) {
+        log.error("書籍を登録できませんでした。ID：{}、原因：{}", entry.book.getId(), e.getMostSpecificCause().toString());
+        writeFailed(entry.book);
+        finish(entry);
+    }
+
+    private void finish(Entry entry) {
+        pending.remove(entry.book.getId(), entry);
+        try {
+            appendLog.release(entry.ticket);
+        } catch (IOException e) {
+            log.warn("追記ログのセグメントを削除できません：{}", e.toString());
+        }
+        entry.flushed.complete(null);
+    }
+
+    /**
+     * 書き込み後の後処理（同期的な登録と同じ）
+     */
+    private void afterWrite(Book book) {
+        readRouting.markWritten(book.getId());
+        bookViewCache.invalidate(book.getId());
+        bookViewSingleFlight.forget(book.getId());
+        bookViewJsonCache.invalidate(book.getId());
+        bookSearchIndex.add(book);
+    }
+
+    /**
+     * 前回のプロセスで書き込まれなかった書籍を登録する。DBに接続できない間は再試行する
+     */
+    private void recover() {
+        List<String> records;
+        try {
+            records = appendLog.recover();
+        } catch (IOException e) {
+            log.error("追記ログを読み込めません：{}", e.toString());
+            return;
+        }
+        if (records.isEmpty()) {
+            return;
+        }
+        int recovered = 0;
+        for (String record : records) {
+            Book book;
+            try {
+                book = objectMapper.readValue(record, LogRecord.class).toBook();
+            } catch (JsonProcessingException e) {
+                log.warn("追記ログの行を読み飛ばします：{}", e.getOriginalMessage());
+                continue;
+            }
+            while (true) {
+                try {
+                    bookOutbox.save(book);
+                    afterWrite(book);
+                    recovered++;
+                    break;
+                } catch (DuplicateKeyException e) {
+                    // 前回のプロセスで書き込み済み
+                    break;
+                } catch (DataIntegrityViolationException e) {
+                    writeFailed(book);
+                    break;
+                } catch (RuntimeException e) {
+                    log.warn("追記ログの書籍をDBに書き込めません。再試行します：{}", e.toString());
+                    try {
+                        Thread.sleep(retryInterval.toMillis());
+                    } catch (InterruptedException interrupted) {
+                        return;
+                    }
+                }
+            }
+        }
+        recoveredCounter.increment(recovered);
+        log.info("追記ログから書籍を登録しました：{}件（ログ{}件）", recovered, records.size());
+        try {
+            appendLog.deleteRecovered();
+        } catch (IOException e) {
+            log.warn("追記ログのセグメントを削除できません：{}", e.toString());
+        }
+    }
+
+    /**
+     * 登録できなかった書籍を failed.log に書き出す（手動で確認・再登録する）
+     */
+    private synchronized void writeFailed(Book book) {
+        failedCounter.increment();
+        try {
+            Files.writeString(logDir.resolve(FAILED_LOG),
+                    objectMapper.writeValueAsString(LogRecord.of(book)) + "\n",
+                    StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void registerMetrics() {
+        MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        Gauge.builder("jbook.write-behind.queue.depth", queue, LinkedBlockingQueue::size)
+                .description("書き込み待ちの書籍の件数")
+                .register(registry);
+        flushTimer = Timer.builder("jbook.write-behind.flush")
+                .description("1回のグループコミットにかかった時間")
+                .publishPercentileHistogram()
+                .register(registry);
+        commitDelayTimer = Timer.builder("jbook.write-behind.commit.delay")
+                .description("キューに入れてからDBにコミットされるまでの時間")
+                .publishPercentileHistogram()
+                .register(registry);
+        batchSizeSummary = DistributionSummary.builder("jbook.write-behind.batch.size")
+                .description("1回のグループコミットの件数")
+                .register(registry);
+        rejectedCounter = Counter.builder("jbook.write-behind.rejected")
+                .description("キューが満杯などで同期的に登録した件数")
+                .register(registry);
+        failedCounter = Counter.builder("jbook.write-behind.failed")
+                .description("制約違反などで登録できなかった件数")
+                .register(registry);
+        recoveredCounter = Counter.builder("jbook.write-behind.recovered")
+                .description("起動時に追記ログから登録した件数")
+                .register(registry);
+    }
+
+    private static final class Entry {
+        private final Book book;
+        private final SegmentedAppendLog.Ticket ticket;
+        private final long enqueuedAt;
+        private final CompletableFuture<Void> flushed = new CompletableFuture<>();
+
+        private Entry(Book book, SegmentedAppendLog.Ticket ticket, long enqueuedAt) {
+            this.book = book;
+            this.ticket = ticket;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+
+    /**
+     * 追記ログの1行（Bookは全項目のコンストラクタしかないため）
+     */
+    record LogRecord(Long id, String title, String titleKana, String author, Long publisherId, Long userId,
+                     Integer price, LocalDateTime createdAt, LocalDateTime updatedAt) {
+
+        static LogRecord of(Book book) {
+            return new LogRecord(book.getId(), book.getTitle(), book.getTitleKana(), book.getAuthor(),
+                    book.getPublisherId(), book.getUserId(), book.getPrice(), book.getCreatedAt(), book.getUpdatedAt());
+        }
+
+        Book toBook() {
+            return new Book(id, title, titleKana, author, publisherId, userId, price, false, createdAt, updatedAt);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.kien.Jbook.service.impl;
+
+import com.kien.Jbook.mapper.PublisherMapper;
+import com.kien.Jbook.mapper.UserMapper;
+import com.kien.Jbook.model.Book;
+import com.kien.Jbook.model.dto.DimensionRow;
+import com.kien.Jbook.model.dto.book.BookView;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ResultHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 出版社・ユーザーのID→名前のキャッシュ
+ *
+ * 書籍の取得時に毎回publisher・userを結合しないで済むように、名前をメモリ上に保持してBookViewを組み立てる。
+ * 同じ出版社・ユーザーの名前は同じStringインスタンスを共有する。
+ * 出版社・ユーザーはほとんど変更されないため、一定間隔（refresh-interval）で全件を読み込み直す。
+ * 変更を即時に反映したい場合はrefreshAsync()を呼ぶ。
+ *
+ * 論理削除済みも含めて保持し、結合クエリ（LEFT JOIN ... AND is_deleted = FALSE）と同じ結果になるようにする。
+ * キャッシュにないID（読み込み後に登録されたもの）を参照している場合は組み立てずにnullを返すので、
+ * 呼び出し側は結合クエリにフォールバックすること。
+ */
+@Slf4j
+@Component
+public class DimensionCache {
+
+    @Autowired
+    private PublisherMapper publisherMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Value("${jbook.dimension-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jbook.dimension-cache.refresh-interval:1m}")
+    private Duration refreshInterval;
+
+    private volatile Snapshot snapshot;
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("dimension-cache-");
+        threadFactory.setDaemon(true);
+        scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 読み込み済みか。読み込み前・失敗時はfalse
+     * @return
+     */
+    public boolean isLoaded() {
+        return snapshot != null;
+    }
+
+    /**
+     * 出版社・ユーザーの変更を即時に反映する（全件の読み込みを予約する）
+     */
+    public void refreshAsync() {
+        if (scheduler != null) {
+            scheduler.execute(this::refreshQuietly);
+        }
+    }
+
+    /**
+     * 書籍とキャッシュ済みの名前からBookViewを組み立てる
+     * @param book
+     * @return キャッシュにないIDを参照している場合、または読み込み前の場合はnull
+     */
+    public BookView toBookView(Book book) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return null;
+        }
+        DimensionRow publisher = null;
+        if (book.getPublisherId() != null) {
+            publisher = current.publishers.get(book.getPublisherId());
+            if (publisher == null) {
+                return null;
+            }
+        }
+        DimensionRow user = null;
+        if (book.getUserId() != null) {
+            user = current.users.get(book.getUserId());
+            if (user == null) {
+                return null;
+            }
+        }
+        // 論理削除済みの出版社・ユーザーはIDも名前もnull（結合クエリと同じ）
+        boolean publisherVisible = publisher != null && !Boolean.TRUE.equals(publisher.getIsDeleted());
+        boolean userVisible = user != null && !Boolean.TRUE.equals(user.getIsDeleted());
+        return new BookView(
+                book.getId(),
+                book.getTitle(),
+                book.getTitleKana(),
+                book.getAuthor(),
+                publisherVisible ? publisher.getId() : null,
+                publisherVisible ? publisher.getName() : null,
+                userVisible ? user.getId() : null,
+                userVisible ? user.getName() : null,
+                book.getPrice(),
+                book.getIsDeleted(),
+                book.getCreatedAt(),
+                book.getUpdatedAt()
+        );
+    }
+
+    /**
+     * 出版社・ユーザーを全件読み込み直す
+     */
+    void refresh() {
+        Map<Long, DimensionRow> publishers = load(publisherMapper::scanNames);
+        Map<Long, DimensionRow> users = load(userMapper::scanNames);
+        snapshot = new Snapshot(publishers, users);
+        log.debug("出版社・ユーザー名のキャッシュを読み込みました。出版社：{}件、ユーザー：{}件", publishers.size(), users.size());
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("出版社・ユーザー名のキャッシュの更新に失敗しました：{}", e.toString());
+        }
+    }
+
+    private static Map<Long, DimensionRow> load(Consumer<ResultHandler<DimensionRow>> scanner) {
+        Map<Long, DimensionRow> rows = new HashMap<>();
+        scanner.accept(context -> {
+            DimensionRow row = context.getResultObject();
+            rows.put(row.getId(), row);
+        });
+        return rows;
+    }
+
+    private record Snapshot(Map<Long, DimensionRow> publishers, Map<Long, DimensionRow> users) {
+    }
+}
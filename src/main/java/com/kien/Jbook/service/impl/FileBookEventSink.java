@@ -0,0 +1,74 @@
+package com.kien.Jbook.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kien.Jbook.model.dto.BookOutboxEvent;
+import com.kien.Jbook.service.BookEventSink;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 受け取ったイベントを1行1件のJSONとしてファイルに追記する（ローカルでの動作確認用）
+ * 1回の送信分をまとめて書き込み、fsyncを有効にした場合はディスクに書き込まれてから戻る
+ */
+public class FileBookEventSink implements BookEventSink {
+    private final Path path;
+    private final boolean fsync;
+    private final ObjectMapper objectMapper;
+
+    public FileBookEventSink(Path path, boolean fsync, ObjectMapper objectMapper) {
+        this.path = path;
+        this.fsync = fsync;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void publish(List<BookOutboxEvent> events) {
+        StringBuilder lines = new StringBuilder();
+        for (BookOutboxEvent event : events) {
+            lines.append(toJson(event)).append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (fsync) {
+                    channel.force(false);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * payloadはJSONのまま埋め込む
+     */
+    private String toJson(BookOutboxEvent event) {
+        try {
+            return objectMapper.createObjectNode()
+                    .put("id", event.getId())
+                    .put("bookId", event.getBookId())
+                    .put("eventType", event.getEventType())
+                    .put("createdAt", String.valueOf(event.getCreatedAt()))
+                    .set("payload", objectMapper.readTree(event.getPayload()))
+                    .toString();
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
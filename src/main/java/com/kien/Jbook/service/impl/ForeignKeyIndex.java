@@ -0,0 +1,178 @@
+package com.kien.Jbook.service.impl;
+
+import com.kien.Jbook.common.collection.LongHashSet;
+import com.kien.Jbook.mapper.PublisherMapper;
+import com.kien.Jbook.mapper.UserMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ResultHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.LongPredicate;
+
+/**
+ * 書籍の外部キー（出版社ID・ユーザーID）として有効なIDをメモリ上に保持する
+ *
+ * 存在しないIDの登録をDBに送る前に弾くためのもの。INSERTの失敗→例外の変換→正規表現→リフレクションという
+ * 高コストな経路を、不正な入力が大量に来た場合でも通らないようにする。
+ * スナップショットにあるIDはDBに問い合わせずに存在すると判定する。ないIDのうち読み込んだ最大ID以下のものは、
+ * DBに問い合わせずに存在しないと判定する（不正な入力が大量に来てもDBに届かない）。
+ * 最大IDより大きいIDは読み込み後に登録された可能性があるため、主キーでDBに問い合わせて確かめる。
+ * 最大ID以下のIDを手動で登録した場合は、次の全件の再読み込みまで存在しないと判定される（登録は404になる）。
+ *
+ * 起動後にバックグラウンドで全件を読み込み、以降は一定間隔で採番済みの最大IDより後ろだけを追加で読み込む。
+ * 全件の再読み込みも定期的に行い、物理削除や小さいIDでの手動登録を反映する。
+ * 読み込みが終わっていない間・失敗した場合は判定せずにDBに任せる。DBの外部キー制約は最終的な防御として残る。
+ */
+@Slf4j
+@Component
+public class ForeignKeyIndex {
+
+    @Autowired
+    private PublisherMapper publisherMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Value("${jbook.fk-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jbook.fk-index.refresh-interval:10s}")
+    private Duration refreshInterval;
+
+    @Value("${jbook.fk-index.full-reload-interval:10m}")
+    private Duration fullReloadInterval;
+
+    private final IdSnapshotHolder publisherIds = new IdSnapshotHolder("publisher");
+    private final IdSnapshotHolder userIds = new IdSnapshotHolder("user");
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("fk-index-");
+        threadFactory.setDaemon(true);
+        scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 出版社IDが存在しないことが確実か
+     * 読み込み前・nullの場合はfalse（DBに判定を任せる）。読み込んだ最大IDより大きいIDはDBで確かめる
+     * @param publisherId
+     * @return
+     */
+    public boolean isMissingPublisher(Long publisherId) {
+        return publisherIds.isMissing(publisherId, publisherMapper::existsById);
+    }
+
+    /**
+     * ユーザーIDが存在しないことが確実か
+     * 読み込み前・nullの場合はfalse（DBに判定を任せる）。読み込んだ最大IDより大きいIDはDBで確かめる
+     * @param userId
+     * @return
+     */
+    public boolean isMissingUser(Long userId) {
+        return userIds.isMissing(userId, userMapper::existsById);
+    }
+
+    /**
+     * 前回以降に追加されたIDを読み込む。全件読み込みの間隔を過ぎていれば全件を読み込み直す
+     */
+    void refresh() {
+        publisherIds.refresh(publisherMapper::scanIdsAfter, fullReloadInterval);
+        userIds.refresh(userMapper::scanIdsAfter, fullReloadInterval);
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("外部キーインデックスの更新に失敗しました。次回の更新まで判定をDBに任せます：{}", e.toString());
+        }
+    }
+
+    /**
+     * テーブル1つ分のIDのスナップショット
+     * 更新はスケジューラのスレッドのみが行い、新しいセットを作ってから差し替える（参照側はロック不要）
+     */
+    private static class IdSnapshotHolder {
+        private final String table;
+        private volatile Snapshot snapshot;
+
+        IdSnapshotHolder(String table) {
+            this.table = table;
+        }
+
+        /**
+         * @param existsInDb 読み込んだ最大IDより大きいIDをDBで確かめる
+         */
+        boolean isMissing(Long id, LongPredicate existsInDb) {
+            Snapshot current = snapshot;
+            if (current == null || id == null || current.ids.contains(id)) {
+                return false;
+            }
+            if (id <= current.maxId) {
+                return true;
+            }
+            return !existsInDb.test(id);
+        }
+
+        void refresh(BiConsumer<Long, ResultHandler<Long>> scanner, Duration fullReloadInterval) {
+            Snapshot current = snapshot;
+            long now = System.nanoTime();
+            if (current == null || now - current.loadedNanos >= fullReloadInterval.toNanos()) {
+                LongHashSet ids = new LongHashSet(current != null ? current.ids.size() : 1024);
+                long maxId = scan(scanner, 0L, ids);
+                snapshot = new Snapshot(ids, maxId, now);
+                log.info("外部キーインデックスを読み込みました。テーブル：{}、件数：{}", table, ids.size());
+                return;
+            }
+            // 追加分がある場合だけコピーを作って差し替える
+            LongHashSet added = new LongHashSet();
+            long maxId = scan(scanner, current.maxId, added);
+            if (added.size() == 0) {
+                return;
+            }
+            LongHashSet ids = current.ids.copy();
+            ids.addAll(added);
+            snapshot = new Snapshot(ids, maxId, current.loadedNanos);
+            log.debug("外部キーインデックスに{}件追加しました。テーブル：{}", added.size(), table);
+        }
+
+        /**
+         * afterIdより大きいIDをidsに追加する
+         * @return 読み込んだIDの最大値。1件もなければafterId
+         */
+        private static long scan(BiConsumer<Long, ResultHandler<Long>> scanner, long afterId, LongHashSet ids) {
+            long[] maxId = {afterId};
+            scanner.accept(afterId, context -> {
+                long id = context.getResultObject();
+                ids.add(id);
+                maxId[0] = Math.max(maxId[0], id);
+            });
+            return maxId[0];
+        }
+    }
+
+    private record Snapshot(LongHashSet ids, long maxId, long loadedNanos) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.kien.Jbook.service.impl;
+
+import com.kien.Jbook.model.dto.BookOutboxEvent;
+import com.kien.Jbook.service.BookEventSink;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 受け取ったイベントをメモリ上に保持する（ローカルでの動作確認・テスト用）
+ * 上限を超えた場合は古いイベントから捨てる
+ */
+public class InMemoryBookEventSink implements BookEventSink {
+    private final int capacity;
+    private final List<BookOutboxEvent> events = new ArrayList<>();
+
+    public InMemoryBookEventSink(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized void publish(List<BookOutboxEvent> events) {
+        this.events.addAll(events);
+        int overflow = this.events.size() - capacity;
+        if (overflow > 0) {
+            this.events.subList(0, overflow).clear();
+        }
+    }
+
+    /**
+     * 受け取った順のイベント
+     * @return
+     */
+    public synchronized List<BookOutboxEvent> getEvents() {
+        return new ArrayList<>(events);
+    }
+
+    public synchronized void clear() {
+        events.clear();
+    }
+}
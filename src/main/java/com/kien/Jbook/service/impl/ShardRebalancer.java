@@ -0,0 +1,143 @@
+package com.kien.Jbook.service.impl;
+
+import com.kien.Jbook.common.jdbc.ShardMap;
+import com.kien.Jbook.common.jdbc.ShardRouting;
+import com.kien.Jbook.mapper.BookShardMapper;
+import com.kien.Jbook.model.Book;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * バケットの割り当てを変えた時に、書籍を担当のシャードへ移す
+ *
+ * 手順：
+ * 1. 移動するバケットを copyBucket() で移動先のシャードに複製する（移動元の行は残すため、読み取りは止まらない）
+ * 2. jbook.sharding.shards[*].buckets の割り当てを変えて、全インスタンスを再起動する
+ * 3. rebalance() で、担当でないシャードに残った行を担当のシャードに複製してから削除する
+ * 複製は移動先の行の方が古い場合だけ上書きするため、途中で止まった場合もやり直せる。
+ * 1と3の間に移動元で論理削除・更新された書籍も、3で移動先に反映してから移動元を削除する（削除した書籍が復活しない）。
+ * 削除は担当のシャードに行があることを確かめてから行う。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jbook.sharding.shards[0].url")
+public class ShardRebalancer {
+
+    @Autowired
+    private BookShardMapper bookShardMapper;
+
+    @Autowired
+    private ShardRouting shardRouting;
+
+    // 1回に読み込み・複製・削除する件数
+    @Value("${jbook.sharding.rebalance-chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * バケットの書籍を、移動先以外の全シャードから移動先のシャードに複製する
+     * @param bucket
+     * @param target 移動先のシャード名
+     * @return 複製した件数（移動先に既にあった行は、上書きした場合も含まない）
+     */
+    public long copyBucket(int bucket, String target) {
+        ShardMap shardMap = shardRouting.getShardMap();
+        if (bucket < 0 || bucket >= shardMap.getBucketCount()) {
+            throw new IllegalArgumentException("invalid bucket: " + bucket);
+        }
+        if (!shardMap.getShardNames().contains(target)) {
+            throw new IllegalArgumentException("unknown shard: " + target);
+        }
+        long copied = 0;
+        for (String source : shardMap.getShardNames()) {
+            if (source.equals(target)) {
+                continue;
+            }
+            long afterId = 0;
+            while (true) {
+                long from = afterId;
+                List<Book> chunk = shardRouting.onShard(source, () -> bookShardMapper.scanChunk(from, chunkSize));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                // バケットの計算はShardMapと揃えるため、SQLではなくここで絞り込む
+                List<Book> books = chunk.stream().filter(book -> shardMap.bucketOf(book.getId()) == bucket).toList();
+                if (!books.isEmpty()) {
+                    copied += shardRouting.onShard(target, () -> {
+                        // 上書きした行の数え方はDB・ドライバによって違うため、複製前になかった行を数える
+                        int existing = bookShardMapper.existingIds(books.stream().map(Book::getId).toList()).size();
+                        bookShardMapper.insertCopies(books);
+                        return books.size() - existing;
+                    });
+                }
+                afterId = chunk.get(chunk.size() - 1).getId();
+            }
+        }
+        log.info("バケット{}の書籍を{}に複製しました：{}件", bucket, target, copied);
+        return copied;
+    }
+
+    /**
+     * 全シャードから担当でない書籍を探し、担当のシャードに複製してから削除する
+     * @return 移動した件数
+     */
+    public long rebalance() {
+        ShardMap shardMap = shardRouting.getShardMap();
+        long moved = 0;
+        for (String source : shardMap.getShardNames()) {
+            long afterId = 0;
+            while (true) {
+                long from = afterId;
+                List<Book> chunk = shardRouting.onShard(source, () -> bookShardMapper.scanChunk(from, chunkSize));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                moved += moveMisplaced(source, chunk);
+                afterId = chunk.get(chunk.size() - 1).getId();
+            }
+        }
+        log.info("担当でないシャードにあった書籍を移動しました：{}件", moved);
+        return moved;
+    }
+
+    /**
+     * 担当でない行を担当のシャードごとに複製し、複製を確認できた行だけを移動元から削除する
+     * 担当のシャードに既にある行も、移動元の方が新しければ上書きしてから削除する
+     */
+    private long moveMisplaced(String source, List<Book> chunk) {
+        ShardMap shardMap = shardRouting.getShardMap();
+        Map<String, List<Book>> misplaced = new LinkedHashMap<>();
+        for (Book book : chunk) {
+            String owner = shardMap.shardOf(book.getId());
+            if (!owner.equals(source)) {
+                misplaced.computeIfAbsent(owner, shard -> new ArrayList<>()).add(book);
+            }
+        }
+        long moved = 0;
+        for (Map.Entry<String, List<Book>> entry : misplaced.entrySet()) {
+            List<Book> books = entry.getValue();
+            List<Long> ids = books.stream().map(Book::getId).toList();
+            Set<Long> copiedIds = shardRouting.onShard(entry.getKey(), () -> {
+                bookShardMapper.insertCopies(books);
+                return new HashSet<>(bookShardMapper.existingIds(ids));
+            });
+            List<Long> deletableIds = ids.stream().filter(copiedIds::contains).toList();
+            if (deletableIds.size() < ids.size()) {
+                log.warn("{}に複製できなかった書籍を{}に残します：{}件", entry.getKey(), source, ids.size() - deletableIds.size());
+            }
+            if (!deletableIds.isEmpty()) {
+                moved += shardRouting.onShard(source, () -> bookShardMapper.deleteByIds(deletableIds));
+            }
+        }
+        return moved;
+    }
+}
@@ -0,0 +1,100 @@
+package com.kien.Jbook.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * 1行ずつ読み込む。BufferedReader.readLine()と違い、1行の長さに上限を設ける
+ * 改行のない巨大な行でもmaxLength文字までしかメモリに載せず、残りは次の改行まで読み飛ばす
+ * 改行は \n / \r\n / \r のいずれにも対応する
+ */
+public class BoundedLineReader implements Closeable {
+    private final Reader reader;
+    private final int maxLength;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder line = new StringBuilder();
+    private int position = 0;
+    private int limit = 0;
+    private boolean skipLf = false;
+    private long lineNumber = 0;
+
+    public BoundedLineReader(Reader reader, int maxLength) {
+        this.reader = reader;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * 次の行を読み込む
+     * @return 改行を除いた行。ファイルの終わりに達した場合はnull
+     * @throws RecordTooLongException 行の長さがmaxLengthを超えた場合（その行は読み飛ばし済み）
+     * @throws IOException
+     */
+    public String readLine() throws IOException {
+        line.setLength(0);
+        boolean tooLong = false;
+        boolean read = false;
+        while (true) {
+            if (position >= limit && !fill()) {
+                if (!read) {
+                    return null;
+                }
+                break;
+            }
+            if (skipLf) {
+                skipLf = false;
+                if (buffer[position] == '\n') {
+                    position++;
+                    continue;
+                }
+            }
+            read = true;
+            int start = position;
+            while (position < limit && buffer[position] != '\n' && buffer[position] != '\r') {
+                position++;
+            }
+            int length = position - start;
+            if (!tooLong && line.length() + length <= maxLength) {
+                line.append(buffer, start, length);
+            } else {
+                tooLong = true;
+            }
+            if (position < limit) {
+                skipLf = buffer[position] == '\r';
+                position++;
+                break;
+            }
+        }
+        lineNumber++;
+        if (tooLong) {
+            throw new RecordTooLongException(lineNumber, maxLength);
+        }
+        return line.toString();
+    }
+
+    /**
+     * これまでに読み込んだ行数（上限を超えた行を含む）
+     * @return
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    private boolean fill() throws IOException {
+        int n;
+        do {
+            n = reader.read(buffer, 0, buffer.length);
+        } while (n == 0);
+        if (n < 0) {
+            return false;
+        }
+        position = 0;
+        limit = n;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,147 @@
+package com.kien.Jbook.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV(RFC 4180)を1レコードずつ読み込む
+ * ファイル全体をメモリに載せないため、大きなファイルの取込に使用できる
+ * ダブルクォートで囲まれたフィールド内のカンマ・改行・エスケープ("")に対応する
+ * 1レコードの長さに上限を設けた場合、上限を超えた分はメモリに載せずにレコードの終わりまで読み飛ばす
+ */
+public class CsvRecordReader implements Closeable {
+    private static final int BOM = '\uFEFF';
+
+    private final Reader reader;
+    private final int maxRecordLength;
+    private int peeked = -2;
+    private boolean firstChar = true;
+    private long recordNumber = 0;
+
+    public CsvRecordReader(Reader reader) {
+        this(reader, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param reader
+     * @param maxRecordLength 1レコードの最大文字数（区切り文字を含み、改行を除く）
+     */
+    public CsvRecordReader(Reader reader, int maxRecordLength) {
+        this.reader = reader;
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    /**
+     * 次のレコードを読み込む
+     * @return フィールドのリスト。ファイルの終わりに達した場合はnull
+     * @throws RecordTooLongException レコードの長さが上限を超えた場合（そのレコードは読み飛ばし済み）
+     * @throws IOException
+     */
+    public List<String> readRecord() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        // 上限を超えた後もクォートの判定を続けるため、フィールドの文字数は別で数える
+        int fieldLength = 0;
+        long length = 0;
+        boolean quoted = false;
+        while (true) {
+            if (quoted || (c != -1 && c != '\r' && c != '\n')) {
+                length++;
+            }
+            boolean tooLong = length > maxRecordLength;
+            if (tooLong) {
+                fields.clear();
+                field.setLength(0);
+            }
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("CSVのクォートが閉じられていません。レコード番号：" + (recordNumber + 1));
+                }
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        append(field, '"', tooLong);
+                        fieldLength++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    append(field, (char) c, tooLong);
+                    fieldLength++;
+                }
+            } else if (c == '"' && fieldLength == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                if (!tooLong) {
+                    fields.add(field.toString());
+                }
+                field.setLength(0);
+                fieldLength = 0;
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r' && peek() == '\n') {
+                    read();
+                }
+                recordNumber++;
+                if (tooLong) {
+                    throw new RecordTooLongException(recordNumber, maxRecordLength);
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                append(field, (char) c, tooLong);
+                fieldLength++;
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * これまでに読み込んだレコード数（ヘッダ行を含む）
+     * @return
+     */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    private static void append(StringBuilder field, char c, boolean tooLong) {
+        if (!tooLong) {
+            field.append(c);
+        }
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (peeked != -2) {
+            c = peeked;
+            peeked = -2;
+        } else {
+            c = reader.read();
+        }
+        if (firstChar) {
+            firstChar = false;
+            if (c == BOM) {
+                return read();
+            }
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) {
+            peeked = reader.read();
+        }
+        return peeked;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
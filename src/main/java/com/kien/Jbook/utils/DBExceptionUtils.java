@@ -6,6 +6,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class DBExceptionUtils {
+    private static final Pattern FOREIGN_KEY_COLUMN = Pattern.compile("FOREIGN KEY \\(`(\\w+)`\\)");
 
     /**
      * DataIntegrityViolationExceptionはspringのラッパクラス
@@ -20,8 +21,7 @@ public class DBExceptionUtils {
     }
 
     public static String extractForeignKeyColumn(String errorMessage) {
-        Pattern pattern = Pattern.compile("FOREIGN KEY \\(`(\\w+)`\\)");
-        Matcher matcher = pattern.matcher(errorMessage);
+        Matcher matcher = FOREIGN_KEY_COLUMN.matcher(errorMessage);
         if (matcher.find()) {
             return matcher.group(1);
         }
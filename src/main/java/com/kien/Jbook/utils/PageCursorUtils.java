@@ -0,0 +1,30 @@
+package com.kien.Jbook.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * キーセットページングのカーソルを、クライアントから中身が見えない文字列に変換する
+ * 例: ["CREATED_AT", "2023-01-01T10:00", "5"] <-> "Q1JFQVRFRF9BVHwyMDIzLTAxLTAxVDEwOjAwfDU"
+ */
+public class PageCursorUtils {
+    private static final String SEPARATOR = "|";
+
+    public static String encode(String... parts) {
+        String joined = String.join(SEPARATOR, parts);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joined.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor
+     * @return 分割した値。デコードできない場合はnull
+     */
+    public static String[] decode(String cursor) {
+        try {
+            String joined = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return joined.split("\\" + SEPARATOR, -1);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.kien.Jbook.utils;
+
+import java.io.IOException;
+
+/**
+ * 1レコード（1行）の長さが上限を超えた
+ * 超えた部分は読み飛ばしているため、次のレコードから読み込みを続けられる
+ */
+public class RecordTooLongException extends IOException {
+    private final long recordNumber;
+
+    public RecordTooLongException(long recordNumber, int maxLength) {
+        super("レコードの長さが上限(" + maxLength + "文字)を超えています。レコード番号：" + recordNumber);
+        this.recordNumber = recordNumber;
+    }
+
+    /**
+     * 上限を超えたレコードの番号（1始まり）
+     * @return
+     */
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+}
@@ -1,16 +1,23 @@
 package com.kien.Jbook.utils;
 
-import java.lang.reflect.Field;
+import com.kien.Jbook.common.reflect.PropertyAccessor;
+import com.kien.Jbook.common.reflect.PropertyAccessorRegistry;
 
 public class ReflectionUtils {
+
+    /**
+     * プロパティの値をgetter経由で取得する
+     * getterはクラスごとに初回だけ生成してキャッシュされる（PropertyAccessorRegistry）
+     * @param obj
+     * @param propertyName
+     * @return
+     */
     public static Object getPropertyValue(Object obj, String propertyName) {
-        try {
-            Field field = obj.getClass().getDeclaredField(propertyName);
-            field.setAccessible(true);
-            return field.get(obj);
-        } catch (NoSuchFieldException | IllegalAccessException e) {
+        PropertyAccessor accessor = PropertyAccessorRegistry.of(obj.getClass()).forProperty(propertyName);
+        if (accessor == null) {
             // ここに入るのは基本不可能、もしエラー発生したらグローバルハンドラに投げる
-            throw new RuntimeException(e.getMessage());
+            throw new RuntimeException(propertyName);
         }
+        return accessor.get(obj);
     }
 }
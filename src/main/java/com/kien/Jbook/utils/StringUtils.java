@@ -12,15 +12,23 @@ public class StringUtils {
         if (input == null) {
             return null;
         }
-        String[] words = input.split("_");
-        StringBuilder result = new StringBuilder();
-        for (int i = 0; i < words.length; i++) {
-            String word = words[i];
-            if (i == 0) {
-                result.append(word);
+        // splitや部分文字列を作らず、1文字ずつ変換する
+        // 先頭の単語はそのまま、2つ目以降の単語は先頭を大文字・残りを小文字にする（連続・末尾の_は無視）
+        StringBuilder result = new StringBuilder(input.length());
+        boolean firstWord = true;
+        boolean wordStart = false;
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == '_') {
+                firstWord = false;
+                wordStart = true;
+            } else if (firstWord) {
+                result.append(c);
+            } else if (wordStart) {
+                result.append(Character.toUpperCase(c));
+                wordStart = false;
             } else {
-                result.append(word.substring(0, 1).toUpperCase())
-                        .append(word.substring(1).toLowerCase());
+                result.append(Character.toLowerCase(c));
             }
         }
         return result.toString();
@@ -1,6 +1,9 @@
 DROP TABLE IF EXISTS books;
+DROP TABLE IF EXISTS books_archive;
+DROP TABLE IF EXISTS book_outbox;
 DROP TABLE IF EXISTS publisher;
 DROP TABLE IF EXISTS `user`;
+DROP TABLE IF EXISTS id_block;
 
 CREATE TABLE publisher (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
@@ -32,6 +35,52 @@ CREATE TABLE books (
     is_deleted BOOLEAN NOT NULL DEFAULT FALSE,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    deleted_at TIMESTAMP NULL,
     FOREIGN KEY (publisher_id) REFERENCES publisher(id),
     FOREIGN KEY (user_id) REFERENCES `user`(id)
 );
+
+-- キーセットページング用（GET /books）
+-- 価格の範囲指定は同じインデックスを走査しながらフィルタする
+CREATE INDEX idx_books_created_at ON books (is_deleted, created_at, id);
+CREATE INDEX idx_books_publisher_id ON books (publisher_id, is_deleted, id);
+CREATE INDEX idx_books_publisher_created_at ON books (publisher_id, is_deleted, created_at, id);
+CREATE INDEX idx_books_user_id ON books (user_id, is_deleted, id);
+CREATE INDEX idx_books_user_created_at ON books (user_id, is_deleted, created_at, id);
+
+-- 論理削除から一定期間が過ぎた書籍の移動（jbook.archive）
+CREATE INDEX idx_books_deleted_at ON books (is_deleted, deleted_at, id);
+
+-- 論理削除から一定期間が過ぎた書籍の移動先。出版社・ユーザーの物理削除を妨げないように外部キーは付けない
+-- 移動後に同じIDで登録・削除し直された書籍も移せるように、削除日時を主キーに含める
+CREATE TABLE books_archive (
+    id BIGINT NOT NULL,
+    title VARCHAR(255),
+    title_kana VARCHAR(255),
+    author VARCHAR(255),
+    publisher_id BIGINT,
+    user_id BIGINT,
+    price INT,
+    created_at TIMESTAMP NULL,
+    updated_at TIMESTAMP NULL,
+    deleted_at TIMESTAMP NOT NULL,
+    archived_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (id, deleted_at)
+);
+
+-- 書籍の変更イベントの送信待ち（jbook.outbox）
+-- 書籍と同じトランザクションで記録し、BookOutboxRelay が送信した後に削除する。シャーディングが有効な場合は書籍と同じシャードに置く
+CREATE TABLE book_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    book_id BIGINT NOT NULL,
+    event_type VARCHAR(32) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP(3) NOT NULL
+);
+
+-- アプリケーション側でのID採番（jbook.write-behind）
+-- next_id までを予約済みとして、インスタンスごとにまとめて予約する
+CREATE TABLE id_block (
+    name VARCHAR(64) PRIMARY KEY,
+    next_id BIGINT NOT NULL
+);
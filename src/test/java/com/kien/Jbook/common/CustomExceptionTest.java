@@ -0,0 +1,23 @@
+package com.kien.Jbook.common;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class CustomExceptionTest {
+
+    @Test
+    void doNotCaptureStackTraceForClientError() {
+        CustomException e = new CustomException("エラー", HttpStatus.BAD_REQUEST, "id", -1L);
+
+        assertThat(e.getStackTrace().length).isEqualTo(0);
+    }
+
+    @Test
+    void captureStackTraceForServerError() {
+        CustomException e = new CustomException("エラー", HttpStatus.INTERNAL_SERVER_ERROR, null, null);
+
+        assertThat(e.getStackTrace().length).isGreaterThan(0);
+    }
+}
@@ -0,0 +1,82 @@
+package com.kien.Jbook.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ErrorBodyTemplatesTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ErrorBodyTemplates templates = new ErrorBodyTemplates(objectMapper, "message");
+
+    /**
+     * これまでのGlobalExceptionHandlerと同じ作り方の本文
+     */
+    private String hashMapBody(String field, Object value, String message) throws Exception {
+        Map<String, Object> responseBody = new HashMap<>();
+        if (field != null) {
+            responseBody.put(field, value);
+        }
+        responseBody.put("message", message);
+        return objectMapper.writeValueAsString(responseBody);
+    }
+
+    private String render(String field, Object value, String message) {
+        return new String(templates.render(field, value, message), StandardCharsets.UTF_8);
+    }
+
+    @Nested
+    class RenderTest {
+
+        @Test
+        void renderSameJsonAsHashMap() throws Exception {
+            // 項目名によってHashMapでの順序が変わる
+            for (String field : List.of("id", "ids", "publisherId", "userId", "limit", "after", "GET", "Idempotency-Key", "a", "zzz")) {
+                assertEquals(hashMapBody(field, 12L, "入力された値が無効です。"), render(field, 12L, "入力された値が無効です。"));
+            }
+        }
+
+        @Test
+        void renderValuesOfVariousTypes() throws Exception {
+            for (Object value : List.of("/books/\"x\"", -1, 2.5, true, List.of(1L, 2L), LocalDateTime.of(2025, 4, 28, 10, 0))) {
+                assertEquals(hashMapBody("id", value, "エラー"), render("id", value, "エラー"));
+            }
+            assertEquals(hashMapBody("id", null, "エラー"), render("id", null, "エラー"));
+        }
+
+        @Test
+        void renderMessageOnlyWhenFieldIsNull() throws Exception {
+            byte[] first = templates.render(null, null, "データベースが混み合っています。");
+
+            assertEquals(hashMapBody(null, null, "データベースが混み合っています。"), new String(first, StandardCharsets.UTF_8));
+            // 値を含まない本文は毎回同じバイト列を返す
+            assertSame(first, templates.render(null, null, "データベースが混み合っています。"));
+        }
+
+        @Test
+        void renderMessageOnlyWhenFieldIsMessageKey() throws Exception {
+            assertEquals(hashMapBody("message", 1L, "エラー"), render("message", 1L, "エラー"));
+        }
+
+        @Test
+        void reuseTemplateForSameFieldAndMessage() {
+            for (long id = 0; id < 100; id++) {
+                templates.render("id", id, "エラー");
+            }
+            templates.render("id", 1L, "別のエラー");
+
+            assertThat(templates.templateCount()).isEqualTo(2);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.kien.Jbook.common.cache;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class BoundedCacheTest {
+
+    @Nested
+    class LoadTest {
+
+        @Test
+        void loadOnlyOnceWhileCached() {
+            BoundedCache<Long, String> cache = new BoundedCache<>(10, Duration.ofMinutes(1), EvictionPolicy.LRU);
+            AtomicInteger loadCount = new AtomicInteger();
+
+            assertThat(cache.get(1L, id -> "book" + loadCount.incrementAndGet())).isEqualTo("book1");
+            assertThat(cache.get(1L, id -> "book" + loadCount.incrementAndGet())).isEqualTo("book1");
+
+            assertThat(loadCount.get()).isEqualTo(1);
+            CacheStats stats = cache.stats();
+            assertThat(stats.hitCount()).isEqualTo(1L);
+            assertThat(stats.missCount()).isEqualTo(1L);
+        }
+
+        @Test
+        void doNotCacheNull() {
+            BoundedCache<Long, String> cache = new BoundedCache<>(10, Duration.ofMinutes(1), EvictionPolicy.LRU);
+            AtomicInteger loadCount = new AtomicInteger();
+
+            cache.get(1L, id -> {
+                loadCount.incrementAndGet();
+                return null;
+            });
+            cache.get(1L, id -> {
+                loadCount.incrementAndGet();
+                return null;
+            });
+
+            assertThat(loadCount.get()).isEqualTo(2);
+            assertThat(cache.size()).isEqualTo(0L);
+        }
+
+        @Test
+        void reloadAfterInvalidate() {
+            BoundedCache<Long, String> cache = new BoundedCache<>(10, Duration.ofMinutes(1), EvictionPolicy.LRU);
+            cache.put(1L, "old");
+            cache.invalidate(1L);
+
+            assertThat(cache.get(1L, id -> "new")).isEqualTo("new");
+        }
+
+        @Test
+        void alwaysLoadWhenDisabled() {
+            BoundedCache<Long, String> cache = BoundedCache.disabled();
+            AtomicInteger loadCount = new AtomicInteger();
+
+            cache.get(1L, id -> "book" + loadCount.incrementAndGet());
+            cache.get(1L, id -> "book" + loadCount.incrementAndGet());
+
+            assertThat(loadCount.get()).isEqualTo(2);
+            assertThat(cache.size()).isEqualTo(0L);
+        }
+    }
+
+    @Nested
+    class ExpirationTest {
+
+        @Test
+        void expireEntryAfterTtl() {
+            AtomicLong now = new AtomicLong();
+            BoundedCache<Long, String> cache = new BoundedCache<>(10, Duration.ofSeconds(10), EvictionPolicy.LRU, now::get);
+            cache.put(1L, "book");
+
+            now.set(Duration.ofSeconds(9).toNanos());
+            assertThat(cache.getIfPresent(1L)).isEqualTo("book");
+
+            now.set(Duration.ofSeconds(10).toNanos());
+            assertThat(cache.getIfPresent(1L)).isNull();
+            assertThat(cache.stats().expirationCount()).isEqualTo(1L);
+        }
+    }
+
+    @Nested
+    class EvictionTest {
+
+        @Test
+        void evictLeastRecentlyUsedEntry() {
+            BoundedCache<Long, String> cache = new BoundedCache<>(2, Duration.ZERO, EvictionPolicy.LRU);
+            cache.put(1L, "a");
+            cache.put(2L, "b");
+            cache.getIfPresent(1L);
+            cache.put(3L, "c");
+
+            assertThat(cache.getIfPresent(1L)).isEqualTo("a");
+            assertThat(cache.getIfPresent(2L)).isNull();
+            assertThat(cache.getIfPresent(3L)).isEqualTo("c");
+            assertThat(cache.stats().evictionCount()).isEqualTo(1L);
+        }
+
+        @Test
+        void evictLeastFrequentlyUsedEntry() {
+            BoundedCache<Long, String> cache = new BoundedCache<>(2, Duration.ZERO, EvictionPolicy.LFU);
+            cache.put(1L, "a");
+            cache.put(2L, "b");
+            cache.getIfPresent(2L);
+            cache.getIfPresent(2L);
+            cache.getIfPresent(1L);
+            cache.put(3L, "c");
+
+            assertThat(cache.getIfPresent(1L)).isNull();
+            assertThat(cache.getIfPresent(2L)).isEqualTo("b");
+            assertThat(cache.getIfPresent(3L)).isEqualTo("c");
+            assertThat(cache.stats().evictionCount()).isEqualTo(1L);
+        }
+
+        @Test
+        void keepSizeWithinMaximumAfterInvalidations() {
+            BoundedCache<Long, String> cache = new BoundedCache<>(3, Duration.ZERO, EvictionPolicy.LFU);
+            for (long i = 0; i < 100; i++) {
+                cache.put(i, "v" + i);
+                if (i % 3 == 0) {
+                    cache.invalidate(i - 1);
+                }
+            }
+            cache.put(100L, "v100");
+            assertThat(cache.size()).isEqualTo(3L);
+        }
+    }
+
+    @Nested
+    class WeightTest {
+
+        private BoundedCache<Long, String> newCache(long maximumWeight) {
+            return BoundedCache.weighted(maximumWeight, String::length, Duration.ZERO, EvictionPolicy.LRU);
+        }
+
+        @Test
+        void evictUntilTotalWeightIsWithinMaximum() {
+            BoundedCache<Long, String> cache = newCache(10);
+            cache.put(1L, "aaaa");
+            cache.put(2L, "bbbb");
+            cache.put(3L, "cccccc");
+
+            assertThat(cache.getIfPresent(1L)).isNull();
+            assertThat(cache.getIfPresent(2L)).isEqualTo("bbbb");
+            assertThat(cache.getIfPresent(3L)).isEqualTo("cccccc");
+            assertThat(cache.weight()).isEqualTo(10L);
+
+            cache.put(4L, "dddddddd");
+            assertThat(cache.size()).isEqualTo(1L);
+            assertThat(cache.weight()).isEqualTo(8L);
+            assertThat(cache.stats().evictionCount()).isEqualTo(3L);
+        }
+
+        @Test
+        void updateWeightWhenValueIsReplacedOrInvalidated() {
+            BoundedCache<Long, String> cache = newCache(10);
+            cache.put(1L, "aa");
+            cache.put(2L, "bb");
+            cache.put(1L, "aaaaaa");
+            assertThat(cache.weight()).isEqualTo(8L);
+
+            cache.invalidate(2L);
+            assertThat(cache.weight()).isEqualTo(6L);
+            cache.invalidateAll();
+            assertThat(cache.weight()).isEqualTo(0L);
+        }
+
+        @Test
+        void doNotCacheValueHeavierThanMaximum() {
+            BoundedCache<Long, String> cache = newCache(10);
+            cache.put(1L, "aaaa");
+            cache.put(1L, "this value is too large");
+
+            // 古い値も残さない
+            assertThat(cache.getIfPresent(1L)).isNull();
+            assertThat(cache.weight()).isEqualTo(0L);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.kien.Jbook.common.cache;
+
+import com.kien.Jbook.common.CustomException;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class IdempotencyStoreTest {
+
+    private final IdempotencyStore<String> store = new IdempotencyStore<>(100, Duration.ofMinutes(1), Duration.ofSeconds(5));
+
+    @Nested
+    class ExecuteTest {
+
+        @Test
+        void replayResultForSameKey() {
+            AtomicInteger calls = new AtomicInteger();
+
+            IdempotencyStore.Result<String> first = store.execute("key", "request", () -> "created-" + calls.incrementAndGet());
+            IdempotencyStore.Result<String> second = store.execute("key", "request", () -> "created-" + calls.incrementAndGet());
+
+            assertEquals(new IdempotencyStore.Result<>("created-1", false), first);
+            assertEquals(new IdempotencyStore.Result<>("created-1", true), second);
+            assertThat(calls.get()).isEqualTo(1);
+            assertThat(store.getReplayedCount()).isEqualTo(1L);
+        }
+
+        @Test
+        void replayClientError() {
+            CustomException error = new CustomException("duplicate", HttpStatus.CONFLICT, "id", 1L);
+            AtomicInteger calls = new AtomicInteger();
+
+            assertSame(error, assertThrows(CustomException.class, () -> store.execute("key", "request", () -> {
+                calls.incrementAndGet();
+                throw error;
+            })));
+            assertSame(error, assertThrows(CustomException.class, () -> store.execute("key", "request", () -> "created")));
+            assertThat(calls.get()).isEqualTo(1);
+        }
+
+        @Test
+        void executeAgainAfterServerError() {
+            assertThrows(CustomException.class, () -> store.execute("key", "request", () -> {
+                throw new CustomException("insert error", HttpStatus.INTERNAL_SERVER_ERROR, null, null);
+            }));
+            assertThrows(IllegalStateException.class, () -> store.execute("key", "request", () -> {
+                throw new IllegalStateException("db down");
+            }));
+
+            assertEquals(new IdempotencyStore.Result<>("created", false), store.execute("key", "request", () -> "created"));
+        }
+
+        @Test
+        void rejectDifferentRequestWithSameKey() {
+            store.execute("key", "request", () -> "created");
+
+            assertThrows(IdempotencyStore.KeyReusedException.class, () -> store.execute("key", "other", () -> "created"));
+        }
+
+        @Test
+        void alwaysExecuteWhenDisabled() {
+            IdempotencyStore<String> disabled = IdempotencyStore.disabled();
+            AtomicInteger calls = new AtomicInteger();
+
+            disabled.execute("key", "request", () -> "created-" + calls.incrementAndGet());
+            disabled.execute("key", "request", () -> "created-" + calls.incrementAndGet());
+
+            assertThat(calls.get()).isEqualTo(2);
+        }
+    }
+
+    @Nested
+    class InFlightTest {
+
+        @Test
+        void waitForRunningExecutionOfSameKey() throws Exception {
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger calls = new AtomicInteger();
+            CompletableFuture<IdempotencyStore.Result<String>> first = CompletableFuture.supplyAsync(
+                    () -> store.execute("key", "request", () -> {
+                        calls.incrementAndGet();
+                        started.countDown();
+                        await(release);
+                        return "created";
+                    }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            CompletableFuture<IdempotencyStore.Result<String>> second = CompletableFuture.supplyAsync(
+                    () -> store.execute("key", "request", () -> "created-" + calls.incrementAndGet()));
+            Thread.sleep(50);
+            assertThat(second.isDone()).isFalse();
+
+            release.countDown();
+            assertEquals(new IdempotencyStore.Result<>("created", false), first.get(5, TimeUnit.SECONDS));
+            assertEquals(new IdempotencyStore.Result<>("created", true), second.get(5, TimeUnit.SECONDS));
+            assertThat(calls.get()).isEqualTo(1);
+        }
+
+        @Test
+        void timeoutWhileWaitingForRunningExecution() throws Exception {
+            IdempotencyStore<String> shortWait = new IdempotencyStore<>(100, Duration.ofMinutes(1), Duration.ofMillis(20));
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<IdempotencyStore.Result<String>> first = CompletableFuture.supplyAsync(
+                    () -> shortWait.execute("key", "request", () -> {
+                        started.countDown();
+                        await(release);
+                        return "created";
+                    }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThrows(IdempotencyStore.InFlightTimeoutException.class,
+                    () -> shortWait.execute("key", "request", () -> "created"));
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+        }
+
+        private void await(CountDownLatch latch) {
+            try {
+                latch.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
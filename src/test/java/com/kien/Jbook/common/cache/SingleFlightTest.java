@@ -0,0 +1,149 @@
+package com.kien.Jbook.common.cache;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SingleFlightTest {
+
+    private final SingleFlight<Long, String> singleFlight = new SingleFlight<>(Duration.ofSeconds(5));
+
+    /**
+     * 最初の呼び出しがloaderの中で止まっている間に、後続の呼び出しを開始する
+     */
+    private CompletableFuture<String> startLeader(SingleFlight<Long, String> singleFlight, CountDownLatch release,
+                                                  Supplier<String> result) throws InterruptedException {
+        CountDownLatch loading = new CountDownLatch(1);
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.execute(1L, () -> {
+            loading.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return result.get();
+        }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        return leader;
+    }
+
+    private void awaitCoalesced(SingleFlight<Long, String> singleFlight, long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (singleFlight.getCoalescedCount() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Nested
+    class ExecuteTest {
+
+        @Test
+        void shareResultOfRunningLoad() throws Exception {
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger loads = new AtomicInteger();
+            CompletableFuture<String> leader = startLeader(singleFlight, release, () -> "book-" + loads.incrementAndGet());
+
+            CompletableFuture<String> follower1 = CompletableFuture.supplyAsync(
+                    () -> singleFlight.execute(1L, () -> "book-" + loads.incrementAndGet()));
+            CompletableFuture<String> follower2 = CompletableFuture.supplyAsync(
+                    () -> singleFlight.execute(1L, () -> "book-" + loads.incrementAndGet()));
+            awaitCoalesced(singleFlight, 2);
+            release.countDown();
+
+            assertEquals("book-1", leader.get(5, TimeUnit.SECONDS));
+            assertEquals("book-1", follower1.get(5, TimeUnit.SECONDS));
+            assertEquals("book-1", follower2.get(5, TimeUnit.SECONDS));
+            assertThat(loads.get()).isEqualTo(1);
+            assertThat(singleFlight.getExecutedCount()).isEqualTo(1L);
+            assertThat(singleFlight.getCoalescedCount()).isEqualTo(2L);
+        }
+
+        @Test
+        void loadAgainAfterCompletion() {
+            AtomicInteger loads = new AtomicInteger();
+
+            assertEquals("book-1", singleFlight.execute(1L, () -> "book-" + loads.incrementAndGet()));
+            assertEquals("book-2", singleFlight.execute(1L, () -> "book-" + loads.incrementAndGet()));
+            assertThat(singleFlight.getCoalescedCount()).isEqualTo(0L);
+        }
+
+        @Test
+        void loadDifferentKeysIndependently() throws Exception {
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<String> leader = startLeader(singleFlight, release, () -> "book-1");
+
+            assertEquals("book-2", singleFlight.execute(2L, () -> "book-2"));
+            release.countDown();
+            assertEquals("book-1", leader.get(5, TimeUnit.SECONDS));
+        }
+
+        @Test
+        void alwaysLoadWhenDisabled() {
+            SingleFlight<Long, String> disabled = SingleFlight.disabled();
+            AtomicInteger loads = new AtomicInteger();
+
+            disabled.execute(1L, () -> "book-" + loads.incrementAndGet());
+            disabled.execute(1L, () -> "book-" + loads.incrementAndGet());
+
+            assertThat(loads.get()).isEqualTo(2);
+        }
+    }
+
+    @Nested
+    class FailureTest {
+
+        @Test
+        void propagateExceptionToWaitingCalls() throws Exception {
+            IllegalStateException error = new IllegalStateException("db down");
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<String> leader = startLeader(singleFlight, release, () -> {
+                throw error;
+            });
+            CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> singleFlight.execute(1L, () -> "book"));
+            awaitCoalesced(singleFlight, 1);
+            release.countDown();
+
+            assertSame(error, assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+            assertSame(error, assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS)).getCause());
+            // 失敗は保持しないため、次の呼び出しはもう一度読み込む
+            assertEquals("book", singleFlight.execute(1L, () -> "book"));
+        }
+
+        @Test
+        void throwWaitTimeoutExceptionWhenLoadIsSlow() throws Exception {
+            SingleFlight<Long, String> shortWait = new SingleFlight<>(Duration.ofMillis(20));
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<String> leader = startLeader(shortWait, release, () -> "book");
+
+            assertThrows(SingleFlight.WaitTimeoutException.class, () -> shortWait.execute(1L, () -> "other"));
+            assertThat(shortWait.getTimeoutCount()).isEqualTo(1L);
+
+            release.countDown();
+            assertEquals("book", leader.get(5, TimeUnit.SECONDS));
+        }
+
+        @Test
+        void startNewLoadAfterForget() throws Exception {
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<String> leader = startLeader(singleFlight, release, () -> "before-write");
+
+            singleFlight.forget(1L);
+
+            assertEquals("after-write", singleFlight.execute(1L, () -> "after-write"));
+            release.countDown();
+            assertEquals("before-write", leader.get(5, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.kien.Jbook.common.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class LongHashSetTest {
+
+    @Test
+    void containAddedValuesAfterResize() {
+        LongHashSet set = new LongHashSet();
+        for (long i = 1; i <= 10_000; i++) {
+            assertThat(set.add(i)).isTrue();
+        }
+
+        assertThat(set.size()).isEqualTo(10_000);
+        assertThat(set.contains(1L)).isTrue();
+        assertThat(set.contains(10_000L)).isTrue();
+        assertThat(set.contains(10_001L)).isFalse();
+        assertThat(set.contains(-1L)).isFalse();
+    }
+
+    @Test
+    void ignoreDuplicatesAndHandleZero() {
+        LongHashSet set = new LongHashSet();
+
+        assertThat(set.add(0L)).isTrue();
+        assertThat(set.add(0L)).isFalse();
+        assertThat(set.add(5L)).isTrue();
+        assertThat(set.add(5L)).isFalse();
+
+        assertThat(set.size()).isEqualTo(2);
+        assertThat(set.contains(0L)).isTrue();
+    }
+
+    @Test
+    void behaveLikeHashSetForRandomValues() {
+        Random random = new Random(1);
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 5_000; i++) {
+            long value = random.nextLong();
+            assertThat(set.add(value)).isEqualTo(expected.add(value));
+        }
+        for (int i = 0; i < 5_000; i++) {
+            long value = random.nextBoolean() ? random.nextLong() : expected.iterator().next();
+            assertThat(set.contains(value)).isEqualTo(expected.contains(value));
+        }
+        assertThat(set.size()).isEqualTo(expected.size());
+    }
+
+    @Test
+    void copyAndAddAllDoNotShareState() {
+        LongHashSet original = new LongHashSet();
+        original.add(1L);
+        LongHashSet added = new LongHashSet();
+        added.add(2L);
+        added.add(0L);
+
+        LongHashSet copy = original.copy();
+        copy.addAll(added);
+
+        assertThat(original.contains(2L)).isFalse();
+        assertThat(copy.contains(1L)).isTrue();
+        assertThat(copy.contains(2L)).isTrue();
+        assertThat(copy.contains(0L)).isTrue();
+        assertThat(copy.size()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,75 @@
+package com.kien.Jbook.common.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LongIntHashMapTest {
+
+    @Test
+    void putGetAndReplaceAfterResize() {
+        LongIntHashMap map = new LongIntHashMap();
+        for (int i = 1; i <= 10_000; i++) {
+            assertThat(map.put(i, i * 2)).isEqualTo(LongIntHashMap.NO_VALUE);
+        }
+
+        assertThat(map.size()).isEqualTo(10_000);
+        assertThat(map.get(10_000L)).isEqualTo(20_000);
+        assertThat(map.put(10_000L, 1)).isEqualTo(20_000);
+        assertThat(map.get(10_000L)).isEqualTo(1);
+        assertThat(map.get(10_001L)).isEqualTo(LongIntHashMap.NO_VALUE);
+        assertThat(map.size()).isEqualTo(10_000);
+    }
+
+    @Test
+    void handleZeroKey() {
+        LongIntHashMap map = new LongIntHashMap();
+
+        assertThat(map.put(0L, 3)).isEqualTo(LongIntHashMap.NO_VALUE);
+        assertThat(map.put(0L, 4)).isEqualTo(3);
+        assertThat(map.size()).isEqualTo(1);
+        assertThat(map.remove(0L)).isEqualTo(4);
+        assertThat(map.remove(0L)).isEqualTo(LongIntHashMap.NO_VALUE);
+        assertThat(map.size()).isEqualTo(0);
+    }
+
+    @Test
+    void rejectNegativeValue() {
+        LongIntHashMap map = new LongIntHashMap();
+
+        assertThrows(IllegalArgumentException.class, () -> map.put(1L, -1));
+    }
+
+    @Test
+    void behaveLikeHashMapForRandomPutsAndRemoves() {
+        Random random = new Random(1);
+        LongIntHashMap map = new LongIntHashMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        List<Long> keys = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            // キーの範囲を狭くして、衝突と削除後の詰め直しを起こす
+            long key = random.nextInt(2_000) * 1024L;
+            keys.add(key);
+            if (random.nextInt(3) == 0) {
+                Integer removed = expected.remove(key);
+                assertThat(map.remove(key)).isEqualTo(removed == null ? LongIntHashMap.NO_VALUE : removed);
+            } else {
+                int value = random.nextInt(1_000);
+                Integer previous = expected.put(key, value);
+                assertThat(map.put(key, value)).isEqualTo(previous == null ? LongIntHashMap.NO_VALUE : previous);
+            }
+        }
+        for (long key : keys) {
+            Integer value = expected.get(key);
+            assertThat(map.get(key)).isEqualTo(value == null ? LongIntHashMap.NO_VALUE : value);
+        }
+        assertThat(map.size()).isEqualTo(expected.size());
+    }
+}
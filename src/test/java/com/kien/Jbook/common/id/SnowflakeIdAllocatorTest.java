@@ -0,0 +1,166 @@
+package com.kien.Jbook.common.id;
+
+import com.kien.Jbook.common.jdbc.ShardMap;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SnowflakeIdAllocatorTest {
+    private static final Instant EPOCH = Instant.parse("2025-01-01T00:00:00Z");
+
+    /**
+     * 時刻を手動で進める・戻す時計
+     */
+    private final AtomicLong now = new AtomicLong(EPOCH.toEpochMilli() + 1000);
+
+    private SnowflakeIdAllocator allocator(long nodeId, Duration maxClockDrift) {
+        return new SnowflakeIdAllocator(nodeId, EPOCH, maxClockDrift, now::get);
+    }
+
+    @Nested
+    class NextIdTest {
+
+        @Test
+        void composeTimestampNodeAndSequence() {
+            SnowflakeIdAllocator allocator = allocator(5, Duration.ofSeconds(1));
+
+            long first = allocator.nextId();
+            long second = allocator.nextId();
+
+            assertEquals((1000L << 22) | (5L << 12), first);
+            assertEquals(first + 1, second);
+            assertEquals(now.get(), allocator.timestampOf(first));
+        }
+
+        @Test
+        void increaseWithClock() {
+            SnowflakeIdAllocator allocator = allocator(0, Duration.ofSeconds(1));
+
+            long first = allocator.nextId();
+            now.addAndGet(1);
+            long second = allocator.nextId();
+
+            assertThat(second).isGreaterThan(first);
+            assertEquals(1000L << 22, first);
+            assertEquals(1001L << 22, second);
+        }
+
+        @Test
+        void differentNodesNeverCollide() {
+            SnowflakeIdAllocator a = allocator(1, Duration.ofSeconds(1));
+            SnowflakeIdAllocator b = allocator(2, Duration.ofSeconds(1));
+            Set<Long> ids = new HashSet<>();
+
+            for (int i = 0; i < 10000; i++) {
+                assertThat(ids.add(a.nextId())).isTrue();
+                assertThat(ids.add(b.nextId())).isTrue();
+            }
+        }
+
+        @Test
+        void rejectInvalidNodeId() {
+            assertThrows(IllegalArgumentException.class, () -> allocator(-1, Duration.ofSeconds(1)));
+            assertThrows(IllegalArgumentException.class, () -> allocator(1024, Duration.ofSeconds(1)));
+        }
+
+        @Test
+        void uniqueAcrossThreads() throws Exception {
+            SnowflakeIdAllocator allocator = new SnowflakeIdAllocator(0, EPOCH, Duration.ofSeconds(1));
+            Set<Long> ids = ConcurrentHashMap.newKeySet();
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < 8; t++) {
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < 20000; i++) {
+                            ids.add(allocator.nextId());
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            assertEquals(160000, ids.size());
+        }
+    }
+
+    @Nested
+    class ShardBucketTest {
+
+        @Test
+        void spreadIdsIssuedInSeparateMillisecondsAcrossBuckets() {
+            SnowflakeIdAllocator allocator = allocator(3, Duration.ofSeconds(1));
+            ShardMap shardMap = ShardMap.of(64, Map.of("shard-0", "0-31", "shard-1", "32-63"));
+
+            // 1ミリ秒に1件ずつ（連番は常に0）
+            int[] counts = new int[64];
+            for (int i = 0; i < 6400; i++) {
+                counts[shardMap.bucketOf(allocator.nextId())]++;
+                now.addAndGet(1);
+            }
+
+            for (int bucket = 0; bucket < 64; bucket++) {
+                assertEquals(100, counts[bucket], "bucket " + bucket);
+            }
+        }
+    }
+
+    @Nested
+    class ClockSkewTest {
+
+        @Test
+        void keepIncreasingWhenClockMovesBackwards() {
+            SnowflakeIdAllocator allocator = allocator(0, Duration.ofSeconds(1));
+
+            long first = allocator.nextId();
+            now.addAndGet(-500);
+            long second = allocator.nextId();
+
+            assertEquals(first + 1, second);
+            assertEquals(1, allocator.getLogicalClockCount());
+        }
+
+        @Test
+        void borrowNextMillisecondWhenSequenceIsExhausted() {
+            SnowflakeIdAllocator allocator = allocator(0, Duration.ofSeconds(1));
+
+            long last = 0;
+            for (int i = 0; i < 4097; i++) {
+                last = allocator.nextId();
+            }
+
+            assertEquals(1001L << 22, last);
+        }
+
+        @Test
+        void failWhenClockStaysBehindBeyondMaxDrift() {
+            SnowflakeIdAllocator allocator = allocator(0, Duration.ofMillis(10));
+
+            allocator.nextId();
+            now.addAndGet(-60000);
+
+            assertThrows(IllegalStateException.class, allocator::nextId);
+            assertEquals(1, allocator.getDriftWaitCount());
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.kien.Jbook.common.jdbc;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BulkheadDataSourceTest {
+
+    @Nested
+    class GetConnectionTest {
+
+        @Test
+        void releasePermitOnClose() throws Exception {
+            DataSource target = mock(DataSource.class);
+            Connection rawConnection = mock(Connection.class);
+            when(target.getConnection()).thenReturn(rawConnection);
+            BulkheadDataSource dataSource = new BulkheadDataSource(target, 1, Duration.ofMillis(50));
+
+            Connection connection = dataSource.getConnection();
+            assertThat(dataSource.getActive()).isEqualTo(1);
+            assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+            connection.close();
+            // 二重にcloseしても許可は1回しか返却されない
+            connection.close();
+            assertThat(dataSource.getActive()).isEqualTo(0);
+            verify(rawConnection, times(2)).close();
+
+            dataSource.getConnection().close();
+            assertThat(dataSource.getActive()).isEqualTo(0);
+        }
+
+        @Test
+        void waitForPermitUntilAnotherConnectionIsClosed() throws Exception {
+            DataSource target = mock(DataSource.class);
+            when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+            BulkheadDataSource dataSource = new BulkheadDataSource(target, 1, Duration.ofSeconds(10));
+
+            Connection first = dataSource.getConnection();
+            CompletableFuture<Connection> second = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return dataSource.getConnection();
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            }, runnable -> Thread.ofVirtual().start(runnable));
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (dataSource.getWaiting() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertThat(dataSource.getWaiting()).isEqualTo(1);
+            assertThat(second.isDone()).isFalse();
+
+            first.close();
+            second.get(5, TimeUnit.SECONDS).close();
+            assertThat(dataSource.getActive()).isEqualTo(0);
+        }
+
+        @Test
+        void releasePermitWhenTargetFails() throws Exception {
+            DataSource target = mock(DataSource.class);
+            when(target.getConnection()).thenThrow(new SQLException("connection refused"));
+            BulkheadDataSource dataSource = new BulkheadDataSource(target, 1, Duration.ofMillis(50));
+
+            assertThrows(SQLException.class, dataSource::getConnection);
+
+            assertThat(dataSource.getActive()).isEqualTo(0);
+        }
+
+        @Test
+        void unwrapToProxyItself() throws Exception {
+            DataSource target = mock(DataSource.class);
+            when(target.getConnection()).thenReturn(mock(Connection.class));
+            BulkheadDataSource dataSource = new BulkheadDataSource(target, 1, Duration.ofMillis(50));
+
+            Connection connection = dataSource.getConnection();
+
+            assertThat(connection.unwrap(Connection.class)).isSameAs(connection);
+            assertThat(connection.isWrapperFor(Connection.class)).isTrue();
+            connection.close();
+        }
+    }
+}
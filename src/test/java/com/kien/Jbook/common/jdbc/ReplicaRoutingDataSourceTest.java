@@ -0,0 +1,163 @@
+package com.kien.Jbook.common.jdbc;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * プライマリ・レプリカをそれぞれ別のH2のインメモリDBで代用する
+ * 各DBのmarkerテーブルに自分の名前を入れておき、どのDBで読み取ったかを確認する
+ */
+public class ReplicaRoutingDataSourceTest {
+    private static final String LAG_QUERY = "SELECT seconds FROM replica_lag";
+
+    private DataSource primary;
+    private DataSource replica1;
+    private DataSource replica2;
+    private ReplicaRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica1 = database("replica-1");
+        replica2 = database("replica-2");
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", replica1);
+        replicas.put("replica-2", replica2);
+        dataSource = new ReplicaRoutingDataSource(primary, replicas, Duration.ofSeconds(10), LAG_QUERY, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (DataSource db : List.of(primary, replica1, replica2)) {
+            new JdbcTemplate(db).execute("SHUTDOWN");
+        }
+    }
+
+    private static DataSource database(String name) {
+        DriverManagerDataSource db = new DriverManagerDataSource(
+                "jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(db);
+        jdbcTemplate.execute("CREATE TABLE marker (name VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO marker VALUES (?)", name);
+        jdbcTemplate.execute("CREATE TABLE replica_lag (seconds BIGINT)");
+        jdbcTemplate.update("INSERT INTO replica_lag VALUES (0)");
+        return db;
+    }
+
+    private String readMarker() {
+        return new JdbcTemplate(dataSource).queryForObject("SELECT name FROM marker", String.class);
+    }
+
+    private static void setLag(DataSource db, Long seconds) {
+        new JdbcTemplate(db).update("UPDATE replica_lag SET seconds = ?", seconds);
+    }
+
+    @Nested
+    class RoutingTest {
+
+        @Test
+        void usePrimaryOutsideReplicaRead() {
+            dataSource.checkReplicas();
+
+            assertEquals("primary", readMarker());
+            assertThat(dataSource.getRouteCount(ReplicaRoutingDataSource.PRIMARY)).isEqualTo(1L);
+        }
+
+        @Test
+        void roundRobinHealthyReplicas() {
+            dataSource.checkReplicas();
+
+            List<String> markers = List.of(
+                    ReplicaRoutingDataSource.readFromReplica(ReplicaRoutingDataSourceTest.this::readMarker),
+                    ReplicaRoutingDataSource.readFromReplica(ReplicaRoutingDataSourceTest.this::readMarker),
+                    ReplicaRoutingDataSource.readFromReplica(ReplicaRoutingDataSourceTest.this::readMarker)
+            );
+            assertEquals(List.of("replica-1", "replica-2", "replica-1"), markers);
+            assertThat(dataSource.getRouteCount("replica-1")).isEqualTo(2L);
+            assertThat(dataSource.getRouteCount("replica-2")).isEqualTo(1L);
+            // 読み取りが終わればプライマリに戻る
+            assertEquals("primary", readMarker());
+        }
+
+        @Test
+        void usePrimaryBeforeFirstHealthCheck() {
+            assertEquals("primary", ReplicaRoutingDataSource.readFromReplica(ReplicaRoutingDataSourceTest.this::readMarker));
+            assertThat(dataSource.getFallbackCount()).isEqualTo(1L);
+        }
+    }
+
+    @Nested
+    class HealthCheckTest {
+
+        @Test
+        void evictLaggingReplica() {
+            setLag(replica1, 30L);
+            dataSource.checkReplicas();
+
+            assertEquals(List.of("replica-2"), dataSource.getHealthyReplicaNames());
+            assertEquals("replica-2", ReplicaRoutingDataSource.readFromReplica(ReplicaRoutingDataSourceTest.this::readMarker));
+            assertEquals("replica-2", ReplicaRoutingDataSource.readFromReplica(ReplicaRoutingDataSourceTest.this::readMarker));
+
+            // 遅延が解消すれば戻す
+            setLag(replica1, 1L);
+            dataSource.checkReplicas();
+            assertEquals(List.of("replica-1", "replica-2"), dataSource.getHealthyReplicaNames());
+        }
+
+        @Test
+        void evictReplicaWithUnknownLag() {
+            setLag(replica2, null);
+            dataSource.checkReplicas();
+
+            assertEquals(List.of("replica-1"), dataSource.getHealthyReplicaNames());
+        }
+
+        @Test
+        void fallBackToPrimaryWhenNoReplicaIsReachable() {
+            dataSource.checkReplicas();
+            new JdbcTemplate(replica1).execute("DROP TABLE replica_lag");
+            new JdbcTemplate(replica2).execute("DROP TABLE replica_lag");
+            dataSource.checkReplicas();
+
+            assertThat(dataSource.getHealthyReplicaNames().isEmpty()).isTrue();
+            assertEquals("primary", ReplicaRoutingDataSource.readFromReplica(ReplicaRoutingDataSourceTest.this::readMarker));
+            assertThat(dataSource.getFallbackCount()).isEqualTo(1L);
+        }
+    }
+
+    @Nested
+    class MetricsTest {
+
+        @Test
+        void exposeRouteCountsAndReplicaState() {
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            dataSource.bindTo(registry);
+            setLag(replica2, 30L);
+            dataSource.checkReplicas();
+            ReplicaRoutingDataSource.readFromReplica(ReplicaRoutingDataSourceTest.this::readMarker);
+
+            assertThat(registry.get("jbook.datasource.route").tag("target", "replica-1").functionCounter().count())
+                    .isEqualTo(1.0);
+            assertThat(registry.get("jbook.datasource.replica.healthy").tag("replica", "replica-1").gauge().value())
+                    .isEqualTo(1.0);
+            assertThat(registry.get("jbook.datasource.replica.healthy").tag("replica", "replica-2").gauge().value())
+                    .isEqualTo(0.0);
+            assertThat(registry.get("jbook.datasource.replica.lag").tag("replica", "replica-2").gauge().value())
+                    .isEqualTo(30.0);
+        }
+    }
+}
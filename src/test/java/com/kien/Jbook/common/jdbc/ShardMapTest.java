@@ -0,0 +1,90 @@
+package com.kien.Jbook.common.jdbc;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ShardMapTest {
+
+    private static Map<String, String> ranges(String... shardAndRanges) {
+        Map<String, String> ranges = new LinkedHashMap<>();
+        for (int i = 0; i < shardAndRanges.length; i += 2) {
+            ranges.put(shardAndRanges[i], shardAndRanges[i + 1]);
+        }
+        return ranges;
+    }
+
+    @Nested
+    class OfTest {
+
+        @Test
+        void assignBucketsByRanges() {
+            ShardMap shardMap = ShardMap.of(8, ranges("shard-0", "0-3, 6", "shard-1", "4-5,7"));
+
+            assertEquals("shard-0", shardMap.getHomeShard());
+            assertEquals(List.of("shard-0", "shard-1"), shardMap.getShardNames());
+            assertEquals(List.of(0, 1, 2, 3, 6), shardMap.getAssignments().get("shard-0"));
+            assertEquals(List.of(4, 5, 7), shardMap.getAssignments().get("shard-1"));
+        }
+
+        @Test
+        void rejectUnassignedBucket() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> ShardMap.of(4, ranges("shard-0", "0-1", "shard-1", "3")));
+        }
+
+        @Test
+        void rejectBucketAssignedTwice() {
+            assertThrows(IllegalArgumentException.class,
+                    () -> ShardMap.of(4, ranges("shard-0", "0-2", "shard-1", "2-3")));
+        }
+
+        @Test
+        void rejectInvalidRange() {
+            assertThrows(IllegalArgumentException.class, () -> ShardMap.of(4, ranges("shard-0", "0-4")));
+            assertThrows(IllegalArgumentException.class, () -> ShardMap.of(4, ranges("shard-0", "3-0")));
+            assertThrows(IllegalArgumentException.class, () -> ShardMap.of(4, ranges("shard-0", "a-3")));
+        }
+    }
+
+    @Nested
+    class ShardOfTest {
+
+        @Test
+        void routeByIdModBucketCount() {
+            ShardMap shardMap = ShardMap.of(4, ranges("shard-0", "0-1", "shard-1", "2-3"));
+
+            assertEquals(0, shardMap.bucketOf(4L));
+            assertEquals("shard-0", shardMap.shardOf(4L));
+            assertEquals("shard-0", shardMap.shardOf(5L));
+            assertEquals("shard-1", shardMap.shardOf(6L));
+            assertEquals("shard-1", shardMap.shardOf(7L));
+            assertThat(shardMap.owns("shard-1", 2L)).isTrue();
+            assertThat(shardMap.owns("shard-0", 2L)).isFalse();
+        }
+    }
+
+    @Nested
+    class MergeSortedTest {
+
+        @Test
+        void mergeSortedSources() {
+            Iterator<Integer> merged = ShardRouting.mergeSorted(
+                    List.of(List.of(1, 4, 9).iterator(), List.<Integer>of().iterator(), List.of(2, 3, 10).iterator()),
+                    Integer::compare);
+
+            List<Integer> values = new ArrayList<>();
+            merged.forEachRemaining(values::add);
+            assertEquals(List.of(1, 2, 3, 4, 9, 10), values);
+        }
+    }
+}
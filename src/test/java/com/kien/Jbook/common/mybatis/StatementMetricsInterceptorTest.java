@@ -0,0 +1,91 @@
+package com.kien.Jbook.common.mybatis;
+
+import com.kien.Jbook.config.MetricsConfig;
+import com.kien.Jbook.mapper.BookMapper;
+import com.kien.Jbook.model.Book;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@MybatisTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({MetricsConfig.class, SimpleMeterRegistry.class})
+public class StatementMetricsInterceptorTest {
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void shortenStatementId() {
+        assertEquals("BookMapper.getById", StatementMetricsInterceptor.shortStatementId("com.kien.Jbook.mapper.BookMapper.getById"));
+        assertEquals("getById", StatementMetricsInterceptor.shortStatementId("getById"));
+    }
+
+    @Nested
+    @Sql(scripts = {"/schema.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+    @Sql(
+            scripts = {
+                    "/mapper/data/books/getByIds/publisher.sql",
+                    "/mapper/data/books/getByIds/user.sql",
+                    "/mapper/data/books/getByIds/books.sql"
+            },
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS
+    )
+    class InterceptTest {
+
+        @Test
+        void recordLatencyAndRowsPerStatement() {
+            bookMapper.getByIds(List.of(1L, 3L));
+            bookMapper.getById(1L);
+            bookMapper.getById(999L);
+
+            Timer getById = registry.get(StatementMetricsInterceptor.TIMER_NAME)
+                    .tags(StatementMetricsInterceptor.TAG_STATEMENT, "BookMapper.getById",
+                            StatementMetricsInterceptor.TAG_TYPE, "SELECT")
+                    .timer();
+            assertThat(getById.count()).isEqualTo(2L);
+            assertThat(registry.get(StatementMetricsInterceptor.ROWS_NAME)
+                    .tag(StatementMetricsInterceptor.TAG_STATEMENT, "BookMapper.getById")
+                    .summary().totalAmount()).isEqualTo(1.0);
+            assertThat(registry.get(StatementMetricsInterceptor.ROWS_NAME)
+                    .tag(StatementMetricsInterceptor.TAG_STATEMENT, "BookMapper.getByIds")
+                    .summary().totalAmount()).isEqualTo(2.0);
+        }
+
+        @Test
+        void countErrors() {
+            LocalDateTime now = LocalDateTime.now();
+            Book book = new Book(null, "Java入門", null, "山田太郎", 9999L, 100L, 2500, false, now, now);
+
+            assertThrows(DataIntegrityViolationException.class, () -> bookMapper.save(book));
+
+            assertThat(registry.get(StatementMetricsInterceptor.ERRORS_NAME)
+                    .tags(StatementMetricsInterceptor.TAG_STATEMENT, "BookMapper.save",
+                            StatementMetricsInterceptor.TAG_TYPE, "INSERT")
+                    .counter().count()).isEqualTo(1.0);
+            assertThat(registry.get(StatementMetricsInterceptor.TIMER_NAME)
+                    .tag(StatementMetricsInterceptor.TAG_STATEMENT, "BookMapper.save")
+                    .timer().count()).isEqualTo(1L);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.kien.Jbook.common.reflect;
+
+import com.kien.Jbook.model.Book;
+import com.kien.Jbook.model.dto.book.BookCreate;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class PropertyAccessorRegistryTest {
+
+    private final BookCreate bookCreate = new BookCreate(
+            1L, "Kotlin入門", "コトリン ニュウモン", "山田太郎", 2L, 100L, 2500);
+
+    @Test
+    void getValueByPropertyName() {
+        PropertyAccessorRegistry registry = PropertyAccessorRegistry.of(BookCreate.class);
+
+        assertEquals(2L, registry.forProperty("publisherId").get(bookCreate));
+        assertEquals(2500, registry.forProperty("price").get(bookCreate));
+        assertEquals("コトリン ニュウモン", registry.forProperty("titleKana").get(bookCreate));
+        assertNull(registry.forProperty("class"));
+        assertNull(registry.forProperty("unknown"));
+        assertNull(registry.forProperty(null));
+    }
+
+    @Test
+    void getValueByColumnName() {
+        PropertyAccessorRegistry registry = PropertyAccessorRegistry.of(BookCreate.class);
+
+        PropertyAccessor accessor = registry.forColumn("publisher_id");
+
+        assertEquals("publisherId", accessor.getName());
+        assertEquals(Long.class, accessor.getType());
+        assertEquals(2L, accessor.get(bookCreate));
+        assertEquals(100L, registry.forColumn("user_id").get(bookCreate));
+        assertNull(registry.forColumn("publisherId"));
+    }
+
+    @Test
+    void supportLombokBooleanWrapperGetter() {
+        LocalDateTime now = LocalDateTime.now();
+        Book book = new Book(1L, "Kotlin入門", null, "山田太郎", 2L, 100L, 2500, true, now, now);
+
+        PropertyAccessor accessor = PropertyAccessorRegistry.of(Book.class).forColumn("is_deleted");
+
+        assertEquals("isDeleted", accessor.getName());
+        assertEquals(true, accessor.get(book));
+    }
+
+    @Test
+    void returnSameRegistryForSameClass() {
+        assertThat(PropertyAccessorRegistry.of(BookCreate.class)).isSameAs(PropertyAccessorRegistry.of(BookCreate.class));
+    }
+
+    @Test
+    void convertToSnakeCase() {
+        assertEquals("title_kana", PropertyAccessorRegistry.toSnakeCase("titleKana"));
+        assertEquals("id", PropertyAccessorRegistry.toSnakeCase("id"));
+        assertEquals("created_at", PropertyAccessorRegistry.toSnakeCase("createdAt"));
+    }
+}
@@ -0,0 +1,105 @@
+package com.kien.Jbook.common.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CompactTrieTest {
+
+    private static CompactTrie.Entry entry(String key, String value, int weight) {
+        return new CompactTrie.Entry(key, value, weight);
+    }
+
+    @Test
+    void returnCompletionsInWeightOrder() {
+        CompactTrie trie = CompactTrie.build(List.of(
+                entry("java入門", "Java入門", 5),
+                entry("javaの本", "Javaの本", 1),
+                entry("javascript", "JavaScript", 10),
+                entry("kotlin", "Kotlin", 100)
+        ));
+
+        assertEquals(List.of("JavaScript", "Java入門", "Javaの本"), trie.suggest("java", 10));
+        assertEquals(List.of("JavaScript", "Java入門"), trie.suggest("ja", 2));
+        assertEquals(List.of("Java入門"), trie.suggest("java入", 10));
+        assertEquals(List.of("Kotlin", "JavaScript"), trie.suggest("", 2));
+    }
+
+    @Test
+    void matchPrefixEndingInsideCompressedEdge() {
+        CompactTrie trie = CompactTrie.build(List.of(
+                entry("スプリングブート", "Spring Boot", 1),
+                entry("スプリングバッチ", "Spring Batch", 2)
+        ));
+
+        // ルート→「スプリング」→「ブート」「バッチ」
+        assertThat(trie.nodeCount()).isEqualTo(4);
+        assertEquals(List.of("Spring Batch", "Spring Boot"), trie.suggest("スプ", 10));
+        assertEquals(List.of("Spring Boot"), trie.suggest("スプリングブー", 10));
+        assertEquals(List.of(), trie.suggest("スプリングベ", 10));
+        assertEquals(List.of(), trie.suggest("スプリングブートの本", 10));
+    }
+
+    @Test
+    void keepKeyThatIsPrefixOfAnother() {
+        CompactTrie trie = CompactTrie.build(List.of(
+                entry("java", "Java", 1),
+                entry("java入門", "Java入門", 2),
+                entry("java", "JAVA", 3)
+        ));
+
+        assertEquals(List.of("JAVA", "Java入門", "Java"), trie.suggest("java", 10));
+        assertThat(trie.size()).isEqualTo(3);
+    }
+
+    @Test
+    void removeDuplicatedValuesReachedFromDifferentKeys() {
+        CompactTrie trie = CompactTrie.build(List.of(
+                entry("スプリング", "Spring入門", 5),
+                entry("スプリングニュウモン", "Spring入門", 5),
+                entry("スプラッシュ", "スプラッシュ", 1)
+        ));
+
+        assertEquals(List.of("Spring入門", "スプラッシュ"), trie.suggest("スプ", 10));
+    }
+
+    @Test
+    void returnEmptyForEmptyTrie() {
+        CompactTrie trie = CompactTrie.build(List.of());
+
+        assertEquals(List.of(), trie.suggest("java", 10));
+        assertEquals(List.of(), trie.suggest("", 10));
+    }
+
+    @Test
+    void returnSameResultsAsFullScan() {
+        Random random = new Random(42);
+        List<CompactTrie.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder key = new StringBuilder();
+            int length = 1 + random.nextInt(6);
+            for (int c = 0; c < length; c++) {
+                key.append((char) ('a' + random.nextInt(3)));
+            }
+            // 同点の順序に依存しないように重みは重複させない
+            entries.add(entry(key.toString(), "v" + i, i));
+        }
+        CompactTrie trie = CompactTrie.build(entries);
+
+        for (String prefix : List.of("", "a", "ab", "bca", "cccc", "abcabc")) {
+            List<String> expected = entries.stream()
+                    .filter(e -> e.key().startsWith(prefix))
+                    .sorted(Comparator.comparingInt(CompactTrie.Entry::weight).reversed())
+                    .limit(10)
+                    .map(CompactTrie.Entry::value)
+                    .toList();
+            assertEquals(expected, trie.suggest(prefix, 10), prefix);
+        }
+    }
+}
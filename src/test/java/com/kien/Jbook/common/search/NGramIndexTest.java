@@ -0,0 +1,120 @@
+package com.kien.Jbook.common.search;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class NGramIndexTest {
+
+    // タイトル・タイトルカナ・著者
+    private NGramIndex newIndex() {
+        NGramIndex index = new NGramIndex(3, 2, 1);
+        index.add(1L, "Kotlin入門", "コトリン ニュウモン", "山田太郎");
+        index.add(2L, "Java入門", "ジャバー ニュウモン", "田中太郎");
+        index.add(3L, "Spring Boot 入門", "スプリング ブート ニュウモン", "佐藤次郎");
+        index.add(4L, "実践Spring", "ジッセン スプリング", "山田花子");
+        return index;
+    }
+
+    private static List<Long> keys(NGramIndex.Result result) {
+        return result.hits().stream().map(NGramIndex.Hit::key).toList();
+    }
+
+    @Nested
+    class SearchTest {
+
+        @Test
+        void matchSubstringAcrossFields() {
+            NGramIndex index = newIndex();
+
+            assertEquals(List.of(1L, 2L, 3L), keys(index.search("入門", 10)));
+            assertEquals(List.of(1L, 4L), keys(index.search("山田", 10)));
+        }
+
+        @Test
+        void requireAllBigramsOfQuery() {
+            NGramIndex index = newIndex();
+
+            assertEquals(List.of(3L), keys(index.search("boot入門", 10)));
+            assertThat(index.search("Kotlin入門書", 10).total()).isEqualTo(0);
+        }
+
+        @Test
+        void normalizeQueryAndDocuments() {
+            NGramIndex index = newIndex();
+
+            assertEquals(List.of(3L, 4L), keys(index.search("すぷりんぐ", 10)));
+            assertEquals(List.of(3L, 4L), keys(index.search("ｽﾌﾟﾘﾝｸﾞ", 10)));
+            assertEquals(List.of(3L), keys(index.search("SPRING BOOT", 10)));
+        }
+
+        @Test
+        void rankByFieldWeight() {
+            NGramIndex index = new NGramIndex(3, 2, 1);
+            index.add(1L, "料理の本", null, "鈴木一郎");
+            index.add(2L, "鈴木一郎の料理", null, "佐藤花子");
+
+            NGramIndex.Result result = index.search("鈴木", 10);
+
+            // タイトルに含まれる2が著者に含まれる1より上
+            assertEquals(List.of(2L, 1L), keys(result));
+            assertThat(result.hits().get(0).score()).isEqualTo(3);
+            assertThat(result.hits().get(1).score()).isEqualTo(1);
+        }
+
+        @Test
+        void returnTopKAndTotal() {
+            NGramIndex index = new NGramIndex(3, 2, 1);
+            for (long key = 1; key <= 1000; key++) {
+                // 10件ごとにタイトルにも含める
+                index.add(key, key % 10 == 0 ? "Java入門 " + key : "本 " + key, null, "Java太郎");
+            }
+
+            NGramIndex.Result result = index.search("java", 5);
+
+            assertThat(result.total()).isEqualTo(1000);
+            assertEquals(List.of(10L, 20L, 30L, 40L, 50L), keys(result));
+        }
+
+        @Test
+        void returnEmptyForSingleCharacterQuery() {
+            NGramIndex index = newIndex();
+
+            assertThat(index.search("入", 10)).isEqualTo(NGramIndex.Result.EMPTY);
+            assertThat(index.search("  ", 10)).isEqualTo(NGramIndex.Result.EMPTY);
+        }
+    }
+
+    @Nested
+    class UpdateTest {
+
+        @Test
+        void replaceDocumentWithSameKey() {
+            NGramIndex index = newIndex();
+
+            index.add(1L, "Kotlin実践", "コトリン ジッセン", "山田太郎");
+
+            assertThat(index.size()).isEqualTo(4);
+            assertEquals(List.of(2L, 3L), keys(index.search("入門", 10)));
+            assertEquals(List.of(1L, 4L), keys(index.search("実践", 10)));
+        }
+
+        @Test
+        void excludeRemovedDocuments() {
+            NGramIndex index = newIndex();
+
+            assertThat(index.remove(2L)).isTrue();
+            assertThat(index.remove(2L)).isFalse();
+            assertThat(index.remove(99L)).isFalse();
+
+            assertThat(index.size()).isEqualTo(3);
+            NGramIndex.Result result = index.search("入門", 10);
+            assertThat(result.total()).isEqualTo(2);
+            assertEquals(List.of(1L, 3L), keys(result));
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.kien.Jbook.common.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class TextNormalizerTest {
+
+    @Test
+    void unifyHiraganaAndKatakana() {
+        assertThat(TextNormalizer.normalize("すぷりんぐ")).isEqualTo("スプリング");
+        assertThat(TextNormalizer.normalize("スプリング")).isEqualTo("スプリング");
+    }
+
+    @Test
+    void unifyFullWidthAndHalfWidth() {
+        assertThat(TextNormalizer.normalize("ｽﾌﾟﾘﾝｸﾞ")).isEqualTo("スプリング");
+        assertThat(TextNormalizer.normalize("Ｊａｖａ１７")).isEqualTo("java17");
+    }
+
+    @Test
+    void lowerCaseAndRemoveWhitespace() {
+        assertThat(TextNormalizer.normalize("Spring Boot　入門")).isEqualTo("springboot入門");
+    }
+
+    @Test
+    void returnEmptyForNull() {
+        assertThat(TextNormalizer.normalize(null)).isEqualTo("");
+    }
+}
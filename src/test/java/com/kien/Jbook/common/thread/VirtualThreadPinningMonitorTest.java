@@ -0,0 +1,54 @@
+package com.kien.Jbook.common.thread;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+public class VirtualThreadPinningMonitorTest {
+
+    private final Object lock = new Object();
+
+    private void sleepWhileHoldingMonitor() {
+        synchronized (lock) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Test
+    void recordPinnedSiteWhenSleepingInsideSynchronized() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        try (VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(Duration.ofMillis(10), registry)) {
+            monitor.start();
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+            while (monitor.getTotalEvents() == 0 && System.nanoTime() < deadline) {
+                Thread.ofVirtual().start(this::sleepWhileHoldingMonitor).join();
+                Thread.sleep(200);
+            }
+
+            assertThat(monitor.getTotalEvents()).isGreaterThan(0L);
+            assertThat(monitor.getTotalPinnedTime()).isGreaterThanOrEqualTo(Duration.ofMillis(10));
+            String site = monitor.getSites().get(0).site();
+            assertThat(site).contains("VirtualThreadPinningMonitorTest.sleepWhileHoldingMonitor");
+
+            // 発生箇所をタグにしてメトリクスにも記録する
+            Counter counter = registry.get(VirtualThreadPinningMonitor.COUNTER_NAME)
+                    .tag(VirtualThreadPinningMonitor.TAG_SITE, site).counter();
+            Timer timer = registry.get(VirtualThreadPinningMonitor.TIMER_NAME)
+                    .tag(VirtualThreadPinningMonitor.TAG_SITE, site).timer();
+            assertThat(counter.count()).isGreaterThan(0.0);
+            assertThat(timer.count()).isGreaterThan(0L);
+            assertThat(timer.totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(10.0);
+        }
+    }
+}
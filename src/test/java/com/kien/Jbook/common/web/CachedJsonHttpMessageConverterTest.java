@@ -0,0 +1,88 @@
+package com.kien.Jbook.common.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kien.Jbook.common.cache.BoundedCache;
+import com.kien.Jbook.common.cache.EvictionPolicy;
+import com.kien.Jbook.model.dto.book.BookView;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class CachedJsonHttpMessageConverterTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final BoundedCache<Long, CachedJsonHttpMessageConverter.Serialized<BookView>> cache = BoundedCache.weighted(
+            1024 * 1024, serialized -> serialized.bytes().length, Duration.ZERO, EvictionPolicy.LRU);
+    private final CachedJsonHttpMessageConverter<Long, BookView> converter = new CachedJsonHttpMessageConverter<>(
+            BookView.class, objectMapper, cache, BookView::getId);
+
+    private BookView bookView(Long id, LocalDateTime updatedAt) {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 4, 28, 10, 0);
+        return new BookView(
+                id, "Kotlin入門", "コトリン ニュウモン", "山田太郎", 1L, "技術出版社", 100L, "テストユーザー",
+                2500, false, createdAt, updatedAt);
+    }
+
+    @Nested
+    class WriteTest {
+
+        @Test
+        void writeSameJsonAsObjectMapper() throws Exception {
+            BookView bookView = bookView(1L, LocalDateTime.of(2025, 4, 28, 10, 0));
+            MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+
+            converter.write(bookView, MediaType.APPLICATION_JSON, outputMessage);
+
+            assertArrayEquals(objectMapper.writeValueAsBytes(bookView), outputMessage.getBodyAsBytes());
+            assertEquals(MediaType.APPLICATION_JSON, outputMessage.getHeaders().getContentType());
+        }
+
+        @Test
+        void reuseBytesForEqualValue() throws Exception {
+            LocalDateTime updatedAt = LocalDateTime.of(2025, 4, 28, 10, 0);
+            byte[] first = converter.toBytes(bookView(1L, updatedAt));
+            // DBから読み直した別のインスタンスでも、内容が同じであればキャッシュを使う
+            byte[] second = converter.toBytes(bookView(1L, updatedAt));
+
+            assertSame(first, second);
+            assertThat(cache.stats().hitCount()).isEqualTo(1L);
+        }
+
+        @Test
+        void serializeAgainWhenValueIsUpdated() throws Exception {
+            byte[] before = converter.toBytes(bookView(1L, LocalDateTime.of(2025, 4, 28, 10, 0)));
+            BookView updated = bookView(1L, LocalDateTime.of(2025, 5, 1, 9, 30));
+            byte[] after = converter.toBytes(updated);
+
+            assertNotSame(before, after);
+            assertArrayEquals(objectMapper.writeValueAsBytes(updated), after);
+            assertSame(after, converter.toBytes(updated));
+            assertThat(cache.size()).isEqualTo(1L);
+        }
+    }
+
+    @Nested
+    class SupportTest {
+
+        @Test
+        void writeOnlyTargetType() {
+            assertThat(converter.canWrite(BookView.class, MediaType.APPLICATION_JSON)).isTrue();
+            assertThat(converter.canWrite(BookView.class, null)).isTrue();
+            assertThat(converter.canWrite(BookView.class, MediaType.TEXT_PLAIN)).isFalse();
+            assertThat(converter.canWrite(List.class, MediaType.APPLICATION_JSON)).isFalse();
+            assertThat(converter.canRead(BookView.class, MediaType.APPLICATION_JSON)).isFalse();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.kien.Jbook.config;
+
+import com.kien.Jbook.common.jdbc.ReadRouting;
+import com.kien.Jbook.common.jdbc.ReplicaRoutingDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * プライマリ・レプリカを2つのH2のインメモリDBで代用する
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:config-primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "jbook.datasource.replicas[0].name=replica-1",
+        "jbook.datasource.replicas[0].url=jdbc:h2:mem:config-replica;DB_CLOSE_DELAY=-1",
+        "jbook.datasource.lag-query=",
+        "jbook.datasource.read-your-writes.window=1m"
+})
+public class DataSourceRoutingConfigTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ReadRouting readRouting;
+
+    @BeforeEach
+    void setUp() {
+        for (String name : List.of("primary", "replica")) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                    "jdbc:h2:mem:config-" + name + ";DB_CLOSE_DELAY=-1", "sa", ""));
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS marker (name VARCHAR(20))");
+            jdbcTemplate.update("DELETE FROM marker");
+            jdbcTemplate.update("INSERT INTO marker VALUES (?)", name);
+        }
+        ((ReplicaRoutingDataSource) dataSource).checkReplicas();
+    }
+
+    private String readMarker() {
+        return new JdbcTemplate(dataSource).queryForObject("SELECT name FROM marker", String.class);
+    }
+
+    @Test
+    void routeReadsToReplicaExceptRecentlyWrittenKeys() {
+        assertThat(dataSource).isInstanceOf(ReplicaRoutingDataSource.class);
+        assertEquals(List.of("replica-1"), ((ReplicaRoutingDataSource) dataSource).getHealthyReplicaNames());
+
+        assertEquals("primary", readMarker());
+        assertEquals("replica", readRouting.read(this::readMarker));
+        assertEquals("replica", readRouting.read(1L, this::readMarker));
+
+        readRouting.markWritten(1L);
+        assertEquals("primary", readRouting.read(1L, this::readMarker));
+        assertEquals("primary", readRouting.readAll(List.of(2L, 1L), this::readMarker));
+        assertEquals("replica", readRouting.readAll(List.of(2L, 3L), this::readMarker));
+    }
+}
@@ -0,0 +1,271 @@
+package com.kien.Jbook.config;
+
+import com.kien.Jbook.common.jdbc.ShardRoutingDataSource;
+import com.kien.Jbook.controller.ShardEndpoint;
+import com.kien.Jbook.mapper.BookMapper;
+import com.kien.Jbook.model.Book;
+import com.kien.Jbook.model.dto.book.BookCreate;
+import com.kien.Jbook.model.dto.book.BookPageQuery;
+import com.kien.Jbook.model.dto.book.BookSort;
+import com.kien.Jbook.model.dto.book.BookView;
+import com.kien.Jbook.model.dto.book.ExportFormat;
+import com.kien.Jbook.service.BookExportService;
+import com.kien.Jbook.service.BookService;
+import com.kien.Jbook.service.impl.BookBatchWriter;
+import com.kien.Jbook.service.impl.ShardRebalancer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.kien.Jbook.support.TestBooks.book;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 2つのシャードを2つのH2のインメモリDBで代用する
+ * バケット数4で、shard-0がID mod 4 = 0,1、shard-1がID mod 4 = 2,3の書籍を担当する
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shard-0;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "jbook.sharding.buckets=4",
+        "jbook.sharding.shards[0].name=shard-0",
+        "jbook.sharding.shards[0].url=jdbc:h2:mem:shard-0;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "jbook.sharding.shards[0].buckets=0-1",
+        "jbook.sharding.shards[1].name=shard-1",
+        "jbook.sharding.shards[1].url=jdbc:h2:mem:shard-1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "jbook.sharding.shards[1].buckets=2-3",
+        "jbook.sharding.rebalance-chunk-size=2",
+        // 出版社・ユーザーはテストごとに作り直すため、メモリ上の存在チェックは使わない
+        "jbook.fk-index.enabled=false"
+})
+public class ShardingConfigTest {
+    private static final List<String> SHARDS = List.of("shard-0", "shard-1");
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    @Autowired
+    private BookBatchWriter bookBatchWriter;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookExportService bookExportService;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @Autowired
+    private ShardEndpoint shardEndpoint;
+
+    @BeforeEach
+    void setUp() {
+        // 出版社・ユーザーは全シャードに複製する
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+                new ClassPathResource("schema.sql"),
+                new ClassPathResource("mapper/data/books/batch/publisher.sql"),
+                new ClassPathResource("mapper/data/books/batch/user.sql"));
+        for (String shard : SHARDS) {
+            populator.execute(shard(shard));
+        }
+    }
+
+    private static DataSource shard(String name) {
+        return new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    private static List<Long> idsOn(String name) {
+        return new JdbcTemplate(shard(name)).queryForList("SELECT id FROM books ORDER BY id", Long.class);
+    }
+
+    private void saveAll(long... ids) {
+        for (long id : ids) {
+            bookMapper.save(book(id, "書籍" + id, 1L));
+        }
+    }
+
+    @Nested
+    class MapperTest {
+
+        @Test
+        void replaceDataSourceAndBookMapper() {
+            assertThat(dataSource).isInstanceOf(ShardRoutingDataSource.class);
+            assertEquals(Map.of("shard-0", List.of(0, 1), "shard-1", List.of(2, 3)),
+                    shardEndpoint.assignments().get("shards"));
+        }
+
+        @Test
+        void saveAndGetOnShardOfId() {
+            saveAll(1L, 2L, 6L);
+
+            assertEquals(List.of(1L), idsOn("shard-0"));
+            assertEquals(List.of(2L, 6L), idsOn("shard-1"));
+            assertEquals("書籍6", bookMapper.getById(6L).getTitle());
+            assertEquals("書籍1", bookMapper.getBookById(1L).getTitle());
+        }
+
+        @Test
+        void rejectSaveWithoutId() {
+            assertThrows(IllegalStateException.class, () -> bookMapper.save(book(null, "Python入門", 1L)));
+        }
+
+        @Test
+        void getByIdsFromAllShards() {
+            saveAll(1L, 2L, 3L, 4L, 5L);
+
+            List<Long> ids = bookMapper.getByIds(List.of(5L, 2L, 4L, 9L)).stream().map(BookView::getId).sorted().toList();
+
+            assertEquals(List.of(2L, 4L, 5L), ids);
+        }
+
+        @Test
+        void mergePagesInIdOrder() {
+            saveAll(1L, 2L, 3L, 4L, 5L, 6L);
+
+            List<BookView> page = bookMapper.getPage(
+                    new BookPageQuery(BookSort.ID, 1L, null, null, null, null, null, 3));
+
+            assertEquals(List.of(2L, 3L, 4L), page.stream().map(BookView::getId).toList());
+        }
+    }
+
+    @Nested
+    class WriteTest {
+
+        @Test
+        void registerWithAllocatedIdOnItsShard() {
+            Long id = bookService.register(new BookCreate(null, "Go入門", null, "佐藤花子", 1L, 100L, 2500)).getId();
+
+            assertThat(id).isNotNull();
+            String owner = id % 4 < 2 ? "shard-0" : "shard-1";
+            assertEquals(List.of(id), idsOn(owner));
+            assertEquals("Go入門", bookService.getById(id).getTitle());
+        }
+
+        @Test
+        void rollbackAllShardsWhenAnyShardFails() {
+            List<Book> books = List.of(
+                    book(1L, "Python入門", 1L),
+                    book(2L, "Go入門", 1L),
+                    book(3L, "Rust入門", 999L)
+            );
+
+            assertThrows(DataIntegrityViolationException.class, () -> bookBatchWriter.insertAll(books, 10));
+
+            assertEquals(List.of(), idsOn("shard-0"));
+            assertEquals(List.of(), idsOn("shard-1"));
+            // 原因の行はシャードごとのトランザクションで特定し、ロールバックする
+            assertEquals(Set.of(2), bookBatchWriter.findFailures(books).keySet());
+            assertEquals(List.of(), idsOn("shard-0"));
+            assertEquals(List.of(), idsOn("shard-1"));
+        }
+
+        @Test
+        void commitAllShardsTogether() {
+            bookBatchWriter.insertAll(List.of(book(1L, "Python入門", 1L), book(2L, "Go入門", 1L)), 10);
+
+            assertEquals(List.of(1L), idsOn("shard-0"));
+            assertEquals(List.of(2L), idsOn("shard-1"));
+        }
+    }
+
+    @Nested
+    class RebalanceTest {
+
+        @Test
+        void moveMisplacedBooksToOwner() {
+            saveAll(1L, 4L);
+            // 割り当てを変える前にshard-0に登録された書籍（ID mod 4 = 2,3）
+            JdbcTemplate shard0 = new JdbcTemplate(shard("shard-0"));
+            for (long id : List.of(2L, 3L, 7L)) {
+                shard0.update("INSERT INTO books (id, title, publisher_id, user_id, is_deleted) VALUES (?, ?, 1, 100, ?)",
+                        id, "書籍" + id, id == 7L);
+            }
+
+            assertEquals(3, shardRebalancer.rebalance());
+
+            assertEquals(List.of(1L, 4L), idsOn("shard-0"));
+            assertEquals(List.of(2L, 3L, 7L), idsOn("shard-1"));
+            assertEquals("書籍3", bookMapper.getById(3L).getTitle());
+            assertEquals(0, shardRebalancer.rebalance());
+        }
+
+        @Test
+        void keepNewerRowWhenOwnerAlreadyHasCopy() {
+            saveAll(2L, 3L);
+            LocalDateTime deletedAt = LocalDateTime.of(2025, 5, 5, 10, 0);
+            bookMapper.softDelete(3L, deletedAt);
+            JdbcTemplate shard0 = new JdbcTemplate(shard("shard-0"));
+            // ID 2：複製した後に移動元で論理削除された（移動元の方が新しい）
+            shard0.update("INSERT INTO books (id, title, publisher_id, user_id, is_deleted, created_at, updated_at, deleted_at)"
+                    + " VALUES (2, '書籍2', 1, 100, TRUE, ?, ?, ?)", deletedAt.minusDays(1), deletedAt, deletedAt);
+            // ID 3：移動先で論理削除された後に残っている、移動元の古い行
+            shard0.update("INSERT INTO books (id, title, publisher_id, user_id, is_deleted, created_at, updated_at)"
+                    + " VALUES (3, '書籍3', 1, 100, FALSE, ?, ?)", deletedAt.minusDays(1), deletedAt.minusDays(1));
+
+            assertEquals(2, shardRebalancer.rebalance());
+
+            assertEquals(List.of(), idsOn("shard-0"));
+            assertEquals(List.of(2L, 3L), idsOn("shard-1"));
+            assertThat(bookMapper.getById(2L)).isNull();
+            assertThat(bookMapper.getById(3L)).isNull();
+            List<Map<String, Object>> rows = new JdbcTemplate(shard("shard-1")).queryForList(
+                    "SELECT is_deleted, deleted_at FROM books ORDER BY id");
+            assertEquals(true, rows.get(0).get("is_deleted"));
+            assertThat(rows.get(0).get("deleted_at")).isNotNull();
+            assertEquals(true, rows.get(1).get("is_deleted"));
+        }
+
+        @Test
+        void copyBucketWithoutDuplicatingReads() throws Exception {
+            saveAll(1L, 2L, 5L);
+
+            assertEquals(2, shardRebalancer.copyBucket(1, "shard-1"));
+            assertEquals(0, shardRebalancer.copyBucket(1, "shard-1"));
+
+            assertEquals(List.of(1L, 5L), idsOn("shard-0"));
+            assertEquals(List.of(1L, 2L, 5L), idsOn("shard-1"));
+            // 移動元・移動先の両方にある書籍は1件として返す
+            List<BookView> page = bookMapper.getPage(
+                    new BookPageQuery(BookSort.ID, null, null, null, null, null, null, 10));
+            assertEquals(List.of(1L, 2L, 5L), page.stream().map(BookView::getId).toList());
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertEquals(3, bookExportService.export(ExportFormat.NDJSON, out));
+            String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+            assertThat(lines[0]).contains("\"id\":1,");
+            assertThat(lines[1]).contains("\"id\":2,");
+            assertThat(lines[2]).contains("\"id\":5,");
+        }
+
+        @Test
+        void rejectUnknownBucketOrShard() {
+            assertThrows(IllegalArgumentException.class, () -> shardRebalancer.copyBucket(4, "shard-1"));
+            assertThrows(IllegalArgumentException.class, () -> shardRebalancer.copyBucket(1, "shard-9"));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.kien.Jbook.config;
+
+import com.kien.Jbook.common.jdbc.BulkheadDataSource;
+import com.kien.Jbook.common.jdbc.ShardRoutingDataSource;
+import com.kien.Jbook.common.thread.VirtualThreadPinningMonitor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.env.MockEnvironment;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.threads.virtual.enabled=true",
+        "jbook.virtual-threads.db-bulkhead.max-concurrent=3"
+})
+public class VirtualThreadConfigTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    void wrapDataSourceWithBulkheadInVirtualThreadMode() {
+        assertThat(dataSource).isInstanceOf(BulkheadDataSource.class);
+        assertThat(((BulkheadDataSource) dataSource).getMaxConcurrent()).isEqualTo(3);
+        assertThat(context.getBeanNamesForType(VirtualThreadPinningMonitor.class).length).isEqualTo(1);
+    }
+
+    @Test
+    void wrapEachShardPoolInsteadOfRoutingDataSource() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("spring.threads.virtual.enabled", "true")
+                .withProperty("jbook.virtual-threads.db-bulkhead.max-concurrent", "4");
+        DataSource shard0 = VirtualThreadConfig.bulkhead(environment, new DriverManagerDataSource());
+        DataSource shard1 = VirtualThreadConfig.bulkhead(environment, new DriverManagerDataSource());
+        ShardRoutingDataSource routing = new ShardRoutingDataSource(Map.of("shard-0", shard0, "shard-1", shard1));
+
+        Object processed = VirtualThreadConfig.bulkheadDataSourcePostProcessor(environment)
+                .postProcessAfterInitialization(routing, "dataSource");
+
+        assertThat(processed).isSameAs(routing);
+        assertThat(shard0).isInstanceOf(BulkheadDataSource.class);
+        assertThat(((BulkheadDataSource) shard1).getMaxConcurrent()).isEqualTo(4);
+    }
+
+    @Test
+    void keepPoolAsIsWithoutVirtualThreads() {
+        DataSource pool = new DriverManagerDataSource();
+
+        assertThat(VirtualThreadConfig.bulkhead(new MockEnvironment(), pool)).isSameAs(pool);
+    }
+}
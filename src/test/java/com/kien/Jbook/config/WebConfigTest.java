@@ -0,0 +1,61 @@
+package com.kien.Jbook.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kien.Jbook.common.cache.BoundedCache;
+import com.kien.Jbook.common.web.CachedJsonHttpMessageConverter;
+import com.kien.Jbook.model.dto.book.BookVersion;
+import com.kien.Jbook.model.dto.book.BookView;
+import com.kien.Jbook.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.json.JsonCompareMode;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "jbook.cache.book-view-json.enabled=true")
+@AutoConfigureMockMvc
+public class WebConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BoundedCache<Long, CachedJsonHttpMessageConverter.Serialized<BookView>> bookViewJsonCache;
+
+    @MockitoBean
+    private BookService bookService;
+
+    @Test
+    void writeBookViewFromJsonCache() throws Exception {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 4, 28, 10, 0);
+        BookView bookView = new BookView(
+                1L, "Kotlin入門", "コトリン ニュウモン", "山田太郎", 1L, "技術出版社", 100L, "テストユーザー",
+                2500, false, createdAt, createdAt);
+        when(bookService.getVersion(1L)).thenReturn(new BookVersion("\"v1\"", 0L));
+        when(bookService.getById(1L)).thenReturn(bookView);
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/books/1"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                    .andExpect(content().json(objectMapper.writeValueAsString(bookView), JsonCompareMode.STRICT));
+        }
+
+        assertThat(bookViewJsonCache.size()).isEqualTo(1L);
+        assertThat(bookViewJsonCache.stats().hitCount()).isEqualTo(1L);
+    }
+}
@@ -2,10 +2,24 @@ package com.kien.Jbook.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kien.Jbook.common.CustomException;
+import com.kien.Jbook.model.dto.book.BatchMode;
 import com.kien.Jbook.model.dto.book.BookBasicInfo;
+import com.kien.Jbook.model.dto.book.BookBatchItemResult;
+import com.kien.Jbook.model.dto.book.BookBatchResult;
 import com.kien.Jbook.model.dto.book.BookCreate;
+import com.kien.Jbook.model.dto.book.BookMultiView;
+import com.kien.Jbook.model.dto.book.BookPage;
+import com.kien.Jbook.model.dto.book.BookPageRequest;
+import com.kien.Jbook.model.dto.book.BookSearchResult;
+import com.kien.Jbook.model.dto.book.BookSuggestions;
+import com.kien.Jbook.model.dto.book.BookSort;
+import com.kien.Jbook.model.dto.book.BookVersion;
 import com.kien.Jbook.model.dto.book.BookView;
+import com.kien.Jbook.model.dto.book.ExportFormat;
+import com.kien.Jbook.service.BookExportService;
+import com.kien.Jbook.service.BookSearchService;
 import com.kien.Jbook.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,20 +28,28 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.json.JsonCompareMode;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -43,6 +65,15 @@ public class BookControllerTest {
     @MockitoBean
     private BookService bookService;
 
+    @MockitoBean
+    private BookExportService bookExportService;
+
+    @MockitoBean
+    private BookSearchService bookSearchService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Nested
     class GetBookByIdTest {
 
@@ -588,4 +619,462 @@ public class BookControllerTest {
             verify(bookService, times(1)).register(any());
         }
     }
+
+    @Nested
+    class GetBookByIdsTest {
+
+        @Test
+        void return200WithBooksAndMissingIds() throws Exception {
+            BookView bookView = new BookView(
+                    1L,
+                    "Kotlin入門",
+                    "コトリン ニュウモン",
+                    "山田太郎",
+                    1L,
+                    "技術出版社",
+                    100L,
+                    "テストユーザー",
+                    2500,
+                    false,
+                    LocalDateTime.of(2025, 4, 28, 10, 0),
+                    LocalDateTime.of(2025, 4, 28, 10, 0)
+            );
+            BookMultiView expectedResult = new BookMultiView(List.of(bookView), List.of(2L));
+            when(bookService.getByIds(List.of(1L, 2L))).thenReturn(expectedResult);
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/books").param("ids", "1,2"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().json(objectMapper.writeValueAsString(expectedResult)));
+
+            verify(bookService, times(1)).getByIds(List.of(1L, 2L));
+        }
+
+        @Test
+        void return200WhenIdsAreInBody() throws Exception {
+            BookMultiView expectedResult = new BookMultiView(List.of(), List.of(1L, 2L));
+            when(bookService.getByIds(List.of(1L, 2L))).thenReturn(expectedResult);
+
+            mockMvc.perform(post("/books/multi-get")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("[1, 2]"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().json(objectMapper.writeValueAsString(expectedResult)));
+
+            verify(bookService, times(1)).getByIds(List.of(1L, 2L));
+        }
+
+        @Test
+        void return400WhenIdTypeIsMismatched() throws Exception {
+            Map<String, String> expectedResponse = new HashMap<>();
+            expectedResponse.put("ids", "1,abc");
+            expectedResponse.put("message", "パラメータの型が間違っています");
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/books").param("ids", "1,abc"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().json(objectMapper.writeValueAsString(expectedResponse)));
+
+            verify(bookService, never()).getByIds(any());
+        }
+    }
+
+    @Nested
+    class RegisterBatchTest {
+
+        private final List<BookCreate> bookCreates = List.of(
+                new BookCreate(null, "Kotlin入門", "コトリン ニュウモン", "山田太郎", 1L, 100L, 2500),
+                new BookCreate(1L, "Java入門", "ジャバー ニュウモン", "田中太郎", 1L, 100L, 2000)
+        );
+
+        @Test
+        void return200WhenAllBooksAreRegistered() throws Exception {
+            BookBatchResult expectedResult = new BookBatchResult(
+                    BatchMode.ALL_OR_NOTHING,
+                    2,
+                    0,
+                    List.of(
+                            BookBatchItemResult.created(0, 10L, "Kotlin入門"),
+                            BookBatchItemResult.created(1, 1L, "Java入門")
+                    )
+            );
+            when(bookService.registerBatch(bookCreates, BatchMode.ALL_OR_NOTHING)).thenReturn(expectedResult);
+
+            mockMvc.perform(post("/books/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(bookCreates)))
+                    .andExpect(status().isOk())
+                    .andExpect(content().json(objectMapper.writeValueAsString(expectedResult)));
+
+            verify(bookService, times(1)).registerBatch(bookCreates, BatchMode.ALL_OR_NOTHING);
+        }
+
+        @Test
+        void returnStatusOfFailedRowInAllOrNothingMode() throws Exception {
+            BookBatchResult expectedResult = new BookBatchResult(
+                    BatchMode.ALL_OR_NOTHING,
+                    0,
+                    1,
+                    List.of(
+                            BookBatchItemResult.skipped(0, null, "Kotlin入門"),
+                            BookBatchItemResult.failed(1, 1L, "Java入門", new CustomException(
+                                    "プライマリキーが重複しました。別の値にしてください",
+                                    HttpStatus.CONFLICT,
+                                    "id",
+                                    1L
+                            ))
+                    )
+            );
+            when(bookService.registerBatch(bookCreates, BatchMode.ALL_OR_NOTHING)).thenReturn(expectedResult);
+
+            mockMvc.perform(post("/books/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(bookCreates)))
+                    .andExpect(status().isConflict())
+                    .andExpect(content().json(objectMapper.writeValueAsString(expectedResult)));
+        }
+
+        @Test
+        void return200WithFailedRowsInBestEffortMode() throws Exception {
+            BookBatchResult expectedResult = new BookBatchResult(
+                    BatchMode.BEST_EFFORT,
+                    1,
+                    1,
+                    List.of(
+                            BookBatchItemResult.created(0, 10L, "Kotlin入門"),
+                            BookBatchItemResult.failed(1, 1L, "Java入門", new CustomException(
+                                    "プライマリキーが重複しました。別の値にしてください",
+                                    HttpStatus.CONFLICT,
+                                    "id",
+                                    1L
+                            ))
+                    )
+            );
+            when(bookService.registerBatch(bookCreates, BatchMode.BEST_EFFORT)).thenReturn(expectedResult);
+
+            mockMvc.perform(post("/books/batch")
+                            .param("mode", "BEST_EFFORT")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(bookCreates)))
+                    .andExpect(status().isOk())
+                    .andExpect(content().json(objectMapper.writeValueAsString(expectedResult)));
+        }
+    }
+
+    @Nested
+    class ConditionalGetTest {
+        private final Long bookId = 1L;
+        private final String etag = "\"5d41402abc4b2a76b9719d911017c592\"";
+        // 2025-04-28T10:00:00Z
+        private final long lastModified = 1745834400000L;
+
+        private BookView bookView() {
+            return new BookView(bookId, "Kotlin入門", "コトリン ニュウモン", "山田太郎", 1L, "技術出版社", 100L,
+                    "テストユーザー", 2500, false, LocalDateTime.of(2025, 4, 28, 10, 0), LocalDateTime.of(2025, 4, 28, 10, 0));
+        }
+
+        @Test
+        void return200WithValidators() throws Exception {
+            when(bookService.getVersion(bookId)).thenReturn(new BookVersion(etag, lastModified));
+            when(bookService.getById(bookId)).thenReturn(bookView());
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/books/" + bookId))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", etag))
+                    .andExpect(header().string("Last-Modified", "Mon, 28 Apr 2025 10:00:00 GMT"))
+                    .andExpect(content().json(objectMapper.writeValueAsString(bookView())));
+        }
+
+        @Test
+        void return304WithoutLoadingBookWhenEtagMatches() throws Exception {
+            when(bookService.getVersion(bookId)).thenReturn(new BookVersion(etag, lastModified));
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/books/" + bookId).header("If-None-Match", etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string("ETag", etag))
+                    .andExpect(content().string(""));
+
+            verify(bookService, never()).getById(any());
+        }
+
+        @Test
+        void return304WhenNotModifiedSince() throws Exception {
+            when(bookService.getVersion(bookId)).thenReturn(new BookVersion(etag, lastModified));
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/books/" + bookId)
+                            .header("If-Modified-Since", "Mon, 28 Apr 2025 10:00:00 GMT"))
+                    .andExpect(status().isNotModified());
+
+            verify(bookService, never()).getById(any());
+        }
+
+        @Test
+        void return200WhenEtagDoesNotMatch() throws Exception {
+            when(bookService.getVersion(bookId)).thenReturn(new BookVersion(etag, lastModified));
+            when(bookService.getById(bookId)).thenReturn(bookView());
+
+            // If-None-MatchがIf-Modified-Sinceより優先される
+            mockMvc.perform(MockMvcRequestBuilders.get("/books/" + bookId)
+                            .header("If-None-Match", "\"old\"")
+                            .header("If-Modified-Since", "Mon, 28 Apr 2025 10:00:00 GMT"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", etag));
+
+            verify(bookService, times(1)).getById(bookId);
+        }
+    }
+
+    @Nested
+    class SearchTest {
+
+        @Test
+        void return200WithSearchResult() throws Exception {
+            BookSearchResult expectedResult = new BookSearchResult(List.of(), 0);
+            when(bookSearchService.search("すぷりんぐ", 10)).thenReturn(expectedResult);
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/books/search")
+                            .param("q", "すぷりんぐ")
+                            .param("limit", "10"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().json(objectMapper.writeValueAsString(expectedResult)));
+
+            verify(bookSearchService, times(1)).search("すぷりんぐ", 10);
+        }
+
+        @Test
+        void return503WhenIndexIsNotReady() throws Exception {
+            when(bookSearchService.search("入門", null)).thenThrow(new CustomException(
+                    "検索インデックスを準備中です。時間をおいて再度実行してください。",
+                    HttpStatus.SERVICE_UNAVAILABLE,
+                    null,
+                    null
+            ));
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/books/search").param("q", "入門"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(content().json("{\"message\":\"検索インデックスを準備中です。時間をおいて再度実行してください。\"}"));
+        }
+    }
+
+    @Nested
+    class SuggestTest {
+
+        @Test
+        void return200WithSuggestions() throws Exception {
+            BookSuggestions expectedResult = new BookSuggestions("すぷ", List.of("Spring入門"));
+            when(bookSearchService.suggest("すぷ", null)).thenReturn(expectedResult);
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/books/suggest").param("prefix", "すぷ"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().json("{\"prefix\":\"すぷ\",\"suggestions\":[\"Spring入門\"]}"));
+        }
+    }
+
+    @Nested
+    class ExportTest {
+
+        @Test
+        void streamNdjsonByDefault() throws Exception {
+            doAnswer(invocation -> {
+                OutputStream out = invocation.getArgument(1);
+                out.write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+                return 1L;
+            }).when(bookExportService).export(eq(ExportFormat.NDJSON), any());
+
+            MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/books/export"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(mvcResult))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("Content-Type", "application/x-ndjson;charset=UTF-8"))
+                    .andExpect(header().string("Content-Disposition", "attachment; filename=\"books.ndjson\""))
+                    .andExpect(content().string("{\"id\":1}\n"));
+        }
+
+        @Test
+        void streamCsvWhenFormatIsCsv() throws Exception {
+            MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/books/export").param("format", "CSV"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mockMvc.perform(asyncDispatch(mvcResult))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("Content-Disposition", "attachment; filename=\"books.csv\""));
+
+            verify(bookExportService, times(1)).export(eq(ExportFormat.CSV), any());
+        }
+    }
+
+    @Nested
+    class GetPageTest {
+
+        @Test
+        void return200WithPage() throws Exception {
+            BookPage expectedResult = new BookPage(List.of(), "bmV4dA");
+            when(bookService.getPage(any())).thenReturn(expectedResult);
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/books")
+                            .param("limit", "10")
+                            .param("sort", "CREATED_AT")
+                            .param("publisherId", "1")
+                            .param("after", "Y3Vyc29y"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().json(objectMapper.writeValueAsString(expectedResult)));
+
+            BookPageRequest expectedRequest = new BookPageRequest();
+            expectedRequest.setLimit(10);
+            expectedRequest.setSort(BookSort.CREATED_AT);
+            expectedRequest.setPublisherId(1L);
+            expectedRequest.setAfter("Y3Vyc29y");
+            verify(bookService, times(1)).getPage(expectedRequest);
+            verify(bookService, never()).getByIds(any());
+        }
+
+        @Test
+        void return400WhenLimitTypeIsMismatched() throws Exception {
+            mockMvc.perform(MockMvcRequestBuilders.get("/books").param("limit", "abc"))
+                    .andExpect(status().isBadRequest());
+
+            verify(bookService, never()).getPage(any());
+        }
+    }
+
+    @Nested
+    class IdempotencyTest {
+
+        private BookCreate bookCreate(String title) {
+            return new BookCreate(null, title, "コトリン ニュウモン", "山田太郎", 1L, 100L, 2500);
+        }
+
+        @Test
+        void registerOnceAndReplayWhenSameKeyIsSent() throws Exception {
+            BookCreate bookCreate = bookCreate("Kotlin入門");
+            BookBasicInfo expectedResult = new BookBasicInfo(1L, "Kotlin入門");
+            when(bookService.register(bookCreate)).thenReturn(expectedResult);
+
+            mockMvc.perform(post("/books")
+                            .header(BookController.IDEMPOTENCY_KEY, "register-once")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(bookCreate)))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(BookController.IDEMPOTENT_REPLAYED, "false"))
+                    .andExpect(content().json(objectMapper.writeValueAsString(expectedResult)));
+            mockMvc.perform(post("/books")
+                            .header(BookController.IDEMPOTENCY_KEY, "register-once")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(bookCreate)))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(BookController.IDEMPOTENT_REPLAYED, "true"))
+                    .andExpect(content().json(objectMapper.writeValueAsString(expectedResult)));
+
+            verify(bookService, times(1)).register(any());
+        }
+
+        @Test
+        void replayClientErrorWhenSameKeyIsSent() throws Exception {
+            BookCreate bookCreate = bookCreate("Kotlin入門");
+            when(bookService.register(bookCreate))
+                    .thenThrow(new CustomException("duplicate", HttpStatus.CONFLICT, "id", 1L));
+
+            for (int i = 0; i < 2; i++) {
+                mockMvc.perform(post("/books")
+                                .header(BookController.IDEMPOTENCY_KEY, "replay-error")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(bookCreate)))
+                        .andExpect(status().isConflict());
+            }
+
+            verify(bookService, times(1)).register(any());
+        }
+
+        @Test
+        void return422WhenSameKeyIsSentWithDifferentBody() throws Exception {
+            when(bookService.register(any())).thenReturn(new BookBasicInfo(1L, "Kotlin入門"));
+
+            mockMvc.perform(post("/books")
+                            .header(BookController.IDEMPOTENCY_KEY, "reused-key")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(bookCreate("Kotlin入門"))))
+                    .andExpect(status().isOk());
+            mockMvc.perform(post("/books")
+                            .header(BookController.IDEMPOTENCY_KEY, "reused-key")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(bookCreate("Java入門"))))
+                    .andExpect(status().isUnprocessableEntity());
+
+            verify(bookService, times(1)).register(any());
+        }
+
+        @Test
+        void return400WhenKeyIsBlank() throws Exception {
+            mockMvc.perform(post("/books")
+                            .header(BookController.IDEMPOTENCY_KEY, " ")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(bookCreate("Kotlin入門"))))
+                    .andExpect(status().isBadRequest());
+
+            verify(bookService, never()).register(any());
+        }
+    }
+
+    @Nested
+    class DeleteTest {
+
+        @Test
+        void return204WhenDeleted() throws Exception {
+            mockMvc.perform(MockMvcRequestBuilders.delete("/books/1"))
+                    .andExpect(status().isNoContent())
+                    .andExpect(content().string(""));
+
+            verify(bookService, times(1)).delete(1L);
+        }
+
+        @Test
+        void return404WhenNotFound() throws Exception {
+            doThrow(new CustomException("指定された書籍が存在しません。", HttpStatus.NOT_FOUND, "id", 999L))
+                    .when(bookService).delete(999L);
+
+            mockMvc.perform(MockMvcRequestBuilders.delete("/books/999"))
+                    .andExpect(status().isNotFound())
+                    .andExpect(content().string("{\"id\":999,\"message\":\"指定された書籍が存在しません。\"}"));
+        }
+    }
+
+    @Nested
+    class ErrorResponseTest {
+
+        @Test
+        void returnSameJsonShapeForCustomException() throws Exception {
+            when(bookService.getVersion(5L)).thenReturn(null);
+            when(bookService.getById(5L))
+                    .thenThrow(new CustomException("データベースが混み合っています。", HttpStatus.SERVICE_UNAVAILABLE, "id", 5L));
+            double before = meterRegistry.counter("jbook.errors",
+                    "type", "CustomException", "status", "503", "field", "id").count();
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/books/5"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Content-Type", "application/json"))
+                    .andExpect(content().string("{\"id\":5,\"message\":\"データベースが混み合っています。\"}"));
+
+            assertEquals(before + 1, meterRegistry.counter("jbook.errors",
+                    "type", "CustomException", "status", "503", "field", "id").count());
+        }
+
+        @Test
+        void returnMessageOnlyWhenFieldIsNull() throws Exception {
+            when(bookService.getVersion(6L)).thenReturn(null);
+            when(bookService.getById(6L))
+                    .thenThrow(new CustomException("書籍情報が正しく登録されませんでした。", HttpStatus.INTERNAL_SERVER_ERROR, null, null));
+
+            mockMvc.perform(MockMvcRequestBuilders.get("/books/6"))
+                    .andExpect(status().isInternalServerError())
+                    .andExpect(content().string("{\"message\":\"書籍情報が正しく登録されませんでした。\"}"));
+        }
+
+        @Test
+        void returnSameJsonShapeForTypeMismatch() throws Exception {
+            mockMvc.perform(MockMvcRequestBuilders.get("/books/abc"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().json("{\"id\":\"abc\",\"message\":\"パラメータの型が間違っています\"}", JsonCompareMode.STRICT));
+        }
+    }
 }
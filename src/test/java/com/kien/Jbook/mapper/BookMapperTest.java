@@ -1,20 +1,30 @@
 package com.kien.Jbook.mapper;
 
 import com.kien.Jbook.model.Book;
+import com.kien.Jbook.model.dto.BookVersionRow;
+import com.kien.Jbook.model.dto.book.BookPageQuery;
+import com.kien.Jbook.model.dto.book.BookSort;
 import com.kien.Jbook.model.dto.book.BookView;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.Configuration;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.jdbc.Sql;
 
+import java.io.InputStream;
 import java.sql.SQLIntegrityConstraintViolationException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -427,4 +437,271 @@ public class BookMapperTest {
             assertThat(errorCode).isEqualTo(1452);
         }
     }
+
+    @Nested
+    @Sql(scripts = {"/schema.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+    @Sql(
+            scripts = {
+                    "/mapper/data/books/getById/publisher.sql",
+                    "/mapper/data/books/getById/user.sql",
+                    "/mapper/data/books/getById/books.sql"
+            },
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS
+    )
+    class GetVersionTest {
+
+        @Test
+        void returnUpdatedAtOfBookAndVisiblePublisherAndUser() {
+            BookVersionRow result = bookMapper.getVersion(1L);
+
+            assertThat(result.getId()).isEqualTo(1L);
+            assertThat(result.getUpdatedAt()).isEqualTo(LocalDateTime.of(2023, 1, 1, 10, 0));
+            assertThat(result.getPublisherUpdatedAt()).isNotNull();
+            assertThat(result.getUserUpdatedAt()).isNotNull();
+        }
+
+        @Test
+        void returnNullForLogicallyDeletedPublisherOrUser() {
+            // 3: 出版社が論理削除済み、4: ユーザーが論理削除済み
+            assertThat(bookMapper.getVersion(3L).getPublisherUpdatedAt()).isNull();
+            assertThat(bookMapper.getVersion(4L).getUserUpdatedAt()).isNull();
+        }
+
+        @Test
+        void returnNullWhenBookIsLogicallyDeleted() {
+            assertThat(bookMapper.getVersion(2L)).isNull();
+            assertThat(bookMapper.getVersion(999L)).isNull();
+        }
+    }
+
+    @Nested
+    @Sql(scripts = {"/schema.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+    @Sql(
+            scripts = {
+                    "/mapper/data/books/getById/publisher.sql",
+                    "/mapper/data/books/getById/user.sql",
+                    "/mapper/data/books/getById/books.sql"
+            },
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS
+    )
+    class GetBookByIdTest {
+
+        @Test
+        void returnBookWithoutJoinedNames() {
+            Book result = bookMapper.getBookById(3L);
+
+            // 出版社が論理削除済みでも、書籍の外部キーはそのまま返す
+            assertThat(result).isEqualTo(
+                    new Book(
+                            3L,
+                            "Java入門",
+                            "ジャバー ニュウモン",
+                            "田中太郎",
+                            2L,
+                            100L,
+                            2000,
+                            false,
+                            LocalDateTime.of(2023, 1, 1, 10, 0),
+                            LocalDateTime.of(2023, 1, 1, 10, 0)
+                    )
+            );
+        }
+
+        @Test
+        void returnNullWhenBookIsLogicallyDeleted() {
+            assertThat(bookMapper.getBookById(2L)).isNull();
+            assertThat(bookMapper.getBookById(999L)).isNull();
+        }
+    }
+
+    @Nested
+    @Sql(scripts = {"/schema.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+    @Sql(
+            scripts = {
+                    "/mapper/data/books/getByIds/publisher.sql",
+                    "/mapper/data/books/getByIds/user.sql",
+                    "/mapper/data/books/getByIds/books.sql"
+            },
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS
+    )
+    class GetByIdsTest {
+
+        @Test
+        void returnOnlyExistingAndNotDeletedBooks() {
+            // id=2は論理削除済み、id=999は存在しない
+            List<BookView> result = bookMapper.getByIds(List.of(1L, 2L, 3L, 4L, 999L));
+
+            List<Long> resultIds = result.stream().map(BookView::getId).sorted().toList();
+            assertThat(resultIds).isEqualTo(List.of(1L, 3L, 4L));
+        }
+
+        @Test
+        void returnBookViewWithJoinedNames() {
+            List<BookView> result = bookMapper.getByIds(List.of(1L));
+
+            assertThat(result.size()).isEqualTo(1);
+            assertThat(result.get(0)).isEqualTo(
+                    new BookView(
+                            1L,
+                            "Kotlin入門",
+                            "コトリン ニュウモン",
+                            "山田太郎",
+                            1L,
+                            "技術出版社",
+                            100L,
+                            "テストユーザー",
+                            2500,
+                            false,
+                            LocalDateTime.of(2023, 1, 1, 10, 0),
+                            LocalDateTime.of(2023, 1, 1, 10, 0)
+                    )
+            );
+        }
+
+        @Test
+        void returnEmptyListWhenNoBookMatches() {
+            List<BookView> result = bookMapper.getByIds(List.of(2L, 999L));
+            assertThat(result.isEmpty()).isTrue();
+        }
+    }
+
+    @Nested
+    @Sql(scripts = {"/schema.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+    @Sql(
+            scripts = {
+                    "/mapper/data/books/exportAll/publisher.sql",
+                    "/mapper/data/books/exportAll/user.sql",
+                    "/mapper/data/books/exportAll/books.sql"
+            },
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS
+    )
+    class ExportAllTest {
+
+        @Test
+        void returnNotDeletedBooksInIdOrder() throws Exception {
+            List<Long> ids = new ArrayList<>();
+            try (Cursor<BookView> cursor = bookMapper.exportAll()) {
+                for (BookView bookView : cursor) {
+                    ids.add(bookView.getId());
+                }
+            }
+            // id=2は論理削除済み
+            assertThat(ids).isEqualTo(List.of(1L, 3L, 4L));
+        }
+
+        @Test
+        void streamRowsOnlyForExportOnMySql() throws Exception {
+            Configuration configuration = new Configuration();
+            configuration.setDatabaseId("mysql");
+            configuration.getTypeAliasRegistry().registerAliases("com.kien.Jbook.model");
+            try (InputStream in = new ClassPathResource("mappers/BookMapper.xml").getInputStream()) {
+                new XMLMapperBuilder(in, configuration, "mappers/BookMapper.xml", configuration.getSqlFragments()).parse();
+            }
+
+            assertThat(configuration.getMappedStatement(BookMapper.class.getName() + ".exportAll").getFetchSize())
+                    .isEqualTo(Integer.MIN_VALUE);
+            assertThat(configuration.getMappedStatement(BookMapper.class.getName() + ".getPage").getFetchSize())
+                    .isNull();
+        }
+    }
+
+    @Nested
+    @Sql(scripts = {"/schema.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+    @Sql(
+            scripts = {
+                    "/mapper/data/books/getPage/publisher.sql",
+                    "/mapper/data/books/getPage/user.sql",
+                    "/mapper/data/books/getPage/books.sql"
+            },
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS
+    )
+    class GetPageTest {
+
+        @Autowired
+        BooksTestMapper booksTestMapper;
+
+        private List<Long> ids(List<BookView> books) {
+            return books.stream().map(BookView::getId).toList();
+        }
+
+        @Test
+        void returnFirstPageOrderedById() {
+            List<BookView> result = bookMapper.getPage(
+                    new BookPageQuery(BookSort.ID, null, null, null, null, null, null, 3));
+            // id=2は論理削除済み
+            assertThat(ids(result)).isEqualTo(List.of(1L, 3L, 4L));
+        }
+
+        @Test
+        void returnRowsAfterCursorOrderedById() {
+            List<BookView> result = bookMapper.getPage(
+                    new BookPageQuery(BookSort.ID, 4L, null, null, null, null, null, 3));
+            assertThat(ids(result)).isEqualTo(List.of(5L, 6L));
+        }
+
+        @Test
+        void returnRowsAfterCursorOrderedByCreatedAtAndId() {
+            // (2023-01-01 10:00, 3), (2023-01-01 10:00, 5), (2023-02-01 10:00, 4), (2023-02-01 10:00, 6), (2023-03-01 10:00, 1)
+            List<BookView> result = bookMapper.getPage(new BookPageQuery(
+                    BookSort.CREATED_AT, 5L, LocalDateTime.of(2023, 1, 1, 10, 0), null, null, null, null, 3));
+            assertThat(ids(result)).isEqualTo(List.of(4L, 6L, 1L));
+        }
+
+        @Test
+        void returnRowsAfterNullCreatedAtCursor() {
+            booksTestMapper.clearCreatedAt(3L);
+            booksTestMapper.clearCreatedAt(5L);
+
+            // 登録日時がNULLの行は先頭に並ぶ: (NULL, 3), (NULL, 5), (2023-02-01 10:00, 4), (2023-02-01 10:00, 6), (2023-03-01 10:00, 1)
+            List<BookView> first = bookMapper.getPage(
+                    new BookPageQuery(BookSort.CREATED_AT, null, null, null, null, null, null, 2));
+            assertThat(ids(first)).isEqualTo(List.of(3L, 5L));
+            List<BookView> result = bookMapper.getPage(
+                    new BookPageQuery(BookSort.CREATED_AT, 3L, null, null, null, null, null, 3));
+            assertThat(ids(result)).isEqualTo(List.of(5L, 4L, 6L));
+        }
+
+        @Test
+        void returnRowsMatchingFilters() {
+            List<BookView> result = bookMapper.getPage(
+                    new BookPageQuery(BookSort.ID, null, null, 1L, 100L, 2500, 3000, 10));
+            assertThat(ids(result)).isEqualTo(List.of(1L, 5L));
+        }
+    }
+
+    @Nested
+    @Sql(scripts = {"/schema.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+    @Sql(
+            scripts = {
+                    "/mapper/data/books/getById/publisher.sql",
+                    "/mapper/data/books/getById/user.sql",
+                    "/mapper/data/books/getById/books.sql"
+            },
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS
+    )
+    class SoftDeleteTest {
+
+        @Test
+        void markDeletedWithDeletedAt() {
+            LocalDateTime deletedAt = LocalDateTime.of(2025, 5, 1, 10, 0);
+
+            int result = bookMapper.softDelete(1L, deletedAt);
+
+            assertThat(result).isEqualTo(1);
+            assertThat(bookMapper.getById(1L)).isNull();
+            assertThat(bookMapper.getBookById(1L)).isNull();
+        }
+
+        @Test
+        void returnZeroWhenAlreadyDeleted() {
+            int result = bookMapper.softDelete(2L, LocalDateTime.of(2025, 5, 1, 10, 0));
+            assertThat(result).isEqualTo(0);
+        }
+
+        @Test
+        void returnZeroWhenBookDoesNotExist() {
+            int result = bookMapper.softDelete(999L, LocalDateTime.of(2025, 5, 1, 10, 0));
+            assertThat(result).isEqualTo(0);
+        }
+    }
 }
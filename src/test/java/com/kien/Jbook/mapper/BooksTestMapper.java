@@ -11,4 +11,7 @@ public interface BooksTestMapper {
 
     @Update("ALTER TABLE books AUTO_INCREMENT = 5")
     void resetAutoIncrement();
+
+    @Update("UPDATE books SET created_at = NULL WHERE id = #{id}")
+    void clearCreatedAt(long id);
 }
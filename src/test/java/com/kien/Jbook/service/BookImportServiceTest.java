@@ -0,0 +1,184 @@
+package com.kien.Jbook.service;
+
+import com.kien.Jbook.common.CustomException;
+import com.kien.Jbook.model.dto.book.BatchMode;
+import com.kien.Jbook.model.dto.book.BookBatchItemResult;
+import com.kien.Jbook.model.dto.book.BookBatchResult;
+import com.kien.Jbook.model.dto.book.BookCreate;
+import com.kien.Jbook.model.dto.book.BookImportJobView;
+import com.kien.Jbook.model.dto.book.ImportFormat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(properties = {"jbook.import.chunk-size=2", "jbook.import.max-line-length=200"})
+public class BookImportServiceTest {
+
+    @MockitoBean
+    private BookService bookService;
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    /**
+     * publisherId=999の行だけ外部キーエラーになるように登録処理をモックする
+     */
+    @BeforeEach
+    void mockRegisterBatch() {
+        when(bookService.registerBatch(any(), eq(BatchMode.BEST_EFFORT))).thenAnswer(invocation -> {
+            List<BookCreate> bookCreates = invocation.getArgument(0);
+            List<BookBatchItemResult> results = new ArrayList<>();
+            int failed = 0;
+            for (int i = 0; i < bookCreates.size(); i++) {
+                BookCreate bookCreate = bookCreates.get(i);
+                if (bookCreate.getPublisherId() != null && bookCreate.getPublisherId() == 999L) {
+                    failed++;
+                    results.add(BookBatchItemResult.failed(i, null, bookCreate.getTitle(), new CustomException(
+                            "存在しない外部キーです。",
+                            HttpStatus.NOT_FOUND,
+                            "publisherId",
+                            999L
+                    )));
+                } else {
+                    results.add(BookBatchItemResult.created(i, 100L + i, bookCreate.getTitle()));
+                }
+            }
+            return new BookBatchResult(BatchMode.BEST_EFFORT, bookCreates.size() - failed, failed, results);
+        });
+    }
+
+    private BookImportJobView awaitCompletion(String jobId) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            BookImportJobView job = bookImportService.getJob(jobId);
+            if ("COMPLETED".equals(job.getStatus()) || "FAILED".equals(job.getStatus())) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("import job did not finish");
+    }
+
+    @Nested
+    class SubmitTest {
+
+        @Test
+        void importCsvAndReportRejectedRows() throws Exception {
+            String csv = """
+                    id,title,title_kana,author,publisher_id,user_id,price
+                    ,Kotlin入門,コトリン ニュウモン,山田太郎,1,100,2500
+                    ,"Java入門, 第2版",ジャバー ニュウモン,田中太郎,999,100,2000
+                    ,Go入門,ゴー ニュウモン,山本一郎,1,100,abc
+                    ,Rust入門,ラスト ニュウモン,佐藤花子,1,100,3000
+                    """;
+            MockMultipartFile file = new MockMultipartFile(
+                    "file", "books.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+
+            BookImportJobView submitted = bookImportService.submit(file, null);
+            BookImportJobView job = awaitCompletion(submitted.getJobId());
+
+            assertEquals("COMPLETED", job.getStatus());
+            assertEquals(ImportFormat.CSV, job.getFormat());
+            assertEquals(4, job.getRowsRead());
+            assertEquals(2, job.getRowsInserted());
+            assertEquals(2, job.getRowsRejected());
+            assertEquals(100.0, job.getProgress());
+            assertThat(job.getRejectedRows().stream().map(r -> r.getRow()).sorted().toList())
+                    .isEqualTo(List.of(2L, 3L));
+            verify(bookService, times(2)).registerBatch(any(), eq(BatchMode.BEST_EFFORT));
+        }
+
+        @Test
+        void importNdjson() throws Exception {
+            String ndjson = """
+                    {"title":"Kotlin入門","publisherId":1,"userId":100,"price":2500}
+
+                    {"title":"Java入門","publisherId":999,"userId":100,"price":2000}
+                    {"title":"Go入門","publisherId":1,"userId":100,"price":"abc"}
+                    """;
+            MockMultipartFile file = new MockMultipartFile(
+                    "file", "books.ndjson", "application/x-ndjson", ndjson.getBytes(StandardCharsets.UTF_8));
+
+            BookImportJobView job = awaitCompletion(bookImportService.submit(file, null).getJobId());
+
+            assertEquals("COMPLETED", job.getStatus());
+            assertEquals(3, job.getRowsRead());
+            assertEquals(1, job.getRowsInserted());
+            assertEquals(2, job.getRowsRejected());
+            assertThat(job.getRejectedRows().stream().map(r -> r.getRow()).sorted().toList())
+                    .isEqualTo(List.of(3L, 4L));
+        }
+
+        @Test
+        void rejectLinesLongerThanMaxLength() throws Exception {
+            String ndjson = "{\"title\":\"Kotlin入門\",\"publisherId\":1,\"userId\":100,\"price\":2500}\n"
+                    + "{\"title\":\"" + "x".repeat(10_000) + "\",\"publisherId\":1,\"userId\":100}\n"
+                    + "{\"title\":\"Go入門\",\"publisherId\":1,\"userId\":100,\"price\":2000}\n";
+            MockMultipartFile file = new MockMultipartFile(
+                    "file", "books.ndjson", "application/x-ndjson", ndjson.getBytes(StandardCharsets.UTF_8));
+
+            BookImportJobView job = awaitCompletion(bookImportService.submit(file, null).getJobId());
+
+            assertEquals("COMPLETED", job.getStatus());
+            assertEquals(3, job.getRowsRead());
+            assertEquals(2, job.getRowsInserted());
+            assertEquals(1, job.getRowsRejected());
+            assertEquals(2L, job.getRejectedRows().get(0).getRow());
+            assertEquals(HttpStatus.BAD_REQUEST.value(), job.getRejectedRows().get(0).getStatus());
+        }
+
+        @Test
+        void rejectCsvRecordsLongerThanMaxLength() throws Exception {
+            String csv = "id,title,title_kana,author,publisher_id,user_id,price\n"
+                    + ",Kotlin入門,コトリン ニュウモン,山田太郎,1,100,2500\n"
+                    + ",\"" + "x".repeat(10_000) + "\",,,1,100,2000\n"
+                    + ",Go入門,ゴー ニュウモン,山本一郎,1,100,3000\n";
+            MockMultipartFile file = new MockMultipartFile(
+                    "file", "books.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8));
+
+            BookImportJobView job = awaitCompletion(bookImportService.submit(file, null).getJobId());
+
+            assertEquals("COMPLETED", job.getStatus());
+            assertEquals(3, job.getRowsRead());
+            assertEquals(2, job.getRowsInserted());
+            assertEquals(1, job.getRowsRejected());
+            assertEquals(2L, job.getRejectedRows().get(0).getRow());
+        }
+
+        @Test
+        void throwCustomExceptionWhenFormatIsUnknown() {
+            MockMultipartFile file = new MockMultipartFile(
+                    "file", "books.txt", "text/plain", "abc".getBytes(StandardCharsets.UTF_8));
+
+            CustomException e = assertThrows(CustomException.class, () -> bookImportService.submit(file, null));
+            assertEquals("format", e.getField());
+            assertEquals(HttpStatus.BAD_REQUEST, e.getHttpStatus());
+        }
+    }
+
+    @Nested
+    class GetJobTest {
+
+        @Test
+        void throwCustomExceptionWhenJobDoesNotExist() {
+            CustomException e = assertThrows(CustomException.class, () -> bookImportService.getJob("unknown"));
+            assertEquals("jobId", e.getField());
+            assertEquals(HttpStatus.NOT_FOUND, e.getHttpStatus());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.kien.Jbook.service;
+
+import com.kien.Jbook.common.CustomException;
+import com.kien.Jbook.common.search.NGramIndex;
+import com.kien.Jbook.model.dto.book.BookMultiView;
+import com.kien.Jbook.model.dto.book.BookSearchResult;
+import com.kien.Jbook.model.dto.book.BookSuggestions;
+import com.kien.Jbook.model.dto.book.BookView;
+import com.kien.Jbook.service.impl.BookSearchIndex;
+import com.kien.Jbook.service.impl.BookSuggestIndex;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+public class BookSearchServiceTest {
+
+    @MockitoBean
+    private BookSearchIndex bookSearchIndex;
+
+    @MockitoBean
+    private BookSuggestIndex bookSuggestIndex;
+
+    @MockitoBean
+    private BookService bookService;
+
+    @Autowired
+    private BookSearchService bookSearchService;
+
+    private BookView bookView(Long id, String title) {
+        LocalDateTime time = LocalDateTime.of(2023, 1, 1, 10, 0);
+        return new BookView(id, title, null, "山田太郎", 1L, "技術出版社", 100L, "テストユーザー", 2500, false, time, time);
+    }
+
+    @Nested
+    class SearchTest {
+
+        @Test
+        void returnBooksInScoreOrder() {
+            when(bookSearchIndex.search("入門", 20)).thenReturn(new NGramIndex.Result(
+                    3,
+                    List.of(new NGramIndex.Hit(4L, 6), new NGramIndex.Hit(1L, 3), new NGramIndex.Hit(3L, 3))
+            ));
+            List<BookView> books = List.of(bookView(4L, "Spring入門"), bookView(1L, "Kotlin入門"), bookView(3L, "Java入門"));
+            when(bookService.getByIds(List.of(4L, 1L, 3L))).thenReturn(new BookMultiView(books, List.of()));
+
+            BookSearchResult result = bookSearchService.search("入門", null);
+
+            assertEquals(new BookSearchResult(books, 3), result);
+        }
+
+        @Test
+        void returnEmptyWithoutLoadingBooksWhenNoHits() {
+            when(bookSearchIndex.search("存在しない", 5)).thenReturn(NGramIndex.Result.EMPTY);
+
+            BookSearchResult result = bookSearchService.search("存在しない", 5);
+
+            assertEquals(new BookSearchResult(List.of(), 0), result);
+            verify(bookService, never()).getByIds(any());
+        }
+
+        @Test
+        void shouldThrowCustomExceptionWhenQueryIsTooShort() {
+            CustomException e = assertThrows(CustomException.class, () -> bookSearchService.search(" ｊ ", null));
+
+            assertEquals("検索語は2文字以上で指定してください。", e.getMessage());
+            assertEquals("q", e.getField());
+            assertEquals(HttpStatus.BAD_REQUEST, e.getHttpStatus());
+            verify(bookSearchIndex, never()).search(any(), anyInt());
+        }
+
+        @Test
+        void shouldThrowCustomExceptionWhenQueryIsBlank() {
+            CustomException e = assertThrows(CustomException.class, () -> bookSearchService.search("  ", null));
+
+            assertEquals("入力された値が無効です。", e.getMessage());
+            assertEquals("q", e.getField());
+            assertEquals(HttpStatus.BAD_REQUEST, e.getHttpStatus());
+        }
+
+        @Test
+        void shouldThrowCustomExceptionWhenLimitIsOutOfRange() {
+            CustomException e = assertThrows(CustomException.class, () -> bookSearchService.search("入門", 101));
+
+            assertEquals("limit", e.getField());
+            assertEquals(101, e.getValue());
+            assertEquals(HttpStatus.BAD_REQUEST, e.getHttpStatus());
+        }
+
+        @Test
+        void shouldThrowCustomExceptionWhenIndexIsNotReady() {
+            when(bookSearchIndex.search("入門", 20)).thenReturn(null);
+
+            CustomException e = assertThrows(CustomException.class, () -> bookSearchService.search("入門", null));
+
+            assertEquals("検索インデックスを準備中です。時間をおいて再度実行してください。", e.getMessage());
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getHttpStatus());
+        }
+    }
+
+    @Nested
+    class SuggestTest {
+
+        @Test
+        void returnSuggestionsWithPrefix() {
+            when(bookSuggestIndex.suggest("すぷ", 10)).thenReturn(List.of("Spring入門", "Spring Batch実践"));
+
+            BookSuggestions result = bookSearchService.suggest("すぷ", null);
+
+            assertEquals(new BookSuggestions("すぷ", List.of("Spring入門", "Spring Batch実践")), result);
+        }
+
+        @Test
+        void shouldThrowCustomExceptionWhenPrefixIsBlank() {
+            CustomException e = assertThrows(CustomException.class, () -> bookSearchService.suggest(" ", null));
+
+            assertEquals("prefix", e.getField());
+            assertEquals(HttpStatus.BAD_REQUEST, e.getHttpStatus());
+            verify(bookSuggestIndex, never()).suggest(any(), anyInt());
+        }
+
+        @Test
+        void shouldThrowCustomExceptionWhenLimitIsOutOfRange() {
+            CustomException e = assertThrows(CustomException.class, () -> bookSearchService.suggest("すぷ", 21));
+
+            assertEquals("limit", e.getField());
+            assertEquals(21, e.getValue());
+            assertEquals(HttpStatus.BAD_REQUEST, e.getHttpStatus());
+        }
+
+        @Test
+        void shouldThrowCustomExceptionWhenIndexIsNotReady() {
+            when(bookSuggestIndex.suggest("すぷ", 10)).thenReturn(null);
+
+            CustomException e = assertThrows(CustomException.class, () -> bookSearchService.suggest("すぷ", null));
+
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getHttpStatus());
+        }
+    }
+}
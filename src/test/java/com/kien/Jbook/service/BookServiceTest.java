@@ -1,11 +1,28 @@
 package com.kien.Jbook.service;
 
 import com.kien.Jbook.common.CustomException;
+import com.kien.Jbook.common.cache.SingleFlight;
+import com.kien.Jbook.common.id.IdAllocator;
 import com.kien.Jbook.mapper.BookMapper;
 import com.kien.Jbook.model.Book;
+import com.kien.Jbook.model.dto.BookVersionRow;
+import com.kien.Jbook.model.dto.book.BatchMode;
 import com.kien.Jbook.model.dto.book.BookBasicInfo;
+import com.kien.Jbook.model.dto.book.BookBatchItemResult;
+import com.kien.Jbook.model.dto.book.BookBatchResult;
 import com.kien.Jbook.model.dto.book.BookCreate;
+import com.kien.Jbook.model.dto.book.BookMultiView;
+import com.kien.Jbook.model.dto.book.BookPage;
+import com.kien.Jbook.model.dto.book.BookPageQuery;
+import com.kien.Jbook.model.dto.book.BookPageRequest;
+import com.kien.Jbook.model.dto.book.BookSort;
+import com.kien.Jbook.model.dto.book.BookVersion;
 import com.kien.Jbook.model.dto.book.BookView;
+import com.kien.Jbook.service.impl.BookBatchWriter;
+import com.kien.Jbook.service.impl.BookSearchIndex;
+import com.kien.Jbook.service.impl.BookWriteBehindQueue;
+import com.kien.Jbook.service.impl.DimensionCache;
+import com.kien.Jbook.service.impl.ForeignKeyIndex;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -18,6 +35,16 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
 import java.sql.SQLIntegrityConstraintViolationException;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -31,9 +58,37 @@ public class BookServiceTest {
     @MockitoBean
     private BookMapper bookMapper;
 
+    @MockitoBean
+    private BookBatchWriter bookBatchWriter;
+
+    @MockitoBean
+    private ForeignKeyIndex foreignKeyIndex;
+
+    @MockitoBean
+    private DimensionCache dimensionCache;
+
+    @MockitoBean
+    private BookSearchIndex bookSearchIndex;
+
+    @MockitoBean
+    private BookWriteBehindQueue bookWriteBehindQueue;
+
+    @MockitoBean
+    private IdAllocator idAllocator;
+
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private SingleFlight<Long, BookView> bookViewSingleFlight;
+
+    /**
+     * IDの採番方法を変えた登録のテスト用
+     */
+    private static BookCreate bookCreate(Long id) {
+        return new BookCreate(id, "Kotlin入門", "コトリン ニュウモン", "山田太郎", 1L, 1L, 2500);
+    }
+
     @Nested
     class GetBookByIdTest {
 
@@ -62,6 +117,42 @@ public class BookServiceTest {
             verify(bookMapper, times(1)).getById(any());
         }
 
+        @Test
+        void assembleBookViewFromCachedNamesWithoutJoin() {
+            Long bookId = 1L;
+            LocalDateTime createdAt = LocalDateTime.of(2025, 4, 28, 10, 0);
+            Book book = new Book(bookId, "Kotlin入門", "コトリン ニュウモン", "山田太郎", 1L, 100L, 2500, false, createdAt, createdAt);
+            BookView bookView = new BookView(
+                    bookId, "Kotlin入門", "コトリン ニュウモン", "山田太郎", 1L, "技術出版社", 100L, "テストユーザー",
+                    2500, false, createdAt, createdAt);
+            when(dimensionCache.isLoaded()).thenReturn(true);
+            when(bookMapper.getBookById(bookId)).thenReturn(book);
+            when(dimensionCache.toBookView(book)).thenReturn(bookView);
+
+            BookView result = bookService.getById(bookId);
+
+            assertThat(result).isEqualTo(bookView);
+            verify(bookMapper, never()).getById(any());
+        }
+
+        @Test
+        void fallBackToJoinQueryWhenNamesAreNotCached() {
+            Long bookId = 1L;
+            LocalDateTime createdAt = LocalDateTime.of(2025, 4, 28, 10, 0);
+            Book book = new Book(bookId, "Kotlin入門", null, "山田太郎", 5L, 100L, 2500, false, createdAt, createdAt);
+            BookView bookView = new BookView(
+                    bookId, "Kotlin入門", null, "山田太郎", 5L, "新規出版社", 100L, "テストユーザー",
+                    2500, false, createdAt, createdAt);
+            when(dimensionCache.isLoaded()).thenReturn(true);
+            when(bookMapper.getBookById(bookId)).thenReturn(book);
+            when(dimensionCache.toBookView(book)).thenReturn(null);
+            when(bookMapper.getById(bookId)).thenReturn(bookView);
+
+            BookView result = bookService.getById(bookId);
+
+            assertThat(result).isEqualTo(bookView);
+        }
+
         @Test
         void returnNullWhenBookDoesNotExist() {
             Long bookId = 1L;
@@ -72,6 +163,46 @@ public class BookServiceTest {
             verify(bookMapper, times(1)).getById(any());
         }
 
+        @Test
+        void loadOnceForConcurrentCallsOfSameId() throws Exception {
+            Long bookId = 7L;
+            LocalDateTime createdAt = LocalDateTime.of(2025, 4, 28, 10, 0);
+            BookView bookView = new BookView(
+                    bookId, "Kotlin入門", "コトリン ニュウモン", "山田太郎", 1L, "技術出版社", 100L, "テストユーザー",
+                    2500, false, createdAt, createdAt);
+            CountDownLatch loading = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            when(bookMapper.getById(bookId)).thenAnswer(invocation -> {
+                loading.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return bookView;
+            });
+            long coalescedBefore = bookViewSingleFlight.getCoalescedCount();
+
+            ExecutorService executor = Executors.newFixedThreadPool(5);
+            try {
+                List<Future<BookView>> results = new ArrayList<>();
+                results.add(executor.submit(() -> bookService.getById(bookId)));
+                assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+                for (int i = 0; i < 4; i++) {
+                    results.add(executor.submit(() -> bookService.getById(bookId)));
+                }
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (bookViewSingleFlight.getCoalescedCount() - coalescedBefore < 4 && System.nanoTime() < deadline) {
+                    Thread.sleep(5);
+                }
+                release.countDown();
+
+                for (Future<BookView> result : results) {
+                    assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(bookView);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            verify(bookMapper, times(1)).getById(bookId);
+            assertThat(bookViewSingleFlight.getCoalescedCount() - coalescedBefore).isEqualTo(4L);
+        }
+
         @Test
         void throwCustomExceptionWhenIdIsNegative() {
             Long bookId = -1L;
@@ -109,6 +240,143 @@ public class BookServiceTest {
         }
     }
 
+    @Nested
+    class GetVersionTest {
+        private final LocalDateTime bookUpdatedAt = LocalDateTime.of(2025, 4, 28, 10, 0);
+
+        @Test
+        void returnStrongEtagAndLatestUpdatedAt() {
+            LocalDateTime publisherUpdatedAt = LocalDateTime.of(2025, 5, 1, 9, 0);
+            when(bookMapper.getVersion(1L)).thenReturn(new BookVersionRow(1L, bookUpdatedAt, publisherUpdatedAt, null));
+
+            BookVersion result = bookService.getVersion(1L);
+
+            assertThat(result.getEtag()).matches("\"[0-9a-f]{32}\"");
+            assertEquals(publisherUpdatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), result.getLastModified());
+            verify(bookMapper, never()).getById(any());
+        }
+
+        @Test
+        void changeEtagWhenPublisherIsUpdated() {
+            when(bookMapper.getVersion(1L)).thenReturn(
+                    new BookVersionRow(1L, bookUpdatedAt, bookUpdatedAt, bookUpdatedAt),
+                    new BookVersionRow(1L, bookUpdatedAt, bookUpdatedAt, bookUpdatedAt),
+                    new BookVersionRow(1L, bookUpdatedAt, bookUpdatedAt.plusSeconds(1), bookUpdatedAt),
+                    // 出版社が論理削除された
+                    new BookVersionRow(1L, bookUpdatedAt, null, bookUpdatedAt)
+            );
+
+            String first = bookService.getVersion(1L).getEtag();
+
+            assertEquals(first, bookService.getVersion(1L).getEtag());
+            assertThat(bookService.getVersion(1L).getEtag()).isNotEqualTo(first);
+            assertThat(bookService.getVersion(1L).getEtag()).isNotEqualTo(first);
+        }
+
+        @Test
+        void returnNullWhenBookDoesNotExist() {
+            when(bookMapper.getVersion(1L)).thenReturn(null);
+
+            assertThat(bookService.getVersion(1L)).isNull();
+        }
+
+        @Test
+        void throwCustomExceptionWhenIdIsInvalid() {
+            CustomException e = assertThrows(CustomException.class, () -> bookService.getVersion(0L));
+
+            assertEquals("id", e.getField());
+            assertEquals(HttpStatus.BAD_REQUEST, e.getHttpStatus());
+            verify(bookMapper, never()).getVersion(any());
+        }
+    }
+
+    @Nested
+    class WriteBehindRegisterTest {
+
+        @Test
+        void enqueueWithAllocatedIdWithoutWaitingForInsert() {
+            when(bookWriteBehindQueue.isEnabled()).thenReturn(true);
+            when(idAllocator.nextId()).thenReturn(500L);
+            when(bookWriteBehindQueue.offer(any())).thenReturn(true);
+
+            BookBasicInfo result = bookService.register(bookCreate(null));
+
+            assertEquals(new BookBasicInfo(500L, "Kotlin入門"), result);
+            ArgumentCaptor<Book> captor = ArgumentCaptor.forClass(Book.class);
+            verify(bookWriteBehindQueue, times(1)).offer(captor.capture());
+            assertThat(captor.getValue().getId()).isEqualTo(500L);
+            verify(bookMapper, never()).save(any());
+        }
+
+        @Test
+        void insertSynchronouslyWithAllocatedIdWhenQueueIsFull() {
+            when(bookWriteBehindQueue.isEnabled()).thenReturn(true);
+            when(idAllocator.nextId()).thenReturn(501L);
+            when(bookWriteBehindQueue.offer(any())).thenReturn(false);
+            when(bookMapper.save(any())).thenReturn(1);
+
+            BookBasicInfo result = bookService.register(bookCreate(null));
+
+            assertEquals(new BookBasicInfo(501L, "Kotlin入門"), result);
+            verify(bookMapper, times(1)).save(any());
+        }
+
+        @Test
+        void insertSynchronouslyWhenIdIsSpecified() {
+            when(bookWriteBehindQueue.isEnabled()).thenReturn(true);
+            when(bookMapper.save(any())).thenReturn(1);
+
+            BookBasicInfo result = bookService.register(bookCreate(222L));
+
+            assertEquals(new BookBasicInfo(222L, "Kotlin入門"), result);
+            verify(idAllocator, never()).nextId();
+            verify(bookWriteBehindQueue, never()).offer(any());
+        }
+
+        @Test
+        void assignAllocatedIdsInBatch() {
+            when(bookWriteBehindQueue.isEnabled()).thenReturn(true);
+            when(idAllocator.nextId()).thenReturn(600L, 601L);
+
+            BookBatchResult result = bookService.registerBatch(
+                    List.of(bookCreate(null), bookCreate(null)), BatchMode.ALL_OR_NOTHING);
+
+            assertThat(result.getSucceeded()).isEqualTo(2);
+            assertThat(result.getResults().get(0).getId()).isEqualTo(600L);
+            assertThat(result.getResults().get(1).getId()).isEqualTo(601L);
+        }
+    }
+
+    @Nested
+    class LocalIdAllocatorRegisterTest {
+
+        @Test
+        void insertWithAllocatedIdInsteadOfAutoIncrement() {
+            when(idAllocator.isLocal()).thenReturn(true);
+            when(idAllocator.nextId()).thenReturn(700L);
+            when(bookMapper.save(any())).thenReturn(1);
+
+            BookBasicInfo result = bookService.register(bookCreate(null));
+
+            assertEquals(new BookBasicInfo(700L, "Kotlin入門"), result);
+            ArgumentCaptor<Book> captor = ArgumentCaptor.forClass(Book.class);
+            verify(bookMapper, times(1)).save(captor.capture());
+            assertThat(captor.getValue().getId()).isEqualTo(700L);
+            verify(bookWriteBehindQueue, never()).offer(any());
+        }
+
+        @Test
+        void keepSpecifiedId() {
+            when(idAllocator.isLocal()).thenReturn(true);
+            when(bookMapper.save(any())).thenReturn(1);
+
+            BookBasicInfo result = bookService.register(bookCreate(222L));
+
+            assertEquals(new BookBasicInfo(222L, "Kotlin入門"), result);
+            verify(idAllocator, never()).nextId();
+        }
+    }
+
     @Nested
     class RegisterTest{
         @Test
@@ -134,6 +402,7 @@ public class BookServiceTest {
 
             assertEquals(expectedResult, result);
             verify(bookMapper, times(1)).save(any());
+            verify(bookSearchIndex, times(1)).add(captor.getValue());
         }
 
         @Test
@@ -428,6 +697,54 @@ public class BookServiceTest {
             verify(bookMapper, times(1)).save(any());
         }
 
+        @Test
+        void shouldThrowCustomExceptionWithoutInsertWhenPublisherIdIsNotInIndex() {
+            BookCreate bookCreate = new BookCreate(
+                    null,
+                    "Kotlin入門",
+                    "コトリン ニュウモン",
+                    "山田太郎",
+                    999L,
+                    998L,
+                    2500
+            );
+            when(foreignKeyIndex.isMissingPublisher(999L)).thenReturn(true);
+            when(foreignKeyIndex.isMissingUser(998L)).thenReturn(true);
+
+            CustomException realError = assertThrows(CustomException.class, () -> {
+                bookService.register(bookCreate);
+            });
+            assertEquals("存在しない外部キーです。", realError.getMessage());
+            assertEquals(HttpStatus.NOT_FOUND, realError.getHttpStatus());
+            assertEquals("publisherId", realError.getField());
+            assertEquals(999L, realError.getValue());
+
+            verify(bookMapper, never()).save(any());
+        }
+
+        @Test
+        void shouldThrowCustomExceptionWithoutInsertWhenUserIdIsNotInIndex() {
+            BookCreate bookCreate = new BookCreate(
+                    null,
+                    "Kotlin入門",
+                    "コトリン ニュウモン",
+                    "山田太郎",
+                    1L,
+                    998L,
+                    2500
+            );
+            when(foreignKeyIndex.isMissingUser(998L)).thenReturn(true);
+
+            CustomException realError = assertThrows(CustomException.class, () -> {
+                bookService.register(bookCreate);
+            });
+            assertEquals(HttpStatus.NOT_FOUND, realError.getHttpStatus());
+            assertEquals("userId", realError.getField());
+            assertEquals(998L, realError.getValue());
+
+            verify(bookMapper, never()).save(any());
+        }
+
         @Test
         void shouldThrowExceptionWhenVendorCodeIsNot1452() {
             BookCreate bookCreate = new BookCreate(
@@ -520,4 +837,430 @@ public class BookServiceTest {
             verify(bookMapper, times(1)).save(any());
         }
     }
+
+    @Nested
+    class DeleteTest {
+
+        @Test
+        void softDeleteAndRemoveFromSearchIndex() {
+            when(bookMapper.softDelete(eq(1L), any())).thenReturn(1);
+
+            bookService.delete(1L);
+
+            verify(bookWriteBehindQueue, times(1)).awaitFlushed(1L);
+            verify(bookMapper, times(1)).softDelete(eq(1L), any());
+            verify(bookSearchIndex, times(1)).remove(1L);
+        }
+
+        @Test
+        void throwNotFoundWhenBookDoesNotExistOrIsAlreadyDeleted() {
+            when(bookMapper.softDelete(eq(999L), any())).thenReturn(0);
+
+            CustomException e = assertThrows(CustomException.class, () -> bookService.delete(999L));
+
+            assertEquals(HttpStatus.NOT_FOUND, e.getHttpStatus());
+            assertEquals(Book.FIELD_ID, e.getField());
+            assertEquals(999L, e.getValue());
+            verify(bookSearchIndex, never()).remove(anyLong());
+        }
+
+        @Test
+        void throwBadRequestWhenIdIsInvalid() {
+            CustomException e = assertThrows(CustomException.class, () -> bookService.delete(0L));
+
+            assertEquals(HttpStatus.BAD_REQUEST, e.getHttpStatus());
+            verify(bookMapper, never()).softDelete(any(), any());
+        }
+    }
+
+    @Nested
+    class GetBookByIdsTest {
+
+        private BookView bookView(Long id, String title) {
+            return new BookView(
+                    id,
+                    title,
+                    null,
+                    "山田太郎",
+                    1L,
+                    "技術出版社",
+                    100L,
+                    "テストユーザー",
+                    2500,
+                    false,
+                    LocalDateTime.of(2025, 4, 28, 10, 0),
+                    LocalDateTime.of(2025, 4, 28, 10, 0)
+            );
+        }
+
+        @Test
+        void returnBookViewsInRequestOrderWithMissingIds() {
+            BookView book1 = bookView(1L, "Kotlin入門");
+            BookView book3 = bookView(3L, "Java入門");
+            // DBからの返却順はリクエスト順と一致しない
+            when(bookMapper.getByIds(any())).thenReturn(List.of(book1, book3));
+
+            BookMultiView result = bookService.getByIds(List.of(3L, 2L, 1L, 3L));
+
+            assertEquals(List.of(book3, book1), result.getBooks());
+            assertEquals(List.of(2L), result.getMissingIds());
+            verify(bookMapper, times(1)).getByIds(List.of(3L, 2L, 1L));
+        }
+
+        @Test
+        void throwCustomExceptionWhenIdsIsEmpty() {
+            CustomException e = assertThrows(CustomException.class, () -> {
+                bookService.getByIds(List.of());
+            });
+            assertEquals("入力された値が無効です。", e.getMessage());
+            assertEquals("ids", e.getField());
+            assertEquals(HttpStatus.BAD_REQUEST, e.getHttpStatus());
+
+            verify(bookMapper, never()).getByIds(any());
+        }
+
+        @Test
+        void throwCustomExceptionWhenIdIsZero() {
+            CustomException e = assertThrows(CustomException.class, () -> {
+                bookService.getByIds(List.of(1L, 0L));
+            });
+            assertEquals("ids", e.getField());
+            assertEquals(0L, e.getValue());
+            assertEquals(HttpStatus.BAD_REQUEST, e.getHttpStatus());
+
+            verify(bookMapper, never()).getByIds(any());
+        }
+
+        @Test
+        void throwCustomExceptionWhenTooManyIds() {
+            List<Long> ids = LongStream.rangeClosed(1, 1001).boxed().toList();
+            CustomException e = assertThrows(CustomException.class, () -> {
+                bookService.getByIds(ids);
+            });
+            assertEquals("一度に指定できるIDの数を超えています。", e.getMessage());
+            assertEquals(1001, e.getValue());
+
+            verify(bookMapper, never()).getByIds(any());
+        }
+
+        @Test
+        void splitIdsIntoChunks() {
+            List<Long> ids = LongStream.rangeClosed(1, 1000).boxed().toList();
+            when(bookMapper.getByIds(any())).thenReturn(List.of());
+
+            BookMultiView result = bookService.getByIds(ids);
+
+            assertEquals(1000, result.getMissingIds().size());
+            verify(bookMapper, times(2)).getByIds(any());
+        }
+    }
+
+    @Nested
+    class RegisterBatchTest {
+
+        private BookCreate bookCreate(Long id, String title, Long publisherId) {
+            return new BookCreate(
+                    id,
+                    title,
+                    null,
+                    "山田太郎",
+                    publisherId,
+                    1L,
+                    2500
+            );
+        }
+
+        @SuppressWarnings("unchecked")
+        private void assignIdsOnInsert(long firstId) {
+            doAnswer(invocation -> {
+                long id = firstId;
+                for (Book book : (List<Book>) invocation.getArgument(0)) {
+                    if (book.getId() == null) {
+                        book.setId(id++);
+                    }
+                }
+                return null;
+            }).when(bookBatchWriter).insertAll(any(), anyInt());
+        }
+
+        @Test
+        void returnCreatedResultsWhenAllSucceed() {
+            assignIdsOnInsert(10L);
+
+            BookBatchResult result = bookService.registerBatch(
+                    List.of(bookCreate(null, "Kotlin入門", 1L), bookCreate(5L, "Java入門", 1L)),
+                    BatchMode.ALL_OR_NOTHING
+            );
+
+            assertEquals(2, result.getSucceeded());
+            assertEquals(0, result.getFailed());
+            assertEquals(BookBatchItemResult.created(0, 10L, "Kotlin入門"), result.getResults().get(0));
+            assertEquals(BookBatchItemResult.created(1, 5L, "Java入門"), result.getResults().get(1));
+            verify(bookBatchWriter, times(1)).insertAll(any(), anyInt());
+            verify(bookSearchIndex, times(2)).add(any());
+        }
+
+        @Test
+        void skipAllWhenValidationFailsInAllOrNothingMode() {
+            BookBatchResult result = bookService.registerBatch(
+                    List.of(bookCreate(null, "Kotlin入門", 1L), bookCreate(null, "Java入門", -1L)),
+                    BatchMode.ALL_OR_NOTHING
+            );
+
+            assertEquals(0, result.getSucceeded());
+            assertEquals(1, result.getFailed());
+            assertEquals(BookBatchItemResult.SKIPPED, result.getResults().get(0).getResult());
+            BookBatchItemResult failed = result.getResults().get(1);
+            assertEquals(BookBatchItemResult.FAILED, failed.getResult());
+            assertEquals(400, failed.getStatus());
+            assertEquals(-1L, failed.getError().get("publisherId"));
+            assertEquals("入力された値が無効です。", failed.getError().get("message"));
+            verify(bookBatchWriter, never()).insertAll(any(), anyInt());
+            verify(bookSearchIndex, never()).add(any());
+        }
+
+        @Test
+        void rejectDuplicatedIdsInRequest() {
+            assignIdsOnInsert(10L);
+
+            BookBatchResult result = bookService.registerBatch(
+                    List.of(bookCreate(5L, "Kotlin入門", 1L), bookCreate(5L, "Java入門", 1L)),
+                    BatchMode.BEST_EFFORT
+            );
+
+            assertEquals(1, result.getSucceeded());
+            assertEquals(BookBatchItemResult.CREATED, result.getResults().get(0).getResult());
+            assertEquals(409, result.getResults().get(1).getStatus());
+            verify(bookSearchIndex, times(1)).add(argThat(book -> "Kotlin入門".equals(book.getTitle())));
+        }
+
+        @Test
+        void rejectRowsWithUnknownForeignKeysBeforeInsert() {
+            assignIdsOnInsert(10L);
+            when(foreignKeyIndex.isMissingPublisher(999L)).thenReturn(true);
+
+            BookBatchResult result = bookService.registerBatch(
+                    List.of(bookCreate(null, "Kotlin入門", 1L), bookCreate(null, "Java入門", 999L)),
+                    BatchMode.BEST_EFFORT
+            );
+
+            assertEquals(1, result.getSucceeded());
+            BookBatchItemResult failed = result.getResults().get(1);
+            assertEquals(404, failed.getStatus());
+            assertEquals(999L, failed.getError().get("publisherId"));
+            verify(bookMapper, never()).save(any());
+        }
+
+        @Test
+        void reportFailedRowWhenInsertFailsInAllOrNothingMode() {
+            doThrow(new DuplicateKeyException("Duplicate entry"))
+                    .when(bookBatchWriter).insertAll(any(), anyInt());
+            when(bookBatchWriter.findFailures(any()))
+                    .thenReturn(Map.of(1, new DuplicateKeyException("Duplicate entry")));
+
+            BookBatchResult result = bookService.registerBatch(
+                    List.of(bookCreate(null, "Kotlin入門", 1L), bookCreate(1L, "Java入門", 1L)),
+                    BatchMode.ALL_OR_NOTHING
+            );
+
+            assertEquals(0, result.getSucceeded());
+            assertEquals(1, result.getFailed());
+            assertEquals(BookBatchItemResult.SKIPPED, result.getResults().get(0).getResult());
+            BookBatchItemResult failed = result.getResults().get(1);
+            assertEquals(409, failed.getStatus());
+            assertEquals(1L, failed.getError().get("id"));
+            assertEquals("プライマリキーが重複しました。別の値にしてください", failed.getError().get("message"));
+        }
+
+        @Test
+        void insertRemainingRowsWhenInsertFailsInBestEffortMode() {
+            doThrow(new DataIntegrityViolationException("FK error"))
+                    .when(bookBatchWriter).insertAll(any(), anyInt());
+            SQLIntegrityConstraintViolationException sqlException = new SQLIntegrityConstraintViolationException(
+                    "Cannot add or update a child row: a foreign key constraint fails (`book`.`books`, CONSTRAINT `books_ibfk_1` FOREIGN KEY (`publisher_id`) REFERENCES `publisher` (`id`))",
+                    "23000",
+                    1452
+            );
+            when(bookMapper.save(any())).thenAnswer(invocation -> {
+                Book book = invocation.getArgument(0);
+                if (book.getPublisherId() == 999L) {
+                    throw new DataIntegrityViolationException(sqlException.getMessage(), sqlException);
+                }
+                book.setId(20L);
+                return 1;
+            });
+
+            BookBatchResult result = bookService.registerBatch(
+                    List.of(bookCreate(null, "Kotlin入門", 999L), bookCreate(null, "Java入門", 1L)),
+                    BatchMode.BEST_EFFORT
+            );
+
+            assertEquals(1, result.getSucceeded());
+            assertEquals(1, result.getFailed());
+            BookBatchItemResult failed = result.getResults().get(0);
+            assertEquals(404, failed.getStatus());
+            assertEquals(999L, failed.getError().get("publisherId"));
+            assertEquals(BookBatchItemResult.created(1, 20L, "Java入門"), result.getResults().get(1));
+        }
+
+        @Test
+        void throwCustomExceptionWhenBooksIsEmpty() {
+            CustomException e = assertThrows(CustomException.class, () -> {
+                bookService.registerBatch(List.of(), BatchMode.BEST_EFFORT);
+            });
+            assertEquals("books", e.getField());
+            assertEquals(HttpStatus.BAD_REQUEST, e.getHttpStatus());
+        }
+    }
+
+    @Nested
+    class GetPageTest {
+
+        private BookView bookView(Long id, LocalDateTime createdAt) {
+            return new BookView(
+                    id,
+                    "Kotlin入門",
+                    null,
+                    "山田太郎",
+                    1L,
+                    "技術出版社",
+                    100L,
+                    "テストユーザー",
+                    2500,
+                    false,
+                    createdAt,
+                    createdAt
+            );
+        }
+
+        @Test
+        void returnNextCursorWhenMoreRowsExist() {
+            LocalDateTime createdAt = LocalDateTime.of(2025, 4, 28, 10, 0);
+            when(bookMapper.getPage(any())).thenReturn(
+                    List.of(bookView(1L, createdAt), bookView(2L, createdAt), bookView(3L, createdAt)));
+            BookPageRequest request = new BookPageRequest();
+            request.setLimit(2);
+
+            BookPage page = bookService.getPage(request);
+
+            assertEquals(2, page.getBooks().size());
+            assertThat(page.getNextCursor()).isNotNull();
+            ArgumentCaptor<BookPageQuery> captor = ArgumentCaptor.forClass(BookPageQuery.class);
+            verify(bookMapper).getPage(captor.capture());
+            assertEquals(3, captor.getValue().getFetchSize());
+            assertThat(captor.getValue().getAfterId()).isNull();
+
+            // 返されたカーソルで次ページを取得すると、最後の行の続きから検索される
+            request.setAfter(page.getNextCursor());
+            bookService.getPage(request);
+            verify(bookMapper, times(2)).getPage(captor.capture());
+            assertEquals(2L, captor.getValue().getAfterId());
+        }
+
+        @Test
+        void returnCreatedAtCursorWhenSortedByCreatedAt() {
+            LocalDateTime createdAt = LocalDateTime.of(2025, 4, 28, 10, 0);
+            when(bookMapper.getPage(any())).thenReturn(List.of(bookView(7L, createdAt), bookView(8L, createdAt)));
+            BookPageRequest request = new BookPageRequest();
+            request.setLimit(1);
+            request.setSort(BookSort.CREATED_AT);
+
+            request.setAfter(bookService.getPage(request).getNextCursor());
+            bookService.getPage(request);
+
+            ArgumentCaptor<BookPageQuery> captor = ArgumentCaptor.forClass(BookPageQuery.class);
+            verify(bookMapper, times(2)).getPage(captor.capture());
+            assertEquals(7L, captor.getValue().getAfterId());
+            assertEquals(createdAt, captor.getValue().getAfterCreatedAt());
+        }
+
+        @Test
+        void encodeNullCreatedAtInCursor() {
+            when(bookMapper.getPage(any())).thenReturn(List.of(bookView(7L, null), bookView(8L, null)));
+            BookPageRequest request = new BookPageRequest();
+            request.setLimit(1);
+            request.setSort(BookSort.CREATED_AT);
+
+            request.setAfter(bookService.getPage(request).getNextCursor());
+            bookService.getPage(request);
+
+            ArgumentCaptor<BookPageQuery> captor = ArgumentCaptor.forClass(BookPageQuery.class);
+            verify(bookMapper, times(2)).getPage(captor.capture());
+            assertEquals(7L, captor.getValue().getAfterId());
+            assertThat(captor.getValue().getAfterCreatedAt()).isNull();
+        }
+
+        @Test
+        void returnNullCursorOnLastPage() {
+            when(bookMapper.getPage(any())).thenReturn(List.of(bookView(1L, LocalDateTime.now())));
+
+            BookPage page = bookService.getPage(new BookPageRequest());
+
+            assertEquals(1, page.getBooks().size());
+            assertThat(page.getNextCursor()).isNull();
+        }
+
+        @Test
+        void throwCustomExceptionWhenCursorIsBroken() {
+            BookPageRequest request = new BookPageRequest();
+            request.setAfter("!!broken!!");
+
+            CustomException e = assertThrows(CustomException.class, () -> bookService.getPage(request));
+            assertEquals("after", e.getField());
+            assertEquals(HttpStatus.BAD_REQUEST, e.getHttpStatus());
+            verify(bookMapper, never()).getPage(any());
+        }
+
+        @Test
+        void throwCustomExceptionWhenCursorSortDiffers() {
+            when(bookMapper.getPage(any())).thenReturn(
+                    List.of(bookView(1L, LocalDateTime.now()), bookView(2L, LocalDateTime.now())));
+            BookPageRequest request = new BookPageRequest();
+            request.setLimit(1);
+            request.setAfter(bookService.getPage(request).getNextCursor());
+            request.setSort(BookSort.CREATED_AT);
+
+            CustomException e = assertThrows(CustomException.class, () -> bookService.getPage(request));
+            assertEquals("after", e.getField());
+        }
+
+        @Test
+        void throwCustomExceptionWhenLimitIsTooLarge() {
+            BookPageRequest request = new BookPageRequest();
+            request.setLimit(101);
+
+            CustomException e = assertThrows(CustomException.class, () -> bookService.getPage(request));
+            assertEquals("limit", e.getField());
+            assertEquals(101, e.getValue());
+        }
+
+        @Test
+        void throwCustomExceptionWhenPriceIsNegative() {
+            BookPageRequest request = new BookPageRequest();
+            request.setMaxPrice(-1);
+
+            CustomException e = assertThrows(CustomException.class, () -> bookService.getPage(request));
+            assertEquals("maxPrice", e.getField());
+            assertEquals(-1, e.getValue());
+            assertEquals(HttpStatus.BAD_REQUEST, e.getHttpStatus());
+
+            request.setMaxPrice(null);
+            request.setMinPrice(-100);
+            e = assertThrows(CustomException.class, () -> bookService.getPage(request));
+            assertEquals("minPrice", e.getField());
+            verify(bookMapper, never()).getPage(any());
+        }
+
+        @Test
+        void throwCustomExceptionWhenMinPriceExceedsMaxPrice() {
+            BookPageRequest request = new BookPageRequest();
+            request.setMinPrice(3000);
+            request.setMaxPrice(2000);
+
+            CustomException e = assertThrows(CustomException.class, () -> bookService.getPage(request));
+            assertEquals("minPrice", e.getField());
+            assertEquals(3000, e.getValue());
+            verify(bookMapper, never()).getPage(any());
+        }
+    }
 }
@@ -0,0 +1,89 @@
+package com.kien.Jbook.service.impl;
+
+import com.kien.Jbook.mapper.IdBlockMapper;
+import com.kien.Jbook.support.BatchBookData;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+/**
+ * 予約は別トランザクションでコミットされるため、テスト自体はトランザクションを張らずに実行する
+ */
+@MybatisTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BlockIdAllocatorTest {
+
+    @Autowired
+    private IdBlockMapper idBlockMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private BlockIdAllocator newAllocator(int blockSize) {
+        BlockIdAllocator allocator = new BlockIdAllocator();
+        ReflectionTestUtils.setField(allocator, "idBlockMapper", idBlockMapper);
+        ReflectionTestUtils.setField(allocator, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(allocator, "blockSize", blockSize);
+        allocator.init();
+        return allocator;
+    }
+
+    @Nested
+    @BatchBookData
+    class NextIdTest {
+
+        @Test
+        void allocateSequentiallyAfterExistingBooks() {
+            BlockIdAllocator allocator = newAllocator(3);
+
+            long first = allocator.nextId();
+            assertThat(first).isGreaterThan(4L);
+            assertThat(allocator.nextId()).isEqualTo(first + 1);
+            assertThat(allocator.nextId()).isEqualTo(first + 2);
+            // 次のブロックは別の予約になる（他のインスタンスの予約を挟むことがある）
+            assertThat(allocator.nextId()).isGreaterThan(first + 2);
+        }
+
+        @Test
+        void notOverlapBetweenAllocators() {
+            BlockIdAllocator a = newAllocator(2);
+            BlockIdAllocator b = newAllocator(2);
+
+            Set<Long> ids = new HashSet<>();
+            for (int i = 0; i < 10; i++) {
+                assertThat(ids.add(a.nextId())).isTrue();
+                assertThat(ids.add(b.nextId())).isTrue();
+            }
+        }
+
+        @Test
+        void skipIdsUsedBeforeReservation() {
+            jdbcTemplate.update("INSERT INTO books (id, title, publisher_id, user_id) VALUES (1000, '手動登録', 1, 100)");
+            try {
+                BlockIdAllocator allocator = newAllocator(10);
+
+                assertThat(allocator.nextId()).isGreaterThan(1000L);
+            } finally {
+                jdbcTemplate.update("DELETE FROM books WHERE id = 1000");
+            }
+        }
+    }
+}
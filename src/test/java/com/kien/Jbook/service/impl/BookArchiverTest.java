@@ -0,0 +1,96 @@
+package com.kien.Jbook.service.impl;
+
+import com.kien.Jbook.config.ShardingConfig;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * スケジューラは起動せず、archive()を直接呼び出す（テストごとにロールバックされる）
+ */
+@MybatisTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({BookArchiver.class, ShardingConfig.class})
+@TestPropertySource(properties = {
+        "jbook.archive.chunk-size=2",
+        "jbook.archive.pause=0s"
+})
+public class BookArchiverTest {
+
+    @Autowired
+    private BookArchiver bookArchiver;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private List<Long> bookIds() {
+        return jdbcTemplate.queryForList("SELECT id FROM books ORDER BY id", Long.class);
+    }
+
+    private List<Long> archivedIds() {
+        return jdbcTemplate.queryForList("SELECT id FROM books_archive ORDER BY id", Long.class);
+    }
+
+    @Nested
+    @Sql(scripts = {"/schema.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+    @Sql(
+            scripts = {
+                    "/mapper/data/books/getById/publisher.sql",
+                    "/mapper/data/books/getById/user.sql",
+                    "/mapper/data/books/archive/books.sql"
+            },
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS
+    )
+    class ArchiveTest {
+
+        @Test
+        void moveRowsDeletedBeforeRetentionInChunks() {
+            long archived = bookArchiver.archive();
+
+            assertEquals(3, archived);
+            // 未削除・削除日時のない行・保持期間内の行は残る
+            assertThat(bookIds()).isEqualTo(List.of(1L, 4L, 5L));
+            assertThat(archivedIds()).isEqualTo(List.of(2L, 3L, 6L));
+            assertEquals("Java入門", jdbcTemplate.queryForObject(
+                    "SELECT title FROM books_archive WHERE id = 3", String.class));
+            assertEquals(0, jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM books_archive WHERE archived_at IS NULL", Integer.class));
+        }
+
+        @Test
+        void stopAtMaxRowsPerRunOldestFirst() {
+            ReflectionTestUtils.setField(bookArchiver, "maxRowsPerRun", 2L);
+            try {
+                assertEquals(2, bookArchiver.archive());
+                assertThat(archivedIds()).isEqualTo(List.of(2L, 6L));
+
+                assertEquals(1, bookArchiver.archive());
+                assertThat(archivedIds()).isEqualTo(List.of(2L, 3L, 6L));
+            } finally {
+                ReflectionTestUtils.setField(bookArchiver, "maxRowsPerRun", 100000L);
+            }
+        }
+
+        @Test
+        void doNothingWhenNoRowsToArchive() {
+            bookArchiver.archive();
+
+            assertEquals(0, bookArchiver.archive());
+            assertThat(bookIds()).isEqualTo(List.of(1L, 4L, 5L));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.kien.Jbook.service.impl;
+
+import com.kien.Jbook.config.ShardingConfig;
+import com.kien.Jbook.mapper.BookMapper;
+import com.kien.Jbook.model.Book;
+import com.kien.Jbook.support.BatchBookData;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.kien.Jbook.support.TestBooks.book;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * BATCHエクゼキュータとSIMPLEエクゼキュータは同一トランザクション内で混在できないため、
+ * テスト自体はトランザクションを張らずに実行する
+ */
+@MybatisTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({BookBatchWriter.class, BookOutbox.class, ShardingConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BookBatchWriterTest {
+
+    @Autowired
+    private BookBatchWriter bookBatchWriter;
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    @Nested
+    @BatchBookData
+    class InsertAllTest {
+
+        @Test
+        void insertAllAndAssignGeneratedIds() {
+            List<Book> books = List.of(
+                    book(null, "Python入門", 1L),
+                    book(20L, "Go入門", 1L),
+                    book(null, "Rust入門", 1L)
+            );
+
+            bookBatchWriter.insertAll(books, 2);
+
+            assertThat(books.get(1).getId()).isEqualTo(20L);
+            for (Book book : books) {
+                assertThat(book.getId()).isNotNull();
+                assertThat(bookMapper.getById(book.getId()).getTitle()).isEqualTo(book.getTitle());
+            }
+        }
+
+        @Test
+        void rollbackAllWhenAnyRowFails() {
+            List<Book> books = List.of(
+                    book(30L, "Python入門", 1L),
+                    book(1L, "Go入門", 1L)
+            );
+
+            assertThrows(DataIntegrityViolationException.class, () -> bookBatchWriter.insertAll(books, 1));
+
+            assertThat(bookMapper.getById(30L)).isNull();
+        }
+
+        @Test
+        void findFailedRowsWithoutCommitting() {
+            List<Book> books = List.of(
+                    book(40L, "Python入門", 1L),
+                    book(1L, "Go入門", 1L),
+                    book(41L, "Rust入門", 999L)
+            );
+
+            Map<Integer, DataAccessException> failures = bookBatchWriter.findFailures(books);
+
+            assertThat(failures.size()).isEqualTo(2);
+            assertThat(failures.get(1) instanceof DuplicateKeyException).isTrue();
+            assertThat(failures.get(2) instanceof DataIntegrityViolationException).isTrue();
+            assertThat(bookMapper.getById(40L)).isNull();
+        }
+    }
+}
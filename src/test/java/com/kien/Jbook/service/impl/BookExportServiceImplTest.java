@@ -0,0 +1,73 @@
+package com.kien.Jbook.service.impl;
+
+import com.kien.Jbook.config.ShardingConfig;
+import com.kien.Jbook.model.dto.book.ExportFormat;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+@MybatisTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({BookExportServiceImpl.class, ShardingConfig.class})
+public class BookExportServiceImplTest {
+
+    @Autowired
+    private BookExportServiceImpl bookExportService;
+
+    @Nested
+    @Sql(scripts = {"/schema.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+    @Sql(
+            scripts = {
+                    "/mapper/data/books/exportAll/publisher.sql",
+                    "/mapper/data/books/exportAll/user.sql",
+                    "/mapper/data/books/exportAll/books.sql"
+            },
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS
+    )
+    class ExportTest {
+
+        @Test
+        void exportNdjsonOneBookPerLine() throws Exception {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            long count = bookExportService.export(ExportFormat.NDJSON, out);
+
+            String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+            assertThat(count).isEqualTo(3L);
+            assertThat(lines.length).isEqualTo(3);
+            assertThat(lines[0].startsWith("{\"id\":1,\"title\":\"Kotlin入門\"")).isTrue();
+            assertThat(lines[2].startsWith("{\"id\":4,")).isTrue();
+        }
+
+        @Test
+        void exportCsvWithHeader() throws Exception {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            long count = bookExportService.export(ExportFormat.CSV, out);
+
+            String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+            assertThat(count).isEqualTo(3L);
+            assertThat(lines[0]).isEqualTo(
+                    "id,title,title_kana,author,publisher_id,publisher_name,user_id,user_name,price,created_at,updated_at");
+            assertThat(lines[1]).isEqualTo(
+                    "1,Kotlin入門,コトリン ニュウモン,山田太郎,1,技術出版社,100,テストユーザー,2500,2023-01-01T10:00,2023-01-01T10:00");
+            // 論理削除されたユーザーの名前は空になる
+            assertThat(lines[3]).isEqualTo(
+                    "4,Spring Boot 入門,スプリング ブート ニュウモン,佐藤次郎,1,技術出版社,,,3000,2023-02-01T10:00,2023-02-01T10:00");
+        }
+    }
+}
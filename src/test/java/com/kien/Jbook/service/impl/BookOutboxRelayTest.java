@@ -0,0 +1,146 @@
+package com.kien.Jbook.service.impl;
+
+import com.kien.Jbook.config.OutboxConfig;
+import com.kien.Jbook.config.ShardingConfig;
+import com.kien.Jbook.model.Book;
+import com.kien.Jbook.model.dto.BookOutboxEvent;
+import com.kien.Jbook.service.BookEventSink;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.kien.Jbook.support.TestBooks.book;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 送信・ロールバックを実際のトランザクションで確認するため、テスト自体はトランザクションを張らずに実行する
+ * スケジューラは起動せず、relay()を直接呼び出す
+ */
+@MybatisTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({BookOutbox.class, BookOutboxRelay.class, BookBatchWriter.class, OutboxConfig.class, ShardingConfig.class})
+@TestPropertySource(properties = {
+        "jbook.outbox.enabled=true",
+        "jbook.outbox.relay.enabled=false",
+        "jbook.outbox.relay.batch-size=2",
+        "jbook.outbox.sink.type=MEMORY"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BookOutboxRelayTest {
+
+    @Autowired
+    private BookOutbox bookOutbox;
+
+    @Autowired
+    private BookOutboxRelay bookOutboxRelay;
+
+    @Autowired
+    private BookBatchWriter bookBatchWriter;
+
+    @Autowired
+    private InMemoryBookEventSink sink;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM book_outbox");
+        sink.clear();
+    }
+
+    private int pendingCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM book_outbox", Integer.class);
+    }
+
+    private List<String> publishedTypesAndIds() {
+        return sink.getEvents().stream().map(e -> e.getEventType() + ":" + e.getBookId()).toList();
+    }
+
+    @Nested
+    @Sql(scripts = {"/schema.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+    @Sql(
+            scripts = {
+                    "/mapper/data/books/getById/publisher.sql",
+                    "/mapper/data/books/getById/user.sql",
+                    "/mapper/data/books/getById/books.sql"
+            },
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS
+    )
+    class RelayTest {
+
+        @Test
+        void publishEventsInRecordedOrderAndDeleteThem() {
+            bookOutbox.save(book(10L, "Go入門", 1L));
+            bookOutbox.save(book(11L, "Rust入門", 1L));
+            bookOutbox.softDelete(10L, LocalDateTime.of(2025, 5, 5, 10, 0));
+            assertEquals(3, pendingCount());
+
+            // batch-size=2 のため2回に分けて送信する
+            assertEquals(3, bookOutboxRelay.relay());
+
+            assertThat(publishedTypesAndIds()).isEqualTo(List.of("REGISTERED:10", "REGISTERED:11", "DELETED:10"));
+            assertThat(sink.getEvents().get(0).getPayload()).contains("\"title\":\"Go入門\"");
+            assertEquals(0, pendingCount());
+            assertEquals(0, bookOutboxRelay.relay());
+        }
+
+        @Test
+        void recordNoEventWhenInsertFails() {
+            assertThrows(DuplicateKeyException.class, () -> bookOutbox.save(book(1L, "重複", 1L)));
+            assertEquals(0, bookOutbox.softDelete(2L, LocalDateTime.now()));
+
+            assertEquals(0, pendingCount());
+        }
+
+        @Test
+        void keepEventsAndRetryWhenSinkFails() {
+            bookOutbox.save(book(20L, "Python入門", 1L));
+            BookEventSink failing = events -> {
+                throw new IllegalStateException("sink is down");
+            };
+            ReflectionTestUtils.setField(bookOutboxRelay, "bookEventSink", failing);
+            try {
+                assertThrows(IllegalStateException.class, bookOutboxRelay::relay);
+                assertEquals(1, pendingCount());
+            } finally {
+                ReflectionTestUtils.setField(bookOutboxRelay, "bookEventSink", sink);
+            }
+
+            assertEquals(1, bookOutboxRelay.relay());
+            assertThat(publishedTypesAndIds()).isEqualTo(List.of("REGISTERED:20"));
+        }
+
+        @Test
+        void recordEventsForBatchInsert() {
+            List<Book> books = List.of(book(null, "バッチ1", 1L), book(null, "バッチ2", 1L), book(null, "バッチ3", 1L));
+
+            bookBatchWriter.insertAll(books, 2);
+            bookOutboxRelay.relay();
+
+            List<Long> ids = books.stream().map(Book::getId).toList();
+            assertThat(sink.getEvents().stream().map(BookOutboxEvent::getBookId).toList()).isEqualTo(ids);
+        }
+    }
+}
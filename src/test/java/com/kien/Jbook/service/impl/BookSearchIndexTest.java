@@ -0,0 +1,136 @@
+package com.kien.Jbook.service.impl;
+
+import com.kien.Jbook.common.search.NGramIndex;
+import com.kien.Jbook.mapper.BookMapper;
+import com.kien.Jbook.model.Book;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * スケジューラは起動せず、テストごとに新しいインデックスを作ってrebuild()を直接呼び出す
+ */
+@MybatisTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class BookSearchIndexTest {
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    private BookSearchIndex newIndex() {
+        BookSearchIndex index = new BookSearchIndex();
+        ReflectionTestUtils.setField(index, "bookMapper", bookMapper);
+        return index;
+    }
+
+    private static List<Long> keys(NGramIndex.Result result) {
+        return result.hits().stream().map(NGramIndex.Hit::key).toList();
+    }
+
+    @Nested
+    @Sql(scripts = {"/schema.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+    @Sql(
+            scripts = {
+                    "/mapper/data/books/getById/publisher.sql",
+                    "/mapper/data/books/getById/user.sql",
+                    "/mapper/data/books/getById/books.sql"
+            },
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS
+    )
+    class RebuildTest {
+
+        @Test
+        void returnNullBeforeBuilt() {
+            BookSearchIndex index = newIndex();
+
+            assertThat(index.isLoaded()).isFalse();
+            assertThat(index.search("入門", 10)).isNull();
+        }
+
+        @Test
+        void indexNonDeletedBooksFromDatabase() {
+            BookSearchIndex index = newIndex();
+            index.rebuild();
+
+            assertThat(index.isLoaded()).isTrue();
+            // 2: 論理削除済み
+            assertEquals(List.of(1L, 3L, 4L), keys(index.search("入門", 10)));
+            assertEquals(List.of(3L), keys(index.search("じゃばー", 10)));
+            assertThat(index.search("PHP", 10).total()).isEqualTo(0);
+        }
+
+        @Test
+        void addRegisteredBookAfterBuilt() {
+            BookSearchIndex index = newIndex();
+            index.rebuild();
+
+            Book book = new Book(100L, "Go入門", null, "鈴木一郎", 1L, 100L, 2000, false, null, null);
+            index.add(book);
+
+            assertEquals(List.of(1L, 3L, 4L, 100L), keys(index.search("入門", 10)));
+            assertEquals(List.of(100L), keys(index.search("鈴木", 10)));
+        }
+
+        @Test
+        void keepBooksAddedDuringRebuild() {
+            BookSearchIndex index = newIndex();
+            index.rebuild();
+            Book book = new Book(100L, "Go入門", null, "鈴木一郎", 1L, 100L, 2000, false, null, null);
+
+            // 全件の読み込み中に登録された書籍
+            BookMapper scanningMapper = mock(BookMapper.class);
+            doAnswer(invocation -> {
+                index.add(book);
+                bookMapper.scanSearchFields(invocation.getArgument(0));
+                return null;
+            }).when(scanningMapper).scanSearchFields(any());
+            ReflectionTestUtils.setField(index, "bookMapper", scanningMapper);
+            index.rebuild();
+
+            assertEquals(List.of(100L), keys(index.search("go入門", 10)));
+        }
+
+        @Test
+        void removeDeletedBookAfterBuilt() {
+            BookSearchIndex index = newIndex();
+            index.rebuild();
+
+            index.remove(3L);
+
+            assertEquals(List.of(1L, 4L), keys(index.search("入門", 10)));
+            assertThat(index.search("じゃばー", 10).total()).isEqualTo(0);
+        }
+
+        @Test
+        void dropBooksRemovedDuringRebuild() {
+            BookSearchIndex index = newIndex();
+            index.rebuild();
+
+            // 全件の読み込み中に削除された書籍（読み込みには削除前の行が含まれる）
+            BookMapper scanningMapper = mock(BookMapper.class);
+            doAnswer(invocation -> {
+                bookMapper.scanSearchFields(invocation.getArgument(0));
+                index.remove(3L);
+                return null;
+            }).when(scanningMapper).scanSearchFields(any());
+            ReflectionTestUtils.setField(index, "bookMapper", scanningMapper);
+            index.rebuild();
+
+            assertEquals(List.of(1L, 4L), keys(index.search("入門", 10)));
+        }
+    }
+}
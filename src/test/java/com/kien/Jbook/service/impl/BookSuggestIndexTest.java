@@ -0,0 +1,87 @@
+package com.kien.Jbook.service.impl;
+
+import com.kien.Jbook.mapper.BookMapper;
+import com.kien.Jbook.model.dto.book.SuggestWeight;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * スケジューラは起動せず、テストごとに新しいインデックスを作ってrebuild()を直接呼び出す
+ */
+@MybatisTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class BookSuggestIndexTest {
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    private BookSuggestIndex newIndex(SuggestWeight weight) {
+        BookSuggestIndex index = new BookSuggestIndex();
+        ReflectionTestUtils.setField(index, "bookMapper", bookMapper);
+        ReflectionTestUtils.setField(index, "weight", weight);
+        return index;
+    }
+
+    @Nested
+    @Sql(scripts = {"/schema.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+    @Sql(
+            scripts = {
+                    "/mapper/data/books/getById/publisher.sql",
+                    "/mapper/data/books/getById/user.sql",
+                    "/mapper/data/books/suggest/books.sql"
+            },
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS
+    )
+    class SuggestTest {
+
+        @Test
+        void returnNullBeforeBuilt() {
+            BookSuggestIndex index = newIndex(SuggestWeight.BOOK_COUNT);
+
+            assertThat(index.isLoaded()).isFalse();
+            assertThat(index.suggest("すぷ", 10)).isNull();
+        }
+
+        @Test
+        void suggestByTitleKanaInBookCountOrder() {
+            BookSuggestIndex index = newIndex(SuggestWeight.BOOK_COUNT);
+            index.rebuild();
+
+            // Spring入門は3冊（読みの表記揺れはまとめる）、Spring Batch実践は2冊、論理削除済みのSpring廃刊は含まない
+            assertEquals(List.of("Spring入門", "Spring Batch実践", "スプラッシュ"), index.suggest("すぷ", 10));
+            assertEquals(List.of("Spring入門", "Spring Batch実践"), index.suggest("ｽﾌﾟﾘﾝｸﾞ", 10));
+            assertEquals(List.of("Spring Batch実践"), index.suggest("スプリングバ", 10));
+        }
+
+        @Test
+        void suggestByTitle() {
+            BookSuggestIndex index = newIndex(SuggestWeight.BOOK_COUNT);
+            index.rebuild();
+
+            assertEquals(List.of("Spring入門", "Spring Batch実践"), index.suggest("spring", 10));
+            assertEquals(List.of("Spring Batch実践"), index.suggest("SPRING B", 10));
+            assertEquals(List.of(), index.suggest("java", 10));
+        }
+
+        @Test
+        void suggestInLatestOrder() {
+            BookSuggestIndex index = newIndex(SuggestWeight.LATEST);
+            index.rebuild();
+
+            assertEquals(List.of("Spring Batch実践", "スプラッシュ", "Spring入門"), index.suggest("すぷ", 10));
+            assertEquals(List.of("Spring Batch実践"), index.suggest("すぷ", 1));
+        }
+    }
+}
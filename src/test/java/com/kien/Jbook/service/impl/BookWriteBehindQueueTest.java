@@ -0,0 +1,166 @@
+package com.kien.Jbook.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kien.Jbook.common.cache.BoundedCache;
+import com.kien.Jbook.common.cache.SingleFlight;
+import com.kien.Jbook.common.io.SegmentedAppendLog;
+import com.kien.Jbook.common.jdbc.ReadRouting;
+import com.kien.Jbook.config.ShardingConfig;
+import com.kien.Jbook.mapper.BookMapper;
+import com.kien.Jbook.model.Book;
+import com.kien.Jbook.support.BatchBookData;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static com.kien.Jbook.support.TestBooks.book;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 書き込みスレッドは別トランザクションでコミットするため、テスト自体はトランザクションを張らずに実行する
+ */
+@MybatisTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({BookBatchWriter.class, BookOutbox.class, ShardingConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class BookWriteBehindQueueTest {
+
+    @Autowired
+    private BookBatchWriter bookBatchWriter;
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    @Autowired
+    private BookOutbox bookOutbox;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @TempDir
+    Path logDir;
+
+    private final BookSearchIndex bookSearchIndex = mock(BookSearchIndex.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private BookWriteBehindQueue queue;
+
+    private BookWriteBehindQueue newQueue() throws Exception {
+        BookWriteBehindQueue queue = new BookWriteBehindQueue();
+        ReflectionTestUtils.setField(queue, "bookBatchWriter", bookBatchWriter);
+        ReflectionTestUtils.setField(queue, "bookOutbox", bookOutbox);
+        ReflectionTestUtils.setField(queue, "bookSearchIndex", bookSearchIndex);
+        ReflectionTestUtils.setField(queue, "bookViewCache", BoundedCache.disabled());
+        ReflectionTestUtils.setField(queue, "bookViewSingleFlight", SingleFlight.disabled());
+        ReflectionTestUtils.setField(queue, "bookViewJsonCache", BoundedCache.disabled());
+        ReflectionTestUtils.setField(queue, "readRouting", new ReadRouting(Duration.ofSeconds(5), 100));
+        ReflectionTestUtils.setField(queue, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(queue, "meterRegistry",
+                new StaticListableBeanFactory(Map.of("registry", registry)).getBeanProvider(MeterRegistry.class));
+        ReflectionTestUtils.setField(queue, "enabled", true);
+        ReflectionTestUtils.setField(queue, "queueCapacity", 100);
+        ReflectionTestUtils.setField(queue, "maxBatchSize", 10);
+        ReflectionTestUtils.setField(queue, "maxDelay", Duration.ofMillis(50));
+        ReflectionTestUtils.setField(queue, "retryInterval", Duration.ofMillis(10));
+        ReflectionTestUtils.setField(queue, "awaitTimeout", Duration.ofSeconds(10));
+        ReflectionTestUtils.setField(queue, "shutdownTimeout", Duration.ofSeconds(10));
+        ReflectionTestUtils.setField(queue, "logDir", logDir);
+        ReflectionTestUtils.setField(queue, "segmentSize", DataSize.ofMegabytes(1));
+        ReflectionTestUtils.setField(queue, "fsync", true);
+        queue.init();
+        this.queue = queue;
+        return queue;
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (queue != null) {
+            queue.shutdown();
+        }
+    }
+
+    @Nested
+    @BatchBookData
+    class FlushTest {
+
+        @Test
+        void writeOfferedBooksInGroupCommit() throws Exception {
+            BookWriteBehindQueue queue = newQueue();
+            for (long id = 10; id < 15; id++) {
+                assertThat(queue.offer(book(id, "書籍" + id, 1L))).isTrue();
+            }
+
+            queue.awaitFlushed(List.of(10L, 11L, 12L, 13L, 14L));
+
+            for (long id = 10; id < 15; id++) {
+                assertEquals("書籍" + id, bookMapper.getBookById(id).getTitle());
+            }
+            verify(bookSearchIndex, times(5)).add(any(Book.class));
+            assertThat(queue.getQueueDepth()).isEqualTo(0);
+            // max-delay の間に続きを待つので、5件が1回のコミットにまとまる
+            assertThat(registry.get("jbook.write-behind.batch.size").summary().count()).isEqualTo(1L);
+            assertThat(registry.get("jbook.write-behind.batch.size").summary().totalAmount()).isEqualTo(5.0);
+        }
+
+        @Test
+        void writeFailedBooksToFailedLog() throws Exception {
+            BookWriteBehindQueue queue = newQueue();
+            queue.offer(book(30L, "存在しない出版社", 999L));
+            queue.offer(book(31L, "登録できる書籍", 1L));
+
+            queue.awaitFlushed(List.of(30L, 31L));
+
+            assertNull(bookMapper.getBookById(30L));
+            assertEquals("登録できる書籍", bookMapper.getBookById(31L).getTitle());
+            String failed = Files.readString(logDir.resolve("failed.log"), StandardCharsets.UTF_8);
+            assertThat(failed.contains("存在しない出版社")).isTrue();
+            assertThat(registry.get("jbook.write-behind.failed").counter().count()).isEqualTo(1.0);
+        }
+
+        @Test
+        void recoverBooksLeftInLog() throws Exception {
+            // 前回のプロセスで追記ログに書き込んだが、DBに書き込まれなかった（1件は書き込み済み）
+            SegmentedAppendLog previous = new SegmentedAppendLog(logDir, 1024 * 1024, false);
+            previous.append(objectMapper.writeValueAsString(BookWriteBehindQueue.LogRecord.of(book(1L, "Kotlin入門", 1L))));
+            previous.append(objectMapper.writeValueAsString(BookWriteBehindQueue.LogRecord.of(book(20L, "復旧した書籍", 1L))));
+
+            BookWriteBehindQueue queue = newQueue();
+            // 復旧が終わってから新しい書籍を書き込む
+            queue.offer(book(21L, "新しい書籍", 1L));
+            queue.awaitFlushed(21L);
+
+            assertEquals("復旧した書籍", bookMapper.getBookById(20L).getTitle());
+            assertEquals("Kotlin入門", bookMapper.getBookById(1L).getTitle());
+            assertThat(registry.get("jbook.write-behind.recovered").counter().count()).isEqualTo(1.0);
+        }
+    }
+}
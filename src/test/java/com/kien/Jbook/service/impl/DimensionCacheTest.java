@@ -0,0 +1,106 @@
+package com.kien.Jbook.service.impl;
+
+import com.kien.Jbook.mapper.BookMapper;
+import com.kien.Jbook.mapper.PublisherMapper;
+import com.kien.Jbook.mapper.UserMapper;
+import com.kien.Jbook.model.Book;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+/**
+ * スケジューラは起動せず、テストごとに新しいキャッシュを作ってrefresh()を直接呼び出す
+ */
+@MybatisTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class DimensionCacheTest {
+
+    @Autowired
+    private PublisherMapper publisherMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private BookMapper bookMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private DimensionCache newCache() {
+        DimensionCache cache = new DimensionCache();
+        ReflectionTestUtils.setField(cache, "publisherMapper", publisherMapper);
+        ReflectionTestUtils.setField(cache, "userMapper", userMapper);
+        return cache;
+    }
+
+    @Nested
+    @Sql(scripts = {"/schema.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+    @Sql(
+            scripts = {
+                    "/mapper/data/books/getById/publisher.sql",
+                    "/mapper/data/books/getById/user.sql",
+                    "/mapper/data/books/getById/books.sql"
+            },
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS
+    )
+    class ToBookViewTest {
+
+        @Test
+        void returnNullBeforeLoaded() {
+            DimensionCache cache = newCache();
+
+            assertThat(cache.isLoaded()).isFalse();
+            assertThat(cache.toBookView(bookMapper.getBookById(1L))).isNull();
+        }
+
+        @Test
+        void assembleSameBookViewAsJoinQuery() {
+            DimensionCache cache = newCache();
+            cache.refresh();
+
+            // 3: 出版社が論理削除済み、4: ユーザーが論理削除済み
+            for (long id : new long[]{1L, 3L, 4L}) {
+                assertThat(cache.toBookView(bookMapper.getBookById(id))).isEqualTo(bookMapper.getById(id));
+            }
+        }
+
+        @Test
+        void shareNameInstancesAcrossBookViews() {
+            DimensionCache cache = newCache();
+            cache.refresh();
+
+            String first = cache.toBookView(bookMapper.getBookById(1L)).getPublisherName();
+            String second = cache.toBookView(bookMapper.getBookById(4L)).getPublisherName();
+
+            assertThat(first).isSameAs(second);
+        }
+
+        @Test
+        void returnNullWhenReferencedIdIsNotCached() {
+            DimensionCache cache = newCache();
+            cache.refresh();
+            LocalDateTime now = LocalDateTime.now();
+
+            Book book = new Book(10L, "Go入門", null, "山田太郎", 3L, 100L, 2000, false, now, now);
+
+            assertThat(cache.toBookView(book)).isNull();
+
+            jdbcTemplate.update("INSERT INTO publisher (id, name) VALUES (3, '新規出版社')");
+            cache.refresh();
+
+            assertThat(cache.toBookView(book).getPublisherName()).isEqualTo("新規出版社");
+        }
+    }
+}
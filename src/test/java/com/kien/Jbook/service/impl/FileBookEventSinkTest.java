@@ -0,0 +1,53 @@
+package com.kien.Jbook.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kien.Jbook.model.dto.BookOutboxEvent;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FileBookEventSinkTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    private BookOutboxEvent event(long id, long bookId) {
+        return new BookOutboxEvent(id, bookId, BookOutboxEvent.REGISTERED,
+                "{\"id\":" + bookId + ",\"title\":\"Go入門\"}", LocalDateTime.of(2025, 5, 4, 13, 20, 10));
+    }
+
+    @Nested
+    class PublishTest {
+
+        @Test
+        void appendOneJsonLinePerEvent() throws Exception {
+            Path path = dir.resolve("outbox/events.jsonl");
+            FileBookEventSink sink = new FileBookEventSink(path, true, objectMapper);
+
+            sink.publish(List.of(event(1, 10), event(2, 11)));
+            sink.publish(List.of(event(3, 12)));
+
+            List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+            assertEquals(3, lines.size());
+            JsonNode first = objectMapper.readTree(lines.get(0));
+            assertEquals(1, first.get("id").asLong());
+            assertEquals(10, first.get("bookId").asLong());
+            assertEquals("REGISTERED", first.get("eventType").asText());
+            assertEquals("2025-05-04T13:20:10", first.get("createdAt").asText());
+            // payloadは文字列ではなくJSONのまま埋め込まれる
+            assertEquals("Go入門", first.get("payload").get("title").asText());
+            assertEquals(12, objectMapper.readTree(lines.get(2)).get("bookId").asLong());
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.kien.Jbook.service.impl;
+
+import com.kien.Jbook.mapper.PublisherMapper;
+import com.kien.Jbook.mapper.UserMapper;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * スケジューラは起動せず、テストごとに新しいインデックスを作ってrefresh()を直接呼び出す
+ */
+@MybatisTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+public class ForeignKeyIndexTest {
+
+    @Autowired
+    private PublisherMapper publisherMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ForeignKeyIndex newIndex() {
+        ForeignKeyIndex index = new ForeignKeyIndex();
+        ReflectionTestUtils.setField(index, "publisherMapper", publisherMapper);
+        ReflectionTestUtils.setField(index, "userMapper", userMapper);
+        ReflectionTestUtils.setField(index, "fullReloadInterval", Duration.ofMinutes(10));
+        return index;
+    }
+
+    @Nested
+    @Sql(scripts = {"/schema.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+    @Sql(
+            scripts = {
+                    "/mapper/data/books/getById/publisher.sql",
+                    "/mapper/data/books/getById/user.sql"
+            },
+            executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS
+    )
+    class RefreshTest {
+
+        @Test
+        void notJudgeBeforeLoaded() {
+            ForeignKeyIndex index = newIndex();
+
+            assertThat(index.isMissingPublisher(999L)).isFalse();
+            assertThat(index.isMissingUser(999L)).isFalse();
+        }
+
+        @Test
+        void judgeMissingIdsAfterLoaded() {
+            ForeignKeyIndex index = newIndex();
+
+            index.refresh();
+
+            assertThat(index.isMissingPublisher(1L)).isFalse();
+            // 論理削除済みでも外部キー制約上は有効
+            assertThat(index.isMissingPublisher(2L)).isFalse();
+            assertThat(index.isMissingPublisher(999L)).isTrue();
+            assertThat(index.isMissingUser(101L)).isFalse();
+            assertThat(index.isMissingUser(1L)).isTrue();
+            assertThat(index.isMissingUser(null)).isFalse();
+        }
+
+        @Test
+        void addNewIdsOnRefresh() {
+            ForeignKeyIndex index = newIndex();
+            index.refresh();
+            jdbcTemplate.update("INSERT INTO publisher (id, name) VALUES (3, '新規出版社')");
+            jdbcTemplate.update("INSERT INTO `user` (id, name) VALUES (200, '新規ユーザー')");
+
+            index.refresh();
+
+            assertThat(index.isMissingPublisher(3L)).isFalse();
+            assertThat(index.isMissingPublisher(1L)).isFalse();
+            assertThat(index.isMissingUser(200L)).isFalse();
+        }
+
+        @Test
+        void checkDatabaseForIdsRegisteredAfterLoaded() {
+            ForeignKeyIndex index = newIndex();
+            index.refresh();
+            jdbcTemplate.update("INSERT INTO publisher (id, name) VALUES (4, '新規出版社')");
+            jdbcTemplate.update("INSERT INTO `user` (id, name) VALUES (300, '新規ユーザー')");
+
+            // 次の読み込みの前でも存在しないとは判定しない
+            assertThat(index.isMissingPublisher(4L)).isFalse();
+            assertThat(index.isMissingUser(300L)).isFalse();
+            assertThat(index.isMissingPublisher(999L)).isTrue();
+        }
+
+        @Test
+        void rejectIdsUpToMaxIdWithoutQueryingDatabase() {
+            // 読み込みは実際のDBで行い、存在確認の呼び出しだけを数える
+            UserMapper countingUserMapper = mock(UserMapper.class);
+            doAnswer(invocation -> {
+                userMapper.scanIdsAfter(invocation.getArgument(0), invocation.getArgument(1));
+                return null;
+            }).when(countingUserMapper).scanIdsAfter(anyLong(), any());
+            when(countingUserMapper.existsById(anyLong())).thenReturn(false);
+            ForeignKeyIndex index = newIndex();
+            ReflectionTestUtils.setField(index, "userMapper", countingUserMapper);
+            index.refresh();
+
+            // 読み込んだユーザーIDは100・101
+            assertThat(index.isMissingUser(1L)).isTrue();
+            assertThat(index.isMissingUser(99L)).isTrue();
+            verify(countingUserMapper, never()).existsById(anyLong());
+
+            assertThat(index.isMissingUser(102L)).isTrue();
+            verify(countingUserMapper).existsById(102L);
+        }
+    }
+}
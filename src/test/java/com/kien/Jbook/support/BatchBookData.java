@@ -0,0 +1,27 @@
+package com.kien.Jbook.support;
+
+import org.springframework.test.context.jdbc.Sql;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * テストクラスの前にスキーマを作り直し、mapper/data/books/batch の出版社・ユーザー・書籍を登録する
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Sql(scripts = {"/schema.sql"}, executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+@Sql(
+        scripts = {
+                "/mapper/data/books/batch/publisher.sql",
+                "/mapper/data/books/batch/user.sql",
+                "/mapper/data/books/batch/books.sql"
+        },
+        executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS
+)
+public @interface BatchBookData {
+}
@@ -0,0 +1,25 @@
+package com.kien.Jbook.support;
+
+import com.kien.Jbook.model.Book;
+
+import java.time.LocalDateTime;
+
+/**
+ * 書き込み系のテストで登録する書籍
+ */
+public final class TestBooks {
+    public static final LocalDateTime CURRENT_TIME = LocalDateTime.of(2025, 5, 4, 13, 20, 10);
+
+    private TestBooks() {
+    }
+
+    /**
+     * @param id nullの場合はINSERT時に採番される
+     * @param title
+     * @param publisherId
+     * @return ユーザーID 100、価格 2500、登録日時・更新日時が CURRENT_TIME の書籍
+     */
+    public static Book book(Long id, String title, Long publisherId) {
+        return new Book(id, title, null, "佐藤花子", publisherId, 100L, 2500, false, CURRENT_TIME, CURRENT_TIME);
+    }
+}
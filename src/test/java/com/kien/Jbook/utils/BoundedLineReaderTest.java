@@ -0,0 +1,39 @@
+package com.kien.Jbook.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BoundedLineReaderTest {
+
+    @Test
+    void readLinesWithAnyLineSeparator() throws IOException {
+        BoundedLineReader reader = new BoundedLineReader(new StringReader("a\r\nb\rc\n\nd"), 10);
+
+        assertThat(reader.readLine()).isEqualTo("a");
+        assertThat(reader.readLine()).isEqualTo("b");
+        assertThat(reader.readLine()).isEqualTo("c");
+        assertThat(reader.readLine()).isEqualTo("");
+        assertThat(reader.readLine()).isEqualTo("d");
+        assertThat(reader.readLine()).isNull();
+        assertThat(reader.getLineNumber()).isEqualTo(5L);
+    }
+
+    @Test
+    void skipLineLongerThanMaxLengthAndContinue() throws IOException {
+        // バッファ(8192文字)をまたぐ長さの行
+        String longLine = "x".repeat(20_000);
+        BoundedLineReader reader = new BoundedLineReader(new StringReader("12345\n" + longLine + "\r\nok"), 5);
+
+        assertThat(reader.readLine()).isEqualTo("12345");
+        RecordTooLongException e = assertThrows(RecordTooLongException.class, reader::readLine);
+        assertEquals(2L, e.getRecordNumber());
+        assertThat(reader.readLine()).isEqualTo("ok");
+        assertThat(reader.readLine()).isNull();
+    }
+}
@@ -0,0 +1,59 @@
+package com.kien.Jbook.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CsvRecordReaderTest {
+
+    @Test
+    void readRecordsOneByOne() throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader("id,title\r\n1,Kotlin入門\n2,Java入門"));
+
+        assertThat(reader.readRecord()).isEqualTo(List.of("id", "title"));
+        assertThat(reader.readRecord()).isEqualTo(List.of("1", "Kotlin入門"));
+        assertThat(reader.readRecord()).isEqualTo(List.of("2", "Java入門"));
+        assertThat(reader.readRecord()).isNull();
+        assertThat(reader.getRecordNumber()).isEqualTo(3L);
+    }
+
+    @Test
+    void readQuotedFields() throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader("\"a,b\",\"say \"\"hi\"\"\",\"line1\nline2\",\n"));
+
+        assertThat(reader.readRecord()).isEqualTo(List.of("a,b", "say \"hi\"", "line1\nline2", ""));
+        assertThat(reader.readRecord()).isNull();
+    }
+
+    @Test
+    void skipByteOrderMark() throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader("\uFEFFid,title\n"));
+
+        assertThat(reader.readRecord()).isEqualTo(List.of("id", "title"));
+    }
+
+    @Test
+    void throwIOExceptionWhenQuoteIsNotClosed() {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader("\"abc"));
+
+        assertThrows(IOException.class, reader::readRecord);
+    }
+
+    @Test
+    void skipRecordLongerThanMaxLengthAndContinue() throws IOException {
+        // 上限を超えた後も、クォート内の改行・カンマはレコードの区切りとして扱わない
+        CsvRecordReader reader = new CsvRecordReader(
+                new StringReader("id,title\n1,\"" + "x".repeat(100) + "\n,\"\n2,Go入門\n"), 10);
+
+        assertThat(reader.readRecord()).isEqualTo(List.of("id", "title"));
+        RecordTooLongException e = assertThrows(RecordTooLongException.class, reader::readRecord);
+        assertThat(e.getRecordNumber()).isEqualTo(2L);
+        assertThat(reader.readRecord()).isEqualTo(List.of("2", "Go入門"));
+        assertThat(reader.readRecord()).isNull();
+    }
+}
@@ -0,0 +1,24 @@
+package com.kien.Jbook.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class StringUtilsTest {
+
+    @Test
+    void convertSnakeCaseToCamelCase() {
+        assertEquals("publisherId", StringUtils.toCamelCase("publisher_id"));
+        assertEquals("titleKana", StringUtils.toCamelCase("title_KANA"));
+        assertEquals("id", StringUtils.toCamelCase("id"));
+        assertEquals("createdAtTime", StringUtils.toCamelCase("created_at_time"));
+        assertNull(StringUtils.toCamelCase(null));
+    }
+
+    @Test
+    void ignoreRepeatedAndTrailingUnderscores() {
+        assertEquals("publisherId", StringUtils.toCamelCase("publisher__id_"));
+        assertEquals("Id", StringUtils.toCamelCase("_id"));
+    }
+}
@@ -0,0 +1,9 @@
+INSERT INTO books
+    (id, title, title_kana, author, publisher_id, user_id, price, is_deleted, created_at, updated_at, deleted_at)
+VALUES
+    (1, 'Kotlin入門', 'コトリン ニュウモン', '山田太郎', 1, 100, 2500, FALSE, '2020-01-01 10:00:00', '2020-01-01 10:00:00', NULL),
+    (2, 'PHP入門', 'ピーエイチピー ニュウモン', '田中太郎', 1, 100, 2000, TRUE, '2020-01-01 10:00:00', '2020-01-02 10:00:00', '2020-01-02 10:00:00'),
+    (3, 'Java入門', 'ジャバー ニュウモン', '田中太郎', 2, 100, 2000, TRUE, '2020-01-01 10:00:00', '2020-01-03 10:00:00', '2020-01-03 10:00:00'),
+    (4, 'Spring Boot 入門', 'スプリング ブート ニュウモン', '佐藤次郎', 1, 101, 3000, TRUE, '2020-01-01 10:00:00', '2020-01-01 10:00:00', NULL),
+    (5, 'Go入門', 'ゴー ニュウモン', '山田太郎', 1, 100, 2800, TRUE, '2020-01-01 10:00:00', '2999-01-01 10:00:00', '2999-01-01 10:00:00'),
+    (6, 'Rust入門', 'ラスト ニュウモン', '佐藤次郎', 1, 100, 3200, TRUE, '2020-01-01 10:00:00', '2020-01-01 12:00:00', '2020-01-01 12:00:00');
@@ -0,0 +1,5 @@
+INSERT INTO publisher
+    (id, name, is_deleted)
+VALUES
+    (1, '技術出版社', FALSE),
+    (2, '科学出版社', TRUE);
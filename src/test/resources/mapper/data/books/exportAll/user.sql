@@ -0,0 +1,5 @@
+INSERT INTO `user`
+    (id, name, is_deleted)
+VALUES
+    (100, 'テストユーザー', FALSE),
+    (101, '佐藤花子', TRUE);
@@ -0,0 +1,10 @@
+INSERT INTO books
+    (id, title, title_kana, author, publisher_id, user_id, price, is_deleted, created_at, updated_at)
+VALUES
+    (1, 'Spring入門', 'スプリング ニュウモン', '山田太郎', 1, 100, 2500, FALSE, '2023-01-01 10:00:00', '2023-01-01 10:00:00'),
+    (2, 'Spring入門', 'スプリング ニュウモン', '田中太郎', 1, 100, 2500, FALSE, '2023-01-02 10:00:00', '2023-01-02 10:00:00'),
+    (3, 'Spring入門', 'スプリングニュウモン', '佐藤次郎', 1, 100, 2500, FALSE, '2023-01-03 10:00:00', '2023-01-03 10:00:00'),
+    (4, 'Spring Batch実践', 'スプリング バッチ ジッセン', '山田太郎', 1, 100, 3000, FALSE, '2024-06-01 10:00:00', '2024-06-01 10:00:00'),
+    (5, 'Spring Batch実践', 'スプリング バッチ ジッセン', '佐藤次郎', 1, 100, 3000, FALSE, '2024-01-01 10:00:00', '2024-01-01 10:00:00'),
+    (6, 'スプラッシュ', NULL, '田中太郎', 1, 100, 1500, FALSE, '2023-05-01 10:00:00', '2023-05-01 10:00:00'),
+    (7, 'Spring廃刊', 'スプリング ハイカン', '田中太郎', 1, 100, 1500, TRUE, '2025-01-01 10:00:00', '2025-01-01 10:00:00');